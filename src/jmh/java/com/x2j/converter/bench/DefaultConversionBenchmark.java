@@ -0,0 +1,52 @@
+package com.x2j.converter.bench;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+
+/**
+ * Measures the default conversion (without a schema), from the DOM and while
+ * streaming the XML text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultConversionBenchmark {
+
+	/**
+	 * Converts the parsed document.
+	 *
+	 * @param state the benchmark input
+	 * @return the converted JSON
+	 * @throws X2JException X2JException
+	 */
+	@Benchmark
+	public JSONObject convertDom(X2JBenchmarkState state) throws X2JException {
+		return state.converter.convertToJson(state.document);
+	}
+
+	/**
+	 * Streams the XML text to JSON text.
+	 *
+	 * @param state the benchmark input
+	 * @throws X2JException X2JException
+	 */
+	@Benchmark
+	public void stream(X2JBenchmarkState state) throws X2JException {
+		state.converter.streamToJson(new StringReader(state.xml), (CompiledSchema) null, state.discardWriter);
+	}
+
+}
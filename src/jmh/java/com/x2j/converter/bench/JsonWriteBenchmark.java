@@ -0,0 +1,74 @@
+package com.x2j.converter.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * Measures the writing of the converted JSON, compared with building the JSON
+ * text with {@link JSONObject#toString(int)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonWriteBenchmark {
+
+	/**
+	 * The indent factor, 0 for compact output.
+	 */
+	@Param({ "0", "4" })
+	public int indentFactor;
+
+	private JSONObject json;
+
+	/**
+	 * Converts the document to get the JSON to write.
+	 *
+	 * @param state the benchmark input
+	 * @throws X2JException X2JException
+	 */
+	@Setup(Level.Trial)
+	public void convert(X2JBenchmarkState state) throws X2JException {
+		json = state.converter.convertToJson(state.document);
+	}
+
+	/**
+	 * Writes the JSON to a discarding output stream.
+	 *
+	 * @param state the benchmark input
+	 * @throws X2JException X2JException
+	 */
+	@Benchmark
+	public void writeJson(X2JBenchmarkState state) throws X2JException {
+		X2JUtils.writeJson(json, state.discard, indentFactor);
+	}
+
+	/**
+	 * Builds the JSON text.
+	 *
+	 * @return the JSON text
+	 */
+	@Benchmark
+	public String toJsonString() {
+		return json.toString(indentFactor);
+	}
+
+}
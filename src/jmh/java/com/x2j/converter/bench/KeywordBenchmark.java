@@ -0,0 +1,98 @@
+package com.x2j.converter.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+
+/**
+ * Measures the schema conversion with one keyword at a time. Every schema has
+ * the same four fields, reading an attribute of the root, a header element,
+ * the first record and the last record, through the given keyword.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeywordBenchmark {
+
+	private static final String[] PATHS = { "/Root/@Id", "/Root/Header/Title", "/Root/Records/Record[1]/Name",
+			"/Root/Records/Record[last()]/Code" };
+
+	/**
+	 * The keyword used by all the fields of the schema.
+	 */
+	@Param({ "XPATH", "VALUE", "CONCAT", "LEN", "UPPER", "LOWER", "SUBSTR" })
+	public String keyword;
+
+	private JSONObject schemaJson;
+
+	private CompiledSchema schema;
+
+	/**
+	 * Builds and compiles the schema for the keyword.
+	 *
+	 * @throws X2JException X2JException
+	 */
+	@Setup(Level.Trial)
+	public void compile() throws X2JException {
+		schemaJson = new JSONObject();
+		for (int i = 0; i < PATHS.length; i++) {
+			schemaJson.put("Field" + i, getValue(PATHS[i]));
+		}
+		schema = CompiledSchema.compile(schemaJson);
+	}
+
+	/**
+	 * Converts the document with the compiled schema.
+	 *
+	 * @param state the benchmark input
+	 * @return the converted JSON
+	 * @throws X2JException X2JException
+	 */
+	@Benchmark
+	public JSONObject convertCompiled(X2JBenchmarkState state) throws X2JException {
+		return state.converter.convertToJson(state.document, schema);
+	}
+
+	/**
+	 * Converts the document with the schema JSON, i.e. compiling the schema for
+	 * every conversion.
+	 *
+	 * @param state the benchmark input
+	 * @return the converted JSON
+	 * @throws X2JException X2JException
+	 */
+	@Benchmark
+	public JSONObject convertSchemaJson(X2JBenchmarkState state) throws X2JException {
+		return state.converter.convertToJson(state.document, schemaJson);
+	}
+
+	private String getValue(String path) {
+		switch (keyword) {
+		case "CONCAT":
+			return "CONCAT(" + path + ", -, " + PATHS[0] + ")";
+		case "SUBSTR":
+			return "SUBSTR(" + path + ", 0, 1)";
+		default:
+			return keyword + "(" + path + ")";
+		}
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.x2j.converter.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * Measures the parsing of the XML text into a DOM.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	/**
+	 * Parses the generated XML.
+	 *
+	 * @param state the benchmark input
+	 * @return the parsed document
+	 * @throws X2JException X2JException
+	 */
+	@Benchmark
+	public Document parseDom(X2JBenchmarkState state) throws X2JException {
+		return X2JUtils.getXmlFromString(state.xml);
+	}
+
+}
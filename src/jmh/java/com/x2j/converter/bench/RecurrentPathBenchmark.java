@@ -0,0 +1,73 @@
+package com.x2j.converter.bench;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+
+/**
+ * Measures the expansion of a <code>recurrent_path</code> over all the
+ * records, from the DOM and while streaming the XML text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecurrentPathBenchmark {
+
+	private static final String SCHEMA = "{\"Title\": \"VALUE(/Root/Header/Title)\", \"Records\": [{"
+			+ "\"recurrent_path\": \"/Root/Records/Record\", \"Id\": \"RECUR_ELEM(/@Id):INT\","
+			+ " \"Type\": \"RECUR_ELEM(/@Type)\", \"Name\": \"RECUR_ELEM(/Name)\", \"Code\": \"RECUR_ELEM(/Code)\"}]}";
+
+	private CompiledSchema schema;
+
+	/**
+	 * Compiles the schema.
+	 *
+	 * @throws X2JException X2JException
+	 */
+	@Setup(Level.Trial)
+	public void compile() throws X2JException {
+		schema = CompiledSchema.compile(SCHEMA);
+	}
+
+	/**
+	 * Converts the parsed document.
+	 *
+	 * @param state the benchmark input
+	 * @return the converted JSON
+	 * @throws X2JException X2JException
+	 */
+	@Benchmark
+	public JSONObject convertDom(X2JBenchmarkState state) throws X2JException {
+		return state.converter.convertToJson(state.document, schema);
+	}
+
+	/**
+	 * Streams the XML text to JSON text.
+	 *
+	 * @param state the benchmark input
+	 * @throws X2JException X2JException
+	 */
+	@Benchmark
+	public void stream(X2JBenchmarkState state) throws X2JException {
+		state.converter.streamToJson(new StringReader(state.xml), schema, state.discardWriter);
+	}
+
+}
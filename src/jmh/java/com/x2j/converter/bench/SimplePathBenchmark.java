@@ -0,0 +1,87 @@
+package com.x2j.converter.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JSimplePath;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * Compares the resolution of simple paths by walking the DOM with the JAXP
+ * XPath engine, for an attribute of the root, a header element and the list of
+ * records.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimplePathBenchmark {
+
+	/**
+	 * The path that is resolved.
+	 */
+	@Param({ "/Root/@Id", "/Root/Header/Title", "/Root/Records/Record" })
+	public String path;
+
+	private X2JSimplePath simplePath;
+
+	/**
+	 * Classifies the path.
+	 */
+	@Setup(Level.Trial)
+	public void compile() {
+		simplePath = X2JSimplePath.compile(path);
+	}
+
+	/**
+	 * Resolves the path by walking the DOM.
+	 *
+	 * @param state the benchmark input
+	 * @return the result
+	 * @throws X2JException X2JException
+	 */
+	@Benchmark
+	public Object simplePath(X2JBenchmarkState state) throws X2JException {
+		return resolve(state.document.getDocumentElement(), simplePath);
+	}
+
+	/**
+	 * Resolves the path with the JAXP XPath engine.
+	 *
+	 * @param state the benchmark input
+	 * @return the result
+	 * @throws X2JException X2JException
+	 */
+	@Benchmark
+	public Object jaxp(X2JBenchmarkState state) throws X2JException {
+		return resolve(state.document.getDocumentElement(), null);
+	}
+
+	private Object resolve(Element root, X2JSimplePath simplePath) throws X2JException {
+		if (path.contains("@")) {
+			return X2JUtils.getXpathAttribute(root, path, simplePath);
+		} else if (path.endsWith("Record")) {
+			NodeList nodes = X2JUtils.getNodesFromXPath(root, path, simplePath);
+			return nodes.getLength();
+		}
+		return X2JUtils.getXpathElement(root, path, simplePath);
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.x2j.converter.bench;
+
+import java.io.OutputStream;
+import java.io.Writer;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.w3c.dom.Document;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * The input shared by the benchmarks: a generated XML document of the given
+ * number of records and depth, as text and as a parsed DOM.
+ */
+@State(Scope.Benchmark)
+public class X2JBenchmarkState {
+
+	/**
+	 * The number of Record elements.
+	 */
+	@Param({ "100", "10000" })
+	public int records;
+
+	/**
+	 * The nesting depth inside every record.
+	 */
+	@Param({ "2", "16" })
+	public int depth;
+
+	/**
+	 * The generated XML.
+	 */
+	public String xml;
+
+	/**
+	 * The parsed XML.
+	 */
+	public Document document;
+
+	/**
+	 * The converter.
+	 */
+	public final XMLToJSONConverter converter = new XMLToJSONConverter();
+
+	/**
+	 * An output stream that discards everything written to it.
+	 */
+	public final OutputStream discard = new OutputStream() {
+
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+
+	};
+
+	/**
+	 * A writer that discards everything written to it.
+	 */
+	public final Writer discardWriter = new Writer() {
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+		}
+
+		@Override
+		public void write(int c) {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+
+	};
+
+	/**
+	 * Generates and parses the document.
+	 *
+	 * @throws X2JException if the document cannot be parsed
+	 */
+	@Setup(Level.Trial)
+	public void generate() throws X2JException {
+		xml = X2JXmlGenerator.generate(records, depth);
+		document = X2JUtils.getXmlFromString(xml);
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.x2j.converter.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generates synthetic XML documents for the benchmarks.<br>
+ * A document has a header and the given number of <code>Record</code>
+ * elements, each with attributes, a few text fields and a chain of nested
+ * elements of the given depth:
+ * 
+ * <pre>
+ * &lt;Root Id="R-1" Created="2024-01-01"&gt;
+ *   &lt;Header&gt;&lt;Title&gt;...&lt;/Title&gt;&lt;Count&gt;...&lt;/Count&gt;&lt;/Header&gt;
+ *   &lt;Records&gt;
+ *     &lt;Record Id="1" Type="T1"&gt;
+ *       &lt;Name&gt;...&lt;/Name&gt;&lt;Amount&gt;...&lt;/Amount&gt;&lt;Active&gt;...&lt;/Active&gt;&lt;Code&gt;...&lt;/Code&gt;
+ *       &lt;Nested&gt;&lt;Level1&gt;&lt;Level2&gt;...&lt;/Level2&gt;&lt;/Level1&gt;&lt;/Nested&gt;
+ *     &lt;/Record&gt;
+ *   &lt;/Records&gt;
+ * &lt;/Root&gt;
+ * </pre>
+ * 
+ * The content is random but repeatable, hence every run of a benchmark works
+ * on the same document.
+ */
+public final class X2JXmlGenerator {
+
+	private static final String[] WORDS = { "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel",
+			"india", "juliett", "kilo", "lima" };
+
+	private X2JXmlGenerator() {
+	}
+
+	/**
+	 * Generates a document.
+	 *
+	 * @param records the number of Record elements
+	 * @param depth   the nesting depth below the Nested element of every record
+	 * @return the XML document
+	 */
+	public static String generate(int records, int depth) {
+		Random random = new Random(records * 31L + depth);
+		StringBuilder xml = new StringBuilder(records * (160 + depth * 20) + 200);
+		xml.append("<Root Id=\"R-").append(records).append("\" Created=\"2024-01-01\">");
+		xml.append("<Header><Title>Synthetic Document &amp; Records</Title><Count>").append(records)
+				.append("</Count></Header>");
+		xml.append("<Records>");
+		for (int i = 1; i <= records; i++) {
+			xml.append("<Record Id=\"").append(i).append("\" Type=\"T").append(i % 5).append("\">");
+			xml.append("<Name>").append(words(random, 3)).append("</Name>");
+			xml.append("<Amount>").append(random.nextInt(100000) / 100.0).append("</Amount>");
+			xml.append("<Active>").append(random.nextBoolean()).append("</Active>");
+			xml.append("<Code>CODE-").append(Integer.toHexString(random.nextInt()).toUpperCase()).append("</Code>");
+			xml.append("<Nested>");
+			for (int level = 1; level <= depth; level++) {
+				xml.append("<Level").append(level).append('>');
+			}
+			xml.append(words(random, 2));
+			for (int level = depth; level >= 1; level--) {
+				xml.append("</Level").append(level).append('>');
+			}
+			xml.append("</Nested>");
+			xml.append("</Record>");
+		}
+		xml.append("</Records></Root>");
+		return xml.toString();
+	}
+
+	/**
+	 * Writes a generated document to a file.<br>
+	 * <b>Usage</b>: X2JXmlGenerator OUTPUT_FILE [RECORDS] [DEPTH]
+	 *
+	 * @param args the output file, the number of records (1000 by default) and
+	 *             the depth (4 by default)
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		int records = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		int depth = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		Files.write(Paths.get(args[0]), generate(records, depth).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String words(Random random, int count) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			builder.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return builder.toString();
+	}
+
+}
@@ -2,26 +2,47 @@ package com.x2j.converter;
 
 import static com.x2j.converter.utils.X2JConstants.JSON_SCHEMA_ELEMENT;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 
 import org.json.JSONObject;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import org.w3c.dom.Node;
 
+import com.x2j.converter.cache.X2JSchemaCache;
 import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.metrics.X2JMetrics;
 import com.x2j.converter.mgr.X2JConversionManager;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.mgr.stream.X2JStreamingManager;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JJsonWriter;
 import com.x2j.converter.utils.X2JUtils;
 
 /**
  * The class XMLToJSONConverter is the starting point.<br>
  * This exposes various methods for the XML to JSON conversion.<br>
  * It accepts the input XML and the schema JSON as String or as a File
- * object.<br>
+ * object. The input XML can also be read from an InputStream or a
+ * ReadableByteChannel.<br>
  * Before initiating the conversion logic, this class tries to figure out the
  * JSON schema, if not explicitly passed as argument.<br>
  * If the JSON schema is not found, the default conversion logic will be
- * applied.
+ * applied.<br>
+ * The parse, compile, conversion and serialization times can be collected by
+ * installing a listener with {@link X2JMetrics#setListener}.
  */
 public class XMLToJSONConverter {
 
@@ -29,7 +50,8 @@ public class XMLToJSONConverter {
 	 * Convert XML to JSON. The schema should be part of the XML element.<br>
 	 * If the schema definition is present as a child of the root element, under the
 	 * tag <b>JSONSchema</b>, then that schema definition will be considered for
-	 * conversion. <br>
+	 * conversion. The embedded schema is compiled once and reused for the
+	 * documents that carry the same schema text (see {@link X2JSchemaCache}).<br>
 	 * Otherwise, the default conversion logic will be applied.
 	 *
 	 * @param inDoc the input XML document
@@ -39,7 +61,9 @@ public class XMLToJSONConverter {
 	public JSONObject convertToJson(Document inDoc) throws X2JException {
 		Element root = inDoc.getDocumentElement();
 		String jsonSchema = determineJsonSchema(root);
-		JSONObject json = convertToJson(inDoc, jsonSchema);
+		CompiledSchema schema = X2JUtils.isVoid(jsonSchema) ? null
+				: X2JSchemaCache.getInstance().getSchema(jsonSchema);
+		JSONObject json = convertToJson(inDoc, schema);
 		return json;
 	}
 
@@ -71,16 +95,80 @@ public class XMLToJSONConverter {
 	 * @throws X2JException if there is any error during the conversion process.
 	 */
 	public JSONObject convertToJson(Document inDoc, JSONObject jsonSchemaObj) throws X2JException {
+		CompiledSchema schema = X2JUtils.isVoid(jsonSchemaObj) ? null : CompiledSchema.compile(jsonSchemaObj);
+		return convertToJson(inDoc, schema);
+	}
+
+	/**
+	 * Convert XML to JSON. The schema is explicitly passed as a CompiledSchema
+	 * argument.<br>
+	 * A compiled schema can be reused for any number of conversions; it is never
+	 * modified by the conversion process.<br>
+	 * The default conversion logic will only get applied when the schema is null.
+	 *
+	 * @param inDoc  the input XML document
+	 * @param schema the compiled JSON schema
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(Document inDoc, CompiledSchema schema) throws X2JException {
 		Element root = inDoc.getDocumentElement();
 		JSONObject returnJSON = null;
-		if (X2JUtils.isVoid(jsonSchemaObj)) {
+		if (X2JUtils.isVoid(schema)) {
 			returnJSON = X2JConversionManager.getInstance().processJSONObject(root);
 		} else {
-			returnJSON = X2JConversionManager.getInstance().processJSONObject(jsonSchemaObj, root);
+			returnJSON = X2JConversionManager.getInstance().processJSONObject(schema, root);
 		}
 		return returnJSON;
 	}
 
+	/**
+	 * Convert XML to JSON and write the JSON as the next value of the JSON
+	 * writer. The schema should be part of the XML element, as for
+	 * {@link #convertToJson(Document)}.<br>
+	 * Otherwise, the default conversion logic will be applied.
+	 *
+	 * @param inDoc the input XML document
+	 * @param out   the JSON writer, which is neither flushed nor closed
+	 * @throws X2JException if there is any error during the conversion process or
+	 *                      the JSON cannot be written.
+	 */
+	public void writeJson(Document inDoc, X2JJsonWriter out) throws X2JException {
+		String jsonSchema = determineJsonSchema(inDoc.getDocumentElement());
+		CompiledSchema schema = X2JUtils.isVoid(jsonSchema) ? null
+				: X2JSchemaCache.getInstance().getSchema(jsonSchema);
+		writeJson(inDoc, schema, out);
+	}
+
+	/**
+	 * Convert XML to JSON and write the JSON as the next value of the JSON
+	 * writer. The schema is explicitly passed as a CompiledSchema argument.<br>
+	 * With a schema, no JSON object is generated: the values are written as soon
+	 * as they are resolved, and the <b>:INT</b>, <b>:DBL</b> and <b>:BOOL</b>
+	 * values are written without being boxed. The output is the same JSON as
+	 * {@link #convertToJson(Document, CompiledSchema)} generates.<br>
+	 * The default conversion logic will only get applied when the schema is null.
+	 *
+	 * @param inDoc  the input XML document
+	 * @param schema the compiled JSON schema
+	 * @param out    the JSON writer, which is neither flushed nor closed
+	 * @throws X2JException if there is any error during the conversion process or
+	 *                      the JSON cannot be written.
+	 */
+	public void writeJson(Document inDoc, CompiledSchema schema, X2JJsonWriter out) throws X2JException {
+		Element root = inDoc.getDocumentElement();
+		if (X2JUtils.isVoid(schema)) {
+			JSONObject json = X2JConversionManager.getInstance().processJSONObject(root);
+			try {
+				out.value(json);
+			} catch (IOException e) {
+				throw new X2JException(X2JErrorCodes.X2J_ERR_008);
+			}
+		} else {
+			X2JConversionManager.getInstance().writeJSONObject(schema, root, out);
+		}
+	}
+
 	/**
 	 * Convert XML to JSON. The schema should be part of the XML element.<br>
 	 * The input XML is stored in a file and the corresponding File object is passed
@@ -131,6 +219,22 @@ public class XMLToJSONConverter {
 		return convertToJson(X2JUtils.getXmlFromFile(inputXmlFile), jsonSchemaObj);
 	}
 
+	/**
+	 * Convert XML to JSON. The schema is explicitly passed as a CompiledSchema
+	 * argument.<br>
+	 * The input XML is stored in a file and the corresponding File object is passed
+	 * as an argument to this method.<br>
+	 * The default conversion logic will only get applied when the schema is null.
+	 *
+	 * @param inputXmlFile the input XML file
+	 * @param schema       the compiled JSON schema
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(File inputXmlFile, CompiledSchema schema) throws X2JException {
+		return convertToJson(X2JUtils.getXmlFromFile(inputXmlFile), schema);
+	}
+
 	/**
 	 * Convert XML to JSON. The schema should be part of the XML element.<br>
 	 * The input XML is a String and is passed as an argument to this method.<br>
@@ -179,6 +283,21 @@ public class XMLToJSONConverter {
 		return convertToJson(X2JUtils.getXmlFromString(inputXml), jsonSchemaObj);
 	}
 
+	/**
+	 * Convert XML to JSON. The schema is explicitly passed as a CompiledSchema
+	 * argument.<br>
+	 * The input XML is a String and is passed as an argument to this method.<br>
+	 * The default conversion logic will only get applied when the schema is null.
+	 *
+	 * @param inputXml the input XML String
+	 * @param schema   the compiled JSON schema
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(String inputXml, CompiledSchema schema) throws X2JException {
+		return convertToJson(X2JUtils.getXmlFromString(inputXml), schema);
+	}
+
 	/**
 	 * Convert XML to JSON. The schema is explicitly passed as a JSONObject
 	 * argument.<br>
@@ -195,18 +314,213 @@ public class XMLToJSONConverter {
 		return convertToJson(X2JUtils.getXmlFromFile(inputXmlFile), X2JUtils.getJsonFromFile(jsonSchemaFile));
 	}
 
+	/**
+	 * Convert XML to JSON. The schema should be part of the XML element.<br>
+	 * The input XML is read from a stream, which is not closed.<br>
+	 * If the schema definition is present as a child of the root element, under the
+	 * tag <b>JSONSchema</b>, then that schema definition will be considered for
+	 * conversion. <br>
+	 * Otherwise, the default conversion logic will be applied.
+	 *
+	 * @param inputXml the input XML stream
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(InputStream inputXml) throws X2JException {
+		return convertToJson(X2JUtils.getXmlFromStream(inputXml));
+	}
+
+	/**
+	 * Convert XML to JSON. The schema is explicitly passed as a String
+	 * argument.<br>
+	 * The input XML is read from a stream, which is not closed.<br>
+	 * The default conversion logic will only get applied when the schema string is
+	 * null or empty.
+	 *
+	 * @param inputXml   the input XML stream
+	 * @param jsonSchema the JSON schema
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(InputStream inputXml, String jsonSchema) throws X2JException {
+		return convertToJson(X2JUtils.getXmlFromStream(inputXml), jsonSchema);
+	}
+
+	/**
+	 * Convert XML to JSON. The schema is explicitly passed as a JSONObject
+	 * argument.<br>
+	 * The input XML is read from a stream, which is not closed.<br>
+	 * The default conversion logic will only get applied when the schema is null.
+	 *
+	 * @param inputXml      the input XML stream
+	 * @param jsonSchemaObj the JSON schema
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(InputStream inputXml, JSONObject jsonSchemaObj) throws X2JException {
+		return convertToJson(X2JUtils.getXmlFromStream(inputXml), jsonSchemaObj);
+	}
+
+	/**
+	 * Convert XML to JSON. The schema is explicitly passed as a CompiledSchema
+	 * argument.<br>
+	 * The input XML is read from a stream, which is not closed.<br>
+	 * The default conversion logic will only get applied when the schema is null.
+	 *
+	 * @param inputXml the input XML stream
+	 * @param schema   the compiled JSON schema
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(InputStream inputXml, CompiledSchema schema) throws X2JException {
+		return convertToJson(X2JUtils.getXmlFromStream(inputXml), schema);
+	}
+
+	/**
+	 * Convert XML to JSON. The schema should be part of the XML element.<br>
+	 * The input XML is read from a channel, which is not closed.<br>
+	 * If the schema definition is present as a child of the root element, under the
+	 * tag <b>JSONSchema</b>, then that schema definition will be considered for
+	 * conversion. <br>
+	 * Otherwise, the default conversion logic will be applied.
+	 *
+	 * @param inputXml the input XML channel
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(ReadableByteChannel inputXml) throws X2JException {
+		return convertToJson(X2JUtils.getXmlFromChannel(inputXml));
+	}
+
+	/**
+	 * Convert XML to JSON. The schema is explicitly passed as a String
+	 * argument.<br>
+	 * The input XML is read from a channel, which is not closed.<br>
+	 * The default conversion logic will only get applied when the schema string is
+	 * null or empty.
+	 *
+	 * @param inputXml   the input XML channel
+	 * @param jsonSchema the JSON schema
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(ReadableByteChannel inputXml, String jsonSchema) throws X2JException {
+		return convertToJson(X2JUtils.getXmlFromChannel(inputXml), jsonSchema);
+	}
+
+	/**
+	 * Convert XML to JSON. The schema is explicitly passed as a JSONObject
+	 * argument.<br>
+	 * The input XML is read from a channel, which is not closed.<br>
+	 * The default conversion logic will only get applied when the schema is null.
+	 *
+	 * @param inputXml      the input XML channel
+	 * @param jsonSchemaObj the JSON schema
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(ReadableByteChannel inputXml, JSONObject jsonSchemaObj) throws X2JException {
+		return convertToJson(X2JUtils.getXmlFromChannel(inputXml), jsonSchemaObj);
+	}
+
+	/**
+	 * Convert XML to JSON. The schema is explicitly passed as a CompiledSchema
+	 * argument.<br>
+	 * The input XML is read from a channel, which is not closed.<br>
+	 * The default conversion logic will only get applied when the schema is null.
+	 *
+	 * @param inputXml the input XML channel
+	 * @param schema   the compiled JSON schema
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(ReadableByteChannel inputXml, CompiledSchema schema) throws X2JException {
+		return convertToJson(X2JUtils.getXmlFromChannel(inputXml), schema);
+	}
+
+	/**
+	 * Convert XML to JSON without loading the complete input XML in memory. The
+	 * schema is explicitly passed as a CompiledSchema argument and must be
+	 * streamable (see {@link X2JStreamingManager}). The default conversion logic
+	 * will only get applied when the schema is null.<br>
+	 * The JSON is written, in UTF-8, to the output stream while the input XML is
+	 * being read. Neither of the streams is closed.
+	 *
+	 * @param inputXml the input XML stream
+	 * @param schema   the compiled JSON schema
+	 * @param out      the output JSON stream
+	 * @throws X2JException if the schema cannot be streamed or there is any error
+	 *                      during the conversion process.
+	 */
+	public void streamToJson(InputStream inputXml, CompiledSchema schema, OutputStream out) throws X2JException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		X2JMetrics metrics = X2JMetrics.getInstance();
+		long start = metrics.start();
+		X2JStreamingManager.getInstance().process(inputXml, schema, writer);
+		metrics.converted(start);
+	}
+
+	/**
+	 * Convert XML to JSON without loading the complete input XML in memory. The
+	 * schema is explicitly passed as a CompiledSchema argument and must be
+	 * streamable (see {@link X2JStreamingManager}). The default conversion logic
+	 * will only get applied when the schema is null.<br>
+	 * The JSON is written to the writer while the input XML is being read. Neither
+	 * of the streams is closed.
+	 *
+	 * @param inputXml the input XML reader
+	 * @param schema   the compiled JSON schema
+	 * @param out      the output JSON writer
+	 * @throws X2JException if the schema cannot be streamed or there is any error
+	 *                      during the conversion process.
+	 */
+	public void streamToJson(Reader inputXml, CompiledSchema schema, Writer out) throws X2JException {
+		X2JMetrics metrics = X2JMetrics.getInstance();
+		long start = metrics.start();
+		X2JStreamingManager.getInstance().process(inputXml, schema, out);
+		metrics.converted(start);
+	}
+
+	/**
+	 * Convert XML to JSON without loading the complete input XML in memory. The
+	 * schema is explicitly passed as a CompiledSchema argument and must be
+	 * streamable (see {@link X2JStreamingManager}). The default conversion logic
+	 * will only get applied when the schema is null.<br>
+	 * The input XML is read from a file and the JSON is written, in UTF-8, to the
+	 * output file.
+	 *
+	 * @param inputXmlFile   the input XML file
+	 * @param schema         the compiled JSON schema
+	 * @param outputJsonFile the output JSON file
+	 * @throws X2JException if the schema cannot be streamed or there is any error
+	 *                      during the conversion process.
+	 */
+	public void streamToJson(File inputXmlFile, CompiledSchema schema, File outputJsonFile) throws X2JException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(inputXmlFile));
+				OutputStream out = new FileOutputStream(outputJsonFile)) {
+			streamToJson(in, schema, out);
+		} catch (IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_013, e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the text of the first <b>JSONSchema</b> element among the children
+	 * of the root. Only the children are looked at, never the whole document. An
+	 * empty JSONSchema element is removed from the document.
+	 */
 	private String determineJsonSchema(Element root) {
-		NodeList nodeList = root.getElementsByTagName(JSON_SCHEMA_ELEMENT);
-		if (!X2JUtils.isVoid(nodeList) && nodeList.getLength() > 0) {
-			String jsonSchema = nodeList.item(0).getTextContent();
-			if (X2JUtils.isVoid(jsonSchema)) {
-				root.removeChild(nodeList.item(0));
-				return "";
+		for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE && JSON_SCHEMA_ELEMENT.equals(child.getNodeName())) {
+				String jsonSchema = child.getTextContent();
+				if (X2JUtils.isVoid(jsonSchema)) {
+					root.removeChild(child);
+					return "";
+				}
+				return jsonSchema;
 			}
-			return jsonSchema;
-		} else {
-			return "";
 		}
+		return "";
 	}
 
 }
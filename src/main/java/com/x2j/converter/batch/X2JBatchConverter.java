@@ -0,0 +1,346 @@
+package com.x2j.converter.batch;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+import org.w3c.dom.Document;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * Converts many XML inputs with one shared schema, in parallel.<br>
+ * The inputs can be Files, Paths, XML Strings or Documents. Each input is
+ * converted by a task on the executor (by default the common ForkJoinPool);
+ * a failing input is reported in its {@link X2JBatchResult} and does not stop
+ * the others.<br>
+ * At most a fixed number of inputs are taken from the source ahead of the
+ * results that have been handed back, hence a large Stream of inputs is never
+ * read completely in advance. The results are handed back on the calling
+ * thread, either in the input order or in the completion order.<br>
+ * When the schema is null, the schema embedded in each XML (if any) or the
+ * default conversion logic is applied, as in
+ * {@link XMLToJSONConverter#convertToJson(File)}.<br>
+ * On Java 21 or later, {@link #withVirtualThreads(int)} runs every conversion
+ * on its own virtual thread, for inputs that spend most of their time blocked
+ * on I/O. Such a converter owns its executor and must be closed.
+ */
+public class X2JBatchConverter implements AutoCloseable {
+
+	private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = getVirtualThreadExecutorFactory();
+
+	private final XMLToJSONConverter converter = new XMLToJSONConverter();
+
+	private final ExecutorService executor;
+
+	private final int maxInFlight;
+
+	private final boolean ownsExecutor;
+
+	/**
+	 * Instantiates a new X2JBatchConverter object that runs on the common
+	 * ForkJoinPool.
+	 */
+	public X2JBatchConverter() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Instantiates a new X2JBatchConverter object that runs on the given
+	 * executor. The executor is not shut down by this class.
+	 *
+	 * @param executor the executor, e.g. a ForkJoinPool or a fixed thread pool
+	 */
+	public X2JBatchConverter(ExecutorService executor) {
+		this(executor, 4 * getParallelism(executor));
+	}
+
+	/**
+	 * Instantiates a new X2JBatchConverter object that runs on the given
+	 * executor. The executor is not shut down by this class.
+	 *
+	 * @param executor    the executor, e.g. a ForkJoinPool or a fixed thread pool
+	 * @param maxInFlight the maximum number of inputs that are taken ahead of the
+	 *                    results handed back
+	 */
+	public X2JBatchConverter(ExecutorService executor, int maxInFlight) {
+		this(executor, maxInFlight, false);
+	}
+
+	private X2JBatchConverter(ExecutorService executor, int maxInFlight, boolean ownsExecutor) {
+		if (executor == null || maxInFlight < 1) {
+			throw new IllegalArgumentException("An executor and a positive maxInFlight are required.");
+		}
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	/**
+	 * Returns a new X2JBatchConverter object that runs every conversion on its
+	 * own virtual thread. The number of threads is not sized by hand; only
+	 * maxInFlight bounds the inputs (and hence the documents in memory) being
+	 * converted at the same time, e.g. a few thousand for files on a slow network
+	 * file system.<br>
+	 * The returned converter owns its executor, which {@link #close()} shuts down.
+	 *
+	 * @param maxInFlight the maximum number of inputs that are taken ahead of the
+	 *                    results handed back
+	 * @return the batch converter
+	 * @throws UnsupportedOperationException if the Java runtime is older than 21
+	 * @see #isVirtualThreadSupported()
+	 */
+	public static X2JBatchConverter withVirtualThreads(int maxInFlight) {
+		if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+			throw new UnsupportedOperationException("Virtual threads require Java 21 or later.");
+		}
+		try {
+			return new X2JBatchConverter((ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null), maxInFlight,
+					true);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Virtual threads are not available.", e);
+		}
+	}
+
+	/**
+	 * Checks whether the Java runtime supports virtual threads, i.e. whether
+	 * {@link #withVirtualThreads(int)} can be used.
+	 *
+	 * @return true, on Java 21 or later
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	/**
+	 * Converts all the inputs and returns the results in the input order.
+	 *
+	 * @param <T>    the type of the inputs
+	 * @param inputs the inputs
+	 * @param schema the compiled JSON schema, or null
+	 * @return the results, one per input
+	 * @throws X2JException if the batch is interrupted or cannot be scheduled
+	 */
+	public <T> List<X2JBatchResult<T>> convertAll(Collection<? extends T> inputs, CompiledSchema schema)
+			throws X2JException {
+		List<X2JBatchResult<T>> results = new ArrayList<X2JBatchResult<T>>(inputs.size());
+		this.<T>run(inputs.iterator(), schema, null, results::add, true);
+		return results;
+	}
+
+	/**
+	 * Converts all the inputs and returns the results in the input order.
+	 *
+	 * @param <T>    the type of the inputs
+	 * @param inputs the inputs
+	 * @param schema the compiled JSON schema, or null
+	 * @return the results, one per input
+	 * @throws X2JException if the batch is interrupted or cannot be scheduled
+	 */
+	public <T> List<X2JBatchResult<T>> convertAll(Stream<? extends T> inputs, CompiledSchema schema)
+			throws X2JException {
+		List<X2JBatchResult<T>> results = new ArrayList<X2JBatchResult<T>>();
+		this.<T>run(inputs.iterator(), schema, null, results::add, true);
+		return results;
+	}
+
+	/**
+	 * Converts all the inputs and hands every result to the consumer, in the input
+	 * order, as soon as it and all the previous results are available.
+	 *
+	 * @param <T>      the type of the inputs
+	 * @param inputs   the inputs
+	 * @param schema   the compiled JSON schema, or null
+	 * @param consumer the consumer of the results
+	 * @throws X2JException if the batch is interrupted or cannot be scheduled
+	 */
+	public <T> void convertAll(Stream<? extends T> inputs, CompiledSchema schema,
+			Consumer<? super X2JBatchResult<T>> consumer) throws X2JException {
+		run(inputs.iterator(), schema, null, consumer, true);
+	}
+
+	/**
+	 * Converts all the inputs and hands every result to the consumer as soon as it
+	 * is available, i.e. in the completion order.
+	 *
+	 * @param <T>      the type of the inputs
+	 * @param inputs   the inputs
+	 * @param schema   the compiled JSON schema, or null
+	 * @param consumer the consumer of the results
+	 * @throws X2JException if the batch is interrupted or cannot be scheduled
+	 */
+	public <T> void convertAsCompleted(Stream<? extends T> inputs, CompiledSchema schema,
+			Consumer<? super X2JBatchResult<T>> consumer) throws X2JException {
+		run(inputs.iterator(), schema, null, consumer, false);
+	}
+
+	/**
+	 * Converts all the inputs, writes every JSON with the writer on the thread
+	 * that converted it and then hands every result to the consumer as soon as it
+	 * is available, i.e. in the completion order. A result is successful only if
+	 * its JSON has been written.
+	 *
+	 * @param <T>      the type of the inputs
+	 * @param inputs   the inputs
+	 * @param schema   the compiled JSON schema, or null
+	 * @param writer   the writer of the JSON of every input
+	 * @param consumer the consumer of the results
+	 * @throws X2JException if the batch is interrupted or cannot be scheduled
+	 */
+	public <T> void convertAsCompleted(Stream<? extends T> inputs, CompiledSchema schema,
+			X2JResultWriter<? super T> writer, Consumer<? super X2JBatchResult<T>> consumer) throws X2JException {
+		run(inputs.iterator(), schema, writer, consumer, false);
+	}
+
+	/**
+	 * Shuts down the executor if it was created by this class, i.e. by
+	 * {@link #withVirtualThreads(int)}. The conversions already submitted are
+	 * completed. An executor given by the caller is left running.
+	 */
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Checks whether the executor of this converter has been shut down.
+	 *
+	 * @return true, if the executor no longer accepts conversions
+	 */
+	public boolean isShutdown() {
+		return executor.isShutdown();
+	}
+
+	private <T> void run(Iterator<? extends T> inputs, CompiledSchema schema, X2JResultWriter<? super T> writer,
+			Consumer<? super X2JBatchResult<T>> consumer, boolean ordered) throws X2JException {
+		CompletionService<X2JBatchResult<T>> service = new ExecutorCompletionService<X2JBatchResult<T>>(executor);
+		Set<Future<X2JBatchResult<T>>> running = new HashSet<Future<X2JBatchResult<T>>>();
+		Map<Integer, X2JBatchResult<T>> completed = new HashMap<Integer, X2JBatchResult<T>>();
+		int submitted = 0;
+		int handed = 0;
+		try {
+			while (inputs.hasNext() || handed < submitted) {
+				if (inputs.hasNext() && submitted - handed < maxInFlight) {
+					T input = inputs.next();
+					int index = submitted++;
+					running.add(service.submit(() -> convert(converter, index, input, schema, writer)));
+					continue;
+				}
+				Future<X2JBatchResult<T>> future = service.take();
+				running.remove(future);
+				X2JBatchResult<T> result = future.get();
+				if (ordered) {
+					completed.put(result.getIndex(), result);
+					while (completed.containsKey(handed)) {
+						consumer.accept(completed.remove(handed++));
+					}
+				} else {
+					handed++;
+					consumer.accept(result);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new X2JException(X2JErrorCodes.X2J_ERR_014, "Interrupted.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new X2JException(X2JErrorCodes.X2J_ERR_014, String.valueOf(e.getCause()));
+		} catch (RejectedExecutionException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_014, e.getMessage());
+		} finally {
+			for (Future<X2JBatchResult<T>> future : running) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	static <T> X2JBatchResult<T> convert(XMLToJSONConverter converter, int index, T input, CompiledSchema schema,
+			X2JResultWriter<? super T> writer) {
+		long bytes = getSize(input);
+		try {
+			JSONObject json = convert(converter, input, schema);
+			if (writer != null) {
+				writer.write(input, json);
+			}
+			return new X2JBatchResult<T>(index, input, json, null, bytes);
+		} catch (Exception e) {
+			return new X2JBatchResult<T>(index, input, null, e, bytes);
+		}
+	}
+
+	/*
+	 * File.length() returns 0 rather than failing if the file cannot be read;
+	 * the conversion reports that error.
+	 */
+	private static long getSize(Object input) {
+		if (input instanceof File) {
+			return ((File) input).length();
+		} else if (input instanceof Path) {
+			return ((Path) input).toFile().length();
+		}
+		return -1L;
+	}
+
+	private static JSONObject convert(XMLToJSONConverter converter, Object input, CompiledSchema schema)
+			throws X2JException {
+		Document document;
+		if (input instanceof File) {
+			document = X2JUtils.getXmlFromFile((File) input);
+		} else if (input instanceof Path) {
+			document = X2JUtils.getXmlFromFile(((Path) input).toFile());
+		} else if (input instanceof String) {
+			document = X2JUtils.getXmlFromString((String) input);
+		} else if (input instanceof Document) {
+			document = (Document) input;
+		} else {
+			throw new IllegalArgumentException("Unsupported input: " + input);
+		}
+		return X2JUtils.isVoid(schema) ? converter.convertToJson(document) : converter.convertToJson(document, schema);
+	}
+
+	static int getParallelism(ExecutorService executor) {
+		if (executor instanceof ForkJoinPool) {
+			return ((ForkJoinPool) executor).getParallelism();
+		} else if (executor instanceof ThreadPoolExecutor) {
+			return Math.min(((ThreadPoolExecutor) executor).getMaximumPoolSize(), 1024);
+		}
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	private static Method getVirtualThreadExecutorFactory() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException | SecurityException e) {
+			return null;
+		}
+	}
+
+}
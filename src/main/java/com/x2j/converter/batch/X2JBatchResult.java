@@ -0,0 +1,91 @@
+package com.x2j.converter.batch;
+
+import org.json.JSONObject;
+
+/**
+ * The outcome of the conversion of one input of a batch. Either the converted
+ * JSON or the exception thrown while converting that input is available; the
+ * other inputs of the batch are not affected by a failure.
+ *
+ * @param <T> the type of the inputs
+ */
+public final class X2JBatchResult<T> {
+
+	private final int index;
+
+	private final T input;
+
+	private final JSONObject json;
+
+	private final Exception error;
+
+	private final long inputBytes;
+
+	X2JBatchResult(int index, T input, JSONObject json, Exception error) {
+		this(index, input, json, error, -1L);
+	}
+
+	X2JBatchResult(int index, T input, JSONObject json, Exception error, long inputBytes) {
+		this.index = index;
+		this.input = input;
+		this.json = json;
+		this.error = error;
+		this.inputBytes = inputBytes;
+	}
+
+	/**
+	 * Returns the position of the input in the batch, starting at 0.
+	 *
+	 * @return the index
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the input.
+	 *
+	 * @return the input
+	 */
+	public T getInput() {
+		return input;
+	}
+
+	/**
+	 * Returns the converted JSON.
+	 *
+	 * @return the JSON or null, if the conversion failed
+	 */
+	public JSONObject getJson() {
+		return json;
+	}
+
+	/**
+	 * Returns the exception thrown by the conversion.
+	 *
+	 * @return the exception or null, if the conversion succeeded
+	 */
+	public Exception getError() {
+		return error;
+	}
+
+	/**
+	 * Returns the size of a File or Path input, which is taken on the thread that
+	 * converted it.
+	 *
+	 * @return the size in bytes, or -1 for the other inputs
+	 */
+	public long getInputBytes() {
+		return inputBytes;
+	}
+
+	/**
+	 * Checks whether the conversion succeeded.
+	 *
+	 * @return true, if the JSON is available
+	 */
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+}
@@ -0,0 +1,389 @@
+package com.x2j.converter.batch;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JErrorCodes;
+
+/**
+ * A Reactive Streams processor that converts the XML inputs it receives and
+ * publishes one {@link X2JBatchResult} per input.<br>
+ * The inputs can be Files, Paths, XML Strings or Documents, as for
+ * {@link X2JBatchConverter}. Every input is converted by a task on the
+ * executor; a failing input is published as a result with its exception and
+ * does not end the stream. The stream only ends with an error if the upstream
+ * publisher signals one, after the results of the inputs already received.<br>
+ * Backpressure: at most <i>parallelism</i> inputs are requested from the
+ * upstream publisher or being converted at any time, and at most
+ * <i>parallelism + bufferSize</i> inputs are held in total, including the
+ * results waiting for the demand of the subscriber. Nothing is queued without
+ * a bound, and a slow subscriber slows down the upstream publisher.<br>
+ * The results are published in the input order or in the completion order.
+ * The index of a result is the position of the input in the stream; it wraps
+ * around after {@link Integer#MAX_VALUE} inputs.<br>
+ * The processor accepts one upstream subscription and one subscriber. With
+ * Java 9 or higher, <code>org.reactivestreams.FlowAdapters</code> turns it into
+ * a <code>java.util.concurrent.Flow.Processor</code>.
+ *
+ * @param <T> the type of the inputs
+ */
+public class X2JConversionProcessor<T> implements Processor<T, X2JBatchResult<T>> {
+
+	private static final Subscription EMPTY = new Subscription() {
+
+		@Override
+		public void request(long n) {
+		}
+
+		@Override
+		public void cancel() {
+		}
+
+	};
+
+	private final XMLToJSONConverter converter = new XMLToJSONConverter();
+
+	private final CompiledSchema schema;
+
+	private final ExecutorService executor;
+
+	private final int parallelism;
+
+	private final int capacity;
+
+	private final boolean ordered;
+
+	private final Object lock = new Object();
+
+	private final AtomicInteger wip = new AtomicInteger();
+
+	private final Map<Long, X2JBatchResult<T>> waiting = new HashMap<Long, X2JBatchResult<T>>();
+
+	private final Queue<X2JBatchResult<T>> completed = new ArrayDeque<X2JBatchResult<T>>();
+
+	private Subscription upstream;
+
+	private Subscriber<? super X2JBatchResult<T>> downstream;
+
+	private boolean subscribed;
+
+	private long demand;
+
+	private long requested;
+
+	private int running;
+
+	private long received;
+
+	private long emitted;
+
+	private boolean upstreamDone;
+
+	private Throwable error;
+
+	private Throwable invalidRequest;
+
+	private boolean cancelled;
+
+	private boolean terminated;
+
+	/**
+	 * Instantiates a new X2JConversionProcessor object that runs on the common
+	 * ForkJoinPool and publishes the results in the input order.
+	 *
+	 * @param schema the compiled JSON schema, or null
+	 */
+	public X2JConversionProcessor(CompiledSchema schema) {
+		this(schema, ForkJoinPool.commonPool(), X2JBatchConverter.getParallelism(ForkJoinPool.commonPool()), true);
+	}
+
+	/**
+	 * Instantiates a new X2JConversionProcessor object that runs on the given
+	 * executor and buffers up to <i>parallelism</i> results. The executor is not
+	 * shut down by this class.
+	 *
+	 * @param schema      the compiled JSON schema, or null
+	 * @param executor    the executor, e.g. a ForkJoinPool or a fixed thread pool
+	 * @param parallelism the maximum number of inputs converted at the same time
+	 * @param ordered     true, to publish the results in the input order; false,
+	 *                    to publish them in the completion order
+	 */
+	public X2JConversionProcessor(CompiledSchema schema, ExecutorService executor, int parallelism,
+			boolean ordered) {
+		this(schema, executor, parallelism, parallelism, ordered);
+	}
+
+	/**
+	 * Instantiates a new X2JConversionProcessor object that runs on the given
+	 * executor. The executor is not shut down by this class.
+	 *
+	 * @param schema      the compiled JSON schema, or null
+	 * @param executor    the executor, e.g. a ForkJoinPool or a fixed thread pool
+	 * @param parallelism the maximum number of inputs converted at the same time
+	 * @param bufferSize  the number of results that can wait for the demand of the
+	 *                    subscriber, on top of the inputs being converted
+	 * @param ordered     true, to publish the results in the input order; false,
+	 *                    to publish them in the completion order
+	 */
+	public X2JConversionProcessor(CompiledSchema schema, ExecutorService executor, int parallelism, int bufferSize,
+			boolean ordered) {
+		if (executor == null || parallelism < 1 || bufferSize < 0) {
+			throw new IllegalArgumentException(
+					"An executor, a positive parallelism and a non-negative bufferSize are required.");
+		}
+		this.schema = schema;
+		this.executor = executor;
+		this.parallelism = parallelism;
+		this.capacity = parallelism + bufferSize;
+		this.ordered = ordered;
+	}
+
+	@Override
+	public void onSubscribe(Subscription subscription) {
+		if (subscription == null) {
+			throw new NullPointerException("The subscription is null.");
+		}
+		synchronized (lock) {
+			if (upstream != null || upstreamDone) {
+				subscription.cancel();
+				return;
+			}
+			upstream = subscription;
+			if (cancelled || terminated) {
+				subscription.cancel();
+				return;
+			}
+		}
+		drain();
+	}
+
+	@Override
+	public void onNext(T input) {
+		if (input == null) {
+			throw new NullPointerException("The input is null.");
+		}
+		long sequence;
+		synchronized (lock) {
+			if (upstreamDone || cancelled || terminated) {
+				return;
+			}
+			sequence = received++;
+			requested = Math.max(0, requested - 1);
+			running++;
+		}
+		int index = (int) sequence;
+		try {
+			executor.execute(
+					() -> complete(sequence, X2JBatchConverter.convert(converter, index, input, schema, null)));
+		} catch (RejectedExecutionException e) {
+			complete(sequence, new X2JBatchResult<T>(index, input, null,
+					new X2JException(X2JErrorCodes.X2J_ERR_014, String.valueOf(e.getMessage()))));
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		if (throwable == null) {
+			throw new NullPointerException("The error is null.");
+		}
+		synchronized (lock) {
+			if (upstreamDone) {
+				return;
+			}
+			upstreamDone = true;
+			error = throwable;
+		}
+		drain();
+	}
+
+	@Override
+	public void onComplete() {
+		synchronized (lock) {
+			if (upstreamDone) {
+				return;
+			}
+			upstreamDone = true;
+		}
+		drain();
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super X2JBatchResult<T>> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("The subscriber is null.");
+		}
+		boolean accepted;
+		synchronized (lock) {
+			accepted = !subscribed;
+			subscribed = true;
+		}
+		if (!accepted) {
+			subscriber.onSubscribe(EMPTY);
+			subscriber.onError(new IllegalStateException("The processor accepts only one subscriber."));
+			return;
+		}
+		subscriber.onSubscribe(new Subscription() {
+
+			@Override
+			public void request(long n) {
+				X2JConversionProcessor.this.request(n);
+			}
+
+			@Override
+			public void cancel() {
+				X2JConversionProcessor.this.cancel();
+			}
+
+		});
+		synchronized (lock) {
+			downstream = subscriber;
+		}
+		drain();
+	}
+
+	private void request(long n) {
+		synchronized (lock) {
+			if (cancelled || terminated) {
+				return;
+			}
+			if (n <= 0) {
+				invalidRequest = new IllegalArgumentException("The number of requested results must be positive: " + n);
+			} else {
+				demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+			}
+		}
+		drain();
+	}
+
+	private void cancel() {
+		Subscription subscription;
+		synchronized (lock) {
+			if (cancelled) {
+				return;
+			}
+			cancelled = true;
+			waiting.clear();
+			completed.clear();
+			subscription = upstream;
+		}
+		if (subscription != null) {
+			subscription.cancel();
+		}
+	}
+
+	private void complete(long sequence, X2JBatchResult<T> result) {
+		synchronized (lock) {
+			if (cancelled || terminated) {
+				return;
+			}
+			running = Math.max(0, running - 1);
+			if (ordered) {
+				waiting.put(sequence, result);
+			} else {
+				completed.add(result);
+			}
+		}
+		drain();
+	}
+
+	private X2JBatchResult<T> poll() {
+		if (ordered) {
+			X2JBatchResult<T> result = waiting.remove(emitted);
+			if (result != null) {
+				emitted++;
+			}
+			return result;
+		}
+		return completed.poll();
+	}
+
+	private int held() {
+		return running + waiting.size() + completed.size();
+	}
+
+	/**
+	 * Publishes the available results as per the demand, ends the stream when
+	 * everything is published and requests more inputs as per the free capacity.
+	 * The subscriber is signalled by only one thread at a time.
+	 */
+	private void drain() {
+		if (wip.getAndIncrement() != 0) {
+			return;
+		}
+		int missed = 1;
+		while (true) {
+			while (true) {
+				Subscriber<? super X2JBatchResult<T>> subscriber;
+				X2JBatchResult<T> result;
+				synchronized (lock) {
+					subscriber = downstream;
+					if (cancelled || terminated || invalidRequest != null || subscriber == null || demand == 0) {
+						break;
+					}
+					result = poll();
+					if (result == null) {
+						break;
+					}
+					if (demand != Long.MAX_VALUE) {
+						demand--;
+					}
+				}
+				subscriber.onNext(result);
+			}
+			Subscriber<? super X2JBatchResult<T>> subscriber = null;
+			Subscription subscription = null;
+			Throwable failure = null;
+			long n = 0;
+			synchronized (lock) {
+				if (!cancelled && !terminated && downstream != null && invalidRequest != null) {
+					terminated = true;
+					subscriber = downstream;
+					failure = invalidRequest;
+					subscription = upstreamDone ? null : upstream;
+					waiting.clear();
+					completed.clear();
+				} else if (!cancelled && !terminated && downstream != null && upstreamDone && held() == 0) {
+					terminated = true;
+					subscriber = downstream;
+					failure = error;
+				} else if (!cancelled && !terminated && !upstreamDone && upstream != null) {
+					n = Math.min(parallelism - running, capacity - held()) - requested;
+					if (n > 0) {
+						requested += n;
+						subscription = upstream;
+					}
+				}
+			}
+			if (subscriber != null) {
+				if (subscription != null) {
+					subscription.cancel();
+				}
+				if (failure != null) {
+					subscriber.onError(failure);
+				} else {
+					subscriber.onComplete();
+				}
+			} else if (n > 0) {
+				subscription.request(n);
+			}
+			missed = wip.addAndGet(-missed);
+			if (missed == 0) {
+				return;
+			}
+		}
+	}
+
+}
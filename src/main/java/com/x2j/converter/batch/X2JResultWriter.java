@@ -0,0 +1,26 @@
+package com.x2j.converter.batch;
+
+import org.json.JSONObject;
+
+/**
+ * Writes the JSON converted from one input of a batch, e.g. to its own file.<br>
+ * The writer is called on the thread that converted the input, right after the
+ * conversion, hence blocking output is done in parallel as well. It is called
+ * concurrently for different inputs and must therefore be thread-safe. An
+ * exception thrown by the writer is reported in the result of that input.
+ *
+ * @param <T> the type of the inputs
+ */
+@FunctionalInterface
+public interface X2JResultWriter<T> {
+
+	/**
+	 * Writes the JSON of the given input.
+	 *
+	 * @param input the input
+	 * @param json  the converted JSON
+	 * @throws Exception if the JSON cannot be written
+	 */
+	void write(T input, JSONObject json) throws Exception;
+
+}
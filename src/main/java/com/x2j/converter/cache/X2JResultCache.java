@@ -0,0 +1,360 @@
+package com.x2j.converter.cache;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.w3c.dom.Document;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JContentHash;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * An optional cache of converted JSON, for inputs that are converted again and
+ * again, e.g. resent messages.<br>
+ * The key is the 128-bit {@link X2JContentHash} of the input XML and the
+ * identity of the compiled schema, hence an identical payload is converted only
+ * once per schema instance. The XML is neither parsed nor converted on a hit.
+ * As the hash does not resist crafted collisions, every entry keeps its input,
+ * which must be equal to the new input for a hit; an input that only shares the
+ * hash is converted and replaces the entry.<br>
+ * The cache is bounded by a number of entries and by the approximate heap size
+ * of the cached JSON; the least recently used entries are evicted first. An
+ * entry can also expire a fixed time after it was converted. Failed
+ * conversions are not cached.<br>
+ * The cached JSON is private to the cache: a copy is stored and every hit
+ * returns a new copy, so the caller is free to modify the returned JSON. All
+ * the methods are thread-safe.
+ */
+public class X2JResultCache {
+
+	private final XMLToJSONConverter converter = new XMLToJSONConverter();
+
+	private final int maxEntries;
+
+	private final long maxBytes;
+
+	private final long ttlNanos;
+
+	private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+	private long bytes;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	private final LongAdder expirations = new LongAdder();
+
+	/**
+	 * Instantiates a new X2JResultCache object whose entries do not expire.
+	 *
+	 * @param maxEntries the maximum number of cached results
+	 * @param maxBytes   the maximum approximate heap size of the cached results
+	 */
+	public X2JResultCache(int maxEntries, long maxBytes) {
+		this(maxEntries, maxBytes, 0, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Instantiates a new X2JResultCache object.
+	 *
+	 * @param maxEntries the maximum number of cached results
+	 * @param maxBytes   the maximum approximate heap size of the cached results
+	 * @param ttl        the time after which a result expires, or 0 to never
+	 *                   expire the results
+	 * @param unit       the unit of the ttl
+	 */
+	public X2JResultCache(int maxEntries, long maxBytes, long ttl, TimeUnit unit) {
+		if (maxEntries < 1 || maxBytes < 1 || ttl < 0 || unit == null) {
+			throw new IllegalArgumentException(
+					"A positive maxEntries and maxBytes, a non-negative ttl and its unit are required.");
+		}
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.ttlNanos = unit.toNanos(ttl);
+	}
+
+	/**
+	 * Converts the XML, or returns a copy of the JSON cached for the same bytes
+	 * and schema. The bytes are copied into the cache.
+	 *
+	 * @param inputXml the input XML bytes
+	 * @param schema   the compiled JSON schema, or null to apply the schema
+	 *                 embedded in the XML (if any) or the default conversion
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(byte[] inputXml, CompiledSchema schema) throws X2JException {
+		Key key = new Key(getHash(inputXml), schema);
+		JSONObject json = lookup(key, inputXml);
+		if (json == null) {
+			json = convert(X2JUtils.getXmlFromStream(new ByteArrayInputStream(inputXml)), schema);
+			store(key, inputXml.clone(), 24 + inputXml.length, json);
+		}
+		return json;
+	}
+
+	/**
+	 * Converts the XML, or returns a copy of the JSON cached for the same String
+	 * and schema.
+	 *
+	 * @param inputXml the input XML String
+	 * @param schema   the compiled JSON schema, or null to apply the schema
+	 *                 embedded in the XML (if any) or the default conversion
+	 * @return the converted JSON object
+	 * @throws X2JException if there is any error during the conversion process.
+	 */
+	public JSONObject convertToJson(String inputXml, CompiledSchema schema) throws X2JException {
+		Key key = new Key(getHash(inputXml), schema);
+		JSONObject json = lookup(key, inputXml);
+		if (json == null) {
+			json = convert(X2JUtils.getXmlFromString(inputXml), schema);
+			store(key, inputXml, 40 + 2L * inputXml.length(), json);
+		}
+		return json;
+	}
+
+	/**
+	 * Returns the hash of the input XML bytes that the results are looked up by.
+	 *
+	 * @param inputXml the input XML bytes
+	 * @return the content hash
+	 */
+	protected X2JContentHash getHash(byte[] inputXml) {
+		return X2JContentHash.of(inputXml);
+	}
+
+	/**
+	 * Returns the hash of the input XML String that the results are looked up by.
+	 *
+	 * @param inputXml the input XML String
+	 * @return the content hash
+	 */
+	protected X2JContentHash getHash(String inputXml) {
+		return X2JContentHash.of(inputXml);
+	}
+
+	private JSONObject convert(Document document, CompiledSchema schema) throws X2JException {
+		return schema == null ? converter.convertToJson(document) : converter.convertToJson(document, schema);
+	}
+
+	private JSONObject lookup(Key key, Object input) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+			if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.written >= ttlNanos) {
+				entries.remove(key);
+				bytes -= entry.weight;
+				expirations.increment();
+				entry = null;
+			}
+		}
+		if (entry != null && !entry.isInput(input)) {
+			entry = null;
+		}
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return (JSONObject) copy(entry.json, null);
+	}
+
+	private void store(Key key, Object input, long inputWeight, JSONObject json) {
+		long[] weight = { 128 + inputWeight };
+		Entry entry = new Entry(input, (JSONObject) copy(json, weight), weight[0], System.nanoTime());
+		if (entry.weight > maxBytes) {
+			return;
+		}
+		synchronized (entries) {
+			Entry previous = entries.put(key, entry);
+			bytes += entry.weight - (previous == null ? 0 : previous.weight);
+			Iterator<Entry> eldest = entries.values().iterator();
+			while (entries.size() > maxEntries || bytes > maxBytes) {
+				bytes -= eldest.next().weight;
+				eldest.remove();
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Deep copies a JSON value and adds its approximate heap size to the weight,
+	 * if any. Strings, numbers and booleans are immutable and shared.
+	 */
+	private static Object copy(Object value, long[] weight) {
+		if (value instanceof JSONObject) {
+			JSONObject source = (JSONObject) value;
+			JSONObject target = new JSONObject();
+			for (String name : source.keySet()) {
+				target.put(name, copy(source.get(name), weight));
+				if (weight != null) {
+					weight[0] += 48 + 40 + 2L * name.length();
+				}
+			}
+			if (weight != null) {
+				weight[0] += 64;
+			}
+			return target;
+		} else if (value instanceof JSONArray) {
+			JSONArray source = (JSONArray) value;
+			JSONArray target = new JSONArray();
+			for (int i = 0; i < source.length(); i++) {
+				target.put(copy(source.get(i), weight));
+			}
+			if (weight != null) {
+				weight[0] += 56 + 8L * source.length();
+			}
+			return target;
+		}
+		if (weight != null) {
+			weight[0] += value instanceof String ? 40 + 2L * ((String) value).length() : 24;
+		}
+		return value;
+	}
+
+	/**
+	 * Removes all the cached results.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			bytes = 0;
+		}
+	}
+
+	/**
+	 * Resets the hit, miss, eviction and expiration counters.
+	 */
+	public void resetStats() {
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+		expirations.reset();
+	}
+
+	/**
+	 * Returns the number of conversions that were served from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of conversions that were not served from the cache,
+	 * including the expired results.
+	 *
+	 * @return the miss count
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of results that were evicted to stay within the bounds.
+	 *
+	 * @return the eviction count
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Returns the number of results that were dropped because they had expired.
+	 *
+	 * @return the expiration count
+	 */
+	public long getExpirations() {
+		return expirations.sum();
+	}
+
+	/**
+	 * Returns the number of cached results.
+	 *
+	 * @return the size of the cache
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Returns the approximate heap size of the cached results.
+	 *
+	 * @return the size in bytes
+	 */
+	public long getBytes() {
+		synchronized (entries) {
+			return bytes;
+		}
+	}
+
+	private static final class Key {
+
+		private final X2JContentHash hash;
+
+		private final CompiledSchema schema;
+
+		private Key(X2JContentHash hash, CompiledSchema schema) {
+			this.hash = hash;
+			this.schema = schema;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return schema == other.schema && hash.equals(other.hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * hash.hashCode() + System.identityHashCode(schema);
+		}
+
+	}
+
+	private static final class Entry {
+
+		private final Object input;
+
+		private final JSONObject json;
+
+		private final long weight;
+
+		private final long written;
+
+		private Entry(Object input, JSONObject json, long weight, long written) {
+			this.input = input;
+			this.json = json;
+			this.weight = weight;
+			this.written = written;
+		}
+
+		private boolean isInput(Object other) {
+			if (input instanceof byte[] && other instanceof byte[]) {
+				return Arrays.equals((byte[]) input, (byte[]) other);
+			}
+			return input.equals(other);
+		}
+
+	}
+
+}
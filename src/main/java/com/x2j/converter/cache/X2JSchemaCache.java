@@ -0,0 +1,157 @@
+package com.x2j.converter.cache;
+
+import static com.x2j.converter.utils.X2JConstants.SCHEMA_CACHE_SIZE;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+
+/**
+ * A single instance, bounded cache of the schemas embedded in the input XML
+ * documents, keyed by the schema text.<br>
+ * The schema text comes from the input, hence a hit requires the whole text to
+ * be equal, not only its hash; an embedded schema crafted to collide with a
+ * cached one cannot be swapped for it.<br>
+ * Documents that carry the same <b>JSONSchema</b> element share one compiled
+ * schema, hence the schema is parsed and compiled only once. A compiled schema
+ * is immutable, so one LRU map is shared by all the threads. Schemas that
+ * cannot be compiled are not cached.<br>
+ * The size can be configured with the <b>X2JSchemaCacheSize</b> system
+ * property or with {@link #setMaxSize(int)}.
+ */
+public class X2JSchemaCache {
+
+	/** The default maximum number of cached schemas. */
+	public static final int DEFAULT_MAX_SIZE = 64;
+
+	private final Map<String, CompiledSchema> schemas = new LinkedHashMap<String, CompiledSchema>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 6120913408375542981L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CompiledSchema> eldest) {
+			return size() > maxSize;
+		}
+
+	};
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private volatile int maxSize;
+
+	private static class InstanceHolder {
+		private static final X2JSchemaCache INSTANCE = new X2JSchemaCache();
+	}
+
+	/**
+	 * Returns the single instance of X2JSchemaCache.
+	 *
+	 * @return instance of X2JSchemaCache
+	 */
+	public static X2JSchemaCache getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	private X2JSchemaCache() {
+		maxSize = Math.max(0, Integer.getInteger(SCHEMA_CACHE_SIZE, DEFAULT_MAX_SIZE));
+	}
+
+	/**
+	 * Returns the compiled schema for the given schema text, compiling it only if
+	 * it is not already cached.
+	 *
+	 * @param jsonSchema the JSON schema string
+	 * @return the compiled schema
+	 * @throws X2JException if the String is not a valid JSON schema
+	 */
+	public CompiledSchema getSchema(String jsonSchema) throws X2JException {
+		CompiledSchema schema;
+		synchronized (schemas) {
+			schema = schemas.get(jsonSchema);
+		}
+		if (schema != null) {
+			hits.increment();
+			return schema;
+		}
+		misses.increment();
+		schema = CompiledSchema.compile(jsonSchema);
+		if (maxSize > 0) {
+			synchronized (schemas) {
+				schemas.put(jsonSchema, schema);
+			}
+		}
+		return schema;
+	}
+
+	/**
+	 * Sets the maximum number of cached schemas. A value of zero disables the
+	 * caching. The cached schemas are cleared.
+	 *
+	 * @param maxSize the maximum size
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = Math.max(0, maxSize);
+		clear();
+	}
+
+	/**
+	 * Returns the maximum number of cached schemas.
+	 *
+	 * @return the maximum size
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Removes all the cached schemas.
+	 */
+	public void clear() {
+		synchronized (schemas) {
+			schemas.clear();
+		}
+	}
+
+	/**
+	 * Resets the hit and miss counters.
+	 */
+	public void resetStats() {
+		hits.reset();
+		misses.reset();
+	}
+
+	/**
+	 * Returns the number of lookups that were served from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that required the schema to be compiled.
+	 *
+	 * @return the miss count
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of cached schemas.
+	 *
+	 * @return the size of the cache
+	 */
+	public int size() {
+		synchronized (schemas) {
+			return schemas.size();
+		}
+	}
+
+}
@@ -19,6 +19,17 @@ public class X2JException extends Exception {
 		super(X2JMsgUtils.getInstance().getMessage(errorCode.name()));
 	}
 
+	/**
+	 * Instantiates a new X2JException object with additional details about the
+	 * failure, for example the offending XPath expression.
+	 *
+	 * @param errorCode the error code
+	 * @param detail    the additional details
+	 */
+	public X2JException(X2JErrorCodes errorCode, String detail) {
+		super(X2JMsgUtils.getInstance().getMessage(errorCode.name()) + " " + detail);
+	}
+
 	/**
 	 * Returns the error message.
 	 *
@@ -0,0 +1,322 @@
+package com.x2j.converter.main;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+
+import com.x2j.converter.batch.X2JBatchConverter;
+import com.x2j.converter.batch.X2JBatchResult;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JJsonWriter;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * Runs the multi-file mode of {@link X2JMain}.<br>
+ * All the selected XML files are converted with one compiled schema by a pool
+ * of worker threads, or by virtual threads on Java 21 or later. The JSON of
+ * every file is either written to its own file in an output directory, or
+ * appended as one line to a single NDJSON file (or the console) in the input
+ * order. A throughput summary and the failed files
+ * are printed at the end.
+ */
+final class X2JBatchRunner {
+
+	private static final Pattern WILDCARD = Pattern.compile("[*?\\[{]");
+
+	private final List<Path> inputs;
+
+	private final Path base;
+
+	private final CompiledSchema schema;
+
+	private final int threads;
+
+	private final int virtualThreads;
+
+	private final int indentFactor;
+
+	private long bytes;
+
+	private int converted;
+
+	private final List<String> failures = new ArrayList<String>();
+
+	/**
+	 * Instantiates a new X2JBatchRunner object.
+	 *
+	 * @param inputs         the input XML files
+	 * @param base           the directory the output file names are made
+	 *                       relative to, or null to only use the input file
+	 *                       names
+	 * @param schema         the compiled JSON schema, or null for the default
+	 *                       conversion
+	 * @param threads        the number of worker threads
+	 * @param virtualThreads the maximum number of files converted at the same
+	 *                       time on virtual threads, or 0 to use the worker
+	 *                       threads
+	 * @param indentFactor   the indent factor of the JSON files in the output
+	 *                       directory
+	 */
+	X2JBatchRunner(List<Path> inputs, Path base, CompiledSchema schema, int threads, int virtualThreads,
+			int indentFactor) {
+		this.inputs = inputs;
+		this.base = base;
+		this.schema = schema;
+		this.threads = threads;
+		this.virtualThreads = virtualThreads;
+		this.indentFactor = indentFactor;
+	}
+
+	/**
+	 * Returns the XML files directly inside the given directory, sorted by name.
+	 *
+	 * @param dir the directory
+	 * @return the XML files
+	 * @throws X2JException X2JException
+	 */
+	static List<Path> listDirectory(Path dir) throws X2JException {
+		List<Path> files = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.xml")) {
+			for (Path file : stream) {
+				if (Files.isRegularFile(file)) {
+					files.add(file);
+				}
+			}
+		} catch (IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_015, dir.toString());
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Returns the files matching the given glob pattern, sorted by path. The
+	 * directory before the first path segment with a wildcard is walked and the
+	 * rest of the pattern is matched against the paths relative to it, e.g.
+	 * <code>in/2024/**&#47;*.xml</code>.
+	 *
+	 * @param glob the glob pattern
+	 * @return the matching files
+	 * @throws X2JException X2JException
+	 */
+	static List<Path> listGlob(String glob) throws X2JException {
+		String[] segments = splitGlob(glob);
+		int literal = getLiteralCount(segments);
+		Path dir = getGlobBase(glob);
+		PathMatcher matcher = FileSystems.getDefault()
+				.getPathMatcher("glob:" + String.join("/", Arrays.copyOfRange(segments, literal, segments.length)));
+		List<Path> files = new ArrayList<Path>();
+		try (Stream<Path> walk = Files.walk(dir)) {
+			walk.filter(Files::isRegularFile).filter(file -> matcher.matches(dir.relativize(file)))
+					.forEach(files::add);
+		} catch (IOException | UncheckedIOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_015, glob);
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Returns the directory walked for the given glob pattern, i.e. the path
+	 * segments before the first segment with a wildcard.
+	 *
+	 * @param glob the glob pattern
+	 * @return the directory, an empty path for the current directory
+	 */
+	static Path getGlobBase(String glob) {
+		String[] segments = splitGlob(glob);
+		int literal = getLiteralCount(segments);
+		if (literal == 1 && segments[0].isEmpty()) {
+			return Paths.get("/");
+		}
+		return Paths.get(String.join("/", Arrays.copyOfRange(segments, 0, literal)));
+	}
+
+	private static String[] splitGlob(String glob) {
+		return glob.replace(File.separatorChar, '/').split("/", -1);
+	}
+
+	private static int getLiteralCount(String[] segments) {
+		int literal = 0;
+		while (literal < segments.length - 1 && !WILDCARD.matcher(segments[literal]).find()) {
+			literal++;
+		}
+		return literal;
+	}
+
+	/**
+	 * Returns the files listed in the given text file, one path per line. Blank
+	 * lines and lines starting with # are skipped.
+	 *
+	 * @param listFile the list file
+	 * @return the listed files
+	 * @throws X2JException X2JException
+	 */
+	static List<Path> readList(Path listFile) throws X2JException {
+		List<Path> files = new ArrayList<Path>();
+		try {
+			for (String line : Files.readAllLines(listFile, StandardCharsets.UTF_8)) {
+				line = line.trim();
+				if (!line.isEmpty() && !line.startsWith("#")) {
+					files.add(Paths.get(line));
+				}
+			}
+		} catch (IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_015, listFile.toString());
+		}
+		return files;
+	}
+
+	/**
+	 * Converts all the inputs and prints the summary.
+	 *
+	 * @param outDir  the directory for one JSON file per input, or null
+	 * @param outFile the NDJSON output file, or null for the console (only used if
+	 *                there is no output directory)
+	 * @param console the console to print the NDJSON output to
+	 * @param summary the stream to print the summary to
+	 * @return the number of failed inputs
+	 * @throws X2JException X2JException
+	 */
+	int run(Path outDir, Path outFile, PrintStream console, PrintStream summary) throws X2JException {
+		long start = System.nanoTime();
+		boolean virtual = virtualThreads > 0 && X2JBatchConverter.isVirtualThreadSupported();
+		if (virtualThreads > 0 && !virtual) {
+			summary.println("Virtual threads require Java 21 or later, using " + threads + " worker thread(s).");
+		}
+		ExecutorService executor = virtual ? null : Executors.newFixedThreadPool(threads);
+		X2JBatchConverter converter = virtual ? X2JBatchConverter.withVirtualThreads(virtualThreads)
+				: new X2JBatchConverter(executor);
+		try {
+			if (outDir != null) {
+				converter.convertAsCompleted(getUniqueOutputs(outDir).stream(), schema,
+						(input, json) -> writeFile(input, json, outDir), this::recordFile);
+			} else {
+				Writer writer = outFile == null
+						? new BufferedWriter(new OutputStreamWriter(console, StandardCharsets.UTF_8))
+						: Files.newBufferedWriter(outFile, StandardCharsets.UTF_8);
+				X2JJsonWriter ndjson = new X2JJsonWriter(writer);
+				try {
+					converter.convertAll(inputs.stream(), schema, result -> writeLine(result, ndjson));
+					if (converted > 0) {
+						writer.write('\n');
+					}
+					ndjson.flush();
+				} finally {
+					if (outFile != null) {
+						ndjson.close();
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_008, String.valueOf(outFile));
+		} finally {
+			converter.close();
+			if (executor != null) {
+				executor.shutdown();
+			}
+		}
+		printSummary(summary, System.nanoTime() - start, virtual);
+		return failures.size();
+	}
+
+	private void recordFile(X2JBatchResult<Path> result) {
+		if (record(result)) {
+			converted++;
+		}
+	}
+
+	/*
+	 * Returns the inputs whose output file is not the output file of a previous
+	 * input, e.g. a/x.xml and b/x.xml of an input list, and fails the others
+	 * rather than letting them overwrite each other.
+	 */
+	private List<Path> getUniqueOutputs(Path outDir) {
+		Map<Path, Path> owners = new HashMap<Path, Path>();
+		List<Path> unique = new ArrayList<Path>(inputs.size());
+		for (Path input : inputs) {
+			Path target = outDir.resolve(getOutputName(input)).toAbsolutePath().normalize();
+			Path owner = owners.putIfAbsent(target, input);
+			if (owner == null) {
+				unique.add(input);
+			} else {
+				failures.add(input + ": " + target + " is already the output file of " + owner);
+			}
+		}
+		return unique;
+	}
+
+	private void writeFile(Path input, JSONObject json, Path outDir) throws IOException, X2JException {
+		Path target = outDir.resolve(getOutputName(input));
+		Files.createDirectories(target.toAbsolutePath().getParent());
+		X2JUtils.writeJsonToFile(json, target.toFile(), indentFactor);
+	}
+
+	private void writeLine(X2JBatchResult<Path> result, X2JJsonWriter ndjson) {
+		if (record(result)) {
+			try {
+				ndjson.value(result.getJson());
+				converted++;
+			} catch (IOException e) {
+				failures.add(result.getInput() + ": " + getMessage(e));
+			}
+		}
+	}
+
+	private boolean record(X2JBatchResult<Path> result) {
+		bytes += Math.max(result.getInputBytes(), 0L);
+		if (!result.isSuccess()) {
+			failures.add(result.getInput() + ": " + getMessage(result.getError()));
+		}
+		return result.isSuccess();
+	}
+
+	private Path getOutputName(Path input) {
+		Path name = base == null ? input.getFileName() : base.relativize(input);
+		String fileName = name.getFileName().toString();
+		int ext = fileName.lastIndexOf('.');
+		return name.resolveSibling((ext > 0 ? fileName.substring(0, ext) : fileName) + ".json");
+	}
+
+	private void printSummary(PrintStream summary, long nanos, boolean virtual) {
+		double seconds = Math.max(nanos, 1) / 1e9;
+		summary.println(String.format(Locale.ROOT,
+				"Converted %d of %d XML file(s) in %.3f s with %s: %.1f files/s, %.2f MB/s.", converted, inputs.size(),
+				seconds, virtual ? "up to " + virtualThreads + " virtual thread(s)" : threads + " thread(s)",
+				converted / seconds, bytes / seconds / (1024 * 1024)));
+		for (String failure : failures) {
+			summary.println("Failed: " + failure);
+		}
+	}
+
+	private static String getMessage(Exception e) {
+		return e instanceof X2JException ? ((X2JException) e).getErrorMessage() : String.valueOf(e);
+	}
+
+}
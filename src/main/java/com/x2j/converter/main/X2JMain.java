@@ -1,17 +1,40 @@
 package com.x2j.converter.main;
 
 import static com.x2j.converter.utils.X2JConstants.INPUT_JSON_SCHEMA_FILE;
+import static com.x2j.converter.utils.X2JConstants.INPUT_XML_DIR;
 import static com.x2j.converter.utils.X2JConstants.INPUT_XML_FILE;
+import static com.x2j.converter.utils.X2JConstants.INPUT_XML_GLOB;
+import static com.x2j.converter.utils.X2JConstants.INPUT_XML_LIST;
+import static com.x2j.converter.utils.X2JConstants.JSON_INDENT;
+import static com.x2j.converter.utils.X2JConstants.OUTPUT_JSON_DIR;
 import static com.x2j.converter.utils.X2JConstants.OUTPUT_JSON_FILE;
+import static com.x2j.converter.utils.X2JConstants.PROFILE_REPORT;
+import static com.x2j.converter.utils.X2JConstants.VIRTUAL_THREADS;
+import static com.x2j.converter.utils.X2JConstants.WORKER_THREADS;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
-import org.json.JSONObject;
+import org.w3c.dom.Document;
 
 import com.x2j.converter.XMLToJSONConverter;
 import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.metrics.X2JFieldProfiler;
+import com.x2j.converter.mgr.X2JConversionManager;
+import com.x2j.converter.mgr.schema.CompiledSchema;
 import com.x2j.converter.utils.X2JErrorCodes;
 import com.x2j.converter.utils.X2JExecMode;
+import com.x2j.converter.utils.X2JJsonWriter;
 import com.x2j.converter.utils.X2JUtils;
 
 /**
@@ -25,7 +48,10 @@ import com.x2j.converter.utils.X2JUtils;
  * Converter</a><br>
  * Additionally, if the output file path is passed as an argument, then the
  * output converted JSON will be saved in the specified file, otherwise the
- * converted JSON will be printed in the console.
+ * converted JSON will be printed in the console.<br>
+ * Instead of one input XML file, a directory, a glob pattern or a file listing
+ * the input XML files can be passed to convert many files in one run, with a
+ * pool of worker threads.
  */
 public class X2JMain {
 
@@ -35,6 +61,16 @@ public class X2JMain {
 
 	private static String outFile;
 
+	private static String xmlDir;
+
+	private static String xmlGlob;
+
+	private static String xmlList;
+
+	private static String outDir;
+
+	private static String profileReport;
+
 	private static X2JExecMode mode = X2JExecMode.NORMAL;
 
 	/**
@@ -55,6 +91,26 @@ public class X2JMain {
 	 * -DSchemaJson=PATH_OF_SCHEMA_JSON_FILE -DOutputJson=PATH_OF_OUTPUT_JSON_FILE
 	 * -jar XML2JSON-0.0.1-SNAPSHOT-jar-with-dependencies.jar<br>
 	 * <br>
+	 * The JSON is pretty-printed with 4 spaces per level, unless another
+	 * JsonIndent is passed (0 for compact output).<br>
+	 * <br>
+	 * <b>Multi-file Mode</b>:<br>
+	 * If InputDir (all the XML files in a directory), InputGlob (a glob pattern,
+	 * e.g. in/**&#47;*.xml) or InputList (a file with one XML file path per line)
+	 * is passed instead of InputXml, all the files are converted with the same
+	 * schema by Threads worker threads (by default, the number of processors).
+	 * On Java 21 or later, VirtualThreads=N converts up to N files at the same
+	 * time on virtual threads instead, for files on slow storage.<br>
+	 * The JSON of every file is written to OutputDir with the .json extension, or
+	 * otherwise as one line of the NDJSON file OutputJson or of the console, in
+	 * the input order. A throughput summary and the failed files are printed to
+	 * the standard error at the end.<br>
+	 * <br>
+	 * <b>Profiling</b>:<br>
+	 * If ProfileReport is passed, the time spent on every keyword field of the
+	 * schema is recorded and a report of the slowest fields is written to that
+	 * file at the end.<br>
+	 * <br>
 	 * <b>TEST Mode</b>:<br>
 	 * In case of validation failure, this will throw X2JException instead of
 	 * stopping the application with an error message.
@@ -63,21 +119,29 @@ public class X2JMain {
 	 * @throws X2JException X2JException
 	 */
 	public static void main(String[] args) throws X2JException {
+		X2JFieldProfiler profiler = null;
 		try {
 			validateArguments();
-			XMLToJSONConverter converter = new XMLToJSONConverter();
-			JSONObject convertedJson = new JSONObject();
-			if (X2JUtils.isVoid(jsonFile)) {
-				convertedJson = converter.convertToJson(new File(xmlFile));
-			} else {
-				convertedJson = converter.convertToJson(new File(xmlFile), new File(jsonFile));
+			if (!X2JUtils.isVoid(profileReport)) {
+				profiler = new X2JFieldProfiler();
+				X2JConversionManager.getInstance().setProfiler(profiler);
 			}
+			if (X2JUtils.isVoid(xmlFile)) {
+				convertFiles();
+				writeProfileReport(profiler);
+				return;
+			}
+			Document inDoc = X2JUtils.getXmlFromFile(new File(xmlFile));
+			CompiledSchema schema = X2JUtils.isVoid(jsonFile) ? null
+					: CompiledSchema.compile(X2JUtils.getJsonFromFile(new File(jsonFile)));
 			if (X2JUtils.isVoid(outFile)) {
-				System.out.println(convertedJson.toString(4));
+				writeJson(inDoc, schema, new BufferedWriter(new OutputStreamWriter(System.out)));
+				System.out.println();
 			} else {
-				X2JUtils.writeJsonToFile(convertedJson, new File(outFile));
+				writeJsonToFile(inDoc, schema, new File(outFile));
 				System.out.println("Conversion Completed!");
 			}
+			writeProfileReport(profiler);
 		} catch (X2JException e) {
 			if (mode == X2JExecMode.NORMAL) {
 				System.out.println(e.getErrorMessage());
@@ -85,6 +149,10 @@ public class X2JMain {
 			} else {
 				throw e;
 			}
+		} finally {
+			if (profiler != null) {
+				X2JConversionManager.getInstance().setProfiler(null);
+			}
 		}
 	}
 
@@ -99,11 +167,87 @@ public class X2JMain {
 
 	private static void validateArguments() throws X2JException {
 		xmlFile = System.getProperty(INPUT_XML_FILE);
-		if (X2JUtils.isVoid(xmlFile)) {
+		xmlDir = System.getProperty(INPUT_XML_DIR);
+		xmlGlob = System.getProperty(INPUT_XML_GLOB);
+		xmlList = System.getProperty(INPUT_XML_LIST);
+		if (X2JUtils.isVoid(xmlFile) && X2JUtils.isVoid(xmlDir) && X2JUtils.isVoid(xmlGlob)
+				&& X2JUtils.isVoid(xmlList)) {
 			exitWithUsage();
 		}
 		jsonFile = System.getProperty(INPUT_JSON_SCHEMA_FILE);
 		outFile = System.getProperty(OUTPUT_JSON_FILE);
+		outDir = System.getProperty(OUTPUT_JSON_DIR);
+		profileReport = System.getProperty(PROFILE_REPORT);
+	}
+
+	private static void writeJson(Document inDoc, CompiledSchema schema, Writer out) throws X2JException {
+		X2JJsonWriter writer = new X2JJsonWriter(out, getIndentFactor());
+		XMLToJSONConverter converter = new XMLToJSONConverter();
+		if (schema == null) {
+			converter.writeJson(inDoc, writer);
+		} else {
+			converter.writeJson(inDoc, schema, writer);
+		}
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_008);
+		}
+	}
+
+	private static void writeJsonToFile(Document inDoc, CompiledSchema schema, File file) throws X2JException {
+		OutputStream stream;
+		try {
+			stream = new FileOutputStream(file);
+		} catch (IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_008);
+		}
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+			writeJson(inDoc, schema, out);
+		} catch (IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_008);
+		} catch (X2JException | RuntimeException e) {
+			file.delete();
+			throw e;
+		}
+	}
+
+	private static void writeProfileReport(X2JFieldProfiler profiler) throws X2JException {
+		if (profiler == null) {
+			return;
+		}
+		try {
+			Files.write(Paths.get(profileReport), profiler.getReport(0).getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_016, profileReport);
+		}
+		System.err.println("Profile report written to " + profileReport + ".");
+	}
+
+	private static void convertFiles() throws X2JException {
+		List<Path> inputs;
+		Path base = null;
+		if (!X2JUtils.isVoid(xmlDir)) {
+			base = Paths.get(xmlDir);
+			inputs = X2JBatchRunner.listDirectory(base);
+		} else if (!X2JUtils.isVoid(xmlGlob)) {
+			base = X2JBatchRunner.getGlobBase(xmlGlob);
+			inputs = X2JBatchRunner.listGlob(xmlGlob);
+		} else {
+			inputs = X2JBatchRunner.readList(Paths.get(xmlList));
+		}
+		CompiledSchema schema = X2JUtils.isVoid(jsonFile) ? null
+				: CompiledSchema.compile(X2JUtils.getJsonFromFile(new File(jsonFile)));
+		int threads = Math.max(1,
+				Integer.getInteger(WORKER_THREADS, Runtime.getRuntime().availableProcessors()).intValue());
+		int virtualThreads = Math.max(0, Integer.getInteger(VIRTUAL_THREADS, 0).intValue());
+		new X2JBatchRunner(inputs, base, schema, threads, virtualThreads, getIndentFactor()).run(
+				X2JUtils.isVoid(outDir) ? null : Paths.get(outDir),
+				X2JUtils.isVoid(outFile) ? null : Paths.get(outFile), System.out, System.err);
+	}
+
+	private static int getIndentFactor() {
+		return Integer.getInteger(JSON_INDENT, 4).intValue();
 	}
 
 	private static void exitWithUsage() throws X2JException {
@@ -115,6 +259,16 @@ public class X2JMain {
 				"1. SchemaJson: If the schema json file is not specified, then default conversion will happen.");
 		System.out.println(
 				"2. OutputJson: If the output json file is not specified, then the output is printed to the console.");
+		System.out.println(
+				"3. JsonIndent: Spaces per nesting level of the output JSON, 4 by default and 0 for compact output.");
+		System.out.println(
+				"4. ProfileReport: File to write the time spent on every field of the schema to, slowest first.");
+		System.out.println("Multi-file Mode::");
+		System.out.println("java -DInputDir=DIR_OF_INPUT_XML_FILES | -DInputGlob=GLOB_OF_INPUT_XML_FILES"
+				+ " | -DInputList=FILE_LISTING_INPUT_XML_FILES -DSchemaJson=PATH_OF_SCHEMA_JSON_FILE"
+				+ " -DOutputDir=DIR_OF_OUTPUT_JSON_FILES | -DOutputJson=PATH_OF_OUTPUT_NDJSON_FILE"
+				+ " -DThreads=NUMBER_OF_WORKER_THREADS | -DVirtualThreads=MAX_FILES_IN_FLIGHT"
+				+ " -jar XML2JSON-0.0.1-SNAPSHOT-jar-with-dependencies.jar");
 		System.out.println(
 				"For more information on this, please visit: https://github.com/mohapatra-sambit/xml-to-json-converter");
 		switch (mode) {
@@ -0,0 +1,109 @@
+package com.x2j.converter.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The time spent resolving one field of a JSON schema, as collected by
+ * {@link X2JFieldProfiler}. The object is a snapshot and does not change when
+ * more conversions are profiled.
+ */
+public final class X2JFieldProfile {
+
+	private static final Pattern POSITIONAL_PREDICATE = Pattern.compile("\\[\\s*(\\d+|last\\(\\)|position\\(\\))");
+
+	private final String schemaPath;
+
+	private final String expression;
+
+	private final long count;
+
+	private final long totalNanos;
+
+	private final long maxNanos;
+
+	X2JFieldProfile(String schemaPath, String expression, long count, long totalNanos, long maxNanos) {
+		this.schemaPath = schemaPath;
+		this.expression = expression;
+		this.count = count;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+	}
+
+	/**
+	 * Returns the location of the field in the schema, e.g.
+	 * <code>$.LineItems[0].Quantity</code>.
+	 *
+	 * @return the schema path
+	 */
+	public String getSchemaPath() {
+		return schemaPath;
+	}
+
+	/**
+	 * Returns the value of the field in the schema, e.g.
+	 * <code>RECUR_ELEM(/Item/@Qty):INT</code>.
+	 *
+	 * @return the expression
+	 */
+	public String getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Returns the number of times the field was resolved. A field inside an item
+	 * with a recurrent path is resolved once per repeated element.
+	 *
+	 * @return the evaluation count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the cumulative time spent resolving the field.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * Returns the longest time spent resolving the field once.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 * Returns the mean time spent resolving the field once.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public double getMeanNanos() {
+		return count == 0 ? 0.0 : (double) totalNanos / count;
+	}
+
+	/**
+	 * Returns the constructs of the expression that are known to be expensive:
+	 * descendant scans (<b>//</b>) and positional predicates.
+	 *
+	 * @return the hints, empty if none
+	 */
+	public List<String> getHints() {
+		List<String> hints = new ArrayList<String>();
+		if (expression.contains("//")) {
+			hints.add("descendant scan (//)");
+		}
+		if (POSITIONAL_PREDICATE.matcher(expression).find()) {
+			hints.add("positional predicate");
+		}
+		return Collections.unmodifiableList(hints);
+	}
+
+}
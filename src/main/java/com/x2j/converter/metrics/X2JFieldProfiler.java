@@ -0,0 +1,127 @@
+package com.x2j.converter.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.x2j.converter.mgr.X2JConversionManager;
+
+/**
+ * Times every keyword field of a JSON schema while it is resolved, to find the
+ * mappings that make a conversion slow.<br>
+ * A profiler is installed with
+ * {@link X2JConversionManager#setProfiler(X2JFieldProfiler)}; all the schema
+ * conversions done afterwards, on any thread, are recorded until it is removed.
+ * The time of a field includes its nested keywords, the XPath evaluations and
+ * the datatype conversion. The constant fields and the default conversion are
+ * not profiled.<br>
+ * The fields with the same schema path are added up, hence profiling several
+ * schemas at once should be avoided.
+ */
+public class X2JFieldProfiler {
+
+	private static final Comparator<X2JFieldProfile> BY_TIME = Comparator
+			.comparingLong(X2JFieldProfile::getTotalNanos).thenComparingLong(X2JFieldProfile::getCount).reversed()
+			.thenComparing(X2JFieldProfile::getSchemaPath);
+
+	private final Map<String, Field> fields = new ConcurrentHashMap<String, Field>();
+
+	private static final class Field {
+
+		private final String expression;
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder total = new LongAdder();
+
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+		private Field(String expression) {
+			this.expression = expression;
+		}
+
+	}
+
+	/**
+	 * Records one resolution of a field.
+	 *
+	 * @param schemaPath the location of the field in the schema
+	 * @param expression the value of the field in the schema
+	 * @param nanos      the time in nanoseconds
+	 */
+	public void record(String schemaPath, String expression, long nanos) {
+		Field field = fields.get(schemaPath);
+		if (field == null) {
+			field = fields.computeIfAbsent(schemaPath, key -> new Field(expression));
+		}
+		field.count.increment();
+		field.total.add(nanos);
+		field.max.accumulate(nanos);
+	}
+
+	/**
+	 * Returns the profiled fields, the slowest first: by cumulative time, then by
+	 * evaluation count.
+	 *
+	 * @return the field profiles
+	 */
+	public List<X2JFieldProfile> getFields() {
+		List<X2JFieldProfile> profiles = new ArrayList<X2JFieldProfile>(fields.size());
+		for (Map.Entry<String, Field> entry : fields.entrySet()) {
+			Field field = entry.getValue();
+			profiles.add(new X2JFieldProfile(entry.getKey(), field.expression, field.count.sum(), field.total.sum(),
+					field.max.get()));
+		}
+		profiles.sort(BY_TIME);
+		return profiles;
+	}
+
+	/**
+	 * Clears all the recorded fields.
+	 */
+	public void reset() {
+		fields.clear();
+	}
+
+	/**
+	 * Returns a printable report of the slowest fields.
+	 *
+	 * @param limit the maximum number of fields, 0 for all of them
+	 * @return the report
+	 */
+	public String getReport(int limit) {
+		List<X2JFieldProfile> profiles = getFields();
+		long total = 0;
+		for (X2JFieldProfile profile : profiles) {
+			total += profile.getTotalNanos();
+		}
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(Locale.ROOT, "%-4s %12s %7s %10s %10s  %s%n", "#", "total (ms)", "share",
+				"count", "mean (us)", "field / expression"));
+		int rows = limit > 0 ? Math.min(limit, profiles.size()) : profiles.size();
+		for (int i = 0; i < rows; i++) {
+			X2JFieldProfile profile = profiles.get(i);
+			report.append(String.format(Locale.ROOT, "%-4d %12.3f %6.1f%% %10d %10.1f  %s%n", i + 1,
+					profile.getTotalNanos() / 1e6, total == 0 ? 0.0 : 100.0 * profile.getTotalNanos() / total,
+					profile.getCount(), profile.getMeanNanos() / 1e3, profile.getSchemaPath()));
+			report.append(String.format(Locale.ROOT, "%-4s %12s %7s %10s %10s  %s%s%n", "", "", "", "", "",
+					profile.getExpression(),
+					profile.getHints().isEmpty() ? "" : "  <- " + String.join(", ", profile.getHints())));
+		}
+		if (rows < profiles.size()) {
+			report.append(String.format(Locale.ROOT, "... %d more field(s)%n", profiles.size() - rows));
+		}
+		return report.toString();
+	}
+
+	@Override
+	public String toString() {
+		return getReport(0);
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.x2j.converter.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of non-negative values with power of two buckets.
+ * <br>
+ * The count, the sum, the minimum and the maximum are exact. The percentiles
+ * are estimated with the upper bound of the bucket they fall in, hence they are
+ * at most twice the exact value (and never above the maximum). Recording a
+ * value takes a few atomic updates and allocates nothing.
+ */
+public class X2JHistogram {
+
+	private static final int BUCKETS = 65;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder sum = new LongAdder();
+
+	private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+	/**
+	 * Records a value. Negative values are recorded as zero.
+	 *
+	 * @param value the value
+	 */
+	public void record(long value) {
+		long v = Math.max(0L, value);
+		buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(v));
+		count.increment();
+		sum.add(v);
+		min.accumulate(v);
+		max.accumulate(v);
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Returns the sum of the recorded values.
+	 *
+	 * @return the sum
+	 */
+	public long getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * Returns the smallest recorded value.
+	 *
+	 * @return the minimum, or zero if nothing has been recorded
+	 */
+	public long getMin() {
+		return getCount() == 0 ? 0L : min.get();
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 *
+	 * @return the maximum, or zero if nothing has been recorded
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns the mean of the recorded values.
+	 *
+	 * @return the mean, or zero if nothing has been recorded
+	 */
+	public double getMean() {
+		long n = getCount();
+		return n == 0 ? 0.0 : (double) getSum() / n;
+	}
+
+	/**
+	 * Returns an estimate of the given percentile.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the estimate, or zero if nothing has been recorded
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = buckets.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0L;
+		}
+		long rank = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				long upper = i == 0 ? 0L : i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+				return Math.max(getMin(), Math.min(upper, getMax()));
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Clears all the recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0L);
+		}
+		count.reset();
+		sum.reset();
+		min.reset();
+		max.reset();
+	}
+
+}
@@ -0,0 +1,205 @@
+package com.x2j.converter.metrics;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A metrics listener that keeps the measurements in memory, as
+ * {@link X2JHistogram}s of nanoseconds (and of sizes for the recurrent paths),
+ * with one histogram per handler keyword. The total input and output sizes are
+ * counted as well.<br>
+ * {@link #toString()} returns a printable report of all the measurements.
+ */
+public class X2JHistogramMetrics implements X2JMetricsListener {
+
+	private final X2JHistogram parse = new X2JHistogram();
+
+	private final X2JHistogram schemaCompile = new X2JHistogram();
+
+	private final X2JHistogram xPath = new X2JHistogram();
+
+	private final Map<String, X2JHistogram> handlers = new ConcurrentHashMap<String, X2JHistogram>();
+
+	private final X2JHistogram recurrentPath = new X2JHistogram();
+
+	private final X2JHistogram conversion = new X2JHistogram();
+
+	private final X2JHistogram serialize = new X2JHistogram();
+
+	private final LongAdder bytesIn = new LongAdder();
+
+	private final LongAdder bytesOut = new LongAdder();
+
+	@Override
+	public void onParse(long nanos, long bytes) {
+		parse.record(nanos);
+		bytesIn.add(bytes);
+	}
+
+	@Override
+	public void onSchemaCompile(long nanos) {
+		schemaCompile.record(nanos);
+	}
+
+	@Override
+	public void onXPath(long nanos) {
+		xPath.record(nanos);
+	}
+
+	@Override
+	public void onHandler(String keyword, long nanos) {
+		handlers.computeIfAbsent(keyword, k -> new X2JHistogram()).record(nanos);
+	}
+
+	@Override
+	public void onRecurrentPath(String path, int size) {
+		recurrentPath.record(size);
+	}
+
+	@Override
+	public void onConversion(long nanos) {
+		conversion.record(nanos);
+	}
+
+	@Override
+	public void onSerialize(long nanos, long bytes) {
+		serialize.record(nanos);
+		bytesOut.add(bytes);
+	}
+
+	/**
+	 * Returns the parse times.
+	 *
+	 * @return the histogram in nanoseconds
+	 */
+	public X2JHistogram getParse() {
+		return parse;
+	}
+
+	/**
+	 * Returns the schema compile times.
+	 *
+	 * @return the histogram in nanoseconds
+	 */
+	public X2JHistogram getSchemaCompile() {
+		return schemaCompile;
+	}
+
+	/**
+	 * Returns the XPath evaluation times. The count of the histogram is the
+	 * number of evaluations.
+	 *
+	 * @return the histogram in nanoseconds
+	 */
+	public X2JHistogram getXPath() {
+		return xPath;
+	}
+
+	/**
+	 * Returns the times of one handler keyword.
+	 *
+	 * @param keyword the keyword, e.g. <b>XPATH</b>
+	 * @return the histogram in nanoseconds, empty if the keyword was never used
+	 */
+	public X2JHistogram getHandler(String keyword) {
+		X2JHistogram histogram = handlers.get(keyword);
+		return histogram == null ? new X2JHistogram() : histogram;
+	}
+
+	/**
+	 * Returns the times of all the handler keywords used so far.
+	 *
+	 * @return the histograms in nanoseconds, by keyword
+	 */
+	public Map<String, X2JHistogram> getHandlers() {
+		return Collections.unmodifiableMap(new TreeMap<String, X2JHistogram>(handlers));
+	}
+
+	/**
+	 * Returns the expansion sizes of the recurrent paths.
+	 *
+	 * @return the histogram of the number of repeated elements
+	 */
+	public X2JHistogram getRecurrentPath() {
+		return recurrentPath;
+	}
+
+	/**
+	 * Returns the conversion times.
+	 *
+	 * @return the histogram in nanoseconds
+	 */
+	public X2JHistogram getConversion() {
+		return conversion;
+	}
+
+	/**
+	 * Returns the serialization times.
+	 *
+	 * @return the histogram in nanoseconds
+	 */
+	public X2JHistogram getSerialize() {
+		return serialize;
+	}
+
+	/**
+	 * Returns the total size of the parsed inputs.
+	 *
+	 * @return the size
+	 */
+	public long getBytesIn() {
+		return bytesIn.sum();
+	}
+
+	/**
+	 * Returns the total size of the written outputs.
+	 *
+	 * @return the size
+	 */
+	public long getBytesOut() {
+		return bytesOut.sum();
+	}
+
+	/**
+	 * Clears all the measurements.
+	 */
+	public void reset() {
+		parse.reset();
+		schemaCompile.reset();
+		xPath.reset();
+		handlers.clear();
+		recurrentPath.reset();
+		conversion.reset();
+		serialize.reset();
+		bytesIn.reset();
+		bytesOut.reset();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		append(report, "parse", parse, true);
+		append(report, "schema compile", schemaCompile, true);
+		append(report, "xpath", xPath, true);
+		for (Map.Entry<String, X2JHistogram> handler : getHandlers().entrySet()) {
+			append(report, "handler " + handler.getKey(), handler.getValue(), true);
+		}
+		append(report, "recurrent path size", recurrentPath, false);
+		append(report, "conversion", conversion, true);
+		append(report, "serialize", serialize, true);
+		report.append(String.format(Locale.ROOT, "bytes in: %d, bytes out: %d", getBytesIn(), getBytesOut()));
+		return report.toString();
+	}
+
+	private static void append(StringBuilder report, String name, X2JHistogram histogram, boolean nanos) {
+		double scale = nanos ? 1e3 : 1.0;
+		report.append(String.format(Locale.ROOT, "%s%s: count=%d, mean=%.1f, p50=%.1f, p99=%.1f, max=%.1f%n", name,
+				nanos ? " (us)" : "", histogram.getCount(), histogram.getMean() / scale,
+				histogram.getPercentile(50) / scale, histogram.getPercentile(99) / scale, histogram.getMax() / scale));
+	}
+
+}
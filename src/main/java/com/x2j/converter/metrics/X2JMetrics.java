@@ -0,0 +1,151 @@
+package com.x2j.converter.metrics;
+
+/**
+ * A single instance registry of the {@link X2JMetricsListener} that the
+ * conversion reports into.<br>
+ * By default the no-op listener is installed and no clock is read at all: the
+ * measuring code calls {@link #start()}, which returns zero while the metrics
+ * are disabled, and the reporting methods ignore a zero start time.
+ */
+public class X2JMetrics {
+
+	private volatile X2JMetricsListener listener = X2JMetricsListener.NOOP;
+
+	private static class InstanceHolder {
+		private static final X2JMetrics INSTANCE = new X2JMetrics();
+	}
+
+	/**
+	 * Returns the single instance of X2JMetrics.
+	 *
+	 * @return instance of X2JMetrics
+	 */
+	public static X2JMetrics getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	private X2JMetrics() {
+	}
+
+	/**
+	 * Installs the listener. Null installs the no-op listener, which disables the
+	 * metrics.
+	 *
+	 * @param listener the listener, may be null
+	 */
+	public void setListener(X2JMetricsListener listener) {
+		this.listener = listener == null ? X2JMetricsListener.NOOP : listener;
+	}
+
+	/**
+	 * Returns the installed listener.
+	 *
+	 * @return the listener, never null
+	 */
+	public X2JMetricsListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Checks whether a listener other than the no-op listener is installed.
+	 *
+	 * @return true, if the metrics are enabled
+	 */
+	public boolean isEnabled() {
+		return listener != X2JMetricsListener.NOOP;
+	}
+
+	/**
+	 * Returns the start time of a measurement.
+	 *
+	 * @return the current value of System.nanoTime(), or zero if the metrics are
+	 *         disabled
+	 */
+	public long start() {
+		return isEnabled() ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Reports a parsed input XML.
+	 *
+	 * @param start the start time
+	 * @param bytes the size of the input
+	 */
+	public void parsed(long start, long bytes) {
+		if (start != 0L) {
+			listener.onParse(System.nanoTime() - start, bytes);
+		}
+	}
+
+	/**
+	 * Reports a compiled JSON schema.
+	 *
+	 * @param start the start time
+	 */
+	public void schemaCompiled(long start) {
+		if (start != 0L) {
+			listener.onSchemaCompile(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Reports an evaluated XPath expression.
+	 *
+	 * @param start the start time
+	 */
+	public void xPathEvaluated(long start) {
+		if (start != 0L) {
+			listener.onXPath(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Reports a resolved keyword value.
+	 *
+	 * @param start   the start time
+	 * @param keyword the keyword
+	 */
+	public void handled(long start, String keyword) {
+		if (start != 0L) {
+			listener.onHandler(keyword, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Reports an expanded recurrent path. Unlike the other reports, this one does
+	 * not need a start time.
+	 *
+	 * @param path the recurrent path
+	 * @param size the number of repeated elements
+	 */
+	public void recurrentPathExpanded(String path, int size) {
+		X2JMetricsListener current = listener;
+		if (current != X2JMetricsListener.NOOP) {
+			current.onRecurrentPath(path, size);
+		}
+	}
+
+	/**
+	 * Reports a converted document.
+	 *
+	 * @param start the start time
+	 */
+	public void converted(long start) {
+		if (start != 0L) {
+			listener.onConversion(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Reports a written output JSON.
+	 *
+	 * @param start the start time
+	 * @param bytes the size of the output
+	 */
+	public void serialized(long start, long bytes) {
+		if (start != 0L) {
+			listener.onSerialize(System.nanoTime() - start, bytes);
+		}
+	}
+
+}
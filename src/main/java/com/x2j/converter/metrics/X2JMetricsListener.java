@@ -0,0 +1,84 @@
+package com.x2j.converter.metrics;
+
+/**
+ * Receives the measurements taken while converting XML to JSON.<br>
+ * All the methods have an empty default implementation, hence a listener only
+ * overrides the measurements it is interested in. The methods are called on the
+ * converting threads, possibly concurrently, and must therefore be thread-safe
+ * and cheap.<br>
+ * A listener is installed with {@link X2JMetrics#setListener(X2JMetricsListener)};
+ * {@link X2JHistogramMetrics} is an in-memory implementation.
+ */
+public interface X2JMetricsListener {
+
+	/** The listener that ignores all the measurements. */
+	X2JMetricsListener NOOP = new X2JMetricsListener() {
+	};
+
+	/**
+	 * Called after an input XML has been parsed into a DOM document.
+	 *
+	 * @param nanos the parse time in nanoseconds
+	 * @param bytes the size of the input, in bytes for a file and in characters
+	 *              for a String, or 0 for a stream
+	 */
+	default void onParse(long nanos, long bytes) {
+	}
+
+	/**
+	 * Called after a JSON schema has been compiled.
+	 *
+	 * @param nanos the compile time in nanoseconds
+	 */
+	default void onSchemaCompile(long nanos) {
+	}
+
+	/**
+	 * Called after an XPath expression has been evaluated against the XML. The
+	 * paths answered from the resolved paths of a recurrent path are not
+	 * evaluated and not reported.
+	 *
+	 * @param nanos the evaluation time in nanoseconds
+	 */
+	default void onXPath(long nanos) {
+	}
+
+	/**
+	 * Called after a keyword value of the schema has been resolved.
+	 *
+	 * @param keyword the keyword, e.g. <b>XPATH</b> or <b>RECUR_ELEM</b>
+	 * @param nanos   the time in nanoseconds, including the nested keywords and
+	 *                the datatype conversion
+	 */
+	default void onHandler(String keyword, long nanos) {
+	}
+
+	/**
+	 * Called after a <b>recurrent_path</b> has been expanded.
+	 *
+	 * @param path the recurrent path
+	 * @param size the number of repeated elements
+	 */
+	default void onRecurrentPath(String path, int size) {
+	}
+
+	/**
+	 * Called after a document has been converted, without the parsing and the
+	 * serialization.
+	 *
+	 * @param nanos the conversion time in nanoseconds
+	 */
+	default void onConversion(long nanos) {
+	}
+
+	/**
+	 * Called after an output JSON has been written.
+	 *
+	 * @param nanos the serialization time in nanoseconds
+	 * @param bytes the size of the output, in bytes for a stream and in
+	 *              characters for a Writer
+	 */
+	default void onSerialize(long nanos, long bytes) {
+	}
+
+}
@@ -0,0 +1,232 @@
+package com.x2j.converter.mgr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.XML;
+import org.json.XMLParserConfiguration;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Builds the JSON of the default conversion directly from the XML nodes, with
+ * the same result as <b>XML.toJSONObject()</b> applied to the XML text:
+ * <ul>
+ * <li>Every element becomes a field of its parent, named after the element.
+ * Repeated names are collected in a JSON array.</li>
+ * <li>Attributes become fields of the element's object. The text, with the
+ * surrounding whitespace removed, goes into the <b>content</b> field; text split
+ * by child elements, comments or CDATA sections gives several values.</li>
+ * <li>Attribute values and text are converted to numbers, booleans and null
+ * where possible; CDATA sections are kept as they are.</li>
+ * <li>An element with only text becomes that text and an element without
+ * attributes and text becomes an empty string.</li>
+ * </ul>
+ * The builder is fed with events, either by walking a DOM element with
+ * {@link #build(Element)} or by a streaming parser. An instance is used for one
+ * document only.
+ */
+public class X2JDefaultJsonBuilder {
+
+	private static final String CONTENT = XMLParserConfiguration.ORIGINAL.getcDataTagName();
+
+	private static final int MAX_DEPTH = XMLParserConfiguration.ORIGINAL.getMaxNestingDepth();
+
+	private final List<Frame> frames = new ArrayList<Frame>();
+
+	/**
+	 * Instantiates a new X2JDefaultJsonBuilder object.
+	 */
+	public X2JDefaultJsonBuilder() {
+		frames.add(new Frame(null));
+	}
+
+	/**
+	 * Converts the XML element and all its descendants.
+	 *
+	 * @param root the root element of the XML
+	 * @return the resultant JSON object
+	 * @throws JSONException if the element is nested too deep
+	 */
+	public static JSONObject build(Element root) throws JSONException {
+		X2JDefaultJsonBuilder builder = new X2JDefaultJsonBuilder();
+		builder.walk(root);
+		return builder.getResult();
+	}
+
+	/**
+	 * Starts an element. The attributes must be added next, before any content.
+	 *
+	 * @param name the element name
+	 */
+	public void startElement(String name) {
+		Frame parent = content();
+		parent.flushText();
+		frames.add(new Frame(name));
+	}
+
+	/**
+	 * Adds an attribute to the current element.
+	 *
+	 * @param name  the attribute name
+	 * @param value the attribute value
+	 */
+	public void attribute(String name, String value) {
+		current().json.accumulate(name, XML.stringToValue(value));
+	}
+
+	/**
+	 * Adds text to the current element. Consecutive text is joined.
+	 *
+	 * @param text the text
+	 */
+	public void text(String text) {
+		Frame frame = content();
+		if (frame.text == null) {
+			frame.text = text;
+		} else {
+			if (frame.buffer == null) {
+				frame.buffer = new StringBuilder(frame.text);
+			}
+			frame.buffer.append(text);
+		}
+	}
+
+	/**
+	 * Adds a CDATA section to the current element. Empty sections are ignored.
+	 *
+	 * @param text the text of the CDATA section
+	 */
+	public void cdata(String text) {
+		if (text.length() > 0) {
+			Frame frame = content();
+			frame.flushText();
+			frame.json.accumulate(CONTENT, text);
+		}
+	}
+
+	/**
+	 * Marks a comment or a processing instruction in the current element. They are
+	 * not part of the JSON, but they separate the text around them.
+	 */
+	public void separator() {
+		content().flushText();
+	}
+
+	/**
+	 * Ends the current element and adds its value to the parent element.
+	 *
+	 * @throws JSONException if the element is nested too deep
+	 */
+	public void endElement() throws JSONException {
+		Frame frame = frames.remove(frames.size() - 1);
+		frame.flushText();
+		Object value;
+		if (!frame.hasContent) {
+			value = frame.json.length() > 0 ? frame.json : "";
+		} else if (frames.size() > MAX_DEPTH) {
+			throw new JSONException("Maximum nesting depth of " + MAX_DEPTH + " reached");
+		} else if (frame.json.length() == 0) {
+			value = "";
+		} else if (frame.json.length() == 1 && frame.json.opt(CONTENT) != null) {
+			value = frame.json.opt(CONTENT);
+		} else {
+			value = frame.json;
+		}
+		current().json.accumulate(frame.name, value);
+	}
+
+	/**
+	 * Returns the JSON built so far, i.e. the complete JSON once the root element
+	 * has ended.
+	 *
+	 * @return the JSON object
+	 */
+	public JSONObject getResult() {
+		return frames.get(0).json;
+	}
+
+	private void walk(Element element) throws JSONException {
+		startElement(element.getNodeName());
+		NamedNodeMap attributes = element.getAttributes();
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Node attribute = attributes.item(i);
+			attribute(attribute.getNodeName(), attribute.getNodeValue());
+		}
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+			switch (child.getNodeType()) {
+			case Node.ELEMENT_NODE:
+				walk((Element) child);
+				break;
+			case Node.TEXT_NODE:
+				text(child.getNodeValue());
+				break;
+			case Node.CDATA_SECTION_NODE:
+				cdata(child.getNodeValue());
+				break;
+			case Node.ENTITY_REFERENCE_NODE:
+				text(child.getTextContent());
+				break;
+			default:
+				separator();
+				break;
+			}
+		}
+		endElement();
+	}
+
+	private Frame current() {
+		return frames.get(frames.size() - 1);
+	}
+
+	private Frame content() {
+		Frame frame = current();
+		frame.hasContent = true;
+		return frame;
+	}
+
+	/**
+	 * An open element.
+	 */
+	private static class Frame {
+
+		private final String name;
+
+		private final JSONObject json = new JSONObject();
+
+		private boolean hasContent;
+
+		private String text;
+
+		private StringBuilder buffer;
+
+		private Frame(String name) {
+			this.name = name;
+		}
+
+		private void flushText() {
+			if (text == null) {
+				return;
+			}
+			String value = trim(buffer == null ? text : buffer.toString());
+			text = null;
+			buffer = null;
+			if (value.length() > 0) {
+				json.accumulate(CONTENT, XML.stringToValue(value));
+			}
+		}
+
+		private static String trim(String text) {
+			int start = 0;
+			while (start < text.length() && Character.isWhitespace(text.charAt(start))) {
+				start++;
+			}
+			return text.substring(start).trim();
+		}
+
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.x2j.converter.mgr.expr;
+
+import java.util.Collection;
+
+import org.w3c.dom.Element;
+
+import com.x2j.converter.excp.X2JException;
+
+/**
+ * A node of a parsed keyword expression, such as
+ * <code>UPPER(CONCAT(/Root/@Id, '-', /Root/@Type))</code>.<br>
+ * The expressions are built once, by {@link ExpressionParser}, when the schema
+ * is compiled. Evaluating an expression only walks the tree; the keyword string
+ * is not parsed again. An expression is immutable and can be evaluated by many
+ * threads at the same time.
+ */
+public interface Expression {
+
+	/**
+	 * Evaluates the expression against the given XML element.
+	 *
+	 * @param context the element the XPaths are resolved against, usually the root
+	 *                element of the input XML
+	 * @return the resulting string
+	 * @throws X2JException if an XPath cannot be resolved or a function argument
+	 *                      is not valid
+	 */
+	String evaluate(Element context) throws X2JException;
+
+	/**
+	 * Adds the XPaths that are resolved by this expression and its arguments to
+	 * the given collection.
+	 *
+	 * @param paths the collection of XPaths
+	 */
+	void collectPaths(Collection<String> paths);
+
+}
@@ -0,0 +1,195 @@
+package com.x2j.converter.mgr.expr;
+
+import static com.x2j.converter.utils.X2JConstants.CONCAT;
+import static com.x2j.converter.utils.X2JConstants.LEN;
+import static com.x2j.converter.utils.X2JConstants.LOWER;
+import static com.x2j.converter.utils.X2JConstants.SUBSTR;
+import static com.x2j.converter.utils.X2JConstants.UPPER;
+import static com.x2j.converter.utils.X2JConstants.VALUE;
+import static com.x2j.converter.utils.X2JConstants.XPATH;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.expr.FunctionExpression.Function;
+import com.x2j.converter.mgr.expr.PathExpression.Kind;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * Parses the keyword values of a JSON schema into {@link Expression} trees.
+ * <br>
+ * A keyword value is a keyword, its arguments in parentheses and an optional
+ * datatype suffix, e.g. <code>CONCAT(/Root/@Id, -, /Root/@Type):STRING</code>.
+ * The argument of <b>XPATH</b> and <b>VALUE</b> is an XPath and is taken as it
+ * is. The arguments of the string functions are separated by commas, and each
+ * argument is one of:
+ * <ul>
+ * <li>a nested keyword, e.g. <code>UPPER(CONCAT(/Root/@Id, -))</code>;</li>
+ * <li>a quoted constant, in single or double quotes, which may contain commas,
+ * parentheses and spaces; the quote character is doubled inside the constant,
+ * e.g. <code>'it''s, here'</code>;</li>
+ * <li>an XPath, if it contains <b>/</b>, <b>@</b> or <b>[</b> and is a valid
+ * XPath;</li>
+ * <li>otherwise, a constant, without the surrounding spaces. In <b>CONCAT</b>,
+ * <b>${COMMA}</b> still stands for a comma.</li>
+ * </ul>
+ * Commas inside parentheses, brackets or XPath string literals do not separate
+ * the arguments. <b>LEN</b>, <b>UPPER</b> and <b>LOWER</b> take everything in
+ * their parentheses as one argument.
+ */
+public final class ExpressionParser {
+
+	private static final String COMMA = "${COMMA}";
+
+	private static final Map<String, Function> FUNCTIONS;
+
+	static {
+		Map<String, Function> functions = new HashMap<String, Function>();
+		functions.put(CONCAT, Function.CONCAT);
+		functions.put(LEN, Function.LEN);
+		functions.put(UPPER, Function.UPPER);
+		functions.put(LOWER, Function.LOWER);
+		functions.put(SUBSTR, Function.SUBSTR);
+		FUNCTIONS = Collections.unmodifiableMap(functions);
+	}
+
+	private ExpressionParser() {
+	}
+
+	/**
+	 * Parses a keyword value of the schema.
+	 *
+	 * @param value the keyword value
+	 * @return the expression, or null if the value does not start with a keyword
+	 * @throws X2JException if the parentheses or the quotes are not balanced
+	 */
+	public static Expression parse(String value) throws X2JException {
+		int open = value.indexOf('(');
+		if (open < 0 || !isKeyword(value.substring(0, open + 1))) {
+			return null;
+		}
+		int close = value.lastIndexOf(')');
+		if (close < open) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_017, value);
+		}
+		return parseCall(value.substring(0, open + 1), value.substring(open + 1, close), value);
+	}
+
+	private static boolean isKeyword(String keyword) {
+		return XPATH.equals(keyword) || VALUE.equals(keyword) || FUNCTIONS.containsKey(keyword);
+	}
+
+	private static Expression parseCall(String keyword, String inner, String source) throws X2JException {
+		if (XPATH.equals(keyword)) {
+			return new PathExpression(inner, Kind.XPATH);
+		} else if (VALUE.equals(keyword)) {
+			return new PathExpression(inner, Kind.VALUE);
+		}
+		Function function = FUNCTIONS.get(keyword);
+		List<Expression> args = new ArrayList<Expression>();
+		if (function == Function.CONCAT || function == Function.SUBSTR) {
+			for (String arg : split(inner, source)) {
+				args.add(parseArgument(arg, function == Function.CONCAT, source));
+			}
+		} else {
+			split(inner, source);
+			args.add(parseArgument(inner, false, source));
+		}
+		return new FunctionExpression(function, args);
+	}
+
+	private static Expression parseArgument(String arg, boolean concat, String source) throws X2JException {
+		String text = arg.trim();
+		if (isQuoted(text)) {
+			String quote = text.substring(0, 1);
+			return new LiteralExpression(text.substring(1, text.length() - 1).replace(quote + quote, quote));
+		}
+		int open = text.indexOf('(');
+		if (open > 0 && text.endsWith(")") && isKeyword(text.substring(0, open + 1))) {
+			return parseCall(text.substring(0, open + 1), text.substring(open + 1, text.length() - 1), source);
+		}
+		if (X2JUtils.isValidXPath(text)) {
+			return new PathExpression(text, Kind.ARGUMENT);
+		}
+		return new LiteralExpression(concat ? text.replace(COMMA, ",") : text);
+	}
+
+	private static boolean isQuoted(String text) {
+		if (text.length() < 2 || (text.charAt(0) != '\'' && text.charAt(0) != '"')) {
+			return false;
+		}
+		char quote = text.charAt(0);
+		int last = text.length() - 1;
+		if (text.charAt(last) != quote) {
+			return false;
+		}
+		for (int i = 1; i < last; i++) {
+			if (text.charAt(i) == quote) {
+				if (i + 1 == last || text.charAt(i + 1) != quote) {
+					return false;
+				}
+				i++;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Splits the arguments of a function at the commas that are not nested in
+	 * parentheses, brackets or quotes.
+	 */
+	private static List<String> split(String inner, String source) throws X2JException {
+		List<String> args = new ArrayList<String>();
+		int depth = 0;
+		int start = 0;
+		char quote = 0;
+		boolean blank = true;
+		boolean closed = false;
+		for (int i = 0; i < inner.length(); i++) {
+			char c = inner.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					if (depth == 0 && i + 1 < inner.length() && inner.charAt(i + 1) == quote) {
+						i++;
+					} else {
+						quote = 0;
+						closed = depth == 0;
+					}
+				}
+				continue;
+			}
+			if (c == ',' && depth == 0) {
+				args.add(inner.substring(start, i));
+				start = i + 1;
+				blank = true;
+				closed = false;
+				continue;
+			}
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			if (closed) {
+				throw new X2JException(X2JErrorCodes.X2J_ERR_017, source);
+			}
+			if ((c == '\'' || c == '"') && (blank || depth > 0)) {
+				quote = c;
+			} else if (c == '(' || c == '[') {
+				depth++;
+			} else if ((c == ')' || c == ']') && --depth < 0) {
+				throw new X2JException(X2JErrorCodes.X2J_ERR_017, source);
+			}
+			blank = false;
+		}
+		if (quote != 0 || depth != 0) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_017, source);
+		}
+		args.add(inner.substring(start));
+		return args;
+	}
+
+}
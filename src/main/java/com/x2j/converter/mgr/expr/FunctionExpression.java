@@ -0,0 +1,144 @@
+package com.x2j.converter.mgr.expr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.w3c.dom.Element;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * A string function of a keyword expression, e.g. <b>CONCAT</b> or
+ * <b>UPPER</b>, with its parsed arguments. The arguments are expressions
+ * themselves, hence the functions can be nested.
+ */
+public final class FunctionExpression implements Expression {
+
+	/**
+	 * The string functions.
+	 */
+	public enum Function {
+
+		/** Joins all the arguments. */
+		CONCAT,
+
+		/** The length of the argument. */
+		LEN,
+
+		/** The argument in upper case. */
+		UPPER,
+
+		/** The argument in lower case. */
+		LOWER,
+
+		/**
+		 * The part of the first argument between the start index (second argument)
+		 * and the end index (third argument), both inclusive.
+		 */
+		SUBSTR;
+
+	}
+
+	private final Function function;
+
+	private final List<Expression> args;
+
+	private final int start;
+
+	private final int end;
+
+	/**
+	 * Instantiates a new FunctionExpression object. The indexes of <b>SUBSTR</b>
+	 * are read from the second and the third arguments, which must be literals;
+	 * invalid indexes are reported when the expression is evaluated.
+	 *
+	 * @param function the function
+	 * @param args     the arguments
+	 */
+	public FunctionExpression(Function function, List<Expression> args) {
+		this.function = function;
+		this.args = Collections.unmodifiableList(new ArrayList<Expression>(args));
+		this.start = function == Function.SUBSTR ? getIndex(1) : -1;
+		this.end = function == Function.SUBSTR ? getIndex(2) : -1;
+	}
+
+	private int getIndex(int position) {
+		if (args.size() <= position || !(args.get(position) instanceof LiteralExpression)) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(((LiteralExpression) args.get(position)).getText().trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	@Override
+	public String evaluate(Element context) throws X2JException {
+		switch (function) {
+		case CONCAT:
+			StringBuilder builder = new StringBuilder();
+			for (Expression arg : args) {
+				builder.append(arg.evaluate(context));
+			}
+			return builder.toString();
+		case LEN:
+			return String.valueOf(args.get(0).evaluate(context).length());
+		case UPPER:
+			return args.get(0).evaluate(context).toUpperCase();
+		case LOWER:
+			return args.get(0).evaluate(context).toLowerCase();
+		default:
+			return substring(args.get(0).evaluate(context));
+		}
+	}
+
+	private String substring(String text) throws X2JException {
+		if (X2JUtils.isVoid(text)) {
+			return "";
+		}
+		if (start < 0 || start >= text.length() || end < 0 || end >= text.length() || start > end) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_011);
+		}
+		return text.substring(start, end + 1);
+	}
+
+	@Override
+	public void collectPaths(Collection<String> paths) {
+		for (Expression arg : args) {
+			arg.collectPaths(paths);
+		}
+	}
+
+	/**
+	 * Returns the function.
+	 *
+	 * @return the function
+	 */
+	public Function getFunction() {
+		return function;
+	}
+
+	/**
+	 * Returns the arguments.
+	 *
+	 * @return the arguments
+	 */
+	public List<Expression> getArgs() {
+		return args;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(function.name()).append('(');
+		for (int i = 0; i < args.size(); i++) {
+			builder.append(i == 0 ? "" : ", ").append(args.get(i));
+		}
+		return builder.append(')').toString();
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.x2j.converter.mgr.expr;
+
+import java.util.Collection;
+
+import org.w3c.dom.Element;
+
+/**
+ * A constant argument of a keyword expression, e.g. <code>-</code> or
+ * <code>'a, b'</code>.
+ */
+public final class LiteralExpression implements Expression {
+
+	private final String text;
+
+	/**
+	 * Instantiates a new LiteralExpression object.
+	 *
+	 * @param text the constant text
+	 */
+	public LiteralExpression(String text) {
+		this.text = text;
+	}
+
+	@Override
+	public String evaluate(Element context) {
+		return text;
+	}
+
+	@Override
+	public void collectPaths(Collection<String> paths) {
+	}
+
+	/**
+	 * Returns the constant text.
+	 *
+	 * @return the text
+	 */
+	public String getText() {
+		return text;
+	}
+
+	@Override
+	public String toString() {
+		return "'" + text.replace("'", "''") + "'";
+	}
+
+}
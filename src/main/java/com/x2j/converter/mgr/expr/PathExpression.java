@@ -0,0 +1,206 @@
+package com.x2j.converter.mgr.expr;
+
+import static com.x2j.converter.utils.X2JUtils.encodeText;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JJsonWriter;
+import com.x2j.converter.utils.X2JSimplePath;
+import com.x2j.converter.utils.X2JTextView;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * An XPath of a keyword expression. How the selected node is turned into a
+ * string depends on where the XPath is used, see {@link Kind}.<br>
+ * An XPath that is a simple path, see {@link X2JSimplePath}, is resolved by
+ * walking the DOM instead of the JAXP XPath engine.
+ */
+public final class PathExpression implements Expression {
+
+	/**
+	 * The ways an XPath is resolved.
+	 */
+	public enum Kind {
+
+		/**
+		 * The <b>XPATH</b> keyword: the value of the attribute, or the selected
+		 * element serialized as XML.
+		 */
+		XPATH,
+
+		/**
+		 * The <b>VALUE</b> keyword: the value of the attribute, the text of the
+		 * element, or its child elements serialized as XML.
+		 */
+		VALUE,
+
+		/**
+		 * An argument of a function: the value of the attribute, or the first text
+		 * node of the element.
+		 */
+		ARGUMENT;
+
+	}
+
+	private final String xpath;
+
+	private final Kind kind;
+
+	private final X2JSimplePath simplePath;
+
+	/**
+	 * Instantiates a new PathExpression object.
+	 *
+	 * @param xpath the XPath
+	 * @param kind  the way the XPath is resolved
+	 */
+	public PathExpression(String xpath, Kind kind) {
+		this.xpath = xpath;
+		this.kind = kind;
+		this.simplePath = X2JSimplePath.compile(xpath);
+	}
+
+	@Override
+	public String evaluate(Element context) throws X2JException {
+		if (xpath.contains("@")) {
+			return encodeText(X2JUtils.getXpathAttribute(context, xpath, simplePath));
+		}
+		switch (kind) {
+		case XPATH:
+			return encodeText(X2JUtils.getString(X2JUtils.getXpathElement(context, xpath, simplePath)));
+		case VALUE:
+			return getValue(context);
+		default:
+			return X2JUtils.getXpathText(context, xpath, simplePath);
+		}
+	}
+
+	private String getValue(Element context) throws X2JException {
+		Element elem = X2JUtils.getXpathElement(context, xpath, simplePath);
+		if (X2JUtils.isVoid(elem) || !elem.hasChildNodes()) {
+			return "";
+		}
+		NodeList allChildNodes = elem.getChildNodes();
+		if (allChildNodes.getLength() > 1) {
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < allChildNodes.getLength(); i++) {
+				Node node = allChildNodes.item(i);
+				if (node.getNodeType() == Node.ELEMENT_NODE) {
+					encodeText(X2JUtils.getString(X2JUtils.getXpathElement(context, xpath + "/" + node.getNodeName())),
+							builder);
+				}
+			}
+			return builder.toString();
+		}
+		Node child = allChildNodes.item(0);
+		if (child.getNodeType() == Node.TEXT_NODE) {
+			return encodeText(child.getNodeValue().trim());
+		} else if (child.getNodeType() == Node.ELEMENT_NODE) {
+			return encodeText(X2JUtils.getString(elem));
+		}
+		return "";
+	}
+
+	/**
+	 * Evaluates the expression and writes the result as a JSON string, like
+	 * <code>out.value(evaluate(context))</code>. The text nodes and attribute
+	 * values are written from the DOM and the selected elements are serialized
+	 * straight into the output, without an intermediate String.
+	 *
+	 * @param context the element the XPath is resolved against
+	 * @param out     the JSON writer
+	 * @throws X2JException if the XPath cannot be resolved or an element cannot
+	 *                      be serialized
+	 * @throws IOException  if the JSON writer fails
+	 */
+	public void write(Element context, X2JJsonWriter out) throws X2JException, IOException {
+		if (xpath.contains("@")) {
+			out.encodedValue(X2JUtils.getXpathAttribute(context, xpath, simplePath));
+			return;
+		}
+		switch (kind) {
+		case XPATH:
+			writeElement(X2JUtils.getXpathElement(context, xpath, simplePath), out);
+			break;
+		case VALUE:
+			writeValue(context, out);
+			break;
+		default:
+			out.encodedValue(X2JUtils.getXpathTextView(context, xpath, simplePath));
+		}
+	}
+
+	private void writeValue(Element context, X2JJsonWriter out) throws X2JException, IOException {
+		Element elem = X2JUtils.getXpathElement(context, xpath, simplePath);
+		if (X2JUtils.isVoid(elem) || !elem.hasChildNodes()) {
+			out.encodedValue(null);
+			return;
+		}
+		NodeList allChildNodes = elem.getChildNodes();
+		if (allChildNodes.getLength() > 1) {
+			try (Writer text = out.openEncodedValue()) {
+				for (int i = 0; i < allChildNodes.getLength(); i++) {
+					Node node = allChildNodes.item(i);
+					if (node.getNodeType() == Node.ELEMENT_NODE) {
+						X2JUtils.writeString(X2JUtils.getXpathElement(context, xpath + "/" + node.getNodeName()), text);
+					}
+				}
+			}
+			return;
+		}
+		Node child = allChildNodes.item(0);
+		if (child.getNodeType() == Node.TEXT_NODE) {
+			out.encodedValue(X2JTextView.trimmed(child.getNodeValue()));
+		} else if (child.getNodeType() == Node.ELEMENT_NODE) {
+			writeElement(elem, out);
+		} else {
+			out.encodedValue(null);
+		}
+	}
+
+	private static void writeElement(Element elem, X2JJsonWriter out) throws X2JException, IOException {
+		if (elem == null) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_007);
+		}
+		try (Writer text = out.openEncodedValue()) {
+			X2JUtils.writeString(elem, text);
+		}
+	}
+
+	@Override
+	public void collectPaths(Collection<String> paths) {
+		paths.add(xpath);
+	}
+
+	/**
+	 * Returns the XPath.
+	 *
+	 * @return the XPath
+	 */
+	public String getXPath() {
+		return xpath;
+	}
+
+	/**
+	 * Returns the way the XPath is resolved.
+	 *
+	 * @return the kind
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	@Override
+	public String toString() {
+		return kind == Kind.ARGUMENT ? xpath : kind.name() + "(" + xpath + ")";
+	}
+
+}
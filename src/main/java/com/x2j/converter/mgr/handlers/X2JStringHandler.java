@@ -3,10 +3,20 @@ package com.x2j.converter.mgr.handlers;
 import org.w3c.dom.Element;
 
 import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.expr.ExpressionParser;
 
 /**
- * The interface X2JStringHandler.
+ * The interface X2JStringHandler.<br>
+ * A single instance of every handler is shared between the schemas and the
+ * threads, hence the implementations must not keep any state.<br>
+ * The compiled schema does not use the handlers; its keyword values are parsed
+ * once by {@link ExpressionParser}. The keyword handlers are meant for
+ * evaluating a single value.
+ *
+ * @deprecated the conversion does not use the handlers; use
+ *             {@link com.x2j.converter.mgr.schema.CompiledSchema}
  */
+@Deprecated
 public interface X2JStringHandler {
 
 	/**
@@ -8,6 +8,9 @@ import static com.x2j.converter.utils.X2JConstants.UPPER;
 import static com.x2j.converter.utils.X2JConstants.VALUE;
 import static com.x2j.converter.utils.X2JConstants.XPATH;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import com.x2j.converter.mgr.handlers.impl.ConcatHandler;
 import com.x2j.converter.mgr.handlers.impl.DefaultHandler;
 import com.x2j.converter.mgr.handlers.impl.LengthHandler;
@@ -18,15 +21,32 @@ import com.x2j.converter.mgr.handlers.impl.ValueHandler;
 import com.x2j.converter.mgr.handlers.impl.XPathHandler;
 
 /**
- * A factory for creating X2JStringHandler objects.
+ * A factory for creating X2JStringHandler objects.<br>
+ * The handlers are stateless, hence one instance of each handler is created up
+ * front and shared by all the schemas and threads.
+ *
+ * @deprecated the conversion does not use the handlers; use
+ *             {@link com.x2j.converter.mgr.schema.CompiledSchema}
  */
+@Deprecated
 public class X2JStringHandlerFactory {
 
 	private static class InstanceHolder {
 		private static final X2JStringHandlerFactory INSTANCE = new X2JStringHandlerFactory();
 	}
 
+	private static final X2JStringHandler DEFAULT_HANDLER = new DefaultHandler();
+
+	private final Map<String, X2JStringHandler> handlers = new HashMap<String, X2JStringHandler>();
+
 	private X2JStringHandlerFactory() {
+		handlers.put(XPATH, new XPathHandler());
+		handlers.put(VALUE, new ValueHandler());
+		handlers.put(CONCAT, new ConcatHandler());
+		handlers.put(LEN, new LengthHandler());
+		handlers.put(UPPER, new UpperCaseHandler());
+		handlers.put(LOWER, new LowerCaseHandler());
+		handlers.put(SUBSTR, new SubStringHandler());
 	}
 
 	/**
@@ -47,23 +67,12 @@ public class X2JStringHandlerFactory {
 	 * @return the string handler
 	 */
 	public X2JStringHandler getHandler(String jsonValue) {
-		if (jsonValue.startsWith(XPATH)) {
-			return new XPathHandler();
-		} else if (jsonValue.startsWith(VALUE)) {
-			return new ValueHandler();
-		} else if (jsonValue.startsWith(CONCAT)) {
-			return new ConcatHandler();
-		} else if (jsonValue.startsWith(LEN)) {
-			return new LengthHandler();
-		} else if (jsonValue.startsWith(UPPER)) {
-			return new UpperCaseHandler();
-		} else if (jsonValue.startsWith(LOWER)) {
-			return new LowerCaseHandler();
-		} else if (jsonValue.startsWith(SUBSTR)) {
-			return new SubStringHandler();
-		} else {
-			return new DefaultHandler();
+		int keywordEnd = jsonValue.indexOf('(');
+		if (keywordEnd < 0) {
+			return DEFAULT_HANDLER;
 		}
+		X2JStringHandler handler = handlers.get(jsonValue.substring(0, keywordEnd + 1));
+		return handler == null ? DEFAULT_HANDLER : handler;
 	}
 
 }
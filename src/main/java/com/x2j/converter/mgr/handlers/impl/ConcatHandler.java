@@ -1,10 +1,6 @@
 package com.x2j.converter.mgr.handlers.impl;
 
-import org.w3c.dom.Element;
-
-import com.x2j.converter.excp.X2JException;
-import com.x2j.converter.mgr.handlers.X2JStringHandler;
-import com.x2j.converter.utils.X2JUtils;
+import static com.x2j.converter.utils.X2JConstants.CONCAT;
 
 /**
  * The handler for the X2JStringHandler interface for the <b>CONCAT</b> keyword.
@@ -16,27 +12,17 @@ import com.x2j.converter.utils.X2JUtils;
  * For a XPath string, this will resolve the value and then perform the
  * concatenation on the value.<br>
  * Any normal string will be directly used for concatenation.
+ *
+ * @deprecated use {@link com.x2j.converter.mgr.schema.CompiledSchema}
  */
-public class ConcatHandler implements X2JStringHandler {
+@Deprecated
+public class ConcatHandler extends KeywordHandler {
 
 	/**
-	 * Returns the concatenated string of values (resolved values/JSON values).
-	 *
-	 * @param rawValueString the raw JSON value string
-	 * @param rootElement    the root element in the input XML
-	 * @return the concatenated value string
-	 * @throws X2JException X2JException
+	 * Instantiates a new ConcatHandler object.
 	 */
-	@Override
-	public String handleString(String rawValueString, Element rootElement) throws X2JException {
-		String concatValueString = rawValueString.substring(rawValueString.indexOf('(') + 1,
-				rawValueString.lastIndexOf(')'));
-		String[] values = concatValueString.split(",");
-		StringBuilder builder = new StringBuilder();
-		for (String value : values) {
-			builder.append(X2JUtils.getStringValueForHandlers(value, rootElement));
-		}
-		return builder.toString().replaceAll("\\$\\{COMMA\\}", ",");
+	public ConcatHandler() {
+		super(CONCAT);
 	}
 
 }
@@ -9,7 +9,10 @@ import com.x2j.converter.mgr.handlers.X2JStringHandler;
  * The default handler for the X2JStringHandler interface. This is a fallback
  * handler in case an unknown keyword is used in the JSON schema. This handler
  * will return the JSON value string as is.
+ *
+ * @deprecated use {@link com.x2j.converter.mgr.schema.CompiledSchema}
  */
+@Deprecated
 public class DefaultHandler implements X2JStringHandler {
 
 	/**
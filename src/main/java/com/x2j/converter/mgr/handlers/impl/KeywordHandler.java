@@ -0,0 +1,89 @@
+package com.x2j.converter.mgr.handlers.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.w3c.dom.Element;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.expr.Expression;
+import com.x2j.converter.mgr.expr.ExpressionParser;
+import com.x2j.converter.mgr.handlers.X2JStringHandler;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JErrorCodes;
+
+/**
+ * The base of the handlers of the schema keywords. A handler only accepts the
+ * values of its own keyword, which are parsed by {@link ExpressionParser} and
+ * evaluated against the root element.<br>
+ * The parsed values are kept in a small LRU map shared by all the handlers,
+ * hence a value that is handled again and again is parsed only once.
+ *
+ * @deprecated the conversion does not use the handlers; use
+ *             {@link CompiledSchema}, which parses every keyword value once.
+ */
+@Deprecated
+public abstract class KeywordHandler implements X2JStringHandler {
+
+	/** The maximum number of parsed keyword values that are cached. */
+	public static final int MAX_EXPRESSIONS = 256;
+
+	private static final Map<String, Expression> expressions = new LinkedHashMap<String, Expression>(16, 0.75f,
+			true) {
+
+		private static final long serialVersionUID = -4378520871690253781L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+			return size() > MAX_EXPRESSIONS;
+		}
+
+	};
+
+	private final String keyword;
+
+	/**
+	 * Instantiates a new KeywordHandler object.
+	 *
+	 * @param keyword the keyword handled, with its opening parenthesis, e.g.
+	 *                <b>XPATH(</b>
+	 */
+	protected KeywordHandler(String keyword) {
+		this.keyword = keyword;
+	}
+
+	/**
+	 * Evaluates the keyword value against the root element.
+	 *
+	 * @param rawValueString the raw JSON value string
+	 * @param rootElement    the root element in the input XML
+	 * @return the resolved value string
+	 * @throws X2JException if the value is not a valid value of the keyword, or
+	 *                      cannot be evaluated
+	 */
+	@Override
+	public String handleString(String rawValueString, Element rootElement) throws X2JException {
+		return getExpression(rawValueString).evaluate(rootElement);
+	}
+
+	private Expression getExpression(String rawValueString) throws X2JException {
+		if (rawValueString == null || !rawValueString.startsWith(keyword)) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_017, String.valueOf(rawValueString));
+		}
+		Expression expression;
+		synchronized (expressions) {
+			expression = expressions.get(rawValueString);
+		}
+		if (expression == null) {
+			expression = ExpressionParser.parse(rawValueString);
+			if (expression == null) {
+				throw new X2JException(X2JErrorCodes.X2J_ERR_017, rawValueString);
+			}
+			synchronized (expressions) {
+				expressions.put(rawValueString, expression);
+			}
+		}
+		return expression;
+	}
+
+}
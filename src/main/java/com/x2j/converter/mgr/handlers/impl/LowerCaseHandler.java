@@ -1,30 +1,22 @@
 package com.x2j.converter.mgr.handlers.impl;
 
-import org.w3c.dom.Element;
-
-import com.x2j.converter.excp.X2JException;
-import com.x2j.converter.mgr.handlers.X2JStringHandler;
-import com.x2j.converter.utils.X2JUtils;
+import static com.x2j.converter.utils.X2JConstants.LOWER;
 
 /**
  * The handler for the X2JStringHandler interface for the <b>LOWER</b> keyword.
  * This handler will resolve the XPATH as provided in the schema and returns the
  * String value in lower case.
+ *
+ * @deprecated use {@link com.x2j.converter.mgr.schema.CompiledSchema}
  */
-public class LowerCaseHandler implements X2JStringHandler {
+@Deprecated
+public class LowerCaseHandler extends KeywordHandler {
 
 	/**
-	 * Returns the resolved XPATH value string in lower case.
-	 *
-	 * @param rawValueString the raw JSON value string
-	 * @param rootElement    the root element in the input XML
-	 * @return the resolved XPATH value string in lower case
-	 * @throws X2JException X2JException
+	 * Instantiates a new LowerCaseHandler object.
 	 */
-	@Override
-	public String handleString(String rawValueString, Element rootElement) throws X2JException {
-		String value = rawValueString.substring(rawValueString.indexOf('(') + 1, rawValueString.lastIndexOf(')'));
-		return X2JUtils.getStringValueForHandlers(value, rootElement).toLowerCase();
+	public LowerCaseHandler() {
+		super(LOWER);
 	}
 
 }
@@ -1,14 +1,6 @@
 package com.x2j.converter.mgr.handlers.impl;
 
-import static com.x2j.converter.utils.X2JUtils.encodeText;
-
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import com.x2j.converter.excp.X2JException;
-import com.x2j.converter.mgr.handlers.X2JStringHandler;
-import com.x2j.converter.utils.X2JUtils;
+import static com.x2j.converter.utils.X2JConstants.VALUE;
 
 /**
  * The handler for the X2JStringHandler interface for the <b>VALUE</b> keyword.
@@ -34,50 +26,17 @@ import com.x2j.converter.utils.X2JUtils;
  * </ul>
  * </li>
  * </ol>
+ *
+ * @deprecated use {@link com.x2j.converter.mgr.schema.CompiledSchema}
  */
-public class ValueHandler implements X2JStringHandler {
+@Deprecated
+public class ValueHandler extends KeywordHandler {
 
 	/**
-	 * Returns the value of the XPath which can be either the text component or
-	 * child element(s) in String form.
-	 *
-	 * @param rawValueString the JSON value string
-	 * @param rootElement    the root element in the input XML
-	 * @return the value of the XPath defined in the schema
-	 * @throws X2JException X2JException
+	 * Instantiates a new ValueHandler object.
 	 */
-	@Override
-	public String handleString(String rawValueString, Element rootElement) throws X2JException {
-		String xPath = rawValueString.substring(rawValueString.indexOf('(') + 1, rawValueString.lastIndexOf(')'));
-		if (xPath.contains("@")) {
-			return encodeText(X2JUtils.getXpathAttribute(rootElement, xPath));
-		} else {
-			Element elem = X2JUtils.getXpathElement(rootElement, xPath);
-			if (!X2JUtils.isVoid(elem)) {
-				if (elem.hasChildNodes()) {
-					NodeList allChildNodes = elem.getChildNodes();
-					if (allChildNodes.getLength() > 1) {
-						StringBuilder builder = new StringBuilder();
-						for (int i = 0; i < allChildNodes.getLength(); i++) {
-							Node node = allChildNodes.item(i);
-							if (node.getNodeType() == Node.ELEMENT_NODE) {
-								builder.append(encodeText(X2JUtils.getString(
-										X2JUtils.getXpathElement(rootElement, xPath + "/" + node.getNodeName()))));
-							}
-						}
-						return builder.toString();
-					} else {
-						Node child = allChildNodes.item(0);
-						if (child.getNodeType() == Node.TEXT_NODE) {
-							return encodeText(child.getNodeValue().trim());
-						} else if (child.getNodeType() == Node.ELEMENT_NODE) {
-							return encodeText(X2JUtils.getString(X2JUtils.getXpathElement(rootElement, xPath)));
-						}
-					}
-				}
-			}
-		}
-		return "";
+	public ValueHandler() {
+		super(VALUE);
 	}
 
 }
@@ -0,0 +1,55 @@
+package com.x2j.converter.mgr.schema;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JJsonWriter;
+
+/**
+ * A schema node for a JSON array.
+ */
+public class ArrayNode extends SchemaNode {
+
+	private final List<SchemaNode> items;
+
+	/**
+	 * Instantiates a new ArrayNode object.
+	 *
+	 * @param items the compiled array items
+	 */
+	public ArrayNode(List<SchemaNode> items) {
+		this.items = Collections.unmodifiableList(items);
+	}
+
+	@Override
+	public JSONArray evaluate(EvaluationContext context) throws X2JException {
+		JSONArray json = new JSONArray();
+		for (SchemaNode item : items) {
+			item.appendTo(json, context);
+		}
+		return json;
+	}
+
+	@Override
+	public void write(X2JJsonWriter out, EvaluationContext context) throws X2JException, IOException {
+		out.beginArray();
+		for (SchemaNode item : items) {
+			item.appendTo(out, context);
+		}
+		out.endArray();
+	}
+
+	/**
+	 * Returns the compiled array items.
+	 *
+	 * @return the items
+	 */
+	public List<SchemaNode> getItems() {
+		return items;
+	}
+
+}
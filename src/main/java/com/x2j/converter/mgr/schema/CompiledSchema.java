@@ -0,0 +1,168 @@
+package com.x2j.converter.mgr.schema;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.json.JSONObject;
+import org.w3c.dom.Element;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.metrics.X2JFieldProfiler;
+import com.x2j.converter.metrics.X2JMetrics;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JJsonWriter;
+import com.x2j.converter.utils.X2JPathTrie;
+import com.x2j.converter.utils.X2JResolvedPaths;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * An immutable, pre-processed form of the JSON schema.<br>
+ * The schema is walked only once, while compiling. The keywords are mapped to
+ * their handlers, the datatype suffixes are decoded and the
+ * <b>recurrent_path</b> definitions are separated from the array items.<br>
+ * A compiled schema can be reused for any number of documents; every conversion
+ * generates a fresh output JSON and leaves the compiled schema (and the source
+ * JSON schema) untouched.<br>
+ * The absolute simple paths of the keywords are merged into an
+ * {@link X2JPathTrie}. Before the output JSON is generated, they are all
+ * resolved in one walk of the document, and the keyword fields read their
+ * results instead of walking the document once per field.
+ */
+public final class CompiledSchema {
+
+	private final ObjectNode root;
+
+	private final X2JPathTrie pathTrie;
+
+	private CompiledSchema(ObjectNode root) {
+		this.root = root;
+		Set<String> xpaths = new LinkedHashSet<String>();
+		collectPaths(root, xpaths);
+		this.pathTrie = X2JPathTrie.build(xpaths);
+	}
+
+	private static void collectPaths(SchemaNode node, Set<String> xpaths) {
+		if (node instanceof ObjectNode) {
+			for (SchemaNode field : ((ObjectNode) node).getFields().values()) {
+				collectPaths(field, xpaths);
+			}
+		} else if (node instanceof ArrayNode) {
+			for (SchemaNode item : ((ArrayNode) node).getItems()) {
+				collectPaths(item, xpaths);
+			}
+		} else if (node instanceof RecurrentNode) {
+			collectPaths(((RecurrentNode) node).getItem(), xpaths);
+		} else if (node instanceof ValueNode) {
+			((ValueNode) node).getExpression().collectPaths(xpaths);
+		}
+	}
+
+	/**
+	 * Compiles the JSON schema.
+	 *
+	 * @param jsonSchemaObj the JSON schema object
+	 * @return the compiled schema
+	 * @throws X2JException if the schema is null
+	 */
+	public static CompiledSchema compile(JSONObject jsonSchemaObj) throws X2JException {
+		if (X2JUtils.isVoid(jsonSchemaObj)) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_003);
+		}
+		X2JMetrics metrics = X2JMetrics.getInstance();
+		long start = metrics.start();
+		CompiledSchema schema = new CompiledSchema(SchemaCompiler.compileObject(jsonSchemaObj, false, "$"));
+		metrics.schemaCompiled(start);
+		return schema;
+	}
+
+	/**
+	 * Parses and compiles the JSON schema.
+	 *
+	 * @param jsonSchema the JSON schema string
+	 * @return the compiled schema
+	 * @throws X2JException if the String is null, empty or not a valid JSON
+	 */
+	public static CompiledSchema compile(String jsonSchema) throws X2JException {
+		return compile(X2JUtils.getJsonFromString(jsonSchema));
+	}
+
+	/**
+	 * Generates a new output JSON for the given XML.
+	 *
+	 * @param root the root element of the XML
+	 * @return the resultant JSON object
+	 * @throws X2JException if any error is thrown during the conversion process
+	 */
+	public JSONObject evaluate(Element root) throws X2JException {
+		return evaluate(root, null);
+	}
+
+	/**
+	 * Generates a new output JSON for the given XML and records the time of every
+	 * keyword field in the profiler.
+	 *
+	 * @param root     the root element of the XML
+	 * @param profiler the field profiler, may be null
+	 * @return the resultant JSON object
+	 * @throws X2JException if any error is thrown during the conversion process
+	 */
+	public JSONObject evaluate(Element root, X2JFieldProfiler profiler) throws X2JException {
+		EvaluationContext context = new EvaluationContext(root, profiler);
+		X2JResolvedPaths resolvedPaths = resolvePaths(root);
+		if (resolvedPaths == null) {
+			return this.root.evaluate(context);
+		}
+		resolvedPaths.activate();
+		try {
+			return this.root.evaluate(context);
+		} finally {
+			resolvedPaths.deactivate();
+		}
+	}
+
+	/**
+	 * Writes the output JSON for the given XML as the next value of the JSON
+	 * writer, and records the time of every keyword field in the profiler.<br>
+	 * No JSON objects are built: every value is written as soon as it is
+	 * resolved, and the numbers and booleans are written without being boxed.
+	 *
+	 * @param root     the root element of the XML
+	 * @param profiler the field profiler, may be null
+	 * @param out      the JSON writer
+	 * @throws X2JException if any error is thrown during the conversion process
+	 * @throws IOException  if the JSON writer fails
+	 */
+	public void write(Element root, X2JFieldProfiler profiler, X2JJsonWriter out) throws X2JException, IOException {
+		EvaluationContext context = new EvaluationContext(root, profiler);
+		X2JResolvedPaths resolvedPaths = resolvePaths(root);
+		if (resolvedPaths == null) {
+			this.root.write(out, context);
+			return;
+		}
+		resolvedPaths.activate();
+		try {
+			this.root.write(out, context);
+		} finally {
+			resolvedPaths.deactivate();
+		}
+	}
+
+	private X2JResolvedPaths resolvePaths(Element root) {
+		if (pathTrie == null || X2JResolvedPaths.getActive() != null) {
+			return null;
+		}
+		X2JResolvedPaths resolvedPaths = new X2JResolvedPaths(false);
+		return pathTrie.resolve(root, resolvedPaths) ? resolvedPaths : null;
+	}
+
+	/**
+	 * Returns the root node of the compiled schema.
+	 *
+	 * @return the root node
+	 */
+	public ObjectNode getRoot() {
+		return root;
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.x2j.converter.mgr.schema;
+
+/**
+ * A schema node that is copied to the output as is, for example numbers,
+ * booleans and plain strings.
+ */
+public class ConstantNode extends SchemaNode {
+
+	private final Object value;
+
+	/**
+	 * Instantiates a new ConstantNode object.
+	 *
+	 * @param value the constant value
+	 */
+	public ConstantNode(Object value) {
+		this.value = value;
+	}
+
+	@Override
+	public Object evaluate(EvaluationContext context) {
+		return value;
+	}
+
+	/**
+	 * Returns the constant value.
+	 *
+	 * @return the value
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.x2j.converter.mgr.schema;
+
+import org.w3c.dom.Element;
+
+import com.x2j.converter.metrics.X2JFieldProfiler;
+
+/**
+ * Holds the per-document state that is needed while a compiled schema is being
+ * evaluated.<br>
+ * A new context is created for every conversion, the compiled schema itself is
+ * never modified.
+ */
+public class EvaluationContext {
+
+	private final Element root;
+
+	private final Element current;
+
+	private final X2JFieldProfiler profiler;
+
+	/**
+	 * Instantiates a new EvaluationContext object for the root element of the
+	 * input XML.
+	 *
+	 * @param root the root element of the input XML
+	 */
+	public EvaluationContext(Element root) {
+		this(root, null, null);
+	}
+
+	/**
+	 * Instantiates a new EvaluationContext object for the root element of the
+	 * input XML, that records the time of every keyword field.
+	 *
+	 * @param root     the root element of the input XML
+	 * @param profiler the field profiler, may be null
+	 */
+	public EvaluationContext(Element root, X2JFieldProfiler profiler) {
+		this(root, null, profiler);
+	}
+
+	private EvaluationContext(Element root, Element current, X2JFieldProfiler profiler) {
+		this.root = root;
+		this.current = current;
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Returns a context for one of the elements that matched a recurrent path.
+	 *
+	 * @param current the repeated element
+	 * @return the context for the repeated element
+	 */
+	public EvaluationContext forRecurrence(Element current) {
+		return new EvaluationContext(root, current, profiler);
+	}
+
+	/**
+	 * Returns the root element of the input XML.
+	 *
+	 * @return the root element
+	 */
+	public Element getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns the repeated element that is currently being expanded. The
+	 * <b>RECUR_ELEM</b> paths are resolved against this element.
+	 *
+	 * @return the repeated element or null, if not inside an array
+	 */
+	public Element getCurrent() {
+		return current;
+	}
+
+	/**
+	 * Returns the field profiler of the conversion.
+	 *
+	 * @return the profiler or null, if the conversion is not profiled
+	 */
+	public X2JFieldProfiler getProfiler() {
+		return profiler;
+	}
+
+}
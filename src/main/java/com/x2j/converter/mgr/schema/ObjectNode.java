@@ -0,0 +1,56 @@
+package com.x2j.converter.mgr.schema;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.json.JSONObject;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JJsonWriter;
+
+/**
+ * A schema node for a JSON object. The fields are resolved in the same order as
+ * they were read from the schema.
+ */
+public class ObjectNode extends SchemaNode {
+
+	private final Map<String, SchemaNode> fields;
+
+	/**
+	 * Instantiates a new ObjectNode object.
+	 *
+	 * @param fields the compiled fields, in schema order
+	 */
+	public ObjectNode(Map<String, SchemaNode> fields) {
+		this.fields = Collections.unmodifiableMap(fields);
+	}
+
+	@Override
+	public JSONObject evaluate(EvaluationContext context) throws X2JException {
+		JSONObject json = new JSONObject();
+		for (Map.Entry<String, SchemaNode> field : fields.entrySet()) {
+			json.put(field.getKey(), field.getValue().evaluate(context));
+		}
+		return json;
+	}
+
+	@Override
+	public void write(X2JJsonWriter out, EvaluationContext context) throws X2JException, IOException {
+		out.beginObject();
+		for (Map.Entry<String, SchemaNode> field : fields.entrySet()) {
+			field.getValue().writeField(field.getKey(), out, context);
+		}
+		out.endObject();
+	}
+
+	/**
+	 * Returns the compiled fields of the object.
+	 *
+	 * @return the fields
+	 */
+	public Map<String, SchemaNode> getFields() {
+		return fields;
+	}
+
+}
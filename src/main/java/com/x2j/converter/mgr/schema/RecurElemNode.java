@@ -0,0 +1,156 @@
+package com.x2j.converter.mgr.schema;
+
+import java.io.IOException;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.metrics.X2JFieldProfiler;
+import com.x2j.converter.metrics.X2JMetrics;
+import com.x2j.converter.mgr.expr.PathExpression;
+import com.x2j.converter.utils.X2JDataType;
+import com.x2j.converter.utils.X2JJsonWriter;
+
+/**
+ * A schema node for the <b>RECUR_ELEM</b> keyword.<br>
+ * The path is converted once, while compiling, into an expression relative to
+ * the repeated element. Every repeated element is then used as the context node
+ * of that expression, so an item is resolved without walking the document from
+ * its root again.
+ */
+public class RecurElemNode extends SchemaNode {
+
+	private static final String SELF = "self::node()";
+
+	private static final String KEYWORD = "RECUR_ELEM";
+
+	private final PathExpression xPath;
+
+	private final X2JDataType dataType;
+
+	private final boolean detachable;
+
+	private final String expression;
+
+	private final String schemaPath;
+
+	/**
+	 * Instantiates a new RecurElemNode object.
+	 *
+	 * @param relativePath the path after the recurrent path
+	 * @param dataType     the datatype of the value
+	 * @param schemaPath   the location of the value in the schema
+	 */
+	public RecurElemNode(String relativePath, X2JDataType dataType, String schemaPath) {
+		String path = relativePath.trim();
+		if (!path.isEmpty() && !path.startsWith("/") && !path.startsWith("[")) {
+			path = "/" + path;
+		}
+		this.xPath = new PathExpression(SELF + path, PathExpression.Kind.XPATH);
+		this.dataType = dataType;
+		this.detachable = isDetachable(path);
+		this.expression = KEYWORD + "(" + relativePath.trim() + ")";
+		this.schemaPath = schemaPath;
+	}
+
+	@Override
+	public Object evaluate(EvaluationContext context) throws X2JException {
+		return dataType.convert(resolve(context));
+	}
+
+	@Override
+	public void write(X2JJsonWriter out, EvaluationContext context) throws X2JException, IOException {
+		if (dataType != X2JDataType.STRING) {
+			dataType.write(resolve(context), out);
+			return;
+		}
+		long start = start(context);
+		try {
+			xPath.write(context.getCurrent(), out);
+		} finally {
+			stop(start, context);
+		}
+	}
+
+	@Override
+	public void writeField(String name, X2JJsonWriter out, EvaluationContext context)
+			throws X2JException, IOException {
+		out.name(name);
+		write(out, context);
+	}
+
+	private String resolve(EvaluationContext context) throws X2JException {
+		long start = start(context);
+		try {
+			return xPath.evaluate(context.getCurrent());
+		} finally {
+			stop(start, context);
+		}
+	}
+
+	private static long start(EvaluationContext context) {
+		return context.getProfiler() == null ? X2JMetrics.getInstance().start() : System.nanoTime();
+	}
+
+	private void stop(long start, EvaluationContext context) {
+		X2JMetrics.getInstance().handled(start, KEYWORD);
+		X2JFieldProfiler profiler = context.getProfiler();
+		if (profiler != null) {
+			profiler.record(schemaPath, expression, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Checks whether the path only looks inside the repeated element, i.e. it can
+	 * be resolved against a copy of the element that is detached from the
+	 * document.<br>
+	 * Paths using explicit axes, functions, parent steps, unions or absolute paths
+	 * inside predicates are not detachable.
+	 *
+	 * @return true, if the path is detachable
+	 */
+	public boolean isDetachable() {
+		return detachable;
+	}
+
+	/*
+	 * Scans the steps of the path, skipping the quoted literals. A '/' that does
+	 * not continue a step, e.g. at the start of a predicate or after an operator,
+	 * starts an absolute path. Parent steps, axes, functions and unions are not
+	 * detachable either.
+	 */
+	private static boolean isDetachable(String path) {
+		char quote = 0;
+		for (int i = 0; i < path.length(); i++) {
+			char c = path.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '\'' || c == '"') {
+				quote = c;
+			} else if (c == '(' || c == '|' || isDoubled(path, i, '.') || isDoubled(path, i, ':')) {
+				return false;
+			} else if (c == '/' && i > 0 && !continuesStep(path.charAt(i - 1))) {
+				return false;
+			}
+		}
+		return quote == 0;
+	}
+
+	private static boolean isDoubled(String path, int index, char c) {
+		return path.charAt(index) == c && index + 1 < path.length() && path.charAt(index + 1) == c;
+	}
+
+	private static boolean continuesStep(char c) {
+		return c == '/' || c == ']' || c == '*' || c == '.' || c == '_' || Character.isLetterOrDigit(c);
+	}
+
+	/**
+	 * Returns the location of the value in the schema.
+	 *
+	 * @return the schema path
+	 */
+	public String getSchemaPath() {
+		return schemaPath;
+	}
+
+}
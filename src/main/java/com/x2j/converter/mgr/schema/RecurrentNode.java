@@ -0,0 +1,121 @@
+package com.x2j.converter.mgr.schema;
+
+import java.io.IOException;
+
+import org.json.JSONArray;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JJsonWriter;
+import com.x2j.converter.metrics.X2JMetrics;
+import com.x2j.converter.utils.X2JSimplePath;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * A schema node for an array item that carries a <b>recurrent_path</b>. The
+ * item is repeated once for every element that matches the recurrent path;
+ * nodes other than elements are ignored.<br>
+ * The JAXP XPath engine prepares the whole document, up to the context node,
+ * for every evaluation. When all the <b>RECUR_ELEM</b> paths of the item only
+ * look inside the repeated element, each element is therefore copied out of
+ * the document first, which keeps the expansion linear in the size of the
+ * document.
+ */
+public class RecurrentNode extends SchemaNode {
+
+	private final String loopPath;
+
+	private final X2JSimplePath simpleLoopPath;
+
+	private final ObjectNode item;
+
+	private final boolean detachable;
+
+	/**
+	 * Instantiates a new RecurrentNode object.
+	 *
+	 * @param loopPath the recurrent path
+	 * @param item     the compiled item definition
+	 */
+	public RecurrentNode(String loopPath, ObjectNode item) {
+		this.loopPath = loopPath;
+		this.simpleLoopPath = X2JSimplePath.compile(loopPath);
+		this.item = item;
+		boolean detachable = true;
+		for (SchemaNode field : item.getFields().values()) {
+			if (field instanceof RecurElemNode && !((RecurElemNode) field).isDetachable()) {
+				detachable = false;
+			}
+		}
+		this.detachable = detachable;
+	}
+
+	@Override
+	public JSONArray evaluate(EvaluationContext context) throws X2JException {
+		JSONArray json = new JSONArray();
+		appendTo(json, context);
+		return json;
+	}
+
+	@Override
+	public void appendTo(JSONArray array, EvaluationContext context) throws X2JException {
+		NodeList loopNodes = X2JUtils.getNodesFromXPath(context.getRoot(), loopPath, simpleLoopPath);
+		int size = 0;
+		if (!X2JUtils.isVoid(loopNodes)) {
+			for (int i = 0; i < loopNodes.getLength(); i++) {
+				Node loopNode = loopNodes.item(i);
+				if (loopNode.getNodeType() == Node.ELEMENT_NODE) {
+					Element current = (Element) (detachable ? loopNode.cloneNode(true) : loopNode);
+					array.put(item.evaluate(context.forRecurrence(current)));
+					size++;
+				}
+			}
+		}
+		X2JMetrics.getInstance().recurrentPathExpanded(loopPath, size);
+	}
+
+	@Override
+	public void write(X2JJsonWriter out, EvaluationContext context) throws X2JException, IOException {
+		out.beginArray();
+		appendTo(out, context);
+		out.endArray();
+	}
+
+	@Override
+	public void appendTo(X2JJsonWriter out, EvaluationContext context) throws X2JException, IOException {
+		NodeList loopNodes = X2JUtils.getNodesFromXPath(context.getRoot(), loopPath, simpleLoopPath);
+		int size = 0;
+		if (!X2JUtils.isVoid(loopNodes)) {
+			for (int i = 0; i < loopNodes.getLength(); i++) {
+				Node loopNode = loopNodes.item(i);
+				if (loopNode.getNodeType() == Node.ELEMENT_NODE) {
+					Element current = (Element) (detachable ? loopNode.cloneNode(true) : loopNode);
+					item.write(out, context.forRecurrence(current));
+					size++;
+				}
+			}
+		}
+		X2JMetrics.getInstance().recurrentPathExpanded(loopPath, size);
+	}
+
+	/**
+	 * Returns the recurrent path.
+	 *
+	 * @return the recurrent path
+	 */
+	public String getLoopPath() {
+		return loopPath;
+	}
+
+	/**
+	 * Returns the compiled item definition.
+	 *
+	 * @return the item
+	 */
+	public ObjectNode getItem() {
+		return item;
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.x2j.converter.mgr.schema;
+
+import static com.x2j.converter.utils.X2JConstants.RECURRENT_PATH;
+import static com.x2j.converter.utils.X2JConstants.RECUR_ELEMENT;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.expr.Expression;
+import com.x2j.converter.mgr.expr.ExpressionParser;
+import com.x2j.converter.utils.X2JDataType;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * Walks the JSON schema once and builds the tree of compiled schema nodes. The
+ * keyword values are parsed into expressions and remember their location in the schema, e.g.
+ * <code>$.LineItems[0].Quantity</code>, for the profiling reports.
+ */
+class SchemaCompiler {
+
+	private SchemaCompiler() {
+	}
+
+	static ObjectNode compileObject(JSONObject jsonObj, boolean recurrentItem, String path) throws X2JException {
+		Map<String, SchemaNode> fields = new LinkedHashMap<String, SchemaNode>();
+		for (String key : jsonObj.keySet()) {
+			if (recurrentItem && RECURRENT_PATH.equals(key)) {
+				continue;
+			}
+			Object jsonValueObj = jsonObj.get(key);
+			if (recurrentItem && jsonValueObj instanceof String && ((String) jsonValueObj).startsWith(RECUR_ELEMENT)) {
+				fields.put(key, compileRecurElem((String) jsonValueObj, path + "." + key));
+			} else {
+				fields.put(key, compileValue(jsonValueObj, path + "." + key));
+			}
+		}
+		return new ObjectNode(fields);
+	}
+
+	private static ArrayNode compileArray(JSONArray jsonArr, String path) throws X2JException {
+		List<SchemaNode> items = new ArrayList<SchemaNode>(jsonArr.length());
+		for (int i = 0; i < jsonArr.length(); i++) {
+			Object jsonArrValObj = jsonArr.get(i);
+			String itemPath = path + "[" + i + "]";
+			if (jsonArrValObj instanceof JSONObject) {
+				JSONObject jsonArrDefn = (JSONObject) jsonArrValObj;
+				String loopPath = jsonArrDefn.has(RECURRENT_PATH) ? (String) jsonArrDefn.get(RECURRENT_PATH) : null;
+				if (X2JUtils.isVoid(loopPath)) {
+					items.add(compileObject(jsonArrDefn, false, itemPath));
+				} else {
+					items.add(new RecurrentNode(loopPath, compileObject(jsonArrDefn, true, itemPath)));
+				}
+			} else {
+				items.add(compileValue(jsonArrValObj, itemPath));
+			}
+		}
+		return new ArrayNode(items);
+	}
+
+	private static SchemaNode compileValue(Object jsonValueObj, String path) throws X2JException {
+		if (jsonValueObj instanceof JSONObject) {
+			return compileObject((JSONObject) jsonValueObj, false, path);
+		} else if (jsonValueObj instanceof JSONArray) {
+			return compileArray((JSONArray) jsonValueObj, path);
+		} else if (jsonValueObj instanceof String && !X2JUtils.isVoid(jsonValueObj)) {
+			return compileString((String) jsonValueObj, path);
+		}
+		return new ConstantNode(jsonValueObj);
+	}
+
+	private static SchemaNode compileString(String jsonValStr, String path) throws X2JException {
+		Expression expression = ExpressionParser.parse(jsonValStr);
+		if (expression == null) {
+			return new ConstantNode(jsonValStr);
+		}
+		return new ValueNode(expression, jsonValStr, X2JDataType.fromValue(jsonValStr), path);
+	}
+
+	private static RecurElemNode compileRecurElem(String jsonValStr, String path) {
+		String relativePath = jsonValStr.substring(jsonValStr.indexOf('(') + 1, jsonValStr.lastIndexOf(')'));
+		return new RecurElemNode(relativePath, X2JDataType.fromValue(jsonValStr), path);
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.x2j.converter.mgr.schema;
+
+import java.io.IOException;
+
+import org.json.JSONArray;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JJsonWriter;
+
+/**
+ * A node of the compiled schema tree.<br>
+ * Nodes are immutable and can be shared between documents and threads.
+ */
+public abstract class SchemaNode {
+
+	/**
+	 * Resolves this node against the input XML and returns the resultant JSON
+	 * value.
+	 *
+	 * @param context the evaluation context
+	 * @return the JSON value
+	 * @throws X2JException if any error is thrown during the conversion process
+	 */
+	public abstract Object evaluate(EvaluationContext context) throws X2JException;
+
+	/**
+	 * Resolves this node and adds the result to the JSON array.
+	 *
+	 * @param array   the JSON array
+	 * @param context the evaluation context
+	 * @throws X2JException if any error is thrown during the conversion process
+	 */
+	public void appendTo(JSONArray array, EvaluationContext context) throws X2JException {
+		array.put(evaluate(context));
+	}
+
+	/**
+	 * Resolves this node and writes the resultant JSON value, without building
+	 * the JSON objects and arrays first.
+	 *
+	 * @param out     the JSON writer
+	 * @param context the evaluation context
+	 * @throws X2JException if any error is thrown during the conversion process
+	 * @throws IOException  if the JSON writer fails
+	 */
+	public void write(X2JJsonWriter out, EvaluationContext context) throws X2JException, IOException {
+		out.value(evaluate(context));
+	}
+
+	/**
+	 * Resolves this node and writes the result as a field of the current JSON
+	 * object.
+	 *
+	 * @param name    the field name
+	 * @param out     the JSON writer
+	 * @param context the evaluation context
+	 * @throws X2JException if any error is thrown during the conversion process
+	 * @throws IOException  if the JSON writer fails
+	 */
+	public void writeField(String name, X2JJsonWriter out, EvaluationContext context)
+			throws X2JException, IOException {
+		out.name(name);
+		write(out, context);
+	}
+
+	/**
+	 * Resolves this node and writes the result as items of the current JSON
+	 * array.
+	 *
+	 * @param out     the JSON writer
+	 * @param context the evaluation context
+	 * @throws X2JException if any error is thrown during the conversion process
+	 * @throws IOException  if the JSON writer fails
+	 */
+	public void appendTo(X2JJsonWriter out, EvaluationContext context) throws X2JException, IOException {
+		write(out, context);
+	}
+
+}
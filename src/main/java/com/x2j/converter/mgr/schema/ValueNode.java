@@ -0,0 +1,152 @@
+package com.x2j.converter.mgr.schema;
+
+import java.io.IOException;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.metrics.X2JFieldProfiler;
+import com.x2j.converter.metrics.X2JMetrics;
+import com.x2j.converter.mgr.expr.Expression;
+import com.x2j.converter.mgr.expr.PathExpression;
+import com.x2j.converter.utils.X2JDataType;
+import com.x2j.converter.utils.X2JJsonWriter;
+
+/**
+ * A schema node for a keyword value such as <b>XPATH</b>, <b>VALUE</b> or
+ * <b>CONCAT</b>. The keyword is parsed into an expression and the datatype is
+ * determined once, when the schema is compiled.
+ */
+public class ValueNode extends SchemaNode {
+
+	private final Expression expression;
+
+	private final String rawValue;
+
+	private final X2JDataType dataType;
+
+	private final String keyword;
+
+	private final String schemaPath;
+
+	private final PathExpression textPath;
+
+	/**
+	 * Instantiates a new ValueNode object.
+	 *
+	 * @param expression the parsed keyword expression
+	 * @param rawValue   the raw JSON value string
+	 * @param dataType   the datatype of the value
+	 * @param schemaPath the location of the value in the schema
+	 */
+	public ValueNode(Expression expression, String rawValue, X2JDataType dataType, String schemaPath) {
+		this.expression = expression;
+		this.rawValue = rawValue;
+		this.dataType = dataType;
+		int keywordEnd = rawValue.indexOf('(');
+		this.keyword = keywordEnd < 0 ? rawValue : rawValue.substring(0, keywordEnd);
+		this.schemaPath = schemaPath;
+		this.textPath = dataType == X2JDataType.STRING && expression instanceof PathExpression
+				? (PathExpression) expression
+				: null;
+	}
+
+	@Override
+	public Object evaluate(EvaluationContext context) throws X2JException {
+		return dataType.convert(resolve(context));
+	}
+
+	@Override
+	public void write(X2JJsonWriter out, EvaluationContext context) throws X2JException, IOException {
+		if (textPath == null) {
+			dataType.write(resolve(context), out);
+			return;
+		}
+		long start = start(context);
+		try {
+			textPath.write(context.getRoot(), out);
+		} finally {
+			stop(start, context);
+		}
+	}
+
+	@Override
+	public void writeField(String name, X2JJsonWriter out, EvaluationContext context)
+			throws X2JException, IOException {
+		if (textPath != null) {
+			out.name(name);
+			write(out, context);
+			return;
+		}
+		String value = resolve(context);
+		if (value != null || dataType != X2JDataType.STRING) {
+			out.name(name);
+			dataType.write(value, out);
+		}
+	}
+
+	private String resolve(EvaluationContext context) throws X2JException {
+		long start = start(context);
+		try {
+			return expression.evaluate(context.getRoot());
+		} finally {
+			stop(start, context);
+		}
+	}
+
+	private static long start(EvaluationContext context) {
+		return context.getProfiler() == null ? X2JMetrics.getInstance().start() : System.nanoTime();
+	}
+
+	private void stop(long start, EvaluationContext context) {
+		X2JMetrics.getInstance().handled(start, keyword);
+		X2JFieldProfiler profiler = context.getProfiler();
+		if (profiler != null) {
+			profiler.record(schemaPath, rawValue, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Returns the parsed keyword expression.
+	 *
+	 * @return the expression
+	 */
+	public Expression getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Returns the raw JSON value string.
+	 *
+	 * @return the raw value
+	 */
+	public String getRawValue() {
+		return rawValue;
+	}
+
+	/**
+	 * Returns the keyword of the value, e.g. <b>XPATH</b>.
+	 *
+	 * @return the keyword
+	 */
+	public String getKeyword() {
+		return keyword;
+	}
+
+	/**
+	 * Returns the location of the value in the schema.
+	 *
+	 * @return the schema path
+	 */
+	public String getSchemaPath() {
+		return schemaPath;
+	}
+
+	/**
+	 * Returns the datatype of the value.
+	 *
+	 * @return the datatype
+	 */
+	public X2JDataType getDataType() {
+		return dataType;
+	}
+
+}
@@ -0,0 +1,233 @@
+package com.x2j.converter.mgr.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An absolute XPath expression that can be matched while the input XML is
+ * being read, i.e. without looking at the elements that follow.<br>
+ * Only child (<i>/</i>) and descendant (<i>//</i>) steps with a name (or
+ * <i>*</i>) and an optional position predicate (<i>[n]</i>) are supported. The
+ * last step can be an attribute (<i>@name</i>).
+ */
+class StreamPath {
+
+	private final String xpath;
+
+	private final List<Step> steps;
+
+	private final String attribute;
+
+	private StreamPath(String xpath, List<Step> steps, String attribute) {
+		this.xpath = xpath;
+		this.steps = Collections.unmodifiableList(steps);
+		this.attribute = attribute;
+	}
+
+	/**
+	 * Parses the XPath expression.
+	 *
+	 * @param xpath the XPath expression
+	 * @return the parsed path or null, if the expression cannot be streamed
+	 */
+	static StreamPath parse(String xpath) {
+		String path = xpath.trim();
+		if (!path.startsWith("/")) {
+			return null;
+		}
+		List<Step> steps = new ArrayList<Step>();
+		String attribute = null;
+		int index = 0;
+		while (index < path.length()) {
+			if (attribute != null || path.charAt(index) != '/') {
+				return null;
+			}
+			index++;
+			boolean descendant = false;
+			if (index < path.length() && path.charAt(index) == '/') {
+				descendant = true;
+				index++;
+			}
+			int end = index;
+			while (end < path.length() && path.charAt(end) != '/' && path.charAt(end) != '[') {
+				end++;
+			}
+			String name = path.substring(index, end);
+			int position = 0;
+			if (end < path.length() && path.charAt(end) == '[') {
+				int close = path.indexOf(']', end);
+				if (close < 0) {
+					return null;
+				}
+				position = parsePosition(path.substring(end + 1, close));
+				if (position <= 0) {
+					return null;
+				}
+				end = close + 1;
+			}
+			if (name.startsWith("@")) {
+				name = name.substring(1);
+				if (descendant || position > 0 || !isName(name)) {
+					return null;
+				}
+				attribute = name;
+			} else if ("*".equals(name) || isName(name)) {
+				steps.add(new Step(name, descendant, position));
+			} else {
+				return null;
+			}
+			index = end;
+		}
+		return steps.isEmpty() ? null : new StreamPath(xpath, steps, attribute);
+	}
+
+	/**
+	 * Returns the original XPath expression.
+	 *
+	 * @return the XPath expression
+	 */
+	String getXPath() {
+		return xpath;
+	}
+
+	/**
+	 * Returns the element steps.
+	 *
+	 * @return the steps
+	 */
+	List<Step> getSteps() {
+		return steps;
+	}
+
+	/**
+	 * Returns the name of the selected attribute.
+	 *
+	 * @return the attribute name or null, if the path selects elements
+	 */
+	String getAttribute() {
+		return attribute;
+	}
+
+	/**
+	 * Checks whether the path selects the root element.
+	 *
+	 * @return true, for a single child step without an attribute
+	 */
+	boolean selectsRoot() {
+		return attribute == null && steps.size() == 1 && !steps.get(0).descendant;
+	}
+
+	/**
+	 * Checks whether the path selects an element that is an ancestor of every
+	 * element selected by the other path.
+	 *
+	 * @param other the path of the repeated elements
+	 * @return true, if the path selects a fixed ancestor
+	 */
+	boolean selectsAncestorOf(StreamPath other) {
+		return attribute == null && isAncestorPrefixOf(other);
+	}
+
+	/**
+	 * Checks whether the path selects an attribute of an element that is an
+	 * ancestor of every element selected by the other path. Such an attribute is
+	 * read before any of those elements, so it can be used inside their items.
+	 *
+	 * @param other the path of the repeated elements
+	 * @return true, if the path selects an attribute of a fixed ancestor
+	 */
+	boolean selectsAncestorAttributeOf(StreamPath other) {
+		return attribute != null && isAncestorPrefixOf(other);
+	}
+
+	private boolean isAncestorPrefixOf(StreamPath other) {
+		if (steps.size() >= other.steps.size()) {
+			return false;
+		}
+		for (int i = 0; i < steps.size(); i++) {
+			Step own = steps.get(i);
+			Step others = other.steps.get(i);
+			if (own.descendant || others.descendant) {
+				return false;
+			}
+			if (!"*".equals(own.name) && !own.name.equals(others.name)) {
+				return false;
+			}
+			if (own.position != 0 && (!own.name.equals(others.name) || own.position != others.position)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int parsePosition(String predicate) {
+		String value = predicate.trim();
+		if (value.isEmpty() || value.length() > 9) {
+			return -1;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (!Character.isDigit(value.charAt(i))) {
+				return -1;
+			}
+		}
+		return Integer.parseInt(value);
+	}
+
+	private static boolean isName(String name) {
+		if (name.isEmpty() || Character.isDigit(name.charAt(0)) || name.charAt(0) == '-' || name.charAt(0) == '.') {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.' && c != ':') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * One element step of a path.
+	 */
+	static class Step {
+
+		private final String name;
+
+		private final boolean descendant;
+
+		private final int position;
+
+		private Step(String name, boolean descendant, int position) {
+			this.name = name;
+			this.descendant = descendant;
+			this.position = position;
+		}
+
+		/**
+		 * Checks whether an element matches this step.
+		 *
+		 * @param elementName  the element name
+		 * @param namePosition the position among the siblings with the same name
+		 * @param position     the position among all the sibling elements
+		 * @return true, if the element matches
+		 */
+		boolean matches(String elementName, int namePosition, int position) {
+			if ("*".equals(name)) {
+				return this.position == 0 || this.position == position;
+			}
+			return name.equals(elementName) && (this.position == 0 || this.position == namePosition);
+		}
+
+		/**
+		 * Checks whether the step can match at any depth below its context.
+		 *
+		 * @return true, for a descendant step
+		 */
+		boolean isDescendant() {
+			return descendant;
+		}
+
+	}
+
+}
@@ -0,0 +1,229 @@
+package com.x2j.converter.mgr.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.ArrayNode;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.mgr.schema.ObjectNode;
+import com.x2j.converter.mgr.schema.RecurElemNode;
+import com.x2j.converter.mgr.schema.RecurrentNode;
+import com.x2j.converter.mgr.schema.SchemaNode;
+import com.x2j.converter.mgr.schema.ValueNode;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * The analysis of a compiled schema for the streaming conversion.<br>
+ * It lists the XPath expressions of the values and the recurrent paths, which
+ * must all be streamable, and it selects the recurrent node whose items are
+ * written to the output as soon as they are read (the <i>live</i> node). That is
+ * the first recurrent node that can be reached from the root by going through
+ * object fields and through the first item of arrays.
+ */
+class StreamPlan {
+
+	private final Map<String, StreamPath> fieldPaths = new LinkedHashMap<String, StreamPath>();
+
+	private final Map<RecurrentNode, StreamPath> loopPaths = new LinkedHashMap<RecurrentNode, StreamPath>();
+
+	private final Map<RecurrentNode, List<String>> itemPaths = new LinkedHashMap<RecurrentNode, List<String>>();
+
+	private final List<SchemaNode> liveChain = new ArrayList<SchemaNode>();
+
+	private final List<String> liveKeys = new ArrayList<String>();
+
+	private final ObjectNode root;
+
+	private RecurrentNode liveNode;
+
+	private StreamPlan(ObjectNode root) {
+		this.root = root;
+	}
+
+	/**
+	 * Analyses the compiled schema.
+	 *
+	 * @param schema the compiled schema
+	 * @return the plan
+	 * @throws X2JException if the schema cannot be used for streaming
+	 */
+	static StreamPlan create(CompiledSchema schema) throws X2JException {
+		if (X2JUtils.isVoid(schema)) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_012, "No schema.");
+		}
+		StreamPlan plan = new StreamPlan(schema.getRoot());
+		plan.visit(plan.root, null);
+		plan.checkAncestors();
+		plan.findLiveNode(plan.root);
+		return plan;
+	}
+
+	/**
+	 * Returns the root node of the schema.
+	 *
+	 * @return the root node
+	 */
+	ObjectNode getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns the streamable paths of the values, keyed by the expression string
+	 * that is passed to the XPath utilities.
+	 *
+	 * @return the value paths
+	 */
+	Map<String, StreamPath> getFieldPaths() {
+		return Collections.unmodifiableMap(fieldPaths);
+	}
+
+	/**
+	 * Returns the streamable recurrent paths.
+	 *
+	 * @return the recurrent paths
+	 */
+	Map<RecurrentNode, StreamPath> getLoopPaths() {
+		return Collections.unmodifiableMap(loopPaths);
+	}
+
+	/**
+	 * Returns the absolute XPaths used by the item of a recurrent node. They all
+	 * select attributes of the ancestors of the repeated elements.
+	 *
+	 * @param node the recurrent node
+	 * @return the value paths of the item
+	 */
+	List<String> getItemPaths(RecurrentNode node) {
+		List<String> paths = itemPaths.get(node);
+		return paths == null ? Collections.<String>emptyList() : Collections.unmodifiableList(paths);
+	}
+
+	/**
+	 * Returns the object and array nodes from the root down to the array that
+	 * holds the live node.
+	 *
+	 * @return the containers of the live node or an empty list
+	 */
+	List<SchemaNode> getLiveChain() {
+		return Collections.unmodifiableList(liveChain);
+	}
+
+	/**
+	 * Returns the field names used by the objects of the live chain; null for the
+	 * arrays.
+	 *
+	 * @return the field names
+	 */
+	List<String> getLiveKeys() {
+		return Collections.unmodifiableList(liveKeys);
+	}
+
+	/**
+	 * Returns the live node.
+	 *
+	 * @return the live node or null
+	 */
+	RecurrentNode getLiveNode() {
+		return liveNode;
+	}
+
+	private void visit(SchemaNode node, RecurrentNode item) throws X2JException {
+		if (node instanceof ObjectNode) {
+			for (SchemaNode field : ((ObjectNode) node).getFields().values()) {
+				visit(field, item);
+			}
+		} else if (node instanceof ArrayNode) {
+			for (SchemaNode arrayItem : ((ArrayNode) node).getItems()) {
+				visit(arrayItem, item);
+			}
+		} else if (node instanceof RecurrentNode) {
+			RecurrentNode recurrentNode = (RecurrentNode) node;
+			if (item != null) {
+				throw new X2JException(X2JErrorCodes.X2J_ERR_012,
+						"Nested recurrent path: " + recurrentNode.getLoopPath());
+			}
+			StreamPath path = StreamPath.parse(recurrentNode.getLoopPath());
+			if (path == null || path.getAttribute() != null) {
+				throw new X2JException(X2JErrorCodes.X2J_ERR_012,
+						"Recurrent path: " + recurrentNode.getLoopPath());
+			}
+			loopPaths.put(recurrentNode, path);
+			itemPaths.put(recurrentNode, new ArrayList<String>());
+			visit(recurrentNode.getItem(), recurrentNode);
+		} else if (node instanceof RecurElemNode) {
+			if (!((RecurElemNode) node).isDetachable()) {
+				throw new X2JException(X2JErrorCodes.X2J_ERR_012, "RECUR_ELEM path outside the repeated element.");
+			}
+		} else if (node instanceof ValueNode) {
+			List<String> xpaths = new ArrayList<String>();
+			((ValueNode) node).getExpression().collectPaths(xpaths);
+			for (String xpath : xpaths) {
+				StreamPath path = StreamPath.parse(xpath);
+				if (path == null) {
+					throw new X2JException(X2JErrorCodes.X2J_ERR_012, "XPath: " + xpath);
+				}
+				if (item != null) {
+					if (!path.selectsAncestorAttributeOf(loopPaths.get(item))) {
+						throw new X2JException(X2JErrorCodes.X2J_ERR_012,
+								"Absolute XPath inside a recurrent item: " + xpath);
+					}
+					itemPaths.get(item).add(xpath);
+				}
+				fieldPaths.put(xpath, path);
+			}
+		}
+	}
+
+	/*
+	 * An element selected by a value path is kept in memory with its whole
+	 * content, hence it cannot be the root or contain the repeated elements. The
+	 * paths that only may contain them are checked while streaming.
+	 */
+	private void checkAncestors() throws X2JException {
+		for (StreamPath path : fieldPaths.values()) {
+			if (path.selectsRoot()) {
+				throw new X2JException(X2JErrorCodes.X2J_ERR_012,
+						"XPath selecting the root element: " + path.getXPath());
+			}
+			for (StreamPath loopPath : loopPaths.values()) {
+				if (path.selectsAncestorOf(loopPath)) {
+					throw new X2JException(X2JErrorCodes.X2J_ERR_012,
+							"XPath selecting an ancestor of the repeated elements: " + path.getXPath());
+				}
+			}
+		}
+	}
+
+	private boolean findLiveNode(SchemaNode node) {
+		if (node instanceof ObjectNode) {
+			for (Map.Entry<String, SchemaNode> field : ((ObjectNode) node).getFields().entrySet()) {
+				liveChain.add(node);
+				liveKeys.add(field.getKey());
+				if (findLiveNode(field.getValue())) {
+					return true;
+				}
+				liveChain.remove(liveChain.size() - 1);
+				liveKeys.remove(liveKeys.size() - 1);
+			}
+		} else if (node instanceof ArrayNode && !((ArrayNode) node).getItems().isEmpty()) {
+			SchemaNode first = ((ArrayNode) node).getItems().get(0);
+			liveChain.add(node);
+			liveKeys.add(null);
+			if (first instanceof RecurrentNode) {
+				liveNode = (RecurrentNode) first;
+				return true;
+			} else if (findLiveNode(first)) {
+				return true;
+			}
+			liveChain.remove(liveChain.size() - 1);
+			liveKeys.remove(liveKeys.size() - 1);
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,522 @@
+package com.x2j.converter.mgr.stream;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.json.JSONObject;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.ArrayNode;
+import com.x2j.converter.mgr.schema.EvaluationContext;
+import com.x2j.converter.mgr.schema.ObjectNode;
+import com.x2j.converter.mgr.schema.RecurrentNode;
+import com.x2j.converter.mgr.schema.SchemaNode;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JJsonWriter;
+import com.x2j.converter.utils.X2JResolvedPaths;
+
+/**
+ * The state of one streaming conversion.<br>
+ * The paths of the plan are matched against the stack of open elements. Only
+ * the elements selected by a value path or by a recurrent path are built as DOM
+ * elements, together with their content. A repeated element is resolved against
+ * the item definition as soon as it ends and the item is then written to the
+ * output (live node) or to a temporary file (other recurrent nodes). The rest of
+ * the schema is resolved once the document ends.
+ */
+class StreamSession {
+
+	private final StreamPlan plan;
+
+	private final X2JResolvedPaths resolvedPaths;
+
+	private final X2JJsonWriter writer;
+
+	private final Document document;
+
+	private final List<Target> targets = new ArrayList<Target>();
+
+	private final Map<RecurrentNode, ArrayDeque<Slot>> pendingItems = new IdentityHashMap<RecurrentNode, ArrayDeque<Slot>>();
+
+	private final Map<RecurrentNode, Spool> spools = new IdentityHashMap<RecurrentNode, Spool>();
+
+	private final List<Frame> frames = new ArrayList<Frame>();
+
+	private EvaluationContext context;
+
+	private int openValueElements;
+
+	private String openValuePath;
+
+	/**
+	 * Instantiates a new StreamSession object.
+	 *
+	 * @param plan          the plan of the schema
+	 * @param resolvedPaths the registered value paths
+	 * @param writer        the JSON output
+	 * @param document      the document used to build the selected elements
+	 */
+	StreamSession(StreamPlan plan, X2JResolvedPaths resolvedPaths, X2JJsonWriter writer, Document document) {
+		this.plan = plan;
+		this.resolvedPaths = resolvedPaths;
+		this.writer = writer;
+		this.document = document;
+		for (Map.Entry<String, StreamPath> field : plan.getFieldPaths().entrySet()) {
+			targets.add(new Target(field.getValue(), field.getKey(), null));
+		}
+		for (Map.Entry<RecurrentNode, StreamPath> loop : plan.getLoopPaths().entrySet()) {
+			targets.add(new Target(loop.getValue(), null, loop.getKey()));
+			pendingItems.put(loop.getKey(), new ArrayDeque<Slot>());
+		}
+	}
+
+	/**
+	 * Reads the whole document and writes the JSON.
+	 *
+	 * @param reader the XML reader, positioned at the start of the document
+	 * @throws X2JException       if the schema cannot be resolved
+	 * @throws XMLStreamException if the input XML cannot be read
+	 * @throws IOException        if the output cannot be written
+	 */
+	void run(XMLStreamReader reader) throws X2JException, XMLStreamException, IOException {
+		writePrefix();
+		Frame documentFrame = new Frame();
+		for (int i = 0; i < targets.size(); i++) {
+			documentFrame.addState(i, 0);
+		}
+		frames.add(documentFrame);
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				startElement(reader);
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				endElement();
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.SPACE:
+				appendText(reader.getText(), false);
+				break;
+			case XMLStreamConstants.CDATA:
+				appendText(reader.getText(), true);
+				break;
+			case XMLStreamConstants.COMMENT:
+				appendNode(document.createComment(reader.getText()));
+				break;
+			case XMLStreamConstants.PROCESSING_INSTRUCTION:
+				appendNode(document.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+				break;
+			default:
+				break;
+			}
+		}
+		for (RecurrentNode node : plan.getLoopPaths().keySet()) {
+			writeEndedItems(node, true);
+		}
+		writeSuffix();
+	}
+
+	/**
+	 * Deletes the temporary files.
+	 */
+	void close() {
+		for (Spool spool : spools.values()) {
+			spool.delete();
+		}
+	}
+
+	private void startElement(XMLStreamReader reader) throws X2JException, IOException {
+		Frame parent = frames.get(frames.size() - 1);
+		String name = getName(reader.getPrefix(), reader.getLocalName());
+		if (context == null) {
+			context = new EvaluationContext(createElement(reader, name));
+		}
+		Frame frame = new Frame();
+		int position = ++parent.childCount;
+		int namePosition = parent.countName(name);
+		for (int i = 0; i < parent.stateCount; i++) {
+			int targetIndex = parent.states[2 * i];
+			int stepIndex = parent.states[2 * i + 1];
+			Target target = targets.get(targetIndex);
+			StreamPath.Step step = target.path.getSteps().get(stepIndex);
+			if (step.isDescendant()) {
+				frame.addState(targetIndex, stepIndex);
+			}
+			if (step.matches(name, namePosition, position)) {
+				if (stepIndex + 1 < target.path.getSteps().size()) {
+					frame.addState(targetIndex, stepIndex + 1);
+				} else {
+					match(target, frame, reader);
+				}
+			}
+		}
+		if (parent.element != null || frame.capture) {
+			frame.element = createElement(reader, name);
+			if (parent.element != null) {
+				parent.element.appendChild(frame.element);
+			}
+			for (Target target : frame.resolvedTargets) {
+				resolvedPaths.resolve(target.key, frame.element);
+			}
+			if (!frame.resolvedTargets.isEmpty() && openValueElements++ == 0) {
+				openValuePath = frame.resolvedTargets.get(0).key;
+			}
+			for (Slot slot : frame.slots) {
+				slot.element = frame.element;
+			}
+		}
+		frames.add(frame);
+	}
+
+	private void match(Target target, Frame frame, XMLStreamReader reader) throws X2JException {
+		if (target.loop != null) {
+			if (openValueElements > 0) {
+				throw new X2JException(X2JErrorCodes.X2J_ERR_012,
+						"XPath selecting an ancestor of the repeated elements: " + openValuePath);
+			}
+			Slot slot = new Slot(target.loop);
+			pendingItems.get(target.loop).addLast(slot);
+			frame.slots.add(slot);
+			frame.capture = true;
+		} else if (!resolvedPaths.isResolved(target.key)) {
+			String attribute = target.path.getAttribute();
+			if (attribute == null) {
+				frame.resolvedTargets.add(target);
+				frame.capture = true;
+			} else {
+				for (int i = 0; i < reader.getAttributeCount(); i++) {
+					if (attribute.equals(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)))) {
+						resolvedPaths.resolve(target.key, reader.getAttributeValue(i));
+					}
+				}
+			}
+		}
+	}
+
+	private void endElement() throws X2JException, IOException {
+		Frame frame = frames.remove(frames.size() - 1);
+		if (!frame.resolvedTargets.isEmpty()) {
+			openValueElements--;
+		}
+		for (Slot slot : frame.slots) {
+			if (slot.element.getParentNode() != null) {
+				slot.element = (Element) slot.element.cloneNode(true);
+			}
+			slot.ended = true;
+		}
+		for (RecurrentNode node : plan.getLoopPaths().keySet()) {
+			writeEndedItems(node, false);
+		}
+	}
+
+	/*
+	 * The items are written in document order. An item is resolved once its
+	 * element has ended and the absolute paths of the item are resolved, or at
+	 * the end of the document.
+	 */
+	private void writeEndedItems(RecurrentNode node, boolean documentEnded) throws X2JException, IOException {
+		ArrayDeque<Slot> pending = pendingItems.get(node);
+		if (pending.isEmpty() || !pending.peekFirst().ended
+				|| !documentEnded && !isResolved(plan.getItemPaths(node))) {
+			return;
+		}
+		while (!pending.isEmpty() && pending.peekFirst().ended) {
+			Slot slot = pending.pollFirst();
+			writeItem(slot.node, slot.node.getItem().evaluate(context.forRecurrence(slot.element)));
+		}
+	}
+
+	private boolean isResolved(List<String> xpaths) {
+		for (String xpath : xpaths) {
+			if (!resolvedPaths.isResolved(xpath)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void appendText(String text, boolean cdata) {
+		Element element = frames.get(frames.size() - 1).element;
+		if (element == null) {
+			return;
+		}
+		Node last = element.getLastChild();
+		if (cdata) {
+			element.appendChild(document.createCDATASection(text));
+		} else if (last != null && last.getNodeType() == Node.TEXT_NODE) {
+			((Text) last).appendData(text);
+		} else {
+			element.appendChild(document.createTextNode(text));
+		}
+	}
+
+	private void appendNode(Node node) {
+		Element element = frames.get(frames.size() - 1).element;
+		if (element != null) {
+			element.appendChild(node);
+		}
+	}
+
+	private Element createElement(XMLStreamReader reader, String name) {
+		Element element = document.createElement(name);
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			element.setAttribute(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+					reader.getAttributeValue(i));
+		}
+		for (int i = 0; i < reader.getNamespaceCount(); i++) {
+			String prefix = reader.getNamespacePrefix(i);
+			element.setAttribute(prefix == null || prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix,
+					reader.getNamespaceURI(i));
+		}
+		return element;
+	}
+
+	/**
+	 * Returns the qualified name of an element or an attribute.
+	 *
+	 * @param prefix    the prefix
+	 * @param localName the local name
+	 * @return the qualified name
+	 */
+	static String getName(String prefix, String localName) {
+		if (prefix == null || prefix.isEmpty() || localName.indexOf(':') >= 0) {
+			return localName;
+		}
+		return prefix + ":" + localName;
+	}
+
+	private void writeItem(RecurrentNode node, JSONObject item) throws IOException {
+		if (node == plan.getLiveNode()) {
+			writer.value(item);
+		} else {
+			Spool spool = spools.get(node);
+			if (spool == null) {
+				spool = new Spool();
+				spools.put(node, spool);
+			}
+			spool.write(item);
+		}
+	}
+
+	private void writePrefix() throws IOException {
+		List<SchemaNode> chain = plan.getLiveChain();
+		for (int i = 0; i < chain.size(); i++) {
+			if (chain.get(i) instanceof ObjectNode) {
+				writer.beginObject().name(plan.getLiveKeys().get(i));
+			} else {
+				writer.beginArray();
+			}
+		}
+	}
+
+	private void writeSuffix() throws X2JException, IOException {
+		List<SchemaNode> chain = plan.getLiveChain();
+		if (chain.isEmpty()) {
+			writeNode(plan.getRoot());
+			return;
+		}
+		for (int i = chain.size() - 1; i >= 0; i--) {
+			if (chain.get(i) instanceof ObjectNode) {
+				String liveKey = plan.getLiveKeys().get(i);
+				for (Map.Entry<String, SchemaNode> field : ((ObjectNode) chain.get(i)).getFields().entrySet()) {
+					if (!field.getKey().equals(liveKey)) {
+						writer.name(field.getKey());
+						writeNode(field.getValue());
+					}
+				}
+				writer.endObject();
+			} else {
+				List<SchemaNode> items = ((ArrayNode) chain.get(i)).getItems();
+				for (int j = 1; j < items.size(); j++) {
+					writeArrayItem(items.get(j));
+				}
+				writer.endArray();
+			}
+		}
+	}
+
+	private void writeNode(SchemaNode node) throws X2JException, IOException {
+		if (node instanceof ObjectNode) {
+			writer.beginObject();
+			for (Map.Entry<String, SchemaNode> field : ((ObjectNode) node).getFields().entrySet()) {
+				writer.name(field.getKey());
+				writeNode(field.getValue());
+			}
+			writer.endObject();
+		} else if (node instanceof ArrayNode) {
+			writer.beginArray();
+			for (SchemaNode item : ((ArrayNode) node).getItems()) {
+				writeArrayItem(item);
+			}
+			writer.endArray();
+		} else {
+			writer.value(node.evaluate(context));
+		}
+	}
+
+	private void writeArrayItem(SchemaNode item) throws X2JException, IOException {
+		if (item instanceof RecurrentNode) {
+			Spool spool = spools.get(item);
+			if (spool != null) {
+				spool.copyTo(writer);
+			}
+		} else {
+			writeNode(item);
+		}
+	}
+
+	/**
+	 * A value path or a recurrent path.
+	 */
+	private static class Target {
+
+		private final StreamPath path;
+
+		private final String key;
+
+		private final RecurrentNode loop;
+
+		private Target(StreamPath path, String key, RecurrentNode loop) {
+			this.path = path;
+			this.key = key;
+			this.loop = loop;
+		}
+
+	}
+
+	/**
+	 * An open element.
+	 */
+	private static class Frame {
+
+		private int[] states = new int[8];
+
+		private int stateCount;
+
+		private int childCount;
+
+		private Map<String, Integer> nameCounts;
+
+		private Element element;
+
+		private boolean capture;
+
+		private final List<Target> resolvedTargets = new ArrayList<Target>(1);
+
+		private final List<Slot> slots = new ArrayList<Slot>(1);
+
+		private void addState(int target, int step) {
+			for (int i = 0; i < stateCount; i++) {
+				if (states[2 * i] == target && states[2 * i + 1] == step) {
+					return;
+				}
+			}
+			if (2 * stateCount + 2 > states.length) {
+				int[] newStates = new int[states.length * 2];
+				System.arraycopy(states, 0, newStates, 0, states.length);
+				states = newStates;
+			}
+			states[2 * stateCount] = target;
+			states[2 * stateCount + 1] = step;
+			stateCount++;
+		}
+
+		private int countName(String name) {
+			if (stateCount == 0) {
+				return 0;
+			}
+			if (nameCounts == null) {
+				nameCounts = new HashMap<String, Integer>();
+			}
+			Integer count = nameCounts.get(name);
+			count = count == null ? 1 : count + 1;
+			nameCounts.put(name, count);
+			return count;
+		}
+
+	}
+
+	/**
+	 * A repeated element, in document order, waiting to be resolved.
+	 */
+	private static class Slot {
+
+		private final RecurrentNode node;
+
+		private Element element;
+
+		private boolean ended;
+
+		private Slot(RecurrentNode node) {
+			this.node = node;
+		}
+
+	}
+
+	/**
+	 * A temporary file holding the resolved items of a recurrent node, one per
+	 * line.
+	 */
+	private static class Spool {
+
+		private File file;
+
+		private X2JJsonWriter out;
+
+		private void write(JSONObject item) throws IOException {
+			if (out == null) {
+				file = File.createTempFile("x2j", ".ndjson");
+				out = new X2JJsonWriter(
+						new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)));
+			}
+			out.value(item);
+		}
+
+		private void copyTo(X2JJsonWriter target) throws IOException {
+			if (out == null) {
+				return;
+			}
+			out.close();
+			try (BufferedReader in = new BufferedReader(
+					new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = in.readLine()) != null) {
+					target.rawValue(line);
+				}
+			}
+		}
+
+		private void delete() {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+				file.delete();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,219 @@
+package com.x2j.converter.mgr.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.json.JSONException;
+import org.w3c.dom.Document;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.X2JDefaultJsonBuilder;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JJsonWriter;
+import com.x2j.converter.utils.X2JResolvedPaths;
+import com.x2j.converter.utils.X2JUtils;
+import com.x2j.converter.utils.X2JXmlPool;
+
+/**
+ * The single instance class for the streaming conversion of XML to JSON.<br>
+ * The input XML is read with a StAX reader, hence the complete document is
+ * never held in memory. Only the elements that are selected by the schema (the
+ * repeated elements and the elements used by the values) are built, and every
+ * repeated element is written to the output as soon as it is resolved.<br>
+ * The streaming conversion supports a subset of the schemas:
+ * <ul>
+ * <li>The XPath expressions must be absolute and only use child or descendant
+ * steps, with an optional position predicate, and an optional attribute as the
+ * last step.</li>
+ * <li>The items of a recurrent path cannot contain another recurrent path and
+ * the <b>RECUR_ELEM</b> paths must only look inside the repeated element.</li>
+ * <li>An absolute path that is used inside an item sees the first match read so
+ * far, i.e. the match must precede the repeated element in the document.</li>
+ * </ul>
+ * Any other schema is rejected with {@link X2JErrorCodes#X2J_ERR_012}. When no
+ * schema is given, the default conversion is applied with
+ * {@link X2JDefaultJsonBuilder}; its result is held in memory until the
+ * document ends.
+ */
+public class X2JStreamingManager {
+
+	private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+	private static final XMLInputFactory inputFactory = createInputFactory();
+
+	private static class InstanceHolder {
+		private static final X2JStreamingManager INSTANCE = new X2JStreamingManager();
+	}
+
+	private X2JStreamingManager() {
+	}
+
+	/**
+	 * Returns the single instance of X2JStreamingManager.
+	 *
+	 * @return instance of X2JStreamingManager
+	 */
+	public static X2JStreamingManager getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	/**
+	 * Converts the XML read from the input stream and writes the JSON to the
+	 * writer. The streams are not closed.
+	 *
+	 * @param inputXml the input XML stream
+	 * @param schema   the compiled JSON schema
+	 * @param out      the target writer
+	 * @throws X2JException if the schema cannot be streamed or there is any error
+	 *                      during the conversion process.
+	 */
+	public void process(InputStream inputXml, CompiledSchema schema, Writer out) throws X2JException {
+		XMLStreamReader reader;
+		try {
+			synchronized (inputFactory) {
+				reader = inputFactory.createXMLStreamReader(inputXml);
+			}
+		} catch (XMLStreamException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_013, e.getMessage());
+		}
+		process(reader, schema, out);
+	}
+
+	/**
+	 * Converts the XML read from the reader and writes the JSON to the writer. The
+	 * streams are not closed.
+	 *
+	 * @param inputXml the input XML reader
+	 * @param schema   the compiled JSON schema
+	 * @param out      the target writer
+	 * @throws X2JException if the schema cannot be streamed or there is any error
+	 *                      during the conversion process.
+	 */
+	public void process(Reader inputXml, CompiledSchema schema, Writer out) throws X2JException {
+		XMLStreamReader reader;
+		try {
+			synchronized (inputFactory) {
+				reader = inputFactory.createXMLStreamReader(inputXml);
+			}
+		} catch (XMLStreamException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_013, e.getMessage());
+		}
+		process(reader, schema, out);
+	}
+
+	/**
+	 * Converts the XML read from the StAX reader and writes the JSON to the writer.
+	 * The StAX reader is closed at the end, the writer is only flushed.<br>
+	 * For the XPath expressions to behave as in the DOM conversion, the reader
+	 * should not be namespace aware.
+	 *
+	 * @param reader the StAX reader, positioned at the start of the document
+	 * @param schema the compiled JSON schema
+	 * @param out    the target writer
+	 * @throws X2JException if the schema cannot be streamed or there is any error
+	 *                      during the conversion process.
+	 */
+	public void process(XMLStreamReader reader, CompiledSchema schema, Writer out) throws X2JException {
+		if (X2JUtils.isVoid(schema)) {
+			processDefault(reader, out);
+			return;
+		}
+		StreamPlan plan = StreamPlan.create(schema);
+		X2JResolvedPaths resolvedPaths = new X2JResolvedPaths();
+		for (String xpath : plan.getFieldPaths().keySet()) {
+			resolvedPaths.register(xpath);
+		}
+		X2JJsonWriter writer = new X2JJsonWriter(out);
+		StreamSession session = new StreamSession(plan, resolvedPaths, writer, newDocument());
+		resolvedPaths.activate();
+		try {
+			session.run(reader);
+			writer.flush();
+		} catch (XMLStreamException | IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_013, e.getMessage());
+		} finally {
+			resolvedPaths.deactivate();
+			session.close();
+			try {
+				reader.close();
+			} catch (XMLStreamException e) {
+			}
+		}
+	}
+
+	private void processDefault(XMLStreamReader reader, Writer out) throws X2JException {
+		X2JDefaultJsonBuilder builder = new X2JDefaultJsonBuilder();
+		int depth = 0;
+		try {
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+					builder.startElement(StreamSession.getName(reader.getPrefix(), reader.getLocalName()));
+					for (int i = 0; i < reader.getAttributeCount(); i++) {
+						String name = StreamSession.getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+						builder.attribute(name, reader.getAttributeValue(i));
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					depth--;
+					builder.endElement();
+				} else if (depth == 0) {
+					continue;
+				} else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.SPACE) {
+					builder.text(reader.getText());
+				} else if (event == XMLStreamConstants.CDATA) {
+					builder.cdata(reader.getText());
+				} else if (event == XMLStreamConstants.COMMENT
+						|| event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+					builder.separator();
+				}
+			}
+			X2JJsonWriter writer = new X2JJsonWriter(out);
+			writer.value(builder.getResult());
+			writer.flush();
+		} catch (JSONException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_002);
+		} catch (XMLStreamException | IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_013, e.getMessage());
+		} finally {
+			try {
+				reader.close();
+			} catch (XMLStreamException e) {
+			}
+		}
+	}
+
+	private Document newDocument() throws X2JException {
+		X2JXmlPool pool = X2JXmlPool.getInstance();
+		DocumentBuilder builder = null;
+		try {
+			builder = pool.borrowBuilder();
+			return builder.newDocument();
+		} catch (ParserConfigurationException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_013, e.getMessage());
+		} finally {
+			pool.releaseBuilder(builder);
+		}
+	}
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		if (factory.isPropertySupported(REPORT_CDATA)) {
+			factory.setProperty(REPORT_CDATA, Boolean.TRUE);
+		}
+		return factory;
+	}
+
+}
@@ -0,0 +1,294 @@
+package com.x2j.converter.registry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JErrorCodes;
+import com.x2j.converter.utils.X2JUtils;
+
+/**
+ * A registry of named, compiled JSON schemas, loaded from the <b>.json</b>
+ * files of a directory. The name of a schema is its file name without the
+ * extension, e.g. <b>orders</b> for <b>orders.json</b>.<br>
+ * Every schema is compiled once, when it is loaded, and the lookups do not
+ * lock. Once {@link #watch()} is called, the directory is watched and a schema
+ * is recompiled when its file is created or modified, then swapped in
+ * atomically: a conversion that already looked up the previous version keeps
+ * it, the next lookups return the new one. A schema whose file is deleted is
+ * removed. A file that cannot be read or compiled while watching, e.g. one
+ * that is still being written, leaves the previous version in place and is
+ * counted as a failed reload.
+ */
+public class X2JSchemaRegistry implements Closeable {
+
+	private static final String EXTENSION = ".json";
+
+	private final Path directory;
+
+	private final Map<String, CompiledSchema> schemas = new ConcurrentHashMap<String, CompiledSchema>();
+
+	private final LongAdder reloads = new LongAdder();
+
+	private final LongAdder reloadFailures = new LongAdder();
+
+	private volatile X2JException lastFailure;
+
+	private WatchService watchService;
+
+	/**
+	 * Instantiates a new X2JSchemaRegistry object and loads all the schemas of
+	 * the directory.
+	 *
+	 * @param directory the directory of the JSON schema files
+	 * @throws X2JException if the directory cannot be listed or a schema cannot
+	 *                      be read or compiled
+	 */
+	public X2JSchemaRegistry(Path directory) throws X2JException {
+		this.directory = directory;
+		for (Path file : listSchemaFiles()) {
+			schemas.put(nameOf(file), load(file));
+		}
+	}
+
+	/**
+	 * Returns the current version of the named schema.
+	 *
+	 * @param name the name of the schema
+	 * @return the compiled schema
+	 * @throws X2JException if there is no schema with that name
+	 */
+	public CompiledSchema getSchema(String name) throws X2JException {
+		CompiledSchema schema = schemas.get(name);
+		if (schema == null) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_020, name);
+		}
+		return schema;
+	}
+
+	/**
+	 * Checks whether there is a schema with the given name.
+	 *
+	 * @param name the name of the schema
+	 * @return true/false
+	 */
+	public boolean contains(String name) {
+		return schemas.containsKey(name);
+	}
+
+	/**
+	 * Returns the names of the registered schemas, in alphabetical order.
+	 *
+	 * @return the schema names
+	 */
+	public Set<String> getNames() {
+		return Collections.unmodifiableSet(new TreeSet<String>(schemas.keySet()));
+	}
+
+	/**
+	 * Starts watching the directory in a daemon thread, until the registry is
+	 * closed. Calling it again has no effect.
+	 *
+	 * @return this registry
+	 * @throws X2JException if the directory cannot be watched
+	 */
+	public synchronized X2JSchemaRegistry watch() throws X2JException {
+		if (watchService != null) {
+			return this;
+		}
+		try {
+			watchService = directory.getFileSystem().newWatchService();
+			directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		} catch (IOException | UnsupportedOperationException e) {
+			closeQuietly();
+			throw new X2JException(X2JErrorCodes.X2J_ERR_019, directory.toString());
+		}
+		WatchService service = watchService;
+		Thread watcher = new Thread(() -> processEvents(service), "x2j-schema-registry");
+		watcher.setDaemon(true);
+		watcher.start();
+		return this;
+	}
+
+	private void processEvents(WatchService service) {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				boolean overflow = false;
+				Set<String> changed = new HashSet<String>();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						overflow = true;
+					} else if (isSchemaFile((Path) event.context())) {
+						changed.add(nameOf((Path) event.context()));
+					}
+				}
+				if (overflow) {
+					reload();
+				} else {
+					for (String name : changed) {
+						reload(name);
+					}
+				}
+				if (!key.reset()) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// the registry is closed
+		}
+	}
+
+	/**
+	 * Reloads the named schema from its file, or removes it if the file does not
+	 * exist anymore. If the file cannot be read or compiled, the current version
+	 * is kept.
+	 *
+	 * @param name the name of the schema
+	 * @return true if the schema was reloaded or removed
+	 */
+	public synchronized boolean reload(String name) {
+		Path file = directory.resolve(name + EXTENSION);
+		if (!Files.isRegularFile(file)) {
+			return schemas.remove(name) != null;
+		}
+		try {
+			schemas.put(name, load(file));
+			reloads.increment();
+			return true;
+		} catch (X2JException e) {
+			lastFailure = e;
+			reloadFailures.increment();
+			return false;
+		}
+	}
+
+	/**
+	 * Reloads all the schemas of the directory, and removes the schemas whose
+	 * files do not exist anymore. The files that cannot be read or compiled keep
+	 * their current version.
+	 *
+	 * @return the number of schemas that were reloaded
+	 */
+	public synchronized int reload() {
+		Set<String> names = new HashSet<String>(schemas.keySet());
+		try {
+			for (Path file : listSchemaFiles()) {
+				names.add(nameOf(file));
+			}
+		} catch (X2JException e) {
+			lastFailure = e;
+			reloadFailures.increment();
+			return 0;
+		}
+		int count = 0;
+		for (String name : names) {
+			if (reload(name) && schemas.containsKey(name)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of schemas that were recompiled after the registry was
+	 * created.
+	 *
+	 * @return the reload count
+	 */
+	public long getReloads() {
+		return reloads.sum();
+	}
+
+	/**
+	 * Returns the number of reloads that failed and kept the previous version.
+	 *
+	 * @return the failed reload count
+	 */
+	public long getReloadFailures() {
+		return reloadFailures.sum();
+	}
+
+	/**
+	 * Returns the error of the last failed reload, if any.
+	 *
+	 * @return the exception, or null
+	 */
+	public X2JException getLastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * Stops watching the directory. The registered schemas remain available.
+	 */
+	@Override
+	public synchronized void close() {
+		closeQuietly();
+	}
+
+	private void closeQuietly() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				// nothing to do
+			}
+			watchService = null;
+		}
+	}
+
+	private Set<Path> listSchemaFiles() throws X2JException {
+		Set<Path> files = new TreeSet<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path file : stream) {
+				if (isSchemaFile(file.getFileName()) && Files.isRegularFile(file)) {
+					files.add(file);
+				}
+			}
+		} catch (IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_019, directory.toString());
+		}
+		return files;
+	}
+
+	private static CompiledSchema load(Path file) throws X2JException {
+		try {
+			return CompiledSchema.compile(X2JUtils.getJsonFromFile(file.toFile()));
+		} catch (X2JException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_019, file + ": " + e.getErrorMessage());
+		} catch (RuntimeException e) {
+			// e.g. a value of the wrong type in the schema, which must not stop the watcher
+			throw new X2JException(X2JErrorCodes.X2J_ERR_019, file + ": " + e);
+		}
+	}
+
+	private static boolean isSchemaFile(Path fileName) {
+		String name = fileName.toString();
+		return name.length() > EXTENSION.length() && name.endsWith(EXTENSION);
+	}
+
+	private static String nameOf(Path file) {
+		String name = file.getFileName().toString();
+		return name.substring(0, name.length() - EXTENSION.length());
+	}
+
+}
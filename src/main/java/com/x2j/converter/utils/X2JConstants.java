@@ -125,4 +125,64 @@ public interface X2JConstants {
 	 */
 	public static final String OUTPUT_JSON_FILE = "OutputJson";
 
+	/**
+	 * InputDir
+	 */
+	public static final String INPUT_XML_DIR = "InputDir";
+
+	/**
+	 * InputGlob
+	 */
+	public static final String INPUT_XML_GLOB = "InputGlob";
+
+	/**
+	 * InputList
+	 */
+	public static final String INPUT_XML_LIST = "InputList";
+
+	/**
+	 * OutputDir
+	 */
+	public static final String OUTPUT_JSON_DIR = "OutputDir";
+
+	/**
+	 * Threads
+	 */
+	public static final String WORKER_THREADS = "Threads";
+
+	/**
+	 * VirtualThreads
+	 */
+	public static final String VIRTUAL_THREADS = "VirtualThreads";
+
+	/**
+	 * JsonIndent
+	 */
+	public static final String JSON_INDENT = "JsonIndent";
+
+	/**
+	 * X2JXPathCacheSize
+	 */
+	public static final String XPATH_CACHE_SIZE = "X2JXPathCacheSize";
+
+	/**
+	 * X2JSchemaCacheSize
+	 */
+	public static final String SCHEMA_CACHE_SIZE = "X2JSchemaCacheSize";
+
+	/**
+	 * X2JXmlPoolSize
+	 */
+	public static final String XML_POOL_SIZE = "X2JXmlPoolSize";
+
+	/**
+	 * X2JMmapThreshold
+	 */
+	public static final String MMAP_THRESHOLD = "X2JMmapThreshold";
+
+	/**
+	 * ProfileReport
+	 */
+	public static final String PROFILE_REPORT = "ProfileReport";
+
 }
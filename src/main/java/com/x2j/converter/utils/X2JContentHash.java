@@ -0,0 +1,181 @@
+package com.x2j.converter.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A 128-bit hash of some content (MurmurHash3, x64 variant) together with the
+ * length of the content, to be used as a cache key for documents.<br>
+ * Bytes and text are hashed with different seeds, hence the hash of a String
+ * never matches the hash of its encoded bytes. Unlike a cryptographic digest,
+ * the hash is fast enough to be computed for every input; with 128 bits, an
+ * accidental collision between two documents is negligible, but the hash must
+ * not be relied upon against deliberately crafted inputs.
+ */
+public final class X2JContentHash {
+
+	private static final long C1 = 0x87c37b91114253d5L;
+
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	private static final long BYTES_SEED = 0x2f1b3c5dL;
+
+	private static final long TEXT_SEED = 0x5d3c1b2fL;
+
+	private final long high;
+
+	private final long low;
+
+	private final long length;
+
+	private X2JContentHash(long high, long low, long length) {
+		this.high = high;
+		this.low = low;
+		this.length = length;
+	}
+
+	/**
+	 * Returns the hash of the given bytes.
+	 *
+	 * @param bytes the content
+	 * @return the hash
+	 */
+	public static X2JContentHash of(byte[] bytes) {
+		return of(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Returns the hash of a range of the given bytes.
+	 *
+	 * @param bytes  the content
+	 * @param offset the start of the range
+	 * @param length the length of the range
+	 * @return the hash
+	 */
+	public static X2JContentHash of(byte[] bytes, int offset, int length) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+		long h1 = BYTES_SEED;
+		long h2 = BYTES_SEED;
+		int end = offset + (length & ~15);
+		for (int i = offset; i < end; i += 16) {
+			h1 = mixBlock1(h1, h2, buffer.getLong(i));
+			h2 = mixBlock2(h2, h1, buffer.getLong(i + 8));
+		}
+		long k1 = 0;
+		long k2 = 0;
+		for (int i = (length & 15) - 1; i >= 0; i--) {
+			long b = bytes[end + i] & 0xFFL;
+			if (i >= 8) {
+				k2 |= b << ((i - 8) * 8);
+			} else {
+				k1 |= b << (i * 8);
+			}
+		}
+		return finish(h1, h2, k1, k2, length);
+	}
+
+	/**
+	 * Returns the hash of the given text. The text is hashed as its UTF-16 code
+	 * units, without encoding it first.
+	 *
+	 * @param text the content
+	 * @return the hash
+	 */
+	public static X2JContentHash of(CharSequence text) {
+		int length = text.length();
+		long h1 = TEXT_SEED;
+		long h2 = TEXT_SEED;
+		int end = length & ~7;
+		for (int i = 0; i < end; i += 8) {
+			h1 = mixBlock1(h1, h2, pack(text, i, 4));
+			h2 = mixBlock2(h2, h1, pack(text, i + 4, 4));
+		}
+		int tail = length & 7;
+		long k1 = pack(text, end, Math.min(tail, 4));
+		long k2 = tail > 4 ? pack(text, end + 4, tail - 4) : 0;
+		return finish(h1, h2, k1, k2, 2L * length);
+	}
+
+	private static long pack(CharSequence text, int start, int count) {
+		long word = 0;
+		for (int i = 0; i < count; i++) {
+			word |= (long) text.charAt(start + i) << (i * 16);
+		}
+		return word;
+	}
+
+	private static long mixBlock1(long h1, long h2, long k1) {
+		h1 ^= mixK1(k1);
+		h1 = Long.rotateLeft(h1, 27) + h2;
+		return h1 * 5 + 0x52dce729;
+	}
+
+	private static long mixBlock2(long h2, long h1, long k2) {
+		h2 ^= mixK2(k2);
+		h2 = Long.rotateLeft(h2, 31) + h1;
+		return h2 * 5 + 0x38495ab5;
+	}
+
+	private static long mixK1(long k1) {
+		return Long.rotateLeft(k1 * C1, 31) * C2;
+	}
+
+	private static long mixK2(long k2) {
+		return Long.rotateLeft(k2 * C2, 33) * C1;
+	}
+
+	private static X2JContentHash finish(long h1, long h2, long k1, long k2, long length) {
+		h2 ^= mixK2(k2);
+		h1 ^= mixK1(k1);
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+		h1 += h2;
+		h2 += h1;
+		return new X2JContentHash(h1, h2, length);
+	}
+
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		return k ^ (k >>> 33);
+	}
+
+	/**
+	 * Returns the length of the hashed content, in bytes (2 bytes per character
+	 * for a text).
+	 *
+	 * @return the length
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof X2JContentHash)) {
+			return false;
+		}
+		X2JContentHash other = (X2JContentHash) obj;
+		return high == other.high && low == other.low && length == other.length;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (high ^ (high >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", high, low);
+	}
+
+}
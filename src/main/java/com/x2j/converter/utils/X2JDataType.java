@@ -0,0 +1,94 @@
+package com.x2j.converter.utils;
+
+import java.io.IOException;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Datatypes that can be declared against a schema value using the
+ * <b>:INT</b>, <b>:DBL</b> and <b>:BOOL</b> suffixes.
+ */
+public enum X2JDataType {
+
+	/** String (default). */
+	STRING,
+
+	/** Integer. */
+	INTEGER,
+
+	/** Double. */
+	DOUBLE,
+
+	/** Boolean. */
+	BOOLEAN;
+
+	/**
+	 * Decodes the datatype from the suffix that follows the closing bracket of a
+	 * keyword, for example <b>:INT</b> in <i>XPATH(/a/@b):INT</i>. <br>
+	 * Values without a closing bracket and values with no suffix are treated as
+	 * String.
+	 *
+	 * @param rawValueString the raw JSON value string
+	 * @return the datatype
+	 */
+	public static X2JDataType fromValue(String rawValueString) {
+		int index = rawValueString.lastIndexOf(')');
+		if (index < 0 || index == rawValueString.length() - 1) {
+			return STRING;
+		}
+		String suffix = rawValueString.substring(index + 1);
+		if (StringUtils.containsIgnoreCase(suffix, X2JConstants.INTEGER)) {
+			return INTEGER;
+		} else if (StringUtils.containsIgnoreCase(suffix, X2JConstants.DOUBLE)) {
+			return DOUBLE;
+		} else if (StringUtils.containsIgnoreCase(suffix, X2JConstants.BOOLEAN)) {
+			return BOOLEAN;
+		}
+		return STRING;
+	}
+
+	/**
+	 * Converts the resolved value string to this datatype.
+	 *
+	 * @param value the resolved value string
+	 * @return the converted value
+	 */
+	public Object convert(String value) {
+		switch (this) {
+		case INTEGER:
+			return Integer.valueOf(value);
+		case DOUBLE:
+			return Double.valueOf(value);
+		case BOOLEAN:
+			return Boolean.valueOf(value);
+		default:
+			return value;
+		}
+	}
+
+	/**
+	 * Converts the resolved value string to this datatype and writes it, without
+	 * boxing the number or the boolean. The value is parsed and formatted as by
+	 * {@link #convert(String)}.
+	 *
+	 * @param value the resolved value string
+	 * @param out   the JSON writer
+	 * @throws IOException if the JSON writer fails
+	 */
+	public void write(String value, X2JJsonWriter out) throws IOException {
+		switch (this) {
+		case INTEGER:
+			out.value(Integer.parseInt(value));
+			break;
+		case DOUBLE:
+			out.value(Double.parseDouble(value));
+			break;
+		case BOOLEAN:
+			out.value(Boolean.parseBoolean(value));
+			break;
+		default:
+			out.value(value);
+		}
+	}
+
+}
@@ -63,6 +63,51 @@ public enum X2JErrorCodes {
 	/**
 	 * Error during string operation.
 	 */
-	X2J_ERR_011;
+	X2J_ERR_011,
+
+	/**
+	 * The JSON schema cannot be used for streaming conversion.
+	 */
+	X2J_ERR_012,
+
+	/**
+	 * Error while streaming XML to JSON.
+	 */
+	X2J_ERR_013,
+
+	/**
+	 * Error during batch conversion.
+	 */
+	X2J_ERR_014,
+
+	/**
+	 * Error while listing the input XML files.
+	 */
+	X2J_ERR_015,
+
+	/**
+	 * Error while writing the profile report.
+	 */
+	X2J_ERR_016,
+
+	/**
+	 * Error while parsing a keyword of the JSON schema.
+	 */
+	X2J_ERR_017,
+
+	/**
+	 * Error while reading XML from stream.
+	 */
+	X2J_ERR_018,
+
+	/**
+	 * Error while loading a JSON schema into the registry.
+	 */
+	X2J_ERR_019,
+
+	/**
+	 * JSON schema not found in the registry.
+	 */
+	X2J_ERR_020;
 
 }
@@ -0,0 +1,449 @@
+package com.x2j.converter.utils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A minimal JSON writer that writes the JSON tokens directly to the underlying
+ * Writer, without building the complete JSON text in memory.<br>
+ * The writer keeps track of the separators, hence the callers only need to
+ * open/close the objects and arrays and write the names and the values.
+ * Consecutive top-level values are written on separate lines (NDJSON).<br>
+ * The output is compact by default. With an indent factor, every field and
+ * array item starts on a new line, indented like
+ * {@link JSONObject#toString(int)}.
+ */
+public class X2JJsonWriter implements Closeable, Flushable {
+
+	private final Writer out;
+
+	private final int indentFactor;
+
+	private int depth = 0;
+
+	private boolean first = true;
+
+	private boolean afterName = false;
+
+	private final char[] digits = new char[11];
+
+	/**
+	 * Instantiates a new X2JJsonWriter object.
+	 *
+	 * @param out the target writer
+	 */
+	public X2JJsonWriter(Writer out) {
+		this(out, 0);
+	}
+
+	/**
+	 * Instantiates a new X2JJsonWriter object that pretty-prints the JSON.
+	 *
+	 * @param out          the target writer
+	 * @param indentFactor the number of spaces per nesting level, 0 for compact
+	 *                     output
+	 */
+	public X2JJsonWriter(Writer out, int indentFactor) {
+		this.out = out;
+		this.indentFactor = Math.max(indentFactor, 0);
+	}
+
+	/**
+	 * Opens a JSON object.
+	 *
+	 * @return this writer
+	 * @throws IOException if the target writer fails
+	 */
+	public X2JJsonWriter beginObject() throws IOException {
+		beforeValue();
+		out.write('{');
+		push();
+		return this;
+	}
+
+	/**
+	 * Closes the current JSON object.
+	 *
+	 * @return this writer
+	 * @throws IOException if the target writer fails
+	 */
+	public X2JJsonWriter endObject() throws IOException {
+		pop();
+		out.write('}');
+		return this;
+	}
+
+	/**
+	 * Opens a JSON array.
+	 *
+	 * @return this writer
+	 * @throws IOException if the target writer fails
+	 */
+	public X2JJsonWriter beginArray() throws IOException {
+		beforeValue();
+		out.write('[');
+		push();
+		return this;
+	}
+
+	/**
+	 * Closes the current JSON array.
+	 *
+	 * @return this writer
+	 * @throws IOException if the target writer fails
+	 */
+	public X2JJsonWriter endArray() throws IOException {
+		pop();
+		out.write(']');
+		return this;
+	}
+
+	/**
+	 * Writes the name of the next field of the current JSON object.
+	 *
+	 * @param name the field name
+	 * @return this writer
+	 * @throws IOException if the target writer fails
+	 */
+	public X2JJsonWriter name(String name) throws IOException {
+		separate();
+		JSONObject.quote(name, out);
+		out.write(':');
+		if (indentFactor > 0) {
+			out.write(' ');
+		}
+		afterName = true;
+		return this;
+	}
+
+	/**
+	 * Writes a value. JSON objects and arrays are written element by element,
+	 * directly to the target writer.
+	 *
+	 * @param value the value
+	 * @return this writer
+	 * @throws IOException if the target writer fails
+	 */
+	public X2JJsonWriter value(Object value) throws IOException {
+		beforeValue();
+		try {
+			if (value instanceof JSONObject) {
+				((JSONObject) value).write(out, indentFactor, depth * indentFactor);
+			} else if (value instanceof JSONArray) {
+				((JSONArray) value).write(out, indentFactor, depth * indentFactor);
+			} else {
+				writeScalar(value);
+			}
+		} catch (JSONException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		return this;
+	}
+
+	/**
+	 * Writes an int value. The digits are formatted straight into the target
+	 * writer.
+	 *
+	 * @param value the value
+	 * @return this writer
+	 * @throws IOException if the target writer fails
+	 */
+	public X2JJsonWriter value(int value) throws IOException {
+		beforeValue();
+		if (value == Integer.MIN_VALUE) {
+			out.write(Integer.toString(value));
+			return this;
+		}
+		int position = digits.length;
+		int remaining = Math.abs(value);
+		do {
+			digits[--position] = (char) ('0' + remaining % 10);
+			remaining /= 10;
+		} while (remaining != 0);
+		if (value < 0) {
+			digits[--position] = '-';
+		}
+		out.write(digits, position, digits.length - position);
+		return this;
+	}
+
+	/**
+	 * Writes a double value, formatted like {@link JSONObject#numberToString},
+	 * i.e. without the trailing zeros of the fraction.
+	 *
+	 * @param value the value
+	 * @return this writer
+	 * @throws IOException   if the target writer fails
+	 * @throws JSONException if the value is not finite
+	 */
+	public X2JJsonWriter value(double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new JSONException("JSON does not allow non-finite numbers.");
+		}
+		beforeValue();
+		String number = Double.toString(value);
+		int end = number.length();
+		if (number.indexOf('E') < 0) {
+			while (number.charAt(end - 1) == '0') {
+				end--;
+			}
+			if (number.charAt(end - 1) == '.') {
+				end--;
+			}
+		}
+		out.write(number, 0, end);
+		return this;
+	}
+
+	/**
+	 * Writes a boolean value.
+	 *
+	 * @param value the value
+	 * @return this writer
+	 * @throws IOException if the target writer fails
+	 */
+	public X2JJsonWriter value(boolean value) throws IOException {
+		beforeValue();
+		out.write(value ? "true" : "false");
+		return this;
+	}
+
+	/**
+	 * Writes a text as a JSON string, with the special XML characters encoded as
+	 * in {@link X2JUtils#encodeText(String)}. The text is encoded and escaped
+	 * while it is written, without copying it first. A null or blank text is
+	 * written as an empty string.
+	 *
+	 * @param text the text, e.g. a {@link X2JTextView}
+	 * @return this writer
+	 * @throws IOException if the target writer fails
+	 */
+	public X2JJsonWriter encodedValue(CharSequence text) throws IOException {
+		beforeValue();
+		out.write('"');
+		if (text != null && !X2JUtils.isBlank(text)) {
+			if (text instanceof X2JTextView) {
+				X2JTextView view = (X2JTextView) text;
+				writeEncoded(view.getText(), view.getStart(), view.getEnd());
+			} else {
+				writeEncoded(text, 0, text.length());
+			}
+		}
+		out.write('"');
+		return this;
+	}
+
+	/**
+	 * Starts a JSON string whose text is written to the returned Writer, with
+	 * the special XML characters encoded as in
+	 * {@link X2JUtils#encodeText(String)}. Closing the returned Writer ends the
+	 * string.<br>
+	 * It is used to stream a serialized XML element into the JSON output.
+	 *
+	 * @return the writer of the string content
+	 * @throws IOException if the target writer fails
+	 */
+	public Writer openEncodedValue() throws IOException {
+		beforeValue();
+		out.write('"');
+		return new Writer() {
+
+			private boolean closed = false;
+
+			@Override
+			public void write(int c) throws IOException {
+				if (isPlain((char) c)) {
+					out.write(c);
+				} else {
+					writeEncoded((char) c);
+				}
+			}
+
+			@Override
+			public void write(char[] buffer, int offset, int length) throws IOException {
+				int start = offset;
+				int end = offset + length;
+				for (int i = offset; i < end; i++) {
+					if (!isPlain(buffer[i])) {
+						out.write(buffer, start, i - start);
+						writeEncoded(buffer[i]);
+						start = i + 1;
+					}
+				}
+				out.write(buffer, start, end - start);
+			}
+
+			@Override
+			public void write(String text, int offset, int length) throws IOException {
+				writeEncoded(text, offset, offset + length);
+			}
+
+			@Override
+			public void flush() {
+				// the target writer is flushed with the JSON writer
+			}
+
+			@Override
+			public void close() throws IOException {
+				if (!closed) {
+					closed = true;
+					out.write('"');
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Writes a value that is already formatted as JSON text.
+	 *
+	 * @param json the JSON text of one value
+	 * @return this writer
+	 * @throws IOException if the target writer fails
+	 */
+	public X2JJsonWriter rawValue(String json) throws IOException {
+		beforeValue();
+		out.write(json);
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private void writeScalar(Object value) throws IOException {
+		if (value == null || JSONObject.NULL.equals(value)) {
+			out.write("null");
+		} else if (value instanceof String) {
+			JSONObject.quote((String) value, out);
+		} else if (value instanceof Number) {
+			out.write(JSONObject.numberToString((Number) value));
+		} else if (value instanceof Boolean) {
+			out.write(value.toString());
+		} else {
+			out.write(JSONObject.valueToString(value));
+		}
+	}
+
+	private void writeEncoded(CharSequence text, int from, int to) throws IOException {
+		int start = from;
+		for (int i = from; i < to; i++) {
+			if (!isPlain(text.charAt(i))) {
+				writeRun(text, start, i);
+				writeEncoded(text.charAt(i));
+				start = i + 1;
+			}
+		}
+		writeRun(text, start, to);
+	}
+
+	private void writeRun(CharSequence text, int from, int to) throws IOException {
+		if (text instanceof String) {
+			out.write((String) text, from, to - from);
+		} else {
+			for (int i = from; i < to; i++) {
+				out.write(text.charAt(i));
+			}
+		}
+	}
+
+	/*
+	 * The plain characters need neither XML encoding nor JSON escaping. The
+	 * slash is plain too: JSONObject.quote escapes it only after a '<', which is
+	 * always encoded here.
+	 */
+	private static boolean isPlain(char c) {
+		return c >= ' ' && c != '\\' && X2JUtils.getEntity(c) == null && (c < '\u0080' || c >= '\u00a0')
+				&& (c < '\u2000' || c >= '\u2100');
+	}
+
+	private void writeEncoded(char c) throws IOException {
+		String entity = X2JUtils.getEntity(c);
+		if (entity != null) {
+			out.write(entity);
+			return;
+		}
+		switch (c) {
+		case '\\':
+			out.write("\\\\");
+			break;
+		case '\b':
+			out.write("\\b");
+			break;
+		case '\t':
+			out.write("\\t");
+			break;
+		case '\n':
+			out.write("\\n");
+			break;
+		case '\f':
+			out.write("\\f");
+			break;
+		case '\r':
+			out.write("\\r");
+			break;
+		default:
+			out.write("\\u");
+			for (int shift = 12; shift >= 0; shift -= 4) {
+				out.write(Character.forDigit((c >> shift) & 0xf, 16));
+			}
+		}
+	}
+
+	private void beforeValue() throws IOException {
+		if (afterName) {
+			afterName = false;
+		} else {
+			separate();
+		}
+	}
+
+	private void separate() throws IOException {
+		if (!first) {
+			out.write(depth == 0 ? '\n' : ',');
+		}
+		first = false;
+		if (depth > 0) {
+			newLine();
+		}
+	}
+
+	private void newLine() throws IOException {
+		if (indentFactor > 0) {
+			out.write('\n');
+			for (int i = depth * indentFactor; i > 0; i--) {
+				out.write(' ');
+			}
+		}
+	}
+
+	private void push() {
+		depth++;
+		first = true;
+	}
+
+	private void pop() throws IOException {
+		boolean empty = first;
+		depth--;
+		first = false;
+		if (!empty) {
+			newLine();
+		}
+	}
+
+}
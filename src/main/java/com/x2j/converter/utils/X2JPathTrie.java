@@ -0,0 +1,238 @@
+package com.x2j.converter.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * The absolute simple paths of a schema (see {@link X2JSimplePath}) merged into
+ * a trie of element names, e.g. <i>/Order/Header/Status</i> and
+ * <i>/Order/Header/@Id</i> share the <i>Order</i> and <i>Header</i> steps.<br>
+ * {@link #resolve(Element, X2JResolvedPaths)} resolves all the paths in one walk
+ * of the document, in document order. Only the branches of the document that
+ * are in the trie are visited, and a branch is left as soon as all the paths
+ * below it have their first match. The cost is therefore about the size of the
+ * document plus the number of paths, instead of one walk per path.<br>
+ * A trie is built once, when the schema is compiled, and can be shared by
+ * threads.
+ */
+public final class X2JPathTrie {
+
+	private final Step root = new Step();
+
+	private final int stepCount;
+
+	private final int targetCount;
+
+	private final List<String> xpaths = new ArrayList<String>();
+
+	private X2JPathTrie(Collection<X2JSimplePath> paths) {
+		int steps = 1;
+		int targets = 0;
+		for (X2JSimplePath path : paths) {
+			Step step = root;
+			for (String name : path.getSteps()) {
+				Step child = step.children.get(name);
+				if (child == null) {
+					child = new Step();
+					child.id = steps++;
+					step.children.put(name, child);
+				}
+				step = child;
+			}
+			if (path.getAttribute() == null) {
+				if (step.elementPaths.isEmpty()) {
+					step.elementTarget = targets++;
+				}
+				step.elementPaths.add(path.getXPath());
+			} else {
+				Target target = step.attributePaths.get(path.getAttribute());
+				if (target == null) {
+					target = new Target(targets++);
+					step.attributePaths.put(path.getAttribute(), target);
+				}
+				target.xpaths.add(path.getXPath());
+			}
+			xpaths.add(path.getXPath());
+		}
+		this.stepCount = steps;
+		this.targetCount = targets;
+		root.count();
+	}
+
+	/**
+	 * Builds the trie of the absolute simple paths among the given XPaths.
+	 *
+	 * @param xpaths the XPath expressions of a schema
+	 * @return the trie, or null if fewer than two of the XPaths are absolute simple
+	 *         paths
+	 */
+	public static X2JPathTrie build(Collection<String> xpaths) {
+		Map<String, X2JSimplePath> paths = new LinkedHashMap<String, X2JSimplePath>();
+		for (String xpath : xpaths) {
+			X2JSimplePath path = X2JSimplePath.compile(xpath);
+			if (path != null && !path.isRelative()) {
+				paths.put(xpath, path);
+			}
+		}
+		return paths.size() < 2 ? null : new X2JPathTrie(paths.values());
+	}
+
+	/**
+	 * Registers all the paths of the trie in the set and resolves them against the
+	 * document of the given element, in a single walk.
+	 *
+	 * @param context  an element of the document
+	 * @param resolved the set to fill in
+	 * @return false, if the paths could not be resolved in one walk, e.g. because
+	 *         the document has prefixed names and is not namespace aware; the set
+	 *         must not be used then
+	 */
+	public boolean resolve(Element context, X2JResolvedPaths resolved) {
+		Node document = X2JSimplePath.getDocument(context);
+		if (document == null) {
+			return false;
+		}
+		for (String xpath : xpaths) {
+			resolved.register(xpath);
+		}
+		int[] remaining = new int[stepCount];
+		fillRemaining(root, remaining);
+		return walk(document, root, remaining, new boolean[targetCount], resolved) >= 0;
+	}
+
+	private void fillRemaining(Step step, int[] remaining) {
+		remaining[step.id] = step.targets;
+		for (Step child : step.children.values()) {
+			fillRemaining(child, remaining);
+		}
+	}
+
+	/**
+	 * Walks the child elements of the parent that match the children of the step.
+	 *
+	 * @return the number of targets resolved, or -1 to give up
+	 */
+	private int walk(Node parent, Step step, int[] remaining, boolean[] done, X2JResolvedPaths resolved) {
+		int count = 0;
+		for (Node child = parent.getFirstChild(); child != null && remaining[step.id] > 0; child = child
+				.getNextSibling()) {
+			short nodeType = child.getNodeType();
+			if (nodeType == Node.ENTITY_REFERENCE_NODE) {
+				return -1;
+			} else if (nodeType == Node.ELEMENT_NODE) {
+				Step next = getChild(step, child);
+				if (next == Step.GIVE_UP) {
+					return -1;
+				} else if (next != null && remaining[next.id] > 0) {
+					int visited = visit((Element) child, next, remaining, done, resolved);
+					if (visited < 0) {
+						return -1;
+					}
+					remaining[step.id] -= visited;
+					count += visited;
+				}
+			}
+		}
+		return count;
+	}
+
+	private int visit(Element element, Step step, int[] remaining, boolean[] done, X2JResolvedPaths resolved) {
+		int count = 0;
+		if (step.elementTarget >= 0 && !done[step.elementTarget]) {
+			for (String xpath : step.elementPaths) {
+				resolved.resolve(xpath, element);
+			}
+			done[step.elementTarget] = true;
+			count++;
+		}
+		for (Map.Entry<String, Target> attribute : step.attributePaths.entrySet()) {
+			Target target = attribute.getValue();
+			if (!done[target.id]) {
+				Object attr = X2JSimplePath.findAttribute(element, attribute.getKey());
+				if (attr == X2JSimplePath.NOT_SIMPLE) {
+					return -1;
+				} else if (attr != null) {
+					for (String xpath : target.xpaths) {
+						resolved.resolve(xpath, ((Node) attr).getNodeValue());
+					}
+					done[target.id] = true;
+					count++;
+				}
+			}
+		}
+		remaining[step.id] -= count;
+		int below = walk(element, step, remaining, done, resolved);
+		return below < 0 ? -1 : count + below;
+	}
+
+	private Step getChild(Step step, Node element) {
+		String localName = element.getLocalName();
+		if (localName != null) {
+			return element.getNamespaceURI() == null ? step.children.get(localName) : null;
+		}
+		String nodeName = element.getNodeName();
+		Step child = step.children.get(nodeName);
+		if (child == null) {
+			int colon = nodeName.lastIndexOf(':');
+			if (colon >= 0 && step.children.containsKey(nodeName.substring(colon + 1))) {
+				return Step.GIVE_UP;
+			}
+		}
+		return child;
+	}
+
+	/**
+	 * Returns the XPaths of the trie.
+	 *
+	 * @return the XPaths
+	 */
+	public List<String> getXPaths() {
+		return xpaths;
+	}
+
+	private static final class Step {
+
+		private static final Step GIVE_UP = new Step();
+
+		private final Map<String, Step> children = new HashMap<String, Step>();
+
+		private final List<String> elementPaths = new ArrayList<String>(1);
+
+		private final Map<String, Target> attributePaths = new LinkedHashMap<String, Target>();
+
+		private int id;
+
+		private int elementTarget = -1;
+
+		private int targets;
+
+		private int count() {
+			targets = (elementTarget >= 0 ? 1 : 0) + attributePaths.size();
+			for (Step child : children.values()) {
+				targets += child.count();
+			}
+			return targets;
+		}
+
+	}
+
+	private static final class Target {
+
+		private final int id;
+
+		private final List<String> xpaths = new ArrayList<String>(1);
+
+		private Target(int id) {
+			this.id = id;
+		}
+
+	}
+
+}
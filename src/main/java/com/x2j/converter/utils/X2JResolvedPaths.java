@@ -0,0 +1,175 @@
+package com.x2j.converter.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPathConstants;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * A set of XPath expressions whose results have already been determined by some
+ * other means than the JAXP XPath engine, for example while streaming the input
+ * XML.<br>
+ * When a set is active for the current thread, {@link X2JUtils} returns the
+ * registered results instead of evaluating those expressions. An expression
+ * that is registered but not resolved is treated as having no match.<br>
+ * Attribute results are held as Strings and element results as Elements. By
+ * default, the expressions that select a child of a resolved element (e.g.
+ * <i>/a/b/c</i> when <i>/a/b</i> is resolved) are answered from that element
+ * as well.
+ */
+public class X2JResolvedPaths {
+
+	private static final ThreadLocal<X2JResolvedPaths> ACTIVE = new ThreadLocal<X2JResolvedPaths>();
+
+	/** Marker for a lookup that cannot be answered from this set. */
+	public static final Object NOT_RESOLVED = new Object();
+
+	private final Map<String, Object> results = new HashMap<String, Object>();
+
+	private final boolean childLookups;
+
+	/**
+	 * Instantiates a new X2JResolvedPaths object that answers the children of the
+	 * resolved elements as well.
+	 */
+	public X2JResolvedPaths() {
+		this(true);
+	}
+
+	/**
+	 * Instantiates a new X2JResolvedPaths object.
+	 *
+	 * @param childLookups whether the expressions that select a child of a resolved
+	 *                     element are answered from that element
+	 */
+	public X2JResolvedPaths(boolean childLookups) {
+		this.childLookups = childLookups;
+	}
+
+	/**
+	 * Returns the set that is active for the current thread.
+	 *
+	 * @return the active set or null
+	 */
+	public static X2JResolvedPaths getActive() {
+		return ACTIVE.get();
+	}
+
+	/**
+	 * Makes this set active for the current thread.
+	 */
+	public void activate() {
+		ACTIVE.set(this);
+	}
+
+	/**
+	 * Removes the active set from the current thread.
+	 */
+	public void deactivate() {
+		ACTIVE.remove();
+	}
+
+	/**
+	 * Registers an expression. Until it is resolved, it is treated as having no
+	 * match.
+	 *
+	 * @param xpath the XPath expression
+	 */
+	public void register(String xpath) {
+		results.putIfAbsent(xpath, null);
+	}
+
+	/**
+	 * Checks whether the expression is registered.
+	 *
+	 * @param xpath the XPath expression
+	 * @return true, if registered
+	 */
+	public boolean isRegistered(String xpath) {
+		return results.containsKey(xpath);
+	}
+
+	/**
+	 * Checks whether the expression is registered and resolved.
+	 *
+	 * @param xpath the XPath expression
+	 * @return true, if resolved
+	 */
+	public boolean isResolved(String xpath) {
+		return results.get(xpath) != null;
+	}
+
+	/**
+	 * Sets the result of a registered expression. Only the first result is kept,
+	 * as per the XPath document order.
+	 *
+	 * @param xpath  the XPath expression
+	 * @param result the attribute value (String) or the Element
+	 */
+	public void resolve(String xpath, Object result) {
+		if (results.containsKey(xpath) && results.get(xpath) == null) {
+			results.put(xpath, result);
+		}
+	}
+
+	/**
+	 * Returns the result of the expression for the requested type.
+	 *
+	 * @param xpath the XPath expression
+	 * @param type  XPathConstants.STRING or XPathConstants.NODE
+	 * @return the result or {@link #NOT_RESOLVED}
+	 */
+	public Object lookup(String xpath, QName type) {
+		if (results.containsKey(xpath)) {
+			return toType(results.get(xpath), type);
+		}
+		int index = childLookups ? xpath.lastIndexOf('/') : -1;
+		if (index > 0) {
+			Object parent = results.get(xpath.substring(0, index));
+			String name = xpath.substring(index + 1);
+			if (parent instanceof Element && isName(name)) {
+				return toType(getFirstChild((Element) parent, name), type);
+			}
+		}
+		return NOT_RESOLVED;
+	}
+
+	private Object toType(Object result, QName type) {
+		if (XPathConstants.STRING.equals(type)) {
+			if (result instanceof Element) {
+				return ((Element) result).getTextContent();
+			}
+			return result == null ? "" : result;
+		} else if (XPathConstants.NODE.equals(type) && !(result instanceof String)) {
+			return result;
+		}
+		return NOT_RESOLVED;
+	}
+
+	private Element getFirstChild(Element parent, String name) {
+		for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE && child.getNodeName().equals(name)) {
+				return (Element) child;
+			}
+		}
+		return null;
+	}
+
+	private boolean isName(String name) {
+		if (name.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.' && c != ':') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
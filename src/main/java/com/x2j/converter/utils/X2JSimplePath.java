@@ -0,0 +1,284 @@
+package com.x2j.converter.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPathConstants;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * An XPath made only of child element steps and an optional attribute at the
+ * end, e.g. <i>/Shipment/Lines/Line/@ItemID</i> or <i>/Order/Header/Status</i>.
+ * The relative form used for <b>RECUR_ELEM</b>, <i>self::node()/Item/@Id</i>,
+ * is accepted as well.<br>
+ * Such a path is resolved by walking the child elements of the DOM directly,
+ * which is much cheaper than evaluating it with the JAXP XPath engine. The
+ * result is the same as the one of JAXP. When the walk meets a node whose
+ * matching is not obvious, e.g. a prefixed name in a document that is not
+ * namespace aware, an entity reference, or an absolute path from an element
+ * that is not part of a document, it gives up and {@link X2JUtils} falls back
+ * to JAXP.<br>
+ * The paths are classified once, with {@link #compile(String)}, when the
+ * schema is compiled. An instance is immutable and can be shared by threads.
+ */
+public final class X2JSimplePath {
+
+	/** Marker for an evaluation that has to be done by the JAXP XPath engine. */
+	public static final Object NOT_SIMPLE = new Object();
+
+	private static final String SELF = "self::node()";
+
+	private static final String XMLNS = "xmlns";
+
+	private final String xpath;
+
+	private final boolean relative;
+
+	private final String[] steps;
+
+	private final String attribute;
+
+	private X2JSimplePath(String xpath, boolean relative, String[] steps, String attribute) {
+		this.xpath = xpath;
+		this.relative = relative;
+		this.steps = steps;
+		this.attribute = attribute;
+	}
+
+	/**
+	 * Classifies the XPath and, if it only has child element steps and an optional
+	 * attribute, returns the path to resolve it without JAXP.
+	 *
+	 * @param xpath the XPath expression
+	 * @return the simple path, or null if the XPath is not a simple path
+	 */
+	public static X2JSimplePath compile(String xpath) {
+		if (xpath == null) {
+			return null;
+		}
+		String path = xpath.trim();
+		boolean relative = path.startsWith(SELF);
+		if (relative) {
+			path = path.substring(SELF.length());
+		}
+		if (path.length() < 2 || path.charAt(0) != '/') {
+			return null;
+		}
+		List<String> steps = new ArrayList<String>();
+		String attribute = null;
+		int start = 1;
+		while (start <= path.length()) {
+			int end = path.indexOf('/', start);
+			String step = path.substring(start, end < 0 ? path.length() : end);
+			if (attribute != null) {
+				return null;
+			} else if (step.startsWith("@") && isName(step.substring(1)) && !step.equals("@" + XMLNS)) {
+				attribute = step.substring(1);
+			} else if (isName(step)) {
+				steps.add(step);
+			} else {
+				return null;
+			}
+			start = end < 0 ? path.length() + 1 : end + 1;
+		}
+		if (!relative && steps.isEmpty()) {
+			return null;
+		}
+		return new X2JSimplePath(xpath, relative, steps.toArray(new String[steps.size()]), attribute);
+	}
+
+	/**
+	 * Checks for a name without a prefix. The check is stricter than the XML
+	 * specification; the names it does not accept are left to JAXP.
+	 */
+	private static boolean isName(String name) {
+		if (name.isEmpty() || !(Character.isLetter(name.charAt(0)) || name.charAt(0) == '_')) {
+			return false;
+		}
+		for (int i = 1; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Resolves the path against the context element.
+	 *
+	 * @param context the context element
+	 * @param type    XPathConstants.NODE, XPathConstants.NODESET or, for an
+	 *                attribute, XPathConstants.STRING
+	 * @return the result as JAXP would return it, or {@link #NOT_SIMPLE} if the
+	 *         path has to be evaluated by JAXP
+	 */
+	public Object evaluate(Element context, QName type) {
+		boolean all = XPathConstants.NODESET.equals(type);
+		boolean string = XPathConstants.STRING.equals(type);
+		if (!all && !XPathConstants.NODE.equals(type) && !(string && attribute != null)) {
+			return NOT_SIMPLE;
+		}
+		Node start = relative ? context : getDocument(context);
+		if (start == null) {
+			return NOT_SIMPLE;
+		}
+		List<Node> matches = new ArrayList<Node>(all ? 8 : 1);
+		if (!select(start, 0, matches, all)) {
+			return NOT_SIMPLE;
+		}
+		if (all) {
+			return new Nodes(matches);
+		}
+		Node first = matches.isEmpty() ? null : matches.get(0);
+		if (string) {
+			return first == null ? "" : first.getNodeValue();
+		}
+		return first;
+	}
+
+	static Node getDocument(Node node) {
+		Node top = node;
+		while (top.getParentNode() != null) {
+			top = top.getParentNode();
+		}
+		return top.getNodeType() == Node.DOCUMENT_NODE ? top : null;
+	}
+
+	/**
+	 * Adds the matches below the parent to the list, in document order.
+	 *
+	 * @return false, if the path has to be evaluated by JAXP
+	 */
+	private boolean select(Node parent, int step, List<Node> matches, boolean all) {
+		if (step == steps.length) {
+			if (attribute == null) {
+				matches.add(parent);
+				return true;
+			}
+			return selectAttribute((Element) parent, matches);
+		}
+		for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+			short nodeType = child.getNodeType();
+			if (nodeType == Node.ENTITY_REFERENCE_NODE) {
+				return false;
+			} else if (nodeType == Node.ELEMENT_NODE) {
+				int match = match(child, steps[step]);
+				if (match < 0 || (match > 0 && !select(child, step + 1, matches, all))) {
+					return false;
+				}
+				if (!all && !matches.isEmpty()) {
+					return true;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean selectAttribute(Element element, List<Node> matches) {
+		Object found = findAttribute(element, attribute);
+		if (found == NOT_SIMPLE) {
+			return false;
+		} else if (found != null) {
+			matches.add((Node) found);
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the attribute of the element that matches a name test without a
+	 * prefix. Namespace declarations are not attributes in XPath.
+	 *
+	 * @return the attribute, null if there is none, or {@link #NOT_SIMPLE} if JAXP
+	 *         has to decide
+	 */
+	static Object findAttribute(Element element, String name) {
+		NamedNodeMap attributes = element.getAttributes();
+		Node found = null;
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Node attr = attributes.item(i);
+			String attrName = attr.getNodeName();
+			if (attrName.equals(XMLNS) || attrName.startsWith(XMLNS + ":")) {
+				continue;
+			}
+			int match = match(attr, name);
+			if (match < 0) {
+				return NOT_SIMPLE;
+			} else if (match > 0) {
+				found = attr;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Matches the name of an element or an attribute against a name test without
+	 * a prefix.
+	 *
+	 * @return 1 for a match, 0 for no match, -1 if JAXP has to decide
+	 */
+	static int match(Node node, String name) {
+		String localName = node.getLocalName();
+		if (localName != null) {
+			return node.getNamespaceURI() == null && localName.equals(name) ? 1 : 0;
+		}
+		String nodeName = node.getNodeName();
+		if (nodeName.equals(name)) {
+			return 1;
+		}
+		int prefix = nodeName.length() - name.length() - 1;
+		return prefix > 0 && nodeName.charAt(prefix) == ':' && nodeName.endsWith(name) ? -1 : 0;
+	}
+
+	boolean isRelative() {
+		return relative;
+	}
+
+	String[] getSteps() {
+		return steps;
+	}
+
+	String getAttribute() {
+		return attribute;
+	}
+
+	/**
+	 * Returns the XPath expression.
+	 *
+	 * @return the XPath
+	 */
+	public String getXPath() {
+		return xpath;
+	}
+
+	@Override
+	public String toString() {
+		return xpath;
+	}
+
+	private static final class Nodes implements NodeList {
+
+		private final List<Node> nodes;
+
+		private Nodes(List<Node> nodes) {
+			this.nodes = nodes;
+		}
+
+		@Override
+		public Node item(int index) {
+			return index >= 0 && index < nodes.size() ? nodes.get(index) : null;
+		}
+
+		@Override
+		public int getLength() {
+			return nodes.size();
+		}
+
+	}
+
+}
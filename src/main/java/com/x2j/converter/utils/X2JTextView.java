@@ -0,0 +1,108 @@
+package com.x2j.converter.utils;
+
+/**
+ * A read-only view of a range of a String, e.g. the text of a DOM text node
+ * without its leading and trailing whitespace.<br>
+ * Creating or trimming a view does not copy the characters; they are copied
+ * only if {@link #toString()} is called on a partial range.
+ * {@link X2JJsonWriter#encodedValue(CharSequence)} writes the range straight
+ * from the underlying String.
+ */
+public final class X2JTextView implements CharSequence {
+
+	/** The empty view. */
+	public static final X2JTextView EMPTY = new X2JTextView("", 0, 0);
+
+	private final String text;
+
+	private final int start;
+
+	private final int end;
+
+	private X2JTextView(String text, int start, int end) {
+		this.text = text;
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Returns a view of the whole String.
+	 *
+	 * @param text the String, null for the empty view
+	 * @return the view
+	 */
+	public static X2JTextView of(String text) {
+		return text == null ? EMPTY : new X2JTextView(text, 0, text.length());
+	}
+
+	/**
+	 * Returns a view of the String without its leading and trailing whitespace,
+	 * as in {@link String#trim()}.
+	 *
+	 * @param text the String, null for the empty view
+	 * @return the trimmed view
+	 */
+	public static X2JTextView trimmed(String text) {
+		return of(text).trim();
+	}
+
+	/**
+	 * Returns the view without its leading and trailing whitespace, as in
+	 * {@link String#trim()}.
+	 *
+	 * @return the trimmed view
+	 */
+	public X2JTextView trim() {
+		int first = start;
+		int last = end;
+		while (first < last && text.charAt(first) <= ' ') {
+			first++;
+		}
+		while (last > first && text.charAt(last - 1) <= ' ') {
+			last--;
+		}
+		if (first == start && last == end) {
+			return this;
+		}
+		return first == last ? EMPTY : new X2JTextView(text, first, last);
+	}
+
+	@Override
+	public int length() {
+		return end - start;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length()) {
+			throw new IndexOutOfBoundsException("index " + index + ", length " + length());
+		}
+		return text.charAt(start + index);
+	}
+
+	@Override
+	public X2JTextView subSequence(int from, int to) {
+		if (from < 0 || to > length() || from > to) {
+			throw new IndexOutOfBoundsException("begin " + from + ", end " + to + ", length " + length());
+		}
+		return new X2JTextView(text, start + from, start + to);
+	}
+
+	@Override
+	public String toString() {
+		return text.substring(start, end);
+	}
+
+	String getText() {
+		return text;
+	}
+
+	int getStart() {
+		return start;
+	}
+
+	int getEnd() {
+		return end;
+	}
+
+}
@@ -4,38 +4,48 @@ import static com.x2j.converter.utils.X2JConstants.AMP;
 import static com.x2j.converter.utils.X2JConstants.APOS;
 import static com.x2j.converter.utils.X2JConstants.GT;
 import static com.x2j.converter.utils.X2JConstants.LT;
+import static com.x2j.converter.utils.X2JConstants.MMAP_THRESHOLD;
 import static com.x2j.converter.utils.X2JConstants.QUOT;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.FilterWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
-import java.nio.file.Files;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.StandardOpenOption;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -44,6 +54,7 @@ import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.metrics.X2JMetrics;
 
 /**
  * This is a utility class which implements some common XML/String utilities
@@ -51,22 +62,14 @@ import com.x2j.converter.excp.X2JException;
  */
 public class X2JUtils {
 
-	private static final DocumentBuilderFactory docBuilderfactory = DocumentBuilderFactory.newInstance();
+	/** The default size, in bytes, from which the input XML files are memory-mapped. */
+	public static final long DEFAULT_MMAP_THRESHOLD = 4L * 1024 * 1024;
 
-	private static final XPathFactory xpathFactory = XPathFactory.newInstance();
+	private static final long MMAP_THRESHOLD_BYTES = Long.getLong(MMAP_THRESHOLD, DEFAULT_MMAP_THRESHOLD);
 
-	private static final TransformerFactory transFactory = TransformerFactory.newInstance();
+	private static final Charset UTF_32BE = Charset.forName("UTF-32BE");
 
-	private static Map<Character, String> splCharsMap;
-
-	static {
-		splCharsMap = new HashMap<Character, String>();
-		splCharsMap.put('<', LT);
-		splCharsMap.put('>', GT);
-		splCharsMap.put('\"', QUOT);
-		splCharsMap.put('\'', APOS);
-		splCharsMap.put('&', AMP);
-	}
+	private static final Charset UTF_32LE = Charset.forName("UTF-32LE");
 
 	/**
 	 * Null check for objects. <br>
@@ -86,7 +89,12 @@ public class X2JUtils {
 	}
 
 	/**
-	 * Reads and parses the file and returns the XML document.
+	 * Reads and parses the file and returns the XML document.<br>
+	 * The file is read through a FileChannel. A file of at least 4 MB (or of the
+	 * size set with the <b>X2JMmapThreshold</b> system property) is
+	 * memory-mapped, hence the parser reads it straight from the page cache. The
+	 * parser detects the encoding from the byte order mark and the XML
+	 * declaration.
 	 *
 	 * @param file the input file
 	 * @return XML Document
@@ -94,16 +102,73 @@ public class X2JUtils {
 	 *                      valid XML.
 	 */
 	public static Document getXmlFromFile(File file) throws X2JException {
+		X2JXmlPool pool = X2JXmlPool.getInstance();
+		DocumentBuilder builder = null;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			builder = pool.borrowBuilder();
+			X2JMetrics metrics = X2JMetrics.getInstance();
+			long start = metrics.start();
+			long size = channel.size();
+			InputSource source = new InputSource(size >= MMAP_THRESHOLD_BYTES && size <= Integer.MAX_VALUE
+					? new MappedInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size))
+					: Channels.newInputStream(channel));
+			source.setSystemId(file.toURI().toString());
+			Document document = builder.parse(source);
+			metrics.parsed(start, size);
+			return document;
+		} catch (ParserConfigurationException | SAXException | IOException | InvalidPathException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_001);
+		} finally {
+			pool.releaseBuilder(builder);
+		}
+	}
+
+	/**
+	 * Reads and parses the stream and returns the XML document. The parser
+	 * detects the encoding from the byte order mark and the XML declaration. The
+	 * stream is not closed.
+	 *
+	 * @param in the input XML stream
+	 * @return XML Document
+	 * @throws X2JException if the stream is not readable or the content is not a
+	 *                      valid XML.
+	 */
+	public static Document getXmlFromStream(InputStream in) throws X2JException {
+		X2JXmlPool pool = X2JXmlPool.getInstance();
+		DocumentBuilder builder = null;
 		try {
-			DocumentBuilder builder = docBuilderfactory.newDocumentBuilder();
-			return builder.parse(file);
+			builder = pool.borrowBuilder();
+			X2JMetrics metrics = X2JMetrics.getInstance();
+			long start = metrics.start();
+			CountingInputStream counting = new CountingInputStream(in);
+			Document document = builder.parse(new InputSource(counting));
+			metrics.parsed(start, counting.count);
+			return document;
 		} catch (ParserConfigurationException | SAXException | IOException e) {
-			throw new X2JException(X2JErrorCodes.X2J_ERR_001);
+			throw new X2JException(X2JErrorCodes.X2J_ERR_018);
+		} finally {
+			pool.releaseBuilder(builder);
 		}
 	}
 
 	/**
-	 * Reads and parses the file and returns the JSON object.
+	 * Reads and parses the channel and returns the XML document. The channel is
+	 * not closed.
+	 *
+	 * @param channel the input XML channel
+	 * @return XML Document
+	 * @throws X2JException if the channel is not readable or the content is not
+	 *                      a valid XML.
+	 */
+	public static Document getXmlFromChannel(ReadableByteChannel channel) throws X2JException {
+		return getXmlFromStream(Channels.newInputStream(channel));
+	}
+
+	/**
+	 * Reads and parses the file and returns the JSON object.<br>
+	 * The encoding is detected as per RFC 8259: UTF-8, unless the file starts
+	 * with a UTF-16 or UTF-32 byte order mark or with the null bytes of a UTF-16
+	 * or UTF-32 character. A UTF-8 byte order mark is skipped.
 	 *
 	 * @param file the input file
 	 * @return JSON Object
@@ -111,14 +176,57 @@ public class X2JUtils {
 	 *                      valid JSON.
 	 */
 	public static JSONObject getJsonFromFile(File file) throws X2JException {
-		try {
-			String content = new String(Files.readAllBytes(file.toPath()));
-			return new JSONObject(content);
-		} catch (JSONException | IOException e) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+				Reader reader = newJsonReader(new BufferedInputStream(Channels.newInputStream(channel)))) {
+			return new JSONObject(new JSONTokener(reader));
+		} catch (JSONException | IOException | InvalidPathException e) {
 			throw new X2JException(X2JErrorCodes.X2J_ERR_002);
 		}
 	}
 
+	private static Reader newJsonReader(InputStream in) throws IOException {
+		byte[] head = new byte[4];
+		in.mark(4);
+		int length = 0;
+		for (int read; length < 4 && (read = in.read(head, length, 4 - length)) > 0;) {
+			length += read;
+		}
+		in.reset();
+		int b0 = length > 0 ? head[0] & 0xFF : -1;
+		int b1 = length > 1 ? head[1] & 0xFF : -1;
+		int b2 = length > 2 ? head[2] & 0xFF : -1;
+		int b3 = length > 3 ? head[3] & 0xFF : -1;
+		Charset charset = StandardCharsets.UTF_8;
+		int bom = 0;
+		if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+			bom = 3;
+		} else if (b0 == 0 && b1 == 0 && b2 == 0xFE && b3 == 0xFF) {
+			charset = UTF_32BE;
+			bom = 4;
+		} else if (b0 == 0xFF && b1 == 0xFE && b2 == 0 && b3 == 0) {
+			charset = UTF_32LE;
+			bom = 4;
+		} else if (b0 == 0xFE && b1 == 0xFF) {
+			charset = StandardCharsets.UTF_16BE;
+			bom = 2;
+		} else if (b0 == 0xFF && b1 == 0xFE) {
+			charset = StandardCharsets.UTF_16LE;
+			bom = 2;
+		} else if (b0 == 0 && b1 == 0 && b2 == 0 && b3 > 0) {
+			charset = UTF_32BE;
+		} else if (b0 > 0 && b1 == 0 && b2 == 0 && b3 == 0) {
+			charset = UTF_32LE;
+		} else if (b0 == 0 && b1 > 0) {
+			charset = StandardCharsets.UTF_16BE;
+		} else if (b0 > 0 && b1 == 0) {
+			charset = StandardCharsets.UTF_16LE;
+		}
+		for (long skipped = 0; skipped < bom;) {
+			skipped += in.skip(bom - skipped);
+		}
+		return new InputStreamReader(in, charset);
+	}
+
 	/**
 	 * Reads and parses the string and returns the JSON object.
 	 *
@@ -142,11 +250,19 @@ public class X2JUtils {
 	 * @throws X2JException if the String is not a valid XML.
 	 */
 	public static Document getXmlFromString(String inputXml) throws X2JException {
+		X2JXmlPool pool = X2JXmlPool.getInstance();
+		DocumentBuilder builder = null;
 		try {
-			DocumentBuilder builder = docBuilderfactory.newDocumentBuilder();
-			return builder.parse(new InputSource(new StringReader(inputXml)));
+			builder = pool.borrowBuilder();
+			X2JMetrics metrics = X2JMetrics.getInstance();
+			long start = metrics.start();
+			Document document = builder.parse(new InputSource(new StringReader(inputXml)));
+			metrics.parsed(start, inputXml.length());
+			return document;
 		} catch (ParserConfigurationException | SAXException | IOException e) {
 			throw new X2JException(X2JErrorCodes.X2J_ERR_009);
+		} finally {
+			pool.releaseBuilder(builder);
 		}
 	}
 
@@ -160,7 +276,22 @@ public class X2JUtils {
 	 * @throws X2JException if the xpath is not a valid XPATH expression
 	 */
 	public static NodeList getNodesFromXPath(Element element, String xpath) throws X2JException {
-		return (NodeList) executeXPath(element, xpath, XPathConstants.NODESET, X2JErrorCodes.X2J_ERR_004);
+		return getNodesFromXPath(element, xpath, null);
+	}
+
+	/**
+	 * Returns the list of nodes in the XML element as per the path specified in the
+	 * XPath, walking the DOM directly if the XPath is a simple path.
+	 *
+	 * @param element    the XML element
+	 * @param xpath      the xpath
+	 * @param simplePath the xpath compiled as a simple path, or null
+	 * @return the list of nodes
+	 * @throws X2JException if the xpath is not a valid XPATH expression
+	 */
+	public static NodeList getNodesFromXPath(Element element, String xpath, X2JSimplePath simplePath)
+			throws X2JException {
+		return (NodeList) executeXPath(element, xpath, simplePath, XPathConstants.NODESET, X2JErrorCodes.X2J_ERR_004);
 	}
 
 	/**
@@ -173,7 +304,23 @@ public class X2JUtils {
 	 * @throws X2JException if the xpath is not a valid XPATH expression
 	 */
 	public static String getXpathAttribute(Element element, String xpath) throws X2JException {
-		return (String) executeXPath(element, xpath, XPathConstants.STRING, X2JErrorCodes.X2J_ERR_005);
+		return getXpathAttribute(element, xpath, null);
+	}
+
+	/**
+	 * Returns the value of an attribute in the XML element as per the path
+	 * specified in the XPath, walking the DOM directly if the XPath is a simple
+	 * path.
+	 *
+	 * @param element    the XML element
+	 * @param xpath      the xpath
+	 * @param simplePath the xpath compiled as a simple path, or null
+	 * @return the value of the attribute
+	 * @throws X2JException if the xpath is not a valid XPATH expression
+	 */
+	public static String getXpathAttribute(Element element, String xpath, X2JSimplePath simplePath)
+			throws X2JException {
+		return (String) executeXPath(element, xpath, simplePath, XPathConstants.STRING, X2JErrorCodes.X2J_ERR_005);
 	}
 
 	/**
@@ -186,7 +333,22 @@ public class X2JUtils {
 	 * @throws X2JException if the xpath is not a valid XPATH expression
 	 */
 	public static Element getXpathElement(Element element, String xpath) throws X2JException {
-		return (Element) executeXPath(element, xpath, XPathConstants.NODE, X2JErrorCodes.X2J_ERR_006);
+		return getXpathElement(element, xpath, null);
+	}
+
+	/**
+	 * Returns the element in the XML element as per the path specified in the
+	 * XPath, walking the DOM directly if the XPath is a simple path.
+	 *
+	 * @param element    the XML element
+	 * @param xpath      the xpath
+	 * @param simplePath the xpath compiled as a simple path, or null
+	 * @return the element
+	 * @throws X2JException if the xpath is not a valid XPATH expression
+	 */
+	public static Element getXpathElement(Element element, String xpath, X2JSimplePath simplePath)
+			throws X2JException {
+		return (Element) executeXPath(element, xpath, simplePath, XPathConstants.NODE, X2JErrorCodes.X2J_ERR_006);
 	}
 
 	/**
@@ -213,39 +375,113 @@ public class X2JUtils {
 	 *                      transforming XML to String
 	 */
 	public static String getString(Element element) throws X2JException {
+		StringWriter buffer = new StringWriter();
+		writeString(element, buffer);
+		return buffer.toString();
+	}
+
+	/**
+	 * Serializes the XML element to the target writer, without building the
+	 * string in memory.
+	 *
+	 * @param element the XML element
+	 * @param target  the target writer
+	 * @throws X2JException if the argument is null or there is an error while
+	 *                      transforming XML to String
+	 */
+	public static void writeString(Element element, Writer target) throws X2JException {
+		X2JXmlPool pool = X2JXmlPool.getInstance();
+		Transformer transformer = null;
 		try {
 			if (element == null) {
 				throw new IllegalArgumentException("Element is null");
 			}
-			Transformer transformer = transFactory.newTransformer();
-			StringWriter buffer = new StringWriter();
+			transformer = pool.borrowTransformer();
 			transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-			transformer.transform(new DOMSource(element), new StreamResult(buffer));
-			return buffer.toString();
+			transformer.transform(new DOMSource(element), new StreamResult(target));
 		} catch (IllegalArgumentException | TransformerException e) {
 			throw new X2JException(X2JErrorCodes.X2J_ERR_007);
+		} finally {
+			pool.releaseTransformer(transformer);
 		}
 	}
 
 	/**
-	 * Writes the JSON object to a file.
+	 * Writes the JSON object to a file, pretty-printed with an indent factor of 4.
 	 *
 	 * @param json the JSON Object
 	 * @param file the target file
 	 * @throws X2JException if there is any error during the file writing process
 	 */
 	public static void writeJsonToFile(JSONObject json, File file) throws X2JException {
-		PrintWriter writer = null;
+		writeJsonToFile(json, file, 4);
+	}
+
+	/**
+	 * Writes the JSON object to a file in UTF-8. The JSON is written as it is
+	 * serialized, without building the JSON text in memory.
+	 *
+	 * @param json         the JSON Object
+	 * @param file         the target file
+	 * @param indentFactor the number of spaces per nesting level, 0 for compact
+	 *                     output
+	 * @throws X2JException if there is any error during the file writing process
+	 */
+	public static void writeJsonToFile(JSONObject json, File file, int indentFactor) throws X2JException {
+		try (OutputStream out = new FileOutputStream(file)) {
+			writeJson(json, out, indentFactor);
+		} catch (IOException e) {
+			throw new X2JException(X2JErrorCodes.X2J_ERR_008);
+		}
+	}
+
+	/**
+	 * Writes the JSON object to an output stream in UTF-8, through a buffer. The
+	 * stream is flushed but not closed.
+	 *
+	 * @param json         the JSON Object
+	 * @param out          the target output stream
+	 * @param indentFactor the number of spaces per nesting level, 0 for compact
+	 *                     output
+	 * @throws X2JException if there is any error during the writing process
+	 */
+	public static void writeJson(JSONObject json, OutputStream out, int indentFactor) throws X2JException {
+		X2JMetrics metrics = X2JMetrics.getInstance();
+		long start = metrics.start();
+		CountingOutputStream counting = start == 0L ? null : new CountingOutputStream(out);
+		write(json, new BufferedWriter(new OutputStreamWriter(counting == null ? out : counting, StandardCharsets.UTF_8)),
+				indentFactor);
+		if (counting != null) {
+			metrics.serialized(start, counting.count);
+		}
+	}
+
+	/**
+	 * Writes the JSON object to a writer. The writer is flushed but not closed.
+	 *
+	 * @param json         the JSON Object
+	 * @param out          the target writer
+	 * @param indentFactor the number of spaces per nesting level, 0 for compact
+	 *                     output
+	 * @throws X2JException if there is any error during the writing process
+	 */
+	public static void writeJson(JSONObject json, Writer out, int indentFactor) throws X2JException {
+		X2JMetrics metrics = X2JMetrics.getInstance();
+		long start = metrics.start();
+		CountingWriter counting = start == 0L ? null : new CountingWriter(out);
+		write(json, counting == null ? out : counting, indentFactor);
+		if (counting != null) {
+			metrics.serialized(start, counting.count);
+		}
+	}
+
+	private static void write(JSONObject json, Writer out, int indentFactor) throws X2JException {
 		try {
-			writer = new PrintWriter(new FileWriter(file));
-			writer.write(json.toString(4));
+			X2JJsonWriter writer = new X2JJsonWriter(out, indentFactor);
+			writer.value(json);
+			writer.flush();
 		} catch (Exception e) {
 			throw new X2JException(X2JErrorCodes.X2J_ERR_008);
-		} finally {
-			try {
-				writer.close();
-			} catch (Exception e) {
-			}
 		}
 	}
 
@@ -266,10 +502,105 @@ public class X2JUtils {
 		if (X2JUtils.isVoid(text)) {
 			return "";
 		}
-		return IntStream.range(0, text.length()).mapToObj(i -> {
-			char c = (char) text.charAt(i);
-			return splCharsMap.containsKey(c) ? splCharsMap.get(c) : "" + c;
-		}).collect(Collectors.joining());
+		int first = indexOfSpecialChar(text);
+		if (first < 0) {
+			return text;
+		}
+		StringBuilder builder = new StringBuilder(text.length() + 16);
+		appendEncoded(text, first, builder);
+		return builder.toString();
+	}
+
+	/**
+	 * Appends the given text to the builder with the special characters encoded,
+	 * as in {@link #encodeText(String)}. A null or blank text appends nothing.
+	 *
+	 * @param text    any input text
+	 * @param builder the target builder
+	 * @return the target builder
+	 */
+	public static StringBuilder encodeText(CharSequence text, StringBuilder builder) {
+		if (text != null && !isBlank(text)) {
+			appendEncoded(text, indexOfSpecialChar(text), builder);
+		}
+		return builder;
+	}
+
+	/**
+	 * Appends the given text to the target with the special characters encoded,
+	 * as in {@link #encodeText(String)}. A null or blank text appends nothing.
+	 *
+	 * @param <A>    the type of the target
+	 * @param text   any input text
+	 * @param target the target, e.g. a Writer
+	 * @return the target
+	 * @throws IOException if the target fails
+	 */
+	public static <A extends Appendable> A encodeText(CharSequence text, A target) throws IOException {
+		if (text != null && !isBlank(text)) {
+			appendEncoded(text, indexOfSpecialChar(text), target);
+		}
+		return target;
+	}
+
+	private static int indexOfSpecialChar(CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (getEntity(text.charAt(i)) != null) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static void appendEncoded(CharSequence text, int first, Appendable target) throws IOException {
+		if (first < 0) {
+			target.append(text);
+			return;
+		}
+		target.append(text, 0, first);
+		int start = first;
+		for (int i = first; i < text.length(); i++) {
+			String entity = getEntity(text.charAt(i));
+			if (entity != null) {
+				target.append(text, start, i).append(entity);
+				start = i + 1;
+			}
+		}
+		target.append(text, start, text.length());
+	}
+
+	private static void appendEncoded(CharSequence text, int first, StringBuilder builder) {
+		try {
+			appendEncoded(text, first, (Appendable) builder);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static String getEntity(char c) {
+		switch (c) {
+		case '<':
+			return LT;
+		case '>':
+			return GT;
+		case '"':
+			return QUOT;
+		case '\'':
+			return APOS;
+		case '&':
+			return AMP;
+		default:
+			return null;
+		}
+	}
+
+	static boolean isBlank(CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) > ' ') {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -287,9 +618,8 @@ public class X2JUtils {
 		if (!expression.contains("/") && !expression.contains("@") && !expression.contains("[")) {
 			return false;
 		}
-		XPath xPath = xpathFactory.newXPath();
 		try {
-			xPath.compile(expression);
+			X2JXPathCache.getInstance().validate(expression);
 			return true;
 		} catch (XPathExpressionException e) {
 			return false;
@@ -310,34 +640,229 @@ public class X2JUtils {
 			if (value.contains("@")) {
 				return encodeText(getXpathAttribute(rootElement, value));
 			} else {
-				Element elem = getXpathElement(rootElement, value);
-				if (!isVoid(elem)) {
-					if (elem.hasChildNodes()) {
-						NodeList allChildNodes = elem.getChildNodes();
-						for (int i = 0; i < allChildNodes.getLength(); i++) {
-							Node child = allChildNodes.item(i);
-							if (child.getNodeType() == Node.TEXT_NODE) {
-								return encodeText(child.getNodeValue().trim());
-							}
-						}
-					}
-				}
+				return getXpathText(rootElement, value);
 			}
 		} else {
 			return value;
 		}
-		return "";
 	}
 
-	private static Object executeXPath(Element element, String xpath, QName type, X2JErrorCodes errCode)
+	/**
+	 * Returns the first text node of the XML element that is selected by the XPath,
+	 * trimmed and encoded.
+	 *
+	 * @param element the context element
+	 * @param xpath   the XPath of an element
+	 * @return the text, or an empty string if the element or its text is not found
+	 * @throws X2JException X2JException
+	 */
+	public static String getXpathText(Element element, String xpath) throws X2JException {
+		return getXpathText(element, xpath, null);
+	}
+
+	/**
+	 * Returns the first text node of the XML element that is selected by the XPath,
+	 * trimmed and encoded, walking the DOM directly if the XPath is a simple path.
+	 *
+	 * @param element    the context element
+	 * @param xpath      the XPath of an element
+	 * @param simplePath the xpath compiled as a simple path, or null
+	 * @return the text, or an empty string if the element or its text is not found
+	 * @throws X2JException X2JException
+	 */
+	public static String getXpathText(Element element, String xpath, X2JSimplePath simplePath) throws X2JException {
+		return encodeText(getXpathTextView(element, xpath, simplePath).toString());
+	}
+
+	/**
+	 * Returns a view of the first text node of the XML element that is selected
+	 * by the XPath, trimmed but not encoded. The text of the node is not copied.
+	 *
+	 * @param element    the context element
+	 * @param xpath      the XPath of an element
+	 * @param simplePath the xpath compiled as a simple path, or null
+	 * @return the text view, empty if the element or its text is not found
+	 * @throws X2JException X2JException
+	 */
+	public static X2JTextView getXpathTextView(Element element, String xpath, X2JSimplePath simplePath)
 			throws X2JException {
-		XPath xPath = xpathFactory.newXPath();
+		Element elem = getXpathElement(element, xpath, simplePath);
+		if (!isVoid(elem)) {
+			for (Node child = elem.getFirstChild(); child != null; child = child.getNextSibling()) {
+				if (child.getNodeType() == Node.TEXT_NODE) {
+					return X2JTextView.trimmed(child.getNodeValue());
+				}
+			}
+		}
+		return X2JTextView.EMPTY;
+	}
+
+	private static Object executeXPath(Element element, String xpath, X2JSimplePath simplePath, QName type,
+			X2JErrorCodes errCode) throws X2JException {
+		X2JResolvedPaths resolvedPaths = X2JResolvedPaths.getActive();
+		if (resolvedPaths != null) {
+			Object result = resolvedPaths.lookup(xpath, type);
+			if (result != X2JResolvedPaths.NOT_RESOLVED) {
+				return result;
+			}
+		}
+		X2JMetrics metrics = X2JMetrics.getInstance();
+		long start = metrics.start();
 		try {
-			XPathExpression expr = xPath.compile(xpath);
-			return expr.evaluate(element, type);
+			if (simplePath != null) {
+				Object result = simplePath.evaluate(element, type);
+				if (result != X2JSimplePath.NOT_SIMPLE) {
+					return result;
+				}
+			}
+			return X2JXPathCache.getInstance().evaluate(xpath, element, type);
 		} catch (XPathExpressionException e) {
 			throw new X2JException(errCode);
+		} finally {
+			metrics.xPathEvaluated(start);
+		}
+	}
+
+	/*
+	 * Counts the bytes read by the parser. The parser closes its input, but the
+	 * stream of the caller is left open.
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		private CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
 		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = in.read(b, off, len);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = in.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+
+		private long count;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+	}
+
+	private static final class CountingWriter extends FilterWriter {
+
+		private long count;
+
+		private CountingWriter(Writer out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			out.write(c);
+			count++;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			out.write(cbuf, off, len);
+			count += len;
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			out.write(str, off, len);
+			count += len;
+		}
+
+	}
+
+	/**
+	 * An input stream over a memory-mapped file. The bytes are copied from the
+	 * mapping straight into the buffer of the parser.
+	 */
+	private static final class MappedInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		private MappedInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+			return count;
+		}
+
+		@Override
+		public long skip(long n) {
+			int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+
 	}
 
 }
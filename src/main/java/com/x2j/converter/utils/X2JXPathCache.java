@@ -0,0 +1,347 @@
+package com.x2j.converter.utils;
+
+import static com.x2j.converter.utils.X2JConstants.XPATH_CACHE_SIZE;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * A single instance, bounded cache of compiled XPath expressions, keyed by the
+ * expression string.<br>
+ * The JAXP XPath and XPathExpression objects are not thread-safe, hence every
+ * thread gets its own XPath instance and its own LRU map of compiled
+ * expressions. The maximum size applies to each of those maps.<br>
+ * A per-thread map would be dropped with every virtual thread, hence virtual
+ * threads (and all the threads, in shared mode) borrow the expressions from
+ * one pool shared by all the threads instead. The pool keeps the expressions
+ * of at most the maximum size of XPaths, and a bounded number of idle
+ * expressions per XPath; {@link #evaluate(String, Object, QName)} returns the
+ * borrowed expression to the pool.<br>
+ * The size can be configured with the <b>X2JXPathCacheSize</b> system property
+ * or with {@link #setMaxSize(int)}. The hit and miss counters are shared by all
+ * the threads.
+ */
+public class X2JXPathCache {
+
+	/** The default maximum number of expressions cached per thread. */
+	public static final int DEFAULT_MAX_SIZE = 512;
+
+	/** The maximum number of idle expressions pooled per XPath in shared mode. */
+	public static final int MAX_IDLE_PER_XPATH = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+	private static final XPathFactory xpathFactory = XPathFactory.newInstance();
+
+	private static final MethodHandle IS_VIRTUAL = getIsVirtualHandle();
+
+	private final ThreadLocal<ExpressionMap> expressions = ThreadLocal.withInitial(ExpressionMap::new);
+
+	private final ConcurrentHashMap<String, ArrayDeque<XPathExpression>> pool;
+
+	private volatile boolean shared = false;
+
+	private final AtomicInteger generation = new AtomicInteger();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private volatile int maxSize;
+
+	private static class InstanceHolder {
+		private static final X2JXPathCache INSTANCE = new X2JXPathCache();
+	}
+
+	/**
+	 * Returns the single instance of X2JXPathCache.
+	 *
+	 * @return instance of X2JXPathCache
+	 */
+	public static X2JXPathCache getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	private X2JXPathCache() {
+		maxSize = Integer.getInteger(XPATH_CACHE_SIZE, DEFAULT_MAX_SIZE);
+		pool = new ConcurrentHashMap<String, ArrayDeque<XPathExpression>>();
+	}
+
+	/**
+	 * Returns the compiled expression for the given XPath, compiling it only if it
+	 * is not already present in the calling thread's cache.<br>
+	 * The returned expression must only be used by the calling thread. A thread
+	 * that uses the shared pool takes the expression out of the pool; prefer
+	 * {@link #evaluate(String, Object, QName)} or {@link #validate(String)},
+	 * which return it.
+	 *
+	 * @param xpath the XPath expression string
+	 * @return the compiled expression
+	 * @throws XPathExpressionException if the expression is not a valid XPath
+	 */
+	public XPathExpression getExpression(String xpath) throws XPathExpressionException {
+		if (usesPool()) {
+			return borrow(xpath);
+		}
+		ExpressionMap map = expressions.get();
+		map.checkGeneration();
+		XPathExpression expr = map.get(xpath);
+		if (expr != null) {
+			hits.increment();
+			return expr;
+		}
+		misses.increment();
+		expr = map.xPath.compile(xpath);
+		if (maxSize > 0) {
+			map.put(xpath, expr);
+		}
+		return expr;
+	}
+
+	/**
+	 * Compiles the given XPath, or finds it in the cache, to check that it is
+	 * valid. A thread that uses the shared pool returns the expression to the
+	 * pool, hence a later evaluation of the XPath reuses it.
+	 *
+	 * @param xpath the XPath expression string
+	 * @throws XPathExpressionException if the expression is not a valid XPath
+	 */
+	public void validate(String xpath) throws XPathExpressionException {
+		if (usesPool()) {
+			release(xpath, borrow(xpath));
+		} else {
+			getExpression(xpath);
+		}
+	}
+
+	/**
+	 * Evaluates the given XPath with a cached expression. A thread that uses the
+	 * shared pool borrows the expression for the evaluation only.
+	 *
+	 * @param xpath      the XPath expression string
+	 * @param item       the context item, e.g. an Element
+	 * @param returnType the expected result type, from XPathConstants
+	 * @return the result of the evaluation
+	 * @throws XPathExpressionException if the expression is not a valid XPath or
+	 *                                  cannot be evaluated
+	 */
+	public Object evaluate(String xpath, Object item, QName returnType) throws XPathExpressionException {
+		if (!usesPool()) {
+			return getExpression(xpath).evaluate(item, returnType);
+		}
+		XPathExpression expr = borrow(xpath);
+		Object result = expr.evaluate(item, returnType);
+		release(xpath, expr);
+		return result;
+	}
+
+	/**
+	 * Sets whether all the threads use the shared pool instead of their own
+	 * caches. Virtual threads always use the shared pool.
+	 *
+	 * @param shared true, to use the shared pool on all the threads
+	 */
+	public void setShared(boolean shared) {
+		this.shared = shared;
+	}
+
+	/**
+	 * Checks whether all the threads use the shared pool.
+	 *
+	 * @return true, in shared mode
+	 */
+	public boolean isShared() {
+		return shared;
+	}
+
+	/**
+	 * Sets the maximum number of expressions that are cached per thread, and of
+	 * XPaths kept in the shared pool. A value of zero disables the caching. The
+	 * caches of all the threads and the shared pool are cleared.
+	 *
+	 * @param maxSize the maximum size
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = Math.max(0, maxSize);
+		clear();
+	}
+
+	/**
+	 * Returns the maximum number of expressions that are cached per thread.
+	 *
+	 * @return the maximum size
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Clears the cached expressions of all the threads and the shared pool. Every
+	 * thread drops its entries on its next lookup.
+	 */
+	public void clear() {
+		generation.incrementAndGet();
+		pool.clear();
+	}
+
+	/**
+	 * Resets the hit and miss counters.
+	 */
+	public void resetStats() {
+		hits.reset();
+		misses.reset();
+	}
+
+	/**
+	 * Returns the number of lookups that were served from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that required the expression to be compiled.
+	 *
+	 * @return the miss count
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of expressions cached for the calling thread, or the
+	 * number of XPaths in the shared pool if the calling thread uses it.
+	 *
+	 * @return the size of the calling thread's cache or of the shared pool
+	 */
+	public int size() {
+		if (usesPool()) {
+			return pool.size();
+		}
+		ExpressionMap map = expressions.get();
+		map.checkGeneration();
+		return map.size();
+	}
+
+	/**
+	 * Returns the number of idle expressions of the given XPath in the shared
+	 * pool.
+	 *
+	 * @param xpath the XPath expression string
+	 * @return the number of idle expressions
+	 */
+	public int getIdle(String xpath) {
+		ArrayDeque<XPathExpression> idle = pool.get(xpath);
+		if (idle == null) {
+			return 0;
+		}
+		synchronized (idle) {
+			return idle.size();
+		}
+	}
+
+	private boolean usesPool() {
+		if (shared) {
+			return true;
+		}
+		if (IS_VIRTUAL == null) {
+			return false;
+		}
+		try {
+			return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+		} catch (Throwable e) {
+			return false;
+		}
+	}
+
+	private XPathExpression borrow(String xpath) throws XPathExpressionException {
+		ArrayDeque<XPathExpression> idle = pool.get(xpath);
+		if (idle != null) {
+			XPathExpression expr;
+			synchronized (idle) {
+				expr = idle.pollFirst();
+			}
+			if (expr != null) {
+				hits.increment();
+				return expr;
+			}
+		}
+		misses.increment();
+		return newXPath().compile(xpath);
+	}
+
+	private void release(String xpath, XPathExpression expr) {
+		ArrayDeque<XPathExpression> idle = pool.get(xpath);
+		if (idle == null) {
+			if (pool.size() >= maxSize) {
+				return;
+			}
+			idle = pool.computeIfAbsent(xpath, key -> new ArrayDeque<XPathExpression>());
+		}
+		synchronized (idle) {
+			if (idle.size() < MAX_IDLE_PER_XPATH) {
+				idle.addFirst(expr);
+			}
+		}
+	}
+
+	/*
+	 * Thread.isVirtual() exists on Java 21 or later only. It is resolved once,
+	 * as a MethodHandle that is cheap to invoke on every lookup.
+	 */
+	private static MethodHandle getIsVirtualHandle() {
+		try {
+			return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual",
+					MethodType.methodType(boolean.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static XPath newXPath() {
+		synchronized (xpathFactory) {
+			return xpathFactory.newXPath();
+		}
+	}
+
+	private class ExpressionMap extends LinkedHashMap<String, XPathExpression> {
+
+		private static final long serialVersionUID = -3524467431349861152L;
+
+		private final transient XPath xPath = newXPath();
+
+		private int mapGeneration = generation.get();
+
+		private ExpressionMap() {
+			super(16, 0.75f, true);
+		}
+
+		private void checkGeneration() {
+			int current = generation.get();
+			if (mapGeneration != current) {
+				clear();
+				mapGeneration = current;
+			}
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+			return size() > maxSize;
+		}
+
+	}
+
+}
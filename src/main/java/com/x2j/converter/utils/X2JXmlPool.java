@@ -0,0 +1,235 @@
+package com.x2j.converter.utils;
+
+import static com.x2j.converter.utils.X2JConstants.XML_POOL_SIZE;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+/**
+ * A single instance pool of DocumentBuilder and Transformer objects.<br>
+ * Creating a builder or a transformer looks up and configures the JAXP
+ * implementation every time, which is expensive compared with parsing or
+ * serializing a small XML. The pool keeps the released objects, reset to their
+ * initial state, and hands them out again. Neither object is thread-safe, hence
+ * a borrowed object must only be used by one thread and released after use.
+ * <br>
+ * The maximum number of idle objects of each kind can be configured with the
+ * <b>X2JXmlPoolSize</b> system property or with {@link #setMaxSize(int)}; zero
+ * disables the pooling. The usage counters are shared by both kinds of objects.
+ */
+public class X2JXmlPool {
+
+	/** The default maximum number of idle objects of each kind. */
+	public static final int DEFAULT_MAX_SIZE = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+	private static final DocumentBuilderFactory docBuilderfactory = DocumentBuilderFactory.newInstance();
+
+	private static final TransformerFactory transFactory = TransformerFactory.newInstance();
+
+	private final ArrayDeque<DocumentBuilder> builders = new ArrayDeque<DocumentBuilder>();
+
+	private final ArrayDeque<Transformer> transformers = new ArrayDeque<Transformer>();
+
+	private final LongAdder created = new LongAdder();
+
+	private final LongAdder reused = new LongAdder();
+
+	private final LongAdder discarded = new LongAdder();
+
+	private volatile int maxSize;
+
+	private static class InstanceHolder {
+		private static final X2JXmlPool INSTANCE = new X2JXmlPool();
+	}
+
+	/**
+	 * Returns the single instance of X2JXmlPool.
+	 *
+	 * @return instance of X2JXmlPool
+	 */
+	public static X2JXmlPool getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	private X2JXmlPool() {
+		maxSize = Math.max(0, Integer.getInteger(XML_POOL_SIZE, DEFAULT_MAX_SIZE));
+	}
+
+	/**
+	 * Returns an idle DocumentBuilder, or a new one if there is none.
+	 *
+	 * @return the document builder
+	 * @throws ParserConfigurationException if a builder cannot be created
+	 */
+	public DocumentBuilder borrowBuilder() throws ParserConfigurationException {
+		DocumentBuilder builder = poll(builders);
+		if (builder != null) {
+			return builder;
+		}
+		created.increment();
+		synchronized (docBuilderfactory) {
+			return docBuilderfactory.newDocumentBuilder();
+		}
+	}
+
+	/**
+	 * Resets the DocumentBuilder and returns it to the pool. The builder must not
+	 * be used after this call.
+	 *
+	 * @param builder the document builder, may be null
+	 */
+	public void releaseBuilder(DocumentBuilder builder) {
+		if (builder != null) {
+			builder.reset();
+			offer(builders, builder);
+		}
+	}
+
+	/**
+	 * Returns an idle Transformer, or a new one if there is none. The transformer
+	 * copies its source to its result, with the default output properties.
+	 *
+	 * @return the transformer
+	 * @throws TransformerConfigurationException if a transformer cannot be created
+	 */
+	public Transformer borrowTransformer() throws TransformerConfigurationException {
+		Transformer transformer = poll(transformers);
+		if (transformer != null) {
+			return transformer;
+		}
+		created.increment();
+		synchronized (transFactory) {
+			return transFactory.newTransformer();
+		}
+	}
+
+	/**
+	 * Resets the Transformer and returns it to the pool. The transformer must not
+	 * be used after this call.
+	 *
+	 * @param transformer the transformer, may be null
+	 */
+	public void releaseTransformer(Transformer transformer) {
+		if (transformer != null) {
+			transformer.reset();
+			offer(transformers, transformer);
+		}
+	}
+
+	/**
+	 * Sets the maximum number of idle objects of each kind. A value of zero
+	 * disables the pooling. The idle objects above the new size are dropped.
+	 *
+	 * @param maxSize the maximum size
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = Math.max(0, maxSize);
+		trim(builders);
+		trim(transformers);
+	}
+
+	/**
+	 * Returns the maximum number of idle objects of each kind.
+	 *
+	 * @return the maximum size
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Resets the usage counters.
+	 */
+	public void resetStats() {
+		created.reset();
+		reused.reset();
+		discarded.reset();
+	}
+
+	/**
+	 * Returns the number of builders and transformers that have been created.
+	 *
+	 * @return the created count
+	 */
+	public long getCreated() {
+		return created.sum();
+	}
+
+	/**
+	 * Returns the number of times an idle builder or transformer was handed out.
+	 *
+	 * @return the reused count
+	 */
+	public long getReused() {
+		return reused.sum();
+	}
+
+	/**
+	 * Returns the number of released builders and transformers that were dropped
+	 * because the pool was full.
+	 *
+	 * @return the discarded count
+	 */
+	public long getDiscarded() {
+		return discarded.sum();
+	}
+
+	/**
+	 * Returns the number of idle builders.
+	 *
+	 * @return the idle builder count
+	 */
+	public int getIdleBuilders() {
+		synchronized (builders) {
+			return builders.size();
+		}
+	}
+
+	/**
+	 * Returns the number of idle transformers.
+	 *
+	 * @return the idle transformer count
+	 */
+	public int getIdleTransformers() {
+		synchronized (transformers) {
+			return transformers.size();
+		}
+	}
+
+	private <T> T poll(ArrayDeque<T> pool) {
+		T item;
+		synchronized (pool) {
+			item = pool.pollFirst();
+		}
+		if (item != null) {
+			reused.increment();
+		}
+		return item;
+	}
+
+	private <T> void offer(ArrayDeque<T> pool, T item) {
+		synchronized (pool) {
+			if (pool.size() < maxSize) {
+				pool.addFirst(item);
+				return;
+			}
+		}
+		discarded.increment();
+	}
+
+	private <T> void trim(ArrayDeque<T> pool) {
+		synchronized (pool) {
+			while (pool.size() > maxSize) {
+				pool.pollLast();
+			}
+		}
+	}
+
+}
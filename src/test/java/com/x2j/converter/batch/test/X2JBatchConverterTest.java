@@ -0,0 +1,170 @@
+package com.x2j.converter.batch.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.batch.X2JBatchConverter;
+import com.x2j.converter.batch.X2JBatchResult;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JUtils;
+import com.x2j.converter.utils.X2JXPathCache;
+
+public class X2JBatchConverterTest {
+
+	private static final String PATH = "src/test/java/com/x2j/converter/common/test/";
+
+	@Test
+	public void testResultsAreInInputOrder() throws Exception {
+		CompiledSchema schema = CompiledSchema
+				.compile(X2JUtils.getJsonFromFile(new File(PATH + "conv_mgr_test_schema.json")));
+		File input = new File(PATH + "conv_mgr_test_input.xml");
+		JSONObject expected = new XMLToJSONConverter().convertToJson(input, schema);
+		List<File> inputs = Collections.nCopies(50, input);
+		List<X2JBatchResult<File>> results = new X2JBatchConverter().convertAll(inputs, schema);
+		assertEquals(results.size(), 50);
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(results.get(i).getIndex(), i);
+			assertTrue(results.get(i).isSuccess());
+			assertTrue(expected.similar(results.get(i).getJson()));
+		}
+	}
+
+	@Test
+	public void testFailuresAreIsolated() throws Exception {
+		CompiledSchema schema = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/@Id):INT\"}");
+		List<String> inputs = Arrays.asList("<Root Id=\"1\"/>", "<Root Id=\"x\"/>", "<Root", "<Root Id=\"4\"/>");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<X2JBatchResult<String>> results = new X2JBatchConverter(executor, 1).convertAll(inputs, schema);
+			assertEquals(results.get(0).getJson().get("Id"), 1);
+			assertTrue(results.get(1).getError() instanceof NumberFormatException);
+			assertTrue(results.get(2).getError() instanceof X2JException);
+			assertNull(results.get(2).getJson());
+			assertFalse(results.get(2).isSuccess());
+			assertEquals(results.get(2).getInput(), "<Root");
+			assertEquals(results.get(3).getJson().get("Id"), 4);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testStreamAsCompleted() throws Exception {
+		CompiledSchema schema = CompiledSchema
+				.compile("{\"Id\": \"XPATH(/Root/@Id):INT\", \"Sub\": \"SUBSTR(/Root/@Id, 0, 0)\"}");
+		Stream<String> inputs = IntStream.range(100, 600).mapToObj(i -> "<Root Id=\"" + i + "\"/>");
+		Set<Integer> indexes = new TreeSet<Integer>();
+		List<Integer> ids = new ArrayList<Integer>();
+		new X2JBatchConverter().convertAsCompleted(inputs, schema, result -> {
+			indexes.add(result.getIndex());
+			ids.add((Integer) result.getJson().get("Id"));
+			assertEquals(result.getJson().get("Sub"), String.valueOf(result.getIndex() + 100).substring(0, 1));
+		});
+		assertEquals(indexes.size(), 500);
+		assertEquals(ids.size(), 500);
+		Collections.sort(ids);
+		assertEquals(ids.get(499).intValue(), 599);
+	}
+
+	@Test
+	public void testWriterRunsOnWorkers() throws Exception {
+		CompiledSchema schema = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/@Id):INT\"}");
+		Stream<String> inputs = IntStream.range(0, 50).mapToObj(i -> "<Root Id=\"" + i + "\"/>");
+		Map<String, Integer> written = new ConcurrentHashMap<String, Integer>();
+		Set<Integer> failed = new TreeSet<Integer>();
+		Thread caller = Thread.currentThread();
+		new X2JBatchConverter().convertAsCompleted(inputs, schema, (input, json) -> {
+			assertNotSame(Thread.currentThread(), caller);
+			if (json.getInt("Id") % 10 == 0) {
+				throw new IOException("Disk full.");
+			}
+			written.put(input, json.getInt("Id"));
+		}, result -> {
+			if (!result.isSuccess()) {
+				assertTrue(result.getError() instanceof IOException);
+				failed.add(result.getIndex());
+			}
+		});
+		assertEquals(written.size(), 45);
+		assertEquals(failed, new TreeSet<Integer>(Arrays.asList(0, 10, 20, 30, 40)));
+	}
+
+	@Test
+	public void testVirtualThreads() throws Exception {
+		// a path that is not simple is evaluated with the shared pool of expressions
+		String xpath = "//*[@Id]/@Id";
+		CompiledSchema schema = CompiledSchema
+				.compile("{\"Id\": \"XPATH(/Root/@Id):INT\", \"Any\": \"XPATH(" + xpath + ")\"}");
+		List<String> inputs = new ArrayList<String>();
+		for (int i = 0; i < 200; i++) {
+			inputs.add("<Root Id=\"" + i + "\"/>");
+		}
+		if (!X2JBatchConverter.isVirtualThreadSupported()) {
+			assertThrows(UnsupportedOperationException.class, () -> X2JBatchConverter.withVirtualThreads(100));
+			return;
+		}
+		X2JXPathCache.getInstance().resetStats();
+		X2JBatchConverter batch = X2JBatchConverter.withVirtualThreads(100);
+		try (X2JBatchConverter converter = batch) {
+			List<X2JBatchResult<String>> results = converter.convertAll(inputs, schema);
+			assertEquals(results.size(), 200);
+			for (int i = 0; i < results.size(); i++) {
+				assertEquals(results.get(i).getJson().get("Id"), i);
+				assertEquals(results.get(i).getJson().get("Any"), String.valueOf(i));
+			}
+		}
+		assertTrue(batch.isShutdown());
+		assertTrue(X2JXPathCache.getInstance().getIdle(xpath) > 0);
+		assertTrue(X2JXPathCache.getInstance().getHits() > 0);
+	}
+
+	@Test
+	public void testCloseLeavesCallerExecutorRunning() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			try (X2JBatchConverter converter = new X2JBatchConverter(executor)) {
+				assertEquals(converter.convertAll(Arrays.asList("<a>1</a>"), null).size(), 1);
+			}
+			assertFalse(executor.isShutdown());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testDefaultConversionWithoutSchema() throws Exception {
+		List<X2JBatchResult<Object>> results = new X2JBatchConverter()
+				.convertAll(Stream.of("<a><b>1</b></a>", new File(PATH + "x2j_conv_test_input_1.xml")), null);
+		assertEquals(results.size(), 2);
+		assertEquals(((JSONObject) results.get(0).getJson().get("a")).get("b"), 1);
+		assertTrue(results.get(1).getJson().similar(
+				new XMLToJSONConverter().convertToJson(new File(PATH + "x2j_conv_test_input_1.xml"))));
+		assertEquals(results.get(0).getInputBytes(), -1L);
+		assertEquals(results.get(1).getInputBytes(), new File(PATH + "x2j_conv_test_input_1.xml").length());
+	}
+
+}
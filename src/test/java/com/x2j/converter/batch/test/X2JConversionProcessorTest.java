@@ -0,0 +1,287 @@
+package com.x2j.converter.batch.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.batch.X2JBatchResult;
+import com.x2j.converter.batch.X2JConversionProcessor;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JUtils;
+
+public class X2JConversionProcessorTest {
+
+	private static final String PATH = "src/test/java/com/x2j/converter/common/test/";
+
+	@Test
+	public void testOrderedResults() throws Exception {
+		CompiledSchema schema = CompiledSchema
+				.compile(X2JUtils.getJsonFromFile(new File(PATH + "conv_mgr_test_schema.json")));
+		File input = new File(PATH + "conv_mgr_test_input.xml");
+		JSONObject expected = new XMLToJSONConverter().convertToJson(input, schema);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			ListPublisher<File> publisher = new ListPublisher<File>(Collections.nCopies(40, input), null);
+			ResultSubscriber<File> subscriber = run(publisher,
+					new X2JConversionProcessor<File>(schema, executor, 4, true), Long.MAX_VALUE);
+			assertTrue(subscriber.completed);
+			assertNull(subscriber.error);
+			assertEquals(subscriber.results.size(), 40);
+			for (int i = 0; i < subscriber.results.size(); i++) {
+				assertEquals(subscriber.results.get(i).getIndex(), i);
+				assertTrue(expected.similar(subscriber.results.get(i).getJson()));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testUnorderedResults() throws Exception {
+		CompiledSchema schema = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/@Id):INT\"}");
+		List<String> inputs = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			inputs.add("<Root Id=\"" + i + "\"/>");
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			ResultSubscriber<String> subscriber = run(new ListPublisher<String>(inputs, null),
+					new X2JConversionProcessor<String>(schema, executor, 3, false), 7);
+			assertTrue(subscriber.completed);
+			Set<Integer> indexes = new TreeSet<Integer>();
+			for (X2JBatchResult<String> result : subscriber.results) {
+				assertEquals(result.getJson().get("Id"), result.getIndex());
+				indexes.add(result.getIndex());
+			}
+			assertEquals(indexes.size(), 100);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testBackpressure() throws Exception {
+		CompiledSchema schema = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/@Id)\"}");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ListPublisher<String> publisher = new ListPublisher<String>(Collections.nCopies(200, "<Root Id=\"1\"/>"),
+					null);
+			X2JConversionProcessor<String> processor = new X2JConversionProcessor<String>(schema, executor, 2, 3,
+					true);
+			ResultSubscriber<String> subscriber = new ResultSubscriber<String>(2, false);
+			publisher.subscribe(processor);
+			processor.subscribe(subscriber);
+			Thread.sleep(200);
+			assertFalse(subscriber.completed);
+			assertEquals(subscriber.results.size(), 2);
+			assertTrue(publisher.emitted <= 2 + 2 + 3);
+			assertTrue(publisher.maxOutstanding <= 2);
+			subscriber.request(Long.MAX_VALUE);
+			assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+			assertEquals(subscriber.results.size(), 200);
+			assertTrue(publisher.maxOutstanding <= 2);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testFailuresAndErrors() throws Exception {
+		CompiledSchema schema = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/@Id):INT\"}");
+		List<String> inputs = Arrays.asList("<Root Id=\"1\"/>", "<Root", "<Root Id=\"3\"/>");
+		IllegalStateException failure = new IllegalStateException("Upstream failure.");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ResultSubscriber<String> subscriber = run(new ListPublisher<String>(inputs, failure),
+					new X2JConversionProcessor<String>(schema, executor, 2, true), 1);
+			assertFalse(subscriber.completed);
+			assertEquals(subscriber.error, failure);
+			assertEquals(subscriber.results.size(), 3);
+			assertEquals(subscriber.results.get(0).getJson().get("Id"), 1);
+			assertTrue(subscriber.results.get(1).getError() instanceof X2JException);
+			assertEquals(subscriber.results.get(2).getJson().get("Id"), 3);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testInvalidRequest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(1);
+		try {
+			ListPublisher<String> publisher = new ListPublisher<String>(Collections.nCopies(10, "<Root/>"), null);
+			ResultSubscriber<String> subscriber = run(publisher,
+					new X2JConversionProcessor<String>(null, executor, 1, true), 0);
+			assertTrue(subscriber.error instanceof IllegalArgumentException);
+			assertTrue(publisher.cancelled);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSingleSubscriber() throws Exception {
+		X2JConversionProcessor<String> processor = new X2JConversionProcessor<String>(null);
+		processor.subscribe(new ResultSubscriber<String>(1, false));
+		ResultSubscriber<String> second = new ResultSubscriber<String>(1, false);
+		processor.subscribe(second);
+		assertTrue(second.done.await(1, TimeUnit.SECONDS));
+		assertTrue(second.error instanceof IllegalStateException);
+	}
+
+	private <T> ResultSubscriber<T> run(Publisher<T> publisher, X2JConversionProcessor<T> processor, long batch)
+			throws InterruptedException {
+		ResultSubscriber<T> subscriber = new ResultSubscriber<T>(batch, batch > 0 && batch < Long.MAX_VALUE);
+		publisher.subscribe(processor);
+		processor.subscribe(subscriber);
+		assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+		return subscriber;
+	}
+
+	/**
+	 * Publishes a list on the requesting thread, as per the demand, and records
+	 * the largest demand outstanding at any time.
+	 */
+	private static class ListPublisher<T> implements Publisher<T>, Subscription {
+
+		private final List<T> items;
+
+		private final Throwable failure;
+
+		private Subscriber<? super T> subscriber;
+
+		private long outstanding;
+
+		private volatile long maxOutstanding;
+
+		private volatile int emitted;
+
+		private volatile boolean cancelled;
+
+		private boolean emitting;
+
+		private ListPublisher(List<T> items, Throwable failure) {
+			this.items = items;
+			this.failure = failure;
+		}
+
+		@Override
+		public void subscribe(Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+			subscriber.onSubscribe(this);
+		}
+
+		@Override
+		public synchronized void request(long n) {
+			outstanding += n;
+			maxOutstanding = Math.max(maxOutstanding, outstanding);
+			if (emitting) {
+				return;
+			}
+			emitting = true;
+			while (outstanding > 0 && emitted < items.size() && !cancelled) {
+				outstanding--;
+				subscriber.onNext(items.get(emitted++));
+			}
+			if (emitted == items.size() && !cancelled) {
+				cancelled = true;
+				if (failure == null) {
+					subscriber.onComplete();
+				} else {
+					subscriber.onError(failure);
+				}
+			}
+			emitting = false;
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
+	}
+
+	/**
+	 * Collects the results and requests them in batches of the given size, or
+	 * only once if not replenished.
+	 */
+	private static class ResultSubscriber<T> implements Subscriber<X2JBatchResult<T>> {
+
+		private final List<X2JBatchResult<T>> results = Collections
+				.synchronizedList(new ArrayList<X2JBatchResult<T>>());
+
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		private final long batch;
+
+		private final boolean replenish;
+
+		private Subscription subscription;
+
+		private long pending;
+
+		private volatile boolean completed;
+
+		private volatile Throwable error;
+
+		private ResultSubscriber(long batch, boolean replenish) {
+			this.batch = batch;
+			this.replenish = replenish;
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.subscription = subscription;
+			pending = batch;
+			subscription.request(batch);
+		}
+
+		@Override
+		public void onNext(X2JBatchResult<T> result) {
+			results.add(result);
+			if (replenish && --pending == 0) {
+				pending = batch;
+				subscription.request(batch);
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			done.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+			done.countDown();
+		}
+
+		private void request(long n) {
+			subscription.request(n);
+		}
+
+	}
+
+}
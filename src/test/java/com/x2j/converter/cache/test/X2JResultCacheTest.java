@@ -0,0 +1,168 @@
+package com.x2j.converter.cache.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.cache.X2JResultCache;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JContentHash;
+import com.x2j.converter.utils.X2JUtils;
+
+public class X2JResultCacheTest {
+
+	private static final String PATH = "src/test/java/com/x2j/converter/common/test/";
+
+	@Test
+	public void testHitReturnsSameJson() throws Exception {
+		CompiledSchema schema = CompiledSchema
+				.compile(X2JUtils.getJsonFromFile(new File(PATH + "conv_mgr_test_schema.json")));
+		byte[] xml = Files.readAllBytes(new File(PATH + "conv_mgr_test_input.xml").toPath());
+		JSONObject expected = new XMLToJSONConverter().convertToJson(new File(PATH + "conv_mgr_test_input.xml"),
+				schema);
+		X2JResultCache cache = new X2JResultCache(10, 1 << 20);
+		JSONObject first = cache.convertToJson(xml, schema);
+		JSONObject second = cache.convertToJson(xml.clone(), schema);
+		assertTrue(expected.similar(first));
+		assertTrue(expected.similar(second));
+		assertNotSame(first, second);
+		assertEquals(cache.getMisses(), 1);
+		assertEquals(cache.getHits(), 1);
+		assertEquals(cache.size(), 1);
+		assertTrue(cache.getBytes() > 0);
+		assertTrue(expected.similar(cache.convertToJson(new String(xml, StandardCharsets.UTF_8), schema)));
+		assertEquals(cache.getMisses(), 2);
+		assertEquals(cache.size(), 2);
+	}
+
+	@Test
+	public void testResultsAreCopies() throws Exception {
+		X2JResultCache cache = new X2JResultCache(10, 1 << 20);
+		String xml = "<Root><Line No=\"1\"/><Line No=\"2\"/></Root>";
+		JSONObject first = cache.convertToJson(xml, null);
+		JSONObject expected = new JSONObject(first.toString());
+		((JSONArray) first.getJSONObject("Root").get("Line")).put("changed");
+		first.put("extra", 1);
+		JSONObject second = cache.convertToJson(xml, null);
+		assertTrue(expected.similar(second));
+		second.getJSONObject("Root").remove("Line");
+		assertTrue(expected.similar(cache.convertToJson(xml, null)));
+		assertEquals(cache.getHits(), 2);
+	}
+
+	@Test
+	public void testSchemaIdentityIsPartOfTheKey() throws Exception {
+		X2JResultCache cache = new X2JResultCache(10, 1 << 20);
+		CompiledSchema ids = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/@Id)\"}");
+		CompiledSchema names = CompiledSchema.compile("{\"Name\": \"XPATH(/Root/@Name)\"}");
+		String xml = "<Root Id=\"1\" Name=\"A\"/>";
+		assertEquals(cache.convertToJson(xml, ids).get("Id"), "1");
+		assertEquals(cache.convertToJson(xml, names).get("Name"), "A");
+		assertEquals(cache.convertToJson(xml, null).getJSONObject("Root").get("Name"), "A");
+		assertEquals(cache.convertToJson(xml, ids).get("Id"), "1");
+		assertEquals(cache.getMisses(), 3);
+		assertEquals(cache.getHits(), 1);
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		CompiledSchema schema = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/@Id)\"}");
+		X2JResultCache cache = new X2JResultCache(3, 1 << 20);
+		for (int i = 0; i < 4; i++) {
+			cache.convertToJson("<Root Id=\"" + i + "\"/>", schema);
+			cache.convertToJson("<Root Id=\"0\"/>", schema);
+		}
+		assertEquals(cache.size(), 3);
+		assertEquals(cache.getEvictions(), 1);
+		cache.convertToJson("<Root Id=\"1\"/>", schema);
+		assertEquals(cache.getHits(), 4);
+		assertEquals(cache.getMisses(), 5);
+		long bytes = cache.getBytes() / 3;
+		X2JResultCache small = new X2JResultCache(100, 2 * bytes + bytes / 2);
+		for (int i = 0; i < 10; i++) {
+			small.convertToJson("<Root Id=\"" + i + "\"/>", schema);
+		}
+		assertEquals(small.size(), 2);
+		assertEquals(small.getEvictions(), 8);
+		assertTrue(small.getBytes() <= 2 * bytes + bytes / 2);
+		X2JResultCache tiny = new X2JResultCache(100, 10);
+		tiny.convertToJson("<Root Id=\"1\"/>", schema);
+		assertEquals(tiny.size(), 0);
+		cache.clear();
+		assertEquals(cache.size(), 0);
+		assertEquals(cache.getBytes(), 0);
+	}
+
+	@Test
+	public void testExpiration() throws Exception {
+		X2JResultCache cache = new X2JResultCache(10, 1 << 20, 50, TimeUnit.MILLISECONDS);
+		cache.convertToJson("<Root/>", null);
+		cache.convertToJson("<Root/>", null);
+		assertEquals(cache.getHits(), 1);
+		Thread.sleep(100);
+		cache.convertToJson("<Root/>", null);
+		assertEquals(cache.getExpirations(), 1);
+		assertEquals(cache.getMisses(), 2);
+		assertEquals(cache.size(), 1);
+		cache.resetStats();
+		assertEquals(cache.getHits() + cache.getMisses() + cache.getExpirations(), 0);
+	}
+
+	@Test
+	public void testFailuresAreNotCached() {
+		X2JResultCache cache = new X2JResultCache(10, 1 << 20);
+		for (int i = 0; i < 2; i++) {
+			X2JException expected = assertThrows(X2JException.class,
+					() -> cache.convertToJson("<Root>".getBytes(StandardCharsets.UTF_8), null));
+			assertEquals(expected.getErrorMessage(), "Error while reading XML from stream.");
+		}
+		assertEquals(cache.getMisses(), 2);
+		assertEquals(cache.size(), 0);
+		assertThrows(IllegalArgumentException.class, () -> new X2JResultCache(0, 1));
+		assertFalse(cache.getBytes() > 0);
+	}
+
+	@Test
+	public void testCollidingInputsAreNotServedEachOthersJson() throws Exception {
+		X2JContentHash collision = X2JContentHash.of("collision");
+		X2JResultCache cache = new X2JResultCache(10, 1 << 20) {
+
+			@Override
+			protected X2JContentHash getHash(byte[] inputXml) {
+				return collision;
+			}
+
+			@Override
+			protected X2JContentHash getHash(String inputXml) {
+				return collision;
+			}
+
+		};
+		CompiledSchema schema = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/@Id)\"}");
+		assertEquals(cache.convertToJson("<Root Id=\"1\"/>", schema).get("Id"), "1");
+		assertEquals(cache.convertToJson("<Root Id=\"2\"/>", schema).get("Id"), "2");
+		assertEquals(cache.convertToJson("<Root Id=\"2\"/>", schema).get("Id"), "2");
+		byte[] xml = "<Root Id=\"3\"/>".getBytes(StandardCharsets.UTF_8);
+		assertEquals(cache.convertToJson(xml, schema).get("Id"), "3");
+		assertEquals(cache.convertToJson("<Root Id=\"3\"/>".getBytes(StandardCharsets.UTF_8), schema).get("Id"), "3");
+		xml[10] = '4';
+		assertEquals(cache.convertToJson(xml, schema).get("Id"), "4");
+		assertEquals(cache.getHits(), 2);
+		assertEquals(cache.getMisses(), 4);
+		assertEquals(cache.size(), 1);
+	}
+
+}
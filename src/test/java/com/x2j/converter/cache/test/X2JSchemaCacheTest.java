@@ -0,0 +1,86 @@
+package com.x2j.converter.cache.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.x2j.converter.cache.X2JSchemaCache;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+
+public class X2JSchemaCacheTest {
+
+	private X2JSchemaCache cache = X2JSchemaCache.getInstance();
+
+	@Before
+	public void init() {
+		cache.setMaxSize(X2JSchemaCache.DEFAULT_MAX_SIZE);
+		cache.resetStats();
+	}
+
+	@After
+	public void cleanup() {
+		cache.setMaxSize(X2JSchemaCache.DEFAULT_MAX_SIZE);
+	}
+
+	@Test
+	public void testHitsAndMisses() throws X2JException {
+		CompiledSchema first = cache.getSchema("{\"Id\": \"XPATH(/Root/@Id)\"}");
+		CompiledSchema second = cache.getSchema(new String("{\"Id\": \"XPATH(/Root/@Id)\"}"));
+		assertSame(first, second);
+		assertNotSame(first, cache.getSchema("{\"Id\":  \"XPATH(/Root/@Id)\"}"));
+		assertEquals(cache.getMisses(), 2);
+		assertEquals(cache.getHits(), 1);
+		assertEquals(cache.size(), 2);
+	}
+
+	@Test
+	public void testCollidingSchemasAreNotSwapped() throws X2JException {
+		String first = "{\"Aa\": \"XPATH(/Root/@Id)\"}";
+		String second = "{\"BB\": \"XPATH(/Root/@Id)\"}";
+		assertEquals(first.hashCode(), second.hashCode());
+		CompiledSchema aa = cache.getSchema(first);
+		CompiledSchema bb = cache.getSchema(second);
+		assertNotSame(aa, bb);
+		assertSame(aa, cache.getSchema(first));
+		assertSame(bb, cache.getSchema(second));
+		assertEquals(cache.getMisses(), 2);
+		assertEquals(cache.getHits(), 2);
+	}
+
+	@Test
+	public void testLRUEviction() throws X2JException {
+		cache.setMaxSize(2);
+		CompiledSchema one = cache.getSchema("{\"One\": \"\"}");
+		cache.getSchema("{\"Two\": \"\"}");
+		cache.getSchema("{\"One\": \"\"}");
+		cache.getSchema("{\"Three\": \"\"}");
+		assertEquals(cache.size(), 2);
+		assertSame(one, cache.getSchema("{\"One\": \"\"}"));
+		cache.getSchema("{\"Two\": \"\"}");
+		assertEquals(cache.getMisses(), 4);
+		assertEquals(cache.getHits(), 2);
+	}
+
+	@Test
+	public void testDisabledAndFailures() throws X2JException {
+		cache.setMaxSize(0);
+		assertNotSame(cache.getSchema("{\"One\": \"\"}"), cache.getSchema("{\"One\": \"\"}"));
+		assertEquals(cache.size(), 0);
+		cache.setMaxSize(-1);
+		assertEquals(cache.getMaxSize(), 0);
+		cache.setMaxSize(X2JSchemaCache.DEFAULT_MAX_SIZE);
+		for (int i = 0; i < 2; i++) {
+			X2JException expected = assertThrows(X2JException.class, () -> cache.getSchema("{\"One\": "));
+			assertEquals(expected.getErrorMessage(), "Error while parsing JSON from file/string.");
+		}
+		assertEquals(cache.size(), 0);
+		assertEquals(cache.getMisses(), 4);
+	}
+
+}
@@ -72,4 +72,11 @@ public class X2JExceptionTest {
 		assertTrue(exception.getErrorMessage().equals("Error while parsing XML from String."));
 	}
 
+	@Test
+	public void testErrorCode012WithDetail() {
+		X2JException exception = new X2JException(X2JErrorCodes.X2J_ERR_012, "XPath: /a/b[@c]");
+		assertTrue(exception.getErrorMessage()
+				.equals("The JSON schema cannot be used for streaming conversion. XPath: /a/b[@c]"));
+	}
+
 }
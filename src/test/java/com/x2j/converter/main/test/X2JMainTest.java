@@ -1,29 +1,54 @@
 package com.x2j.converter.main.test;
 
 import static com.x2j.converter.utils.X2JConstants.INPUT_JSON_SCHEMA_FILE;
+import static com.x2j.converter.utils.X2JConstants.INPUT_XML_DIR;
 import static com.x2j.converter.utils.X2JConstants.INPUT_XML_FILE;
+import static com.x2j.converter.utils.X2JConstants.INPUT_XML_GLOB;
+import static com.x2j.converter.utils.X2JConstants.INPUT_XML_LIST;
+import static com.x2j.converter.utils.X2JConstants.OUTPUT_JSON_DIR;
 import static com.x2j.converter.utils.X2JConstants.OUTPUT_JSON_FILE;
+import static com.x2j.converter.utils.X2JConstants.PROFILE_REPORT;
+import static com.x2j.converter.utils.X2JConstants.VIRTUAL_THREADS;
+import static com.x2j.converter.utils.X2JConstants.WORKER_THREADS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
 
 import org.json.JSONObject;
+import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.x2j.converter.batch.X2JBatchConverter;
 import com.x2j.converter.excp.X2JException;
 import com.x2j.converter.main.X2JMain;
+import com.x2j.converter.mgr.X2JConversionManager;
 import com.x2j.converter.utils.X2JExecMode;
 import com.x2j.converter.utils.X2JUtils;
 
 public class X2JMainTest {
 
+	private static final String PATH = "src/test/java/com/x2j/converter/common/test/";
+
 	private ByteArrayOutputStream out = new ByteArrayOutputStream();
 
+	private Path tempDir;
+
 	@BeforeClass
 	public static void init() {
 		X2JMain.setMode(X2JExecMode.TEST);
@@ -104,6 +129,183 @@ public class X2JMainTest {
 		assertTrue(output.contains("Error while reading XML from file."));
 	}
 
+	@Test
+	public void testX2JMainFailedConversionRemovesOutputFile() throws Exception {
+		tempDir = Files.createTempDirectory("x2j_main_test");
+		Path xml = Files.write(tempDir.resolve("input.xml"), "<Root Id=\"x\"/>".getBytes(StandardCharsets.UTF_8));
+		Path schema = Files.write(tempDir.resolve("schema.json"),
+				"{\"Id\": \"XPATH(/Root/@Id):INT\"}".getBytes(StandardCharsets.UTF_8));
+		Path json = tempDir.resolve("output.json");
+		System.setProperty(INPUT_XML_FILE, xml.toString());
+		System.setProperty(INPUT_JSON_SCHEMA_FILE, schema.toString());
+		System.setProperty(OUTPUT_JSON_FILE, json.toString());
+		assertThrows(NumberFormatException.class, () -> X2JMain.main(null));
+		System.clearProperty(INPUT_XML_FILE);
+		System.clearProperty(INPUT_JSON_SCHEMA_FILE);
+		System.clearProperty(OUTPUT_JSON_FILE);
+		assertFalse(Files.exists(json));
+	}
+
+	@Test
+	public void testX2JMainInputDirAndOutputDir() throws Exception {
+		tempDir = Files.createTempDirectory("x2j_main_test");
+		Path inDir = Files.createDirectories(tempDir.resolve("in"));
+		Files.copy(Paths.get(PATH + "x2j_main_test_input_1.xml"), inDir.resolve("first.xml"));
+		Files.copy(Paths.get(PATH + "x2j_main_test_input_1.xml"), inDir.resolve("second.xml"));
+		Files.write(inDir.resolve("broken.xml"), "<Root>".getBytes(StandardCharsets.UTF_8));
+		Files.write(inDir.resolve("ignored.txt"), "<Root/>".getBytes(StandardCharsets.UTF_8));
+		System.setProperty(INPUT_XML_DIR, inDir.toString());
+		System.setProperty(OUTPUT_JSON_DIR, tempDir.resolve("out").toString());
+		System.setProperty(WORKER_THREADS, "2");
+		setOutAndErr();
+		X2JMain.main(null);
+		System.clearProperty(INPUT_XML_DIR);
+		System.clearProperty(OUTPUT_JSON_DIR);
+		System.clearProperty(WORKER_THREADS);
+		JSONObject expected = X2JUtils.getJsonFromFile(new File(PATH + "x2j_main_test_results_1.json"));
+		assertTrue(expected.similar(X2JUtils.getJsonFromFile(tempDir.resolve("out/first.json").toFile())));
+		assertTrue(expected.similar(X2JUtils.getJsonFromFile(tempDir.resolve("out/second.json").toFile())));
+		assertFalse(Files.exists(tempDir.resolve("out/broken.json")));
+		assertFalse(Files.exists(tempDir.resolve("out/ignored.json")));
+		String summary = out.toString();
+		assertTrue(summary.contains("Converted 2 of 3 XML file(s)"));
+		assertTrue(summary.contains("Failed: " + inDir.resolve("broken.xml")));
+	}
+
+	@Test
+	public void testX2JMainVirtualThreads() throws Exception {
+		tempDir = Files.createTempDirectory("x2j_main_test");
+		Path inDir = Files.createDirectories(tempDir.resolve("in"));
+		for (int i = 0; i < 20; i++) {
+			Files.copy(Paths.get(PATH + "x2j_main_test_input_1.xml"), inDir.resolve("input_" + i + ".xml"));
+		}
+		System.setProperty(INPUT_XML_DIR, inDir.toString());
+		System.setProperty(OUTPUT_JSON_DIR, tempDir.resolve("out").toString());
+		System.setProperty(VIRTUAL_THREADS, "8");
+		setOutAndErr();
+		X2JMain.main(null);
+		System.clearProperty(INPUT_XML_DIR);
+		System.clearProperty(OUTPUT_JSON_DIR);
+		System.clearProperty(VIRTUAL_THREADS);
+		JSONObject expected = X2JUtils.getJsonFromFile(new File(PATH + "x2j_main_test_results_1.json"));
+		for (int i = 0; i < 20; i++) {
+			File json = tempDir.resolve("out/input_" + i + ".json").toFile();
+			assertTrue(expected.similar(X2JUtils.getJsonFromFile(json)));
+		}
+		String summary = out.toString();
+		assertTrue(summary.contains("Converted 20 of 20 XML file(s)"));
+		assertTrue(summary.contains(X2JBatchConverter.isVirtualThreadSupported() ? "up to 8 virtual thread(s)"
+				: "Virtual threads require Java 21 or later"));
+	}
+
+	@Test
+	public void testX2JMainInputGlobAndNdjsonFile() throws Exception {
+		tempDir = Files.createTempDirectory("x2j_main_test");
+		for (String dir : new String[] { "a", "b/c" }) {
+			Path inDir = Files.createDirectories(tempDir.resolve("in").resolve(dir));
+			Files.copy(Paths.get(PATH + "x2j_main_test_input_2.xml"), inDir.resolve("input.xml"));
+		}
+		Files.copy(Paths.get(PATH + "x2j_main_test_input_2.xml"), tempDir.resolve("in/top.xml"));
+		Path ndjson = tempDir.resolve("out.ndjson");
+		System.setProperty(INPUT_XML_GLOB, tempDir.resolve("in") + "/**/*.xml");
+		System.setProperty(INPUT_JSON_SCHEMA_FILE, PATH + "x2j_main_test_schema_2.json");
+		System.setProperty(OUTPUT_JSON_FILE, ndjson.toString());
+		setOutAndErr();
+		X2JMain.main(null);
+		System.clearProperty(INPUT_XML_GLOB);
+		System.clearProperty(INPUT_JSON_SCHEMA_FILE);
+		System.clearProperty(OUTPUT_JSON_FILE);
+		JSONObject expected = X2JUtils.getJsonFromFile(new File(PATH + "x2j_main_test_results_2.json"));
+		List<String> lines = Files.readAllLines(ndjson, StandardCharsets.UTF_8);
+		assertEquals(lines.size(), 2);
+		for (String line : lines) {
+			assertTrue(expected.similar(new JSONObject(line)));
+		}
+		assertTrue(out.toString().contains("Converted 2 of 2 XML file(s)"));
+	}
+
+	@Test
+	public void testX2JMainInputListToConsole() throws Exception {
+		tempDir = Files.createTempDirectory("x2j_main_test");
+		Path list = tempDir.resolve("inputs.txt");
+		Files.write(list, Arrays.asList("# inputs", PATH + "x2j_main_test_input_1.xml", "",
+				PATH + "x2j_conv_test_input_1.xml", PATH + "x2j_main_test_input_1.xml"), StandardCharsets.UTF_8);
+		System.setProperty(INPUT_XML_LIST, list.toString());
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(out));
+		System.setErr(new PrintStream(err));
+		X2JMain.main(null);
+		System.clearProperty(INPUT_XML_LIST);
+		JSONObject expected = X2JUtils.getJsonFromFile(new File(PATH + "x2j_main_test_results_1.json"));
+		String[] lines = out.toString().split("\n");
+		assertEquals(lines.length, 3);
+		assertTrue(expected.similar(new JSONObject(lines[0])));
+		assertFalse(expected.similar(new JSONObject(lines[1])));
+		assertTrue(expected.similar(new JSONObject(lines[2])));
+		assertTrue(err.toString().contains("Converted 3 of 3 XML file(s)"));
+	}
+
+	@Test
+	public void testX2JMainInputListWithSameOutputName() throws Exception {
+		tempDir = Files.createTempDirectory("x2j_main_test");
+		Path first = Files.createDirectories(tempDir.resolve("a")).resolve("x.xml");
+		Path second = Files.createDirectories(tempDir.resolve("b")).resolve("x.xml");
+		Files.copy(Paths.get(PATH + "x2j_main_test_input_1.xml"), first);
+		Files.copy(Paths.get(PATH + "x2j_conv_test_input_1.xml"), second);
+		Path list = tempDir.resolve("inputs.txt");
+		Files.write(list, Arrays.asList(first.toString(), second.toString()), StandardCharsets.UTF_8);
+		System.setProperty(INPUT_XML_LIST, list.toString());
+		System.setProperty(OUTPUT_JSON_DIR, tempDir.resolve("out").toString());
+		setOutAndErr();
+		X2JMain.main(null);
+		System.clearProperty(INPUT_XML_LIST);
+		System.clearProperty(OUTPUT_JSON_DIR);
+		JSONObject expected = X2JUtils.getJsonFromFile(new File(PATH + "x2j_main_test_results_1.json"));
+		assertTrue(expected.similar(X2JUtils.getJsonFromFile(tempDir.resolve("out/x.json").toFile())));
+		String summary = out.toString();
+		assertTrue(summary.contains("Converted 1 of 2 XML file(s)"));
+		assertTrue(summary.contains("Failed: " + second + ": "));
+		assertTrue(summary.contains("is already the output file of " + first));
+	}
+
+	@Test
+	public void testX2JMainInputListNotFound() {
+		X2JMain.setMode(X2JExecMode.TEST);
+		System.setProperty(INPUT_XML_LIST, "ABCD");
+		X2JException expected = assertThrows(X2JException.class, () -> X2JMain.main(null));
+		System.clearProperty(INPUT_XML_LIST);
+		assertEquals(expected.getErrorMessage(), "Error while listing the input XML files. ABCD");
+	}
+
+	@Test
+	public void testX2JMainProfileReport() throws Exception {
+		X2JMain.setMode(X2JExecMode.TEST);
+		tempDir = Files.createTempDirectory("x2j_main_test");
+		Path report = tempDir.resolve("profile.txt");
+		System.setProperty(INPUT_XML_FILE, PATH + "x2j_main_test_input_2.xml");
+		System.setProperty(INPUT_JSON_SCHEMA_FILE, PATH + "x2j_main_test_schema_2.json");
+		System.setProperty(PROFILE_REPORT, report.toString());
+		setOutAndErr();
+		X2JMain.main(null);
+		System.clearProperty(INPUT_XML_FILE);
+		System.clearProperty(INPUT_JSON_SCHEMA_FILE);
+		System.clearProperty(PROFILE_REPORT);
+		String text = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+		assertTrue(text.startsWith("#"));
+		assertTrue(text.contains("$."));
+		assertTrue(out.toString().contains("Profile report written to " + report + "."));
+		assertNull(X2JConversionManager.getInstance().getProfiler());
+	}
+
+	@After
+	public void deleteTempDir() throws IOException {
+		if (tempDir != null) {
+			try (Stream<Path> walk = Files.walk(tempDir)) {
+				walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+
 	private void setOutAndErr() {
 		System.setOut(new PrintStream(out));
 		System.setErr(new PrintStream(out));
@@ -0,0 +1,94 @@
+package com.x2j.converter.metrics.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.metrics.X2JFieldProfile;
+import com.x2j.converter.metrics.X2JFieldProfiler;
+import com.x2j.converter.mgr.X2JConversionManager;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JUtils;
+
+public class X2JFieldProfilerTest {
+
+	private static final String PATH = "src/test/java/com/x2j/converter/common/test/";
+
+	@After
+	public void tearDown() {
+		X2JConversionManager.getInstance().setProfiler(null);
+	}
+
+	@Test
+	public void testFieldsAreProfiled() throws Exception {
+		X2JFieldProfiler profiler = new X2JFieldProfiler();
+		X2JConversionManager.getInstance().setProfiler(profiler);
+		CompiledSchema schema = CompiledSchema
+				.compile(X2JUtils.getJsonFromFile(new File(PATH + "conv_mgr_test_schema.json")));
+		XMLToJSONConverter converter = new XMLToJSONConverter();
+		converter.convertToJson(new File(PATH + "conv_mgr_test_input.xml"), schema);
+		converter.convertToJson(new File(PATH + "conv_mgr_test_input.xml"), schema);
+
+		List<X2JFieldProfile> fields = profiler.getFields();
+		Map<String, X2JFieldProfile> byPath = new HashMap<String, X2JFieldProfile>();
+		for (int i = 0; i < fields.size(); i++) {
+			byPath.put(fields.get(i).getSchemaPath(), fields.get(i));
+			if (i > 0) {
+				assertTrue(fields.get(i - 1).getTotalNanos() >= fields.get(i).getTotalNanos());
+			}
+		}
+		assertEquals(byPath.get("$.ShipmentIdentifier").getCount(), 2);
+		assertEquals(byPath.get("$.ShipmentIdentifier").getExpression(),
+				"XPATH(/MyShipments/Shipment/@Shipment_Key)");
+		assertEquals(byPath.get("$.LineItems[0].Quantity").getCount(), 6);
+		assertEquals(byPath.get("$.LineItems[0].Quantity").getExpression(), "RECUR_ELEM(/Item/@Qty)");
+		assertEquals(byPath.get("$.LineItems[0].TempOne[1].Field6").getCount(), 6);
+		assertEquals(byPath.get("$.Temp[3]").getExpression(),
+				"XPATH(/MyShipments/Shipment/Lines/Line/Order/@Order_Num):INT");
+		assertFalse(byPath.containsKey("$.Carrier"));
+		assertTrue(byPath.get("$.ShipmentIdentifier").getMaxNanos() > 0);
+
+		String report = profiler.getReport(2);
+		assertTrue(report.contains(fields.get(0).getSchemaPath()));
+		assertTrue(report.contains("... " + (fields.size() - 2) + " more field(s)"));
+		profiler.reset();
+		assertTrue(profiler.getFields().isEmpty());
+	}
+
+	@Test
+	public void testHints() throws Exception {
+		X2JFieldProfiler profiler = new X2JFieldProfiler();
+		X2JConversionManager.getInstance().setProfiler(profiler);
+		new XMLToJSONConverter().convertToJson("<Root><A Id=\"1\"/><A Id=\"2\"/></Root>",
+				"{\"Any\": \"XPATH(//A/@Id)\", \"Second\": \"XPATH(/Root/A[2]/@Id)\", \"First\": \"XPATH(/Root/A/@Id)\"}");
+		Map<String, X2JFieldProfile> byPath = new HashMap<String, X2JFieldProfile>();
+		for (X2JFieldProfile field : profiler.getFields()) {
+			byPath.put(field.getSchemaPath(), field);
+		}
+		assertEquals(byPath.get("$.Any").getHints().get(0), "descendant scan (//)");
+		assertEquals(byPath.get("$.Second").getHints().get(0), "positional predicate");
+		assertTrue(byPath.get("$.First").getHints().isEmpty());
+		assertTrue(profiler.toString().contains("XPATH(//A/@Id)  <- descendant scan (//)"));
+	}
+
+	@Test
+	public void testNotProfiledByDefault() throws Exception {
+		assertNull(X2JConversionManager.getInstance().getProfiler());
+		X2JFieldProfiler profiler = new X2JFieldProfiler();
+		X2JConversionManager.getInstance().setProfiler(profiler);
+		X2JConversionManager.getInstance().setProfiler(null);
+		new XMLToJSONConverter().convertToJson("<Root Id=\"1\"/>", "{\"Id\": \"XPATH(/Root/@Id)\"}");
+		assertTrue(profiler.getFields().isEmpty());
+	}
+
+}
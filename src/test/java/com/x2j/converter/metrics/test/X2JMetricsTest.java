@@ -0,0 +1,124 @@
+package com.x2j.converter.metrics.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.cache.X2JResultCache;
+import com.x2j.converter.metrics.X2JHistogram;
+import com.x2j.converter.metrics.X2JHistogramMetrics;
+import com.x2j.converter.metrics.X2JMetrics;
+import com.x2j.converter.metrics.X2JMetricsListener;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JUtils;
+
+public class X2JMetricsTest {
+
+	private static final String PATH = "src/test/java/com/x2j/converter/common/test/";
+
+	@After
+	public void tearDown() {
+		X2JMetrics.getInstance().setListener(null);
+	}
+
+	@Test
+	public void testDisabledByDefault() {
+		X2JMetrics metrics = X2JMetrics.getInstance();
+		assertSame(metrics.getListener(), X2JMetricsListener.NOOP);
+		assertFalse(metrics.isEnabled());
+		assertEquals(metrics.start(), 0L);
+	}
+
+	@Test
+	public void testConversionIsRecorded() throws Exception {
+		X2JHistogramMetrics listener = new X2JHistogramMetrics();
+		X2JMetrics.getInstance().setListener(listener);
+		File input = new File(PATH + "conv_mgr_test_input.xml");
+		CompiledSchema schema = CompiledSchema
+				.compile(X2JUtils.getJsonFromFile(new File(PATH + "conv_mgr_test_schema.json")));
+		JSONObject json = new XMLToJSONConverter().convertToJson(input, schema);
+		assertEquals(listener.getSchemaCompile().getCount(), 1);
+		assertEquals(listener.getParse().getCount(), 1);
+		assertEquals(listener.getBytesIn(), input.length());
+		assertEquals(listener.getConversion().getCount(), 1);
+		assertTrue(listener.getXPath().getCount() > 0);
+		assertTrue(listener.getHandler("XPATH").getCount() > 0);
+		assertTrue(listener.getHandler("VALUE").getCount() > 0);
+		assertEquals(listener.getHandler("RECUR_ELEM").getCount(), 5 * json.getJSONArray("LineItems").length());
+		assertEquals(listener.getRecurrentPath().getCount(), 1);
+		assertEquals(listener.getRecurrentPath().getMax(), json.getJSONArray("LineItems").length());
+
+		StringWriter writer = new StringWriter();
+		X2JUtils.writeJson(json, writer, 2);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		X2JUtils.writeJson(json, out, 0);
+		assertEquals(listener.getSerialize().getCount(), 2);
+		assertEquals(listener.getBytesOut(), writer.toString().length() + out.size());
+		assertTrue(listener.toString().contains("handler RECUR_ELEM (us): count="));
+
+		listener.reset();
+		assertEquals(listener.getXPath().getCount(), 0);
+		assertTrue(listener.getHandlers().isEmpty());
+	}
+
+	@Test
+	public void testStreamBytesAreRecorded() throws Exception {
+		X2JHistogramMetrics listener = new X2JHistogramMetrics();
+		X2JMetrics.getInstance().setListener(listener);
+		byte[] xml = Files.readAllBytes(new File(PATH + "conv_mgr_test_input.xml").toPath());
+		X2JUtils.getXmlFromStream(new ByteArrayInputStream(xml));
+		assertEquals(listener.getBytesIn(), xml.length);
+		X2JUtils.getXmlFromChannel(Channels.newChannel(new ByteArrayInputStream(xml)));
+		new X2JResultCache(10, 1 << 20).convertToJson(xml, null);
+		assertEquals(listener.getParse().getCount(), 3);
+		assertEquals(listener.getBytesIn(), 3L * xml.length);
+	}
+
+	@Test
+	public void testNothingIsRecordedWhenDisabled() throws Exception {
+		X2JHistogramMetrics listener = new X2JHistogramMetrics();
+		X2JMetrics.getInstance().setListener(listener);
+		X2JMetrics.getInstance().setListener(null);
+		new XMLToJSONConverter().convertToJson("<Root Id=\"1\"/>", "{\"Id\": \"XPATH(/Root/@Id)\"}");
+		assertEquals(listener.getParse().getCount(), 0);
+		assertEquals(listener.getXPath().getCount(), 0);
+	}
+
+	@Test
+	public void testHistogram() {
+		X2JHistogram histogram = new X2JHistogram();
+		assertEquals(histogram.getPercentile(50), 0L);
+		assertEquals(histogram.getMin(), 0L);
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i);
+		}
+		assertEquals(histogram.getCount(), 1000);
+		assertEquals(histogram.getSum(), 500500);
+		assertEquals(histogram.getMin(), 1);
+		assertEquals(histogram.getMax(), 1000);
+		assertEquals(histogram.getMean(), 500.5, 0.0);
+		long p50 = histogram.getPercentile(50);
+		assertTrue(p50 >= 500 && p50 <= 1000);
+		assertEquals(histogram.getPercentile(100), 1000);
+		assertEquals(histogram.getPercentile(0), 1);
+		histogram.record(-5);
+		assertEquals(histogram.getMin(), 0);
+		histogram.reset();
+		assertEquals(histogram.getCount(), 0);
+		assertEquals(histogram.getMax(), 0);
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.x2j.converter.mgr.expr.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONObject;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.expr.Expression;
+import com.x2j.converter.mgr.expr.ExpressionParser;
+import com.x2j.converter.mgr.expr.FunctionExpression;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JUtils;
+
+public class ExpressionParserTest {
+
+	private static final String INPUT = "src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml";
+
+	private static Element root;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		root = X2JUtils.getXmlFromFile(new File(INPUT)).getDocumentElement();
+	}
+
+	@Test
+	public void testNotAKeyword() throws Exception {
+		assertNull(ExpressionParser.parse("Some constant"));
+		assertNull(ExpressionParser.parse("FOO(/MyShipments/Shipment/@Number)"));
+		assertNull(ExpressionParser.parse("RECUR_ELEM(/Item/@Id)"));
+	}
+
+	@Test
+	public void testLegacyKeywords() throws Exception {
+		assertEquals(ExpressionParser.parse("XPATH(/MyShipments/Shipment/@Number)").evaluate(root), "528630");
+		assertEquals(ExpressionParser.parse("VALUE(/MyShipments/Shipment/Organization)").evaluate(root),
+				"Some Org Name");
+		assertEquals(ExpressionParser.parse("CONCAT(/MyShipments/Shipment/@Number, -, /MyShipments/Shipment/Organization)")
+				.evaluate(root), "528630-Some Org Name");
+		assertEquals(ExpressionParser.parse("CONCAT(a${COMMA} b, c)").evaluate(root), "a, bc");
+		assertEquals(ExpressionParser.parse("LEN(/MyShipments/Shipment/Organization)").evaluate(root), "13");
+		assertEquals(ExpressionParser.parse("SUBSTR(/MyShipments/Shipment/Organization, 0, 3)").evaluate(root), "Some");
+	}
+
+	@Test
+	public void testNestedFunctions() throws Exception {
+		Expression expression = ExpressionParser
+				.parse("UPPER(CONCAT(/MyShipments/Shipment/Organization, '-', LOWER(ABC)))");
+		assertTrue(expression instanceof FunctionExpression);
+		assertEquals(expression.evaluate(root), "SOME ORG NAME-ABC");
+		assertEquals(ExpressionParser.parse("LEN(CONCAT(ab, cd))").evaluate(root), "4");
+		assertEquals(ExpressionParser.parse("SUBSTR(UPPER(/MyShipments/Shipment/Organization), 5, 7)").evaluate(root),
+				"ORG");
+	}
+
+	@Test
+	public void testQuotedConstants() throws Exception {
+		assertEquals(ExpressionParser.parse("CONCAT('a, b', \" (c) \", 'it''s')").evaluate(root), "a, b (c) it's");
+		assertEquals(ExpressionParser.parse("UPPER('x, y')").evaluate(root), "X, Y");
+	}
+
+	@Test
+	public void testCommaInsideXPath() throws Exception {
+		assertEquals(ExpressionParser
+				.parse("CONCAT(/MyShipments/Shipment/Lines/Line[@Line_Key=concat('1202103301135561781564', '841')]/Item/@Id, !)")
+				.evaluate(root), "I2!");
+		assertEquals(ExpressionParser.parse("CONCAT(/MyShipments/Shipment/Lines/Line[position()=3]/Item/@Desc, .)")
+				.evaluate(root), "Writing Pad.");
+	}
+
+	@Test
+	public void testCollectPaths() throws Exception {
+		List<String> paths = new ArrayList<String>();
+		ExpressionParser.parse("CONCAT(/MyShipments/Shipment/@Number, '/not/a/path', UPPER(/MyShipments/Shipment/Organization))")
+				.collectPaths(paths);
+		assertEquals(paths.size(), 2);
+		assertEquals(paths.get(0), "/MyShipments/Shipment/@Number");
+		assertEquals(paths.get(1), "/MyShipments/Shipment/Organization");
+	}
+
+	@Test
+	public void testUnbalancedValues() {
+		assertThrows(X2JException.class, () -> ExpressionParser.parse("CONCAT(/MyShipments/Shipment/@Number"));
+		assertThrows(X2JException.class, () -> ExpressionParser.parse("CONCAT('abc, def)"));
+		assertThrows(X2JException.class, () -> ExpressionParser.parse("CONCAT(UPPER(abc, def)"));
+		assertThrows(X2JException.class, () -> ExpressionParser.parse("CONCAT('abc' def, ghi)"));
+		X2JException exception = assertThrows(X2JException.class,
+				() -> CompiledSchema.compile("{\"Name\": \"UPPER(CONCAT(a, 'b)):STRING\"}"));
+		assertTrue(exception.getErrorMessage().startsWith("Error while parsing a keyword of the JSON schema."));
+	}
+
+	@Test
+	public void testInvalidSubstringIndex() throws Exception {
+		Expression expression = ExpressionParser.parse("SUBSTR(/MyShipments/Shipment/Organization, 5, 50)");
+		assertThrows(X2JException.class, () -> expression.evaluate(root));
+		assertEquals(ExpressionParser.parse("SUBSTR(/MyShipments/Shipment/Unknown, 5, 50)").evaluate(root), "");
+	}
+
+	@Test
+	public void testCompiledSchema() throws Exception {
+		CompiledSchema schema = CompiledSchema.compile("{\"Key\": \"UPPER(CONCAT(/MyShipments/Shipment/@Number, "
+				+ "' - ', /MyShipments/Shipment/Organization))\", \"Len\": \"LEN(CONCAT(ab, cd)):INT\"}");
+		JSONObject json = new XMLToJSONConverter().convertToJson(new File(INPUT), schema);
+		assertEquals(json.get("Key"), "528630 - SOME ORG NAME");
+		assertEquals(json.get("Len"), 4);
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.x2j.converter.mgr.handlers.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.handlers.X2JStringHandlerFactory;
+import com.x2j.converter.mgr.handlers.impl.ConcatHandler;
+import com.x2j.converter.mgr.handlers.impl.DefaultHandler;
+import com.x2j.converter.mgr.handlers.impl.LengthHandler;
+import com.x2j.converter.mgr.handlers.impl.LowerCaseHandler;
+import com.x2j.converter.mgr.handlers.impl.SubStringHandler;
+import com.x2j.converter.mgr.handlers.impl.UpperCaseHandler;
+import com.x2j.converter.mgr.handlers.impl.ValueHandler;
+import com.x2j.converter.mgr.handlers.impl.XPathHandler;
+import com.x2j.converter.utils.X2JUtils;
+
+@SuppressWarnings("deprecation")
+public class X2JStringHandlerFactoryTest {
+
+	private final X2JStringHandlerFactory factory = X2JStringHandlerFactory.getInstance();
+
+	@Test
+	public void testKeywordDispatch() {
+		assertTrue(factory.getHandler("XPATH(/Root/@Id)") instanceof XPathHandler);
+		assertTrue(factory.getHandler("VALUE(/Root/A):INT") instanceof ValueHandler);
+		assertTrue(factory.getHandler("CONCAT(/Root/@Id, -)") instanceof ConcatHandler);
+		assertTrue(factory.getHandler("LEN(/Root/@Id)") instanceof LengthHandler);
+		assertTrue(factory.getHandler("UPPER(/Root/@Id)") instanceof UpperCaseHandler);
+		assertTrue(factory.getHandler("LOWER(/Root/@Id)") instanceof LowerCaseHandler);
+		assertTrue(factory.getHandler("SUBSTR(/Root/@Id, 0, 1)") instanceof SubStringHandler);
+	}
+
+	@Test
+	public void testUnknownKeywordReturnsDefaultHandler() {
+		assertTrue(factory.getHandler("plain text") instanceof DefaultHandler);
+		assertTrue(factory.getHandler("TRIM(/Root/@Id)") instanceof DefaultHandler);
+		assertTrue(factory.getHandler("xpath(/Root/@Id)") instanceof DefaultHandler);
+		assertTrue(factory.getHandler(" XPATH(/Root/@Id)") instanceof DefaultHandler);
+		assertTrue(factory.getHandler("(XPATH)") instanceof DefaultHandler);
+		assertTrue(factory.getHandler("") instanceof DefaultHandler);
+	}
+
+	@Test
+	public void testHandlersAreShared() {
+		assertSame(factory.getHandler("XPATH(/Root/@Id)"), factory.getHandler("XPATH(/Root/@Other)"));
+		assertSame(factory.getHandler("SUBSTR(/a, 0, 1)"), factory.getHandler("SUBSTR(/b, 1, 2)"));
+		assertSame(factory.getHandler("text"), factory.getHandler("TRIM(/a)"));
+	}
+
+	@Test
+	public void testHandlersEvaluateTheirKeyword() throws X2JException {
+		Element root = X2JUtils.getXmlFromString("<Root Id=\"ab\"><A>Text</A></Root>").getDocumentElement();
+		assertEquals(handle("XPATH(/Root/@Id)", root), "ab");
+		assertEquals(handle("VALUE(/Root/A)", root), "Text");
+		assertEquals(handle("UPPER(/Root/@Id)", root), "AB");
+		assertEquals(handle("LOWER(/Root/A)", root), "text");
+		assertEquals(handle("LEN(/Root/@Id)", root), "2");
+		assertEquals(handle("plain text", root), "plain text");
+	}
+
+	@Test
+	public void testHandlersRejectOtherValues() throws X2JException {
+		Element root = X2JUtils.getXmlFromString("<Root Id=\"ab\"/>").getDocumentElement();
+		X2JException expected = assertThrows(X2JException.class,
+				() -> new LengthHandler().handleString("UPPER(/Root/@Id)", root));
+		assertEquals(expected.getErrorMessage(), "Error while parsing a keyword of the JSON schema. UPPER(/Root/@Id)");
+		assertThrows(X2JException.class, () -> new XPathHandler().handleString("plain text", root));
+		assertThrows(X2JException.class, () -> new XPathHandler().handleString(null, root));
+		assertThrows(X2JException.class, () -> new XPathHandler().handleString("XPATH(/Root/@Id", root));
+	}
+
+	private String handle(String value, Element root) throws X2JException {
+		return factory.getHandler(value).handleString(value, root);
+	}
+
+}
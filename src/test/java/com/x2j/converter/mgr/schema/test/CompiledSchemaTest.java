@@ -0,0 +1,189 @@
+package com.x2j.converter.mgr.schema.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.StringWriter;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.mgr.schema.RecurElemNode;
+import com.x2j.converter.utils.X2JDataType;
+import com.x2j.converter.utils.X2JJsonWriter;
+import com.x2j.converter.utils.X2JUtils;
+
+public class CompiledSchemaTest {
+
+	@Test
+	public void testCompiledSchemaIsReusable() throws Exception {
+		File schemaFile = new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_schema.json");
+		JSONObject schemaJson = X2JUtils.getJsonFromFile(schemaFile);
+		CompiledSchema schema = CompiledSchema.compile(schemaJson);
+		Document doc = X2JUtils
+				.getXmlFromFile(new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml"));
+		XMLToJSONConverter converter = new XMLToJSONConverter();
+		JSONObject first = converter.convertToJson(doc, schema);
+		JSONObject second = converter.convertToJson(doc, schema);
+		assertTrue(first != second);
+		assertTrue(first.similar(second));
+		assertEquals(((JSONArray) first.get("LineItems")).length(), 3);
+		assertEquals(((JSONObject) ((JSONArray) second.get("LineItems")).get(2)).get("Identifier"), "I3");
+		assertTrue(schemaJson.similar(X2JUtils.getJsonFromFile(schemaFile)));
+	}
+
+	@Test
+	public void testSchemaObjectIsNotModified() throws Exception {
+		File schemaFile = new File("src/test/java/com/x2j/converter/common/test/x2j_conv_test_schema_6.json");
+		JSONObject schemaJson = X2JUtils.getJsonFromFile(schemaFile);
+		XMLToJSONConverter converter = new XMLToJSONConverter();
+		JSONObject first = converter.convertToJson(
+				new File("src/test/java/com/x2j/converter/common/test/x2j_conv_test_input_6.xml"), schemaJson);
+		JSONObject second = converter.convertToJson(
+				new File("src/test/java/com/x2j/converter/common/test/x2j_conv_test_input_6.xml"), schemaJson);
+		assertTrue(first.similar(second));
+		assertTrue(schemaJson.similar(X2JUtils.getJsonFromFile(schemaFile)));
+	}
+
+	@Test
+	public void testRecurrentItemExpandsInPlace() throws Exception {
+		CompiledSchema schema = CompiledSchema.compile("{\"Items\": [\"HEAD\", {"
+				+ "\"recurrent_path\": \"/MyShipments/Shipment/Lines/Line\", \"Id\": \"RECUR_ELEM(/Item/@Id)\","
+				+ " \"Qty\": \"RECUR_ELEM(/Item/@Qty):INT\"}, \"TAIL\"]}");
+		JSONObject json = new XMLToJSONConverter().convertToJson(
+				new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml"), schema);
+		JSONArray items = (JSONArray) json.get("Items");
+		assertEquals(items.length(), 5);
+		assertEquals(items.get(0), "HEAD");
+		assertEquals(((JSONObject) items.get(1)).get("Id"), "I1");
+		assertEquals(((JSONObject) items.get(3)).get("Qty"), 3);
+		assertEquals(items.get(4), "TAIL");
+	}
+
+	@Test
+	public void testRecurElemIsRelativeToRepeatedElement() throws Exception {
+		String xml = "<Root><Shipment No=\"S1\"><Line Id=\"A\"><Item Qty=\"1\"/></Line><Line Id=\"B\"><Item Qty=\"2\"/></Line>"
+				+ "</Shipment><Shipment No=\"S2\"><Line Id=\"C\"><Item Qty=\"3\"/></Line></Shipment></Root>";
+		CompiledSchema schema = CompiledSchema.compile("{\"Lines\": [{\"recurrent_path\": \"/Root/Shipment/Line\","
+				+ " \"Id\": \"RECUR_ELEM(/@Id)\", \"Qty\": \"RECUR_ELEM(Item/@Qty):INT\"}],"
+				+ " \"Parents\": [{\"recurrent_path\": \"/Root/Shipment/Line\", \"No\": \"RECUR_ELEM(/../@No)\"}]}");
+		JSONObject json = new XMLToJSONConverter().convertToJson(xml, schema);
+		JSONArray lines = (JSONArray) json.get("Lines");
+		assertEquals(lines.length(), 3);
+		assertEquals(((JSONObject) lines.get(1)).get("Id"), "B");
+		assertEquals(((JSONObject) lines.get(2)).get("Id"), "C");
+		assertEquals(((JSONObject) lines.get(2)).get("Qty"), 3);
+		JSONArray parents = (JSONArray) json.get("Parents");
+		assertEquals(((JSONObject) parents.get(1)).get("No"), "S1");
+		assertEquals(((JSONObject) parents.get(2)).get("No"), "S2");
+	}
+
+	@Test
+	public void testWriteMatchesEvaluate() throws Exception {
+		String path = "src/test/java/com/x2j/converter/common/test/";
+		Document doc = X2JUtils.getXmlFromFile(new File(path + "conv_mgr_test_input.xml"));
+		File[] schemas = new File(path).listFiles((dir, name) -> name.startsWith("conv_mgr_test_schema"));
+		assertTrue(schemas.length > 0);
+		for (File schemaFile : schemas) {
+			CompiledSchema schema = CompiledSchema.compile(X2JUtils.getJsonFromFile(schemaFile));
+			JSONObject expected;
+			try {
+				expected = schema.evaluate(doc.getDocumentElement());
+			} catch (X2JException e) {
+				X2JException actual = assertThrows(X2JException.class,
+						() -> schema.write(doc.getDocumentElement(), null, new X2JJsonWriter(new StringWriter())));
+				assertEquals(actual.getErrorMessage(), e.getErrorMessage());
+				continue;
+			}
+			for (int indentFactor : new int[] { 0, 4 }) {
+				StringWriter out = new StringWriter();
+				schema.write(doc.getDocumentElement(), null, new X2JJsonWriter(out, indentFactor));
+				assertTrue(schemaFile.getName(), expected.similar(new JSONObject(out.toString())));
+			}
+		}
+	}
+
+	@Test
+	public void testWriteFormatsPrimitives() throws Exception {
+		String xml = "<Root Id=\"42\" Price=\"12.50\" Paid=\"TRUE\" Name=\"A\">"
+				+ "<Line Qty=\"-3\"/><Line Qty=\"7\"/></Root>";
+		CompiledSchema schema = CompiledSchema.compile("{\"Name\": \"XPATH(/Root/@Name)\","
+				+ " \"Id\": \"XPATH(/Root/@Id):INT\", \"Price\": \"XPATH(/Root/@Price):DBL\", \"Paid\": \"XPATH(/Root/@Paid):BOOL\", \"Fixed\": 1.50,"
+				+ " \"Lines\": [{\"recurrent_path\": \"/Root/Line\", \"Qty\": \"RECUR_ELEM(/@Qty):INT\"}, \"END\"]}");
+		Document doc = X2JUtils.getXmlFromString(xml);
+		StringWriter out = new StringWriter();
+		schema.write(doc.getDocumentElement(), null, new X2JJsonWriter(out));
+		for (String field : new String[] { "\"Name\":\"A\"", "\"Id\":42", "\"Price\":12.5", "\"Paid\":true",
+				"\"Fixed\":1.5", "\"Lines\":[{\"Qty\":-3},{\"Qty\":7},\"END\"]" }) {
+			assertTrue(field, out.toString().contains(field));
+		}
+		assertTrue(schema.evaluate(doc.getDocumentElement()).similar(new JSONObject(out.toString())));
+		CompiledSchema invalid = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/@Name):INT\"}");
+		assertThrows(NumberFormatException.class,
+				() -> invalid.write(doc.getDocumentElement(), null, new X2JJsonWriter(new StringWriter())));
+	}
+
+	@Test
+	public void testWriteStreamsText() throws Exception {
+		String xml = "<Root Id=\"a&lt;b &quot;c&quot;\"><Text>  x &amp; \\ y  </Text>"
+				+ "<List><A k=\"1\">t</A><B/></List><Single><Only>z</Only></Single><Mixed>m<!--c--></Mixed><Empty/>"
+				+ "<L><I n=\"1\"><J>p</J></I></L></Root>";
+		CompiledSchema schema = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/@Id)\","
+				+ " \"Text\": \"XPATH(/Root/Text)\", \"TextValue\": \"VALUE(/Root/Text)\","
+				+ " \"List\": \"VALUE(/Root/List)\", \"Single\": \"VALUE(/Root/Single)\","
+				+ " \"Mixed\": \"VALUE(/Root/Mixed)\", \"Empty\": \"VALUE(/Root/Empty)\","
+				+ " \"Missing\": \"VALUE(/Root/Missing)\", \"Items\": [{\"recurrent_path\": \"/Root/L/I\","
+				+ " \"N\": \"RECUR_ELEM(/@n)\", \"J\": \"RECUR_ELEM(/J)\"}]}");
+		Document doc = X2JUtils.getXmlFromString(xml);
+		StringWriter out = new StringWriter();
+		schema.write(doc.getDocumentElement(), null, new X2JJsonWriter(out));
+		for (String field : new String[] { "\"Id\":\"a&lt;b &quot;c&quot;\"", "\"TextValue\":\"x &amp; \\\\ y\"",
+				"\"List\":\"&lt;A k=&quot;1&quot;&gt;t&lt;/A&gt;&lt;B/&gt;\"", "\"Mixed\":\"\"", "\"Empty\":\"\"",
+				"\"J\":\"&lt;J&gt;p&lt;/J&gt;\"" }) {
+			assertTrue(field, out.toString().contains(field));
+		}
+		assertTrue(schema.evaluate(doc.getDocumentElement()).similar(new JSONObject(out.toString())));
+		CompiledSchema missing = CompiledSchema.compile("{\"Missing\": \"XPATH(/Root/Missing)\"}");
+		X2JException expected = assertThrows(X2JException.class,
+				() -> missing.write(doc.getDocumentElement(), null, new X2JJsonWriter(new StringWriter())));
+		assertEquals(expected.getErrorMessage(), "Error while converting XML element/document to String.");
+	}
+
+	@Test
+	public void testRecurElemOfTheRepeatedElement() throws Exception {
+		String xml = "<r><L id=\"1\">a</L><L id=\"2\"/></r>";
+		CompiledSchema schema = CompiledSchema
+				.compile("{\"Ls\": [{\"recurrent_path\": \"/r/L\", \"v\": \"RECUR_ELEM()\"}]}");
+		JSONArray items = (JSONArray) schema.evaluate(X2JUtils.getXmlFromString(xml).getDocumentElement()).get("Ls");
+		assertEquals(items.length(), 2);
+		assertEquals(((JSONObject) items.get(0)).get("v"), "&lt;L id=&quot;1&quot;&gt;a&lt;/L&gt;");
+		assertEquals(((JSONObject) items.get(1)).get("v"), "&lt;L id=&quot;2&quot;/&gt;");
+	}
+
+	@Test
+	public void testRecurElemDetachable() {
+		for (String path : new String[] { "", "/Item/@Id", "Item[2]", "//Item[@Type='..(/|'][Qty > 1]/@Id",
+				"[@Id]", "/Item[Sub/Name = 'x']", "/*/text" }) {
+			assertTrue(path, new RecurElemNode(path, X2JDataType.STRING, "/v").isDetachable());
+		}
+		for (String path : new String[] { "/../@Id", "/ancestor::r/@Id", "/Item[@Id = /r/@Id]",
+				"/Item[y[1] = /r/v]", "/Item[a and /r/b]", "/Item/text()", "/a | /r/b", "/Item[@Id='x]" }) {
+			assertFalse(path, new RecurElemNode(path, X2JDataType.STRING, "/v").isDetachable());
+		}
+	}
+
+	@Test
+	public void testCompileException() {
+		X2JException expected = assertThrows(X2JException.class, () -> CompiledSchema.compile(""));
+		assertEquals(expected.getErrorMessage(), "Error while parsing JSON from file/string.");
+	}
+
+}
@@ -0,0 +1,167 @@
+package com.x2j.converter.mgr.stream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JUtils;
+
+public class X2JStreamingManagerTest {
+
+	private static final String PATH = "src/test/java/com/x2j/converter/common/test/";
+
+	@Test
+	public void testStreamingMatchesDomConversion() throws Exception {
+		CompiledSchema schema = CompiledSchema
+				.compile(X2JUtils.getJsonFromFile(new File(PATH + "conv_mgr_test_schema.json")));
+		XMLToJSONConverter converter = new XMLToJSONConverter();
+		JSONObject expected = converter.convertToJson(new File(PATH + "conv_mgr_test_input.xml"), schema);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new FileInputStream(PATH + "conv_mgr_test_input.xml")) {
+			converter.streamToJson(in, schema, out);
+		}
+		JSONObject actual = new JSONObject(new String(out.toByteArray(), StandardCharsets.UTF_8));
+		assertTrue(expected.similar(actual));
+	}
+
+	@Test
+	public void testStreamingKeepsArrayOrder() throws Exception {
+		String xml = "<Root><A Id=\"1\"/><B Id=\"x\"/><A Id=\"2\"/><B Id=\"y\"/><A Id=\"3\"/></Root>";
+		CompiledSchema schema = CompiledSchema.compile("{\"As\": [\"HEAD\", {\"recurrent_path\": \"/Root/A\","
+				+ " \"Id\": \"RECUR_ELEM(/@Id):INT\"}, \"TAIL\"], \"Bs\": [{\"recurrent_path\": \"/Root/B\","
+				+ " \"Id\": \"RECUR_ELEM(/@Id)\"}, {\"recurrent_path\": \"/Root/A\", \"Id\": \"RECUR_ELEM(/@Id)\"}],"
+				+ " \"Last\": \"XPATH(/Root/A[3]/@Id)\"}");
+		JSONObject json = stream(xml, schema);
+		assertTrue(json.similar(new XMLToJSONConverter().convertToJson(xml, schema)));
+		JSONArray as = (JSONArray) json.get("As");
+		assertEquals(as.length(), 5);
+		assertEquals(as.get(0), "HEAD");
+		assertEquals(((JSONObject) as.get(3)).get("Id"), 3);
+		assertEquals(as.get(4), "TAIL");
+		assertEquals(((JSONArray) json.get("Bs")).length(), 5);
+		assertEquals(json.get("Last"), "3");
+	}
+
+	@Test
+	public void testDescendantAndPositionalPaths() throws Exception {
+		String xml = "<Root><Group><Item No=\"1\"><Item No=\"2\"/></Item></Group><Item No=\"3\"><Name>Three</Name></Item>"
+				+ "<Other><![CDATA[a < b]]></Other></Root>";
+		CompiledSchema schema = CompiledSchema.compile("{\"Items\": [{\"recurrent_path\": \"//Item\","
+				+ " \"No\": \"RECUR_ELEM(/@No)\"}], \"Second\": \"XPATH(/Root/*[2]/@No)\","
+				+ " \"Name\": \"VALUE(//Item/Name)\", \"Other\": \"VALUE(/Root/Other)\"}");
+		JSONObject json = stream(xml, schema);
+		assertTrue(json.similar(new XMLToJSONConverter().convertToJson(xml, schema)));
+		JSONArray items = (JSONArray) json.get("Items");
+		assertEquals(items.length(), 3);
+		assertEquals(((JSONObject) items.get(1)).get("No"), "2");
+		assertEquals(json.get("Second"), "3");
+		assertEquals(json.get("Name"), "Three");
+	}
+
+	@Test
+	public void testNonStreamableSchemaIsRejected() throws Exception {
+		String xml = "<Root><A Id=\"1\"/></Root>";
+		CompiledSchema predicate = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/A[@Id='1']/@Id)\"}");
+		assertThrows(X2JException.class, () -> stream(xml, predicate));
+		CompiledSchema parent = CompiledSchema
+				.compile("{\"As\": [{\"recurrent_path\": \"/Root/A\", \"P\": \"RECUR_ELEM(/../@Id)\"}]}");
+		assertThrows(X2JException.class, () -> stream(xml, parent));
+		CompiledSchema nested = CompiledSchema.compile("{\"As\": [{\"recurrent_path\": \"/Root/A\","
+				+ " \"Bs\": [{\"recurrent_path\": \"/Root/A/B\", \"Id\": \"RECUR_ELEM(/@Id)\"}]}]}");
+		assertThrows(X2JException.class, () -> stream(xml, nested));
+	}
+
+	@Test
+	public void testPathsAfterRepeatedElementsAreRejected() throws Exception {
+		String xml = "<r><L id=\"1\"><N>a</N></L><L id=\"2\"><N>b</N></L><H id=\"h9\">head</H></r>";
+		String[] itemValues = { "XPATH(/r/H/@id)", "VALUE(/r/H)", "XPATH(/r/L[2]/@id)", "XPATH(/r/H)",
+				"XPATH(/r/L/@id)" };
+		for (String value : itemValues) {
+			CompiledSchema schema = CompiledSchema
+					.compile("{\"Ls\": [{\"recurrent_path\": \"/r/L\", \"h\": \"" + value + "\"}]}");
+			new XMLToJSONConverter().convertToJson(xml, schema);
+			X2JException expected = assertThrows(X2JException.class, () -> stream(xml, schema));
+			String xpath = value.substring(value.indexOf('(') + 1, value.indexOf(')'));
+			assertEquals(expected.getErrorMessage(), "The JSON schema cannot be used for streaming conversion."
+					+ " Absolute XPath inside a recurrent item: " + xpath);
+		}
+		CompiledSchema after = CompiledSchema.compile("{\"Ls\": [{\"recurrent_path\": \"/r/L\","
+				+ " \"N\": \"RECUR_ELEM(/N)\"}], \"h\": \"XPATH(/r/H/@id)\", \"head\": \"VALUE(/r/H)\"}");
+		JSONObject json = stream(xml, after);
+		assertTrue(json.similar(new XMLToJSONConverter().convertToJson(xml, after)));
+		assertEquals(json.get("h"), "h9");
+		assertEquals(json.get("head"), "head");
+	}
+
+	@Test
+	public void testAncestorAttributesInsideItems() throws Exception {
+		String xml = "<r v=\"7\"><S><L i=\"1\"/></S><S n=\"b\"><L i=\"2\"/><L i=\"3\"/></S>"
+				+ "<S n=\"c\"><L i=\"4\"/></S></r>";
+		CompiledSchema schema = CompiledSchema.compile("{\"Ls\": [{\"recurrent_path\": \"/r/S/L\","
+				+ " \"i\": \"RECUR_ELEM(/@i)\", \"v\": \"XPATH(/r/@v)\", \"n\": \"XPATH(/r/S/@n)\"}]}");
+		JSONObject json = stream(xml, schema);
+		assertTrue(json.similar(new XMLToJSONConverter().convertToJson(xml, schema)));
+		JSONArray items = (JSONArray) json.get("Ls");
+		assertEquals(items.length(), 4);
+		for (int i = 0; i < items.length(); i++) {
+			assertEquals(((JSONObject) items.get(i)).get("i"), String.valueOf(i + 1));
+			assertEquals(((JSONObject) items.get(i)).get("n"), "b");
+			assertEquals(((JSONObject) items.get(i)).get("v"), "7");
+		}
+	}
+
+	@Test
+	public void testAncestorOfRepeatedElementsIsRejected() throws Exception {
+		String xml = "<r><G><L id=\"1\"/></G><L id=\"2\"/></r>";
+		for (String value : new String[] { "XPATH(/r)", "VALUE(/r)", "XPATH(/r/G)" }) {
+			CompiledSchema schema = CompiledSchema.compile("{\"Ls\": [{\"recurrent_path\": \"/r/G/L\","
+					+ " \"id\": \"RECUR_ELEM(/@id)\"}], \"v\": \"" + value + "\"}");
+			X2JException expected = assertThrows(X2JException.class, () -> stream(xml, schema));
+			assertTrue(expected.getErrorMessage().endsWith("XPath selecting the root element: /r")
+					|| expected.getErrorMessage().endsWith("ancestor of the repeated elements: /r/G"));
+		}
+		CompiledSchema possible = CompiledSchema.compile("{\"Ls\": [{\"recurrent_path\": \"//L\","
+				+ " \"id\": \"RECUR_ELEM(/@id)\"}], \"v\": \"VALUE(/r/G)\"}");
+		X2JException expected = assertThrows(X2JException.class, () -> stream(xml, possible));
+		assertTrue(expected.getErrorMessage().endsWith("ancestor of the repeated elements: /r/G"));
+		String other = "<r><G><M/></G><L id=\"2\"/></r>";
+		JSONObject json = stream(other, possible);
+		assertTrue(json.similar(new XMLToJSONConverter().convertToJson(other, possible)));
+	}
+
+	@Test
+	public void testNullSchemaAppliesDefaultConversion() throws Exception {
+		String xml = "<Root><A Id=\"1\"/><A Id=\"2\">text</A></Root>";
+		JSONObject json = stream(xml, null);
+		assertTrue(json.similar(new XMLToJSONConverter().convertToJson(xml, (CompiledSchema) null)));
+		assertEquals(((JSONArray) ((JSONObject) json.get("Root")).get("A")).length(), 2);
+	}
+
+	@Test
+	public void testMalformedXmlThrowsException() throws Exception {
+		CompiledSchema schema = CompiledSchema.compile("{\"Id\": \"XPATH(/Root/A/@Id)\"}");
+		assertThrows(X2JException.class, () -> stream("<Root><A Id=\"1\"></Root>", schema));
+	}
+
+	private JSONObject stream(String xml, CompiledSchema schema) throws X2JException {
+		StringWriter out = new StringWriter();
+		new XMLToJSONConverter().streamToJson(new StringReader(xml), schema, out);
+		return new JSONObject(out.toString());
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.x2j.converter.mgr.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.XML;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.X2JDefaultJsonBuilder;
+import com.x2j.converter.utils.X2JUtils;
+
+public class X2JDefaultJsonBuilderTest {
+
+	private static final String[] SAMPLES = { "<a/>", "<a></a>", "<a> </a>", "<a>text</a>", "<a>  padded text  </a>",
+			"<a x=\"1\"/>", "<a x=\"1\"></a>", "<a x=\"1\">2</a>", "<a content=\"c\"/>", "<a content=\"c\"><!-- x --></a>",
+			"<a><b/><b/><b>3</b></a>", "<a b=\"attr\"><b>child</b></a>", "<a>one<b/>two<!-- c -->three</a>",
+			"<a><![CDATA[ kept as is ]]></a>", "<a>x<![CDATA[]]>y</a>", "<a>x<![CDATA[007]]>y</a>", "<a><?pi data?>z</a>",
+			"<a>&lt;tag&gt; &amp; &quot;q&quot;</a>", "<a>&#13;&#10; line &#13;</a>", "<a>  sep  </a>",
+			"<a><n>1</n><n>-2.50</n><n>007</n><n>1e5</n><n>-</n><n>0x1F</n><n>12345678901234567890</n></a>",
+			"<a><b>true</b><b>FALSE</b><b>null</b><b>NaN</b></a>",
+			"<a xmlns:p=\"urn:p\" p:x=\"1\"><p:b>2</p:b><p:b><![CDATA[ 3 ]]></p:b></a>",
+			"<a><b><c><d>deep</d></c></b><b><c/></b></a>", "<a>\n  <b>1</b>\n  <c x=\"y\">\n    <d/>\n  </c>\n</a>" };
+
+	@Test
+	public void testSamplesMatchXmlToJsonObject() throws Exception {
+		for (String sample : SAMPLES) {
+			Element root = X2JUtils.getXmlFromString(sample).getDocumentElement();
+			assertSimilar(sample, expected(root), X2JDefaultJsonBuilder.build(root));
+		}
+	}
+
+	@Test
+	public void testInputFilesMatchXmlToJsonObject() throws Exception {
+		File[] files = new File("src/test/java/com/x2j/converter/common/test")
+				.listFiles((dir, name) -> name.endsWith(".xml"));
+		assertTrue(files.length > 0);
+		for (File file : files) {
+			Element root = X2JUtils.getXmlFromFile(file).getDocumentElement();
+			assertSimilar(file.getName(), expected(root), X2JDefaultJsonBuilder.build(root));
+		}
+	}
+
+	@Test
+	public void testStreamingMatchesXmlToJsonObject() throws Exception {
+		for (String sample : SAMPLES) {
+			Element root = X2JUtils.getXmlFromString(sample).getDocumentElement();
+			StringWriter out = new StringWriter();
+			new XMLToJSONConverter().streamToJson(new StringReader(sample), null, out);
+			assertSimilar(sample, expected(root), new JSONObject(out.toString()));
+		}
+	}
+
+	@Test
+	public void testNestingDepthLimit() throws Exception {
+		assertThrows(JSONException.class, () -> X2JDefaultJsonBuilder.build(nested(513, "t")));
+		Element deep = nested(600, "t");
+		assertThrows(X2JException.class, () -> new XMLToJSONConverter().convertToJson(deep.getOwnerDocument()));
+		assertSimilar("512", expected(nested(512, "t")), X2JDefaultJsonBuilder.build(nested(512, "t")));
+		assertSimilar("513 empty", expected(nested(513, "")), X2JDefaultJsonBuilder.build(nested(513, "")));
+	}
+
+	private Element nested(int depth, String text) throws X2JException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < depth; i++) {
+			builder.append("<e>");
+		}
+		builder.append(text);
+		for (int i = 0; i < depth; i++) {
+			builder.append("</e>");
+		}
+		return X2JUtils.getXmlFromString(builder.toString()).getDocumentElement();
+	}
+
+	private JSONObject expected(Element root) throws X2JException {
+		return XML.toJSONObject(X2JUtils.getString(root));
+	}
+
+	private void assertSimilar(String sample, JSONObject expected, JSONObject actual) {
+		assertEquals(sample, expected.toString(), actual.toString());
+		assertTrue(sample, expected.similar(actual));
+	}
+
+}
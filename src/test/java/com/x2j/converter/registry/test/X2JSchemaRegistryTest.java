@@ -0,0 +1,152 @@
+package com.x2j.converter.registry.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.registry.X2JSchemaRegistry;
+import com.x2j.converter.utils.X2JUtils;
+
+public class X2JSchemaRegistryTest {
+
+	private static final String XML = "<Root Id=\"1\" Name=\"A\"/>";
+
+	private Path tempDir;
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = Files.createTempDirectory("x2j_registry_test");
+		write("ids.json", "{\"Id\": \"XPATH(/Root/@Id)\"}");
+		write("names.json", "{\"Name\": \"XPATH(/Root/@Name)\"}");
+		write("notes.txt", "not a schema");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.list(tempDir)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(tempDir);
+	}
+
+	@Test
+	public void testLoad() throws X2JException {
+		X2JSchemaRegistry registry = new X2JSchemaRegistry(tempDir);
+		assertEquals(registry.getNames(), new TreeSet<String>(Arrays.asList("ids", "names")));
+		assertTrue(registry.contains("ids"));
+		assertFalse(registry.contains("notes"));
+		assertSame(registry.getSchema("ids"), registry.getSchema("ids"));
+		assertEquals(convert(registry.getSchema("ids")).get("Id"), "1");
+		assertEquals(convert(registry.getSchema("names")).get("Name"), "A");
+		X2JException expected = assertThrows(X2JException.class, () -> registry.getSchema("notes"));
+		assertEquals(expected.getErrorMessage(), "JSON schema not found in the registry. notes");
+		assertEquals(registry.getReloads(), 0);
+	}
+
+	@Test
+	public void testLoadException() throws IOException {
+		write("broken.json", "{\"Id\": ");
+		X2JException expected = assertThrows(X2JException.class, () -> new X2JSchemaRegistry(tempDir));
+		assertTrue(expected.getErrorMessage().startsWith("Error while loading a JSON schema into the registry."));
+		assertTrue(expected.getErrorMessage().contains("broken.json"));
+		assertThrows(X2JException.class, () -> new X2JSchemaRegistry(tempDir.resolve("missing")));
+	}
+
+	@Test
+	public void testReload() throws Exception {
+		X2JSchemaRegistry registry = new X2JSchemaRegistry(tempDir);
+		CompiledSchema ids = registry.getSchema("ids");
+		write("ids.json", "{\"Key\": \"XPATH(/Root/@Id)\"}");
+		write("extra.json", "{\"Extra\": \"XPATH(/Root/@Name)\"}");
+		Files.delete(tempDir.resolve("names.json"));
+		assertEquals(registry.reload(), 2);
+		assertEquals(registry.getNames(), new TreeSet<String>(Arrays.asList("extra", "ids")));
+		assertNotSame(registry.getSchema("ids"), ids);
+		assertEquals(convert(ids).get("Id"), "1");
+		assertEquals(convert(registry.getSchema("ids")).get("Key"), "1");
+		write("ids.json", "{\"Key\": ");
+		assertFalse(registry.reload("ids"));
+		assertEquals(convert(registry.getSchema("ids")).get("Key"), "1");
+		assertEquals(registry.getReloads(), 2);
+		assertEquals(registry.getReloadFailures(), 1);
+		assertTrue(registry.getLastFailure().getErrorMessage().contains("ids.json"));
+	}
+
+	@Test
+	public void testWatch() throws Exception {
+		try (X2JSchemaRegistry registry = new X2JSchemaRegistry(tempDir).watch()) {
+			assertSame(registry.watch(), registry);
+			CompiledSchema ids = registry.getSchema("ids");
+			Path temp = tempDir.resolve("ids.tmp");
+			Files.write(temp, "{\"Key\": \"XPATH(/Root/@Id)\"}".getBytes(StandardCharsets.UTF_8));
+			Files.move(temp, tempDir.resolve("ids.json"), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			awaitTrue(() -> registry.contains("ids") && registry.getReloads() > 0);
+			assertEquals(convert(registry.getSchema("ids")).get("Key"), "1");
+			assertEquals(convert(ids).get("Id"), "1");
+			write("extra.json", "{\"Extra\": \"XPATH(/Root/@Name)\"}");
+			awaitTrue(() -> registry.contains("extra"));
+			assertEquals(convert(registry.getSchema("extra")).get("Extra"), "A");
+			Files.delete(tempDir.resolve("names.json"));
+			awaitTrue(() -> !registry.contains("names"));
+			write("ids.json", "{\"Key\": ");
+			awaitTrue(() -> registry.getReloadFailures() > 0);
+			assertEquals(convert(registry.getSchema("ids")).get("Key"), "1");
+		}
+	}
+
+	@Test
+	public void testWatchAfterRuntimeException() throws Exception {
+		try (X2JSchemaRegistry registry = new X2JSchemaRegistry(tempDir).watch()) {
+			write("ids.json", "{\"Items\": [{\"recurrent_path\": 5, \"Id\": \"RECUR_ELEM(@Id)\"}]}");
+			awaitTrue(() -> registry.getReloadFailures() > 0);
+			assertTrue(registry.getLastFailure().getErrorMessage().contains("ids.json"));
+			assertTrue(registry.getLastFailure().getErrorMessage().contains("ClassCastException"));
+			assertEquals(convert(registry.getSchema("ids")).get("Id"), "1");
+			write("ids.json", "{\"Key\": \"XPATH(/Root/@Id)\"}");
+			awaitTrue(() -> registry.getReloads() > 0);
+			assertEquals(convert(registry.getSchema("ids")).get("Key"), "1");
+		}
+	}
+
+	private void write(String name, String content) throws IOException {
+		Files.write(tempDir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static JSONObject convert(CompiledSchema schema) throws X2JException {
+		return new XMLToJSONConverter().convertToJson(X2JUtils.getXmlFromString(XML), schema);
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline);
+			Thread.sleep(20);
+		}
+	}
+
+}
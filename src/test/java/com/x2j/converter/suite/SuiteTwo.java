@@ -4,15 +4,39 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import com.x2j.converter.batch.test.X2JBatchConverterTest;
+import com.x2j.converter.batch.test.X2JConversionProcessorTest;
+import com.x2j.converter.cache.test.X2JResultCacheTest;
+import com.x2j.converter.cache.test.X2JSchemaCacheTest;
 import com.x2j.converter.excp.test.X2JExceptionTest;
 import com.x2j.converter.main.test.X2JMainTest;
+import com.x2j.converter.metrics.test.X2JFieldProfilerTest;
+import com.x2j.converter.metrics.test.X2JMetricsTest;
+import com.x2j.converter.mgr.expr.test.ExpressionParserTest;
+import com.x2j.converter.mgr.handlers.test.X2JStringHandlerFactoryTest;
+import com.x2j.converter.mgr.schema.test.CompiledSchemaTest;
+import com.x2j.converter.mgr.stream.test.X2JStreamingManagerTest;
 import com.x2j.converter.mgr.test.X2JConversionManagerTest;
+import com.x2j.converter.mgr.test.X2JDefaultJsonBuilderTest;
+import com.x2j.converter.registry.test.X2JSchemaRegistryTest;
 import com.x2j.converter.test.XMLToJSONConverterTest;
+import com.x2j.converter.utils.test.X2JContentHashTest;
+import com.x2j.converter.utils.test.X2JJsonWriterTest;
 import com.x2j.converter.utils.test.X2JMsgUtilsTest;
+import com.x2j.converter.utils.test.X2JPathTrieTest;
+import com.x2j.converter.utils.test.X2JSimplePathTest;
+import com.x2j.converter.utils.test.X2JTextViewTest;
 import com.x2j.converter.utils.test.X2JUtilsTest;
+import com.x2j.converter.utils.test.X2JXPathCacheTest;
+import com.x2j.converter.utils.test.X2JXmlPoolTest;
 
-@SuiteClasses({ X2JExceptionTest.class, X2JMsgUtilsTest.class, X2JUtilsTest.class, X2JConversionManagerTest.class,
-		XMLToJSONConverterTest.class, X2JMainTest.class })
+@SuiteClasses({ X2JExceptionTest.class, X2JMsgUtilsTest.class, X2JUtilsTest.class, X2JXPathCacheTest.class,
+		X2JSimplePathTest.class, X2JPathTrieTest.class, X2JContentHashTest.class, X2JXmlPoolTest.class,
+		X2JJsonWriterTest.class, X2JTextViewTest.class, X2JConversionManagerTest.class, X2JDefaultJsonBuilderTest.class,
+		CompiledSchemaTest.class, ExpressionParserTest.class, X2JStringHandlerFactoryTest.class,
+		X2JStreamingManagerTest.class, X2JBatchConverterTest.class, X2JConversionProcessorTest.class,
+		X2JResultCacheTest.class, X2JSchemaCacheTest.class, X2JSchemaRegistryTest.class, X2JMetricsTest.class,
+		X2JFieldProfilerTest.class, XMLToJSONConverterTest.class, X2JMainTest.class })
 @RunWith(Suite.class)
 public class SuiteTwo {
 }
\ No newline at end of file
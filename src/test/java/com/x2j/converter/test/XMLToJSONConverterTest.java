@@ -6,6 +6,10 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -16,6 +20,8 @@ import org.junit.Test;
 import org.w3c.dom.Document;
 
 import com.x2j.converter.XMLToJSONConverter;
+import com.x2j.converter.cache.X2JSchemaCache;
+import com.x2j.converter.mgr.schema.CompiledSchema;
 import com.x2j.converter.utils.X2JUtils;
 
 public class XMLToJSONConverterTest {
@@ -160,6 +166,51 @@ public class XMLToJSONConverterTest {
 		assertResults(json);
 	}
 
+	@Test
+	public void testX2JConversionUsingInputXMLAsStream() throws Exception {
+		JSONObject schema = X2JUtils
+				.getJsonFromFile(new File("src/test/java/com/x2j/converter/common/test/x2j_conv_test_schema_6.json"));
+		try (InputStream in = new FileInputStream(
+				"src/test/java/com/x2j/converter/common/test/x2j_conv_test_input_6.xml")) {
+			assertResults(new XMLToJSONConverter().convertToJson(in, CompiledSchema.compile(schema)));
+		}
+		try (InputStream in = new FileInputStream(
+				"src/test/java/com/x2j/converter/common/test/x2j_conv_test_input_4.xml")) {
+			assertResults(new XMLToJSONConverter().convertToJson(in));
+		}
+	}
+
+	@Test
+	public void testX2JConversionUsingInputXMLAsChannel() throws Exception {
+		JSONObject schema = X2JUtils
+				.getJsonFromFile(new File("src/test/java/com/x2j/converter/common/test/x2j_conv_test_schema_7.json"));
+		try (FileChannel channel = FileChannel
+				.open(Paths.get("src/test/java/com/x2j/converter/common/test/x2j_conv_test_input_7.xml"))) {
+			assertResults(new XMLToJSONConverter().convertToJson(channel, schema));
+			assertTrue(channel.isOpen());
+		}
+	}
+
+	@Test
+	public void testX2JEmbeddedSchemaOnlyAsChildOfRoot() throws Exception {
+		X2JSchemaCache cache = X2JSchemaCache.getInstance();
+		cache.clear();
+		cache.resetStats();
+		String schema = "<JSONSchema>{\"Id\": \"XPATH(/Root/Item/@Id)\"}</JSONSchema>";
+		XMLToJSONConverter converter = new XMLToJSONConverter();
+		for (int i = 1; i <= 2; i++) {
+			JSONObject json = converter.convertToJson("<Root><Item Id=\"" + i + "\"/>" + schema + "</Root>");
+			assertEquals(json.get("Id"), String.valueOf(i));
+		}
+		assertEquals(cache.getMisses(), 1);
+		assertEquals(cache.getHits(), 1);
+		JSONObject json = converter.convertToJson("<Root><Item Id=\"1\">" + schema + "</Item></Root>");
+		assertTrue(json.getJSONObject("Root").getJSONObject("Item").has("JSONSchema"));
+		json = converter.convertToJson("<Root><Item Id=\"1\"><JSONSchema> </JSONSchema></Item></Root>");
+		assertTrue(json.getJSONObject("Root").getJSONObject("Item").has("JSONSchema"));
+		assertEquals(cache.getMisses() + cache.getHits(), 2);
+	}
+
 	private void assertResults(JSONObject json) {
 		assertFalse(X2JUtils.isVoid(json));
 		assertEquals(json.get("ShipmentIdentifier"), "1202103301135561781564861");
@@ -0,0 +1,53 @@
+package com.x2j.converter.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.x2j.converter.utils.X2JContentHash;
+
+public class X2JContentHashTest {
+
+	@Test
+	public void testEquality() {
+		byte[] bytes = "<Root Id=\"1\"/>".getBytes(StandardCharsets.UTF_8);
+		assertEquals(X2JContentHash.of(bytes), X2JContentHash.of(bytes.clone()));
+		assertEquals(X2JContentHash.of(bytes).hashCode(), X2JContentHash.of(bytes.clone()).hashCode());
+		assertEquals(X2JContentHash.of("<Root Id=\"1\"/>"), X2JContentHash.of(new StringBuilder("<Root Id=\"1\"/>")));
+		assertEquals(X2JContentHash.of(bytes).getLength(), 14);
+		assertEquals(X2JContentHash.of("<Root Id=\"1\"/>").getLength(), 28);
+		assertEquals(X2JContentHash.of(bytes).toString().length(), 32);
+		byte[] padded = new byte[bytes.length + 7];
+		System.arraycopy(bytes, 0, padded, 3, bytes.length);
+		assertEquals(X2JContentHash.of(padded, 3, bytes.length), X2JContentHash.of(bytes));
+	}
+
+	@Test
+	public void testDistinctContents() {
+		Random random = new Random(7);
+		Set<X2JContentHash> hashes = new HashSet<X2JContentHash>();
+		byte[] bytes = new byte[64];
+		random.nextBytes(bytes);
+		for (int length = 0; length <= bytes.length; length++) {
+			byte[] prefix = Arrays.copyOf(bytes, length);
+			hashes.add(X2JContentHash.of(prefix));
+			for (int i = 0; i < length; i++) {
+				prefix[i] ^= 1;
+				hashes.add(X2JContentHash.of(prefix));
+				prefix[i] ^= 1;
+			}
+		}
+		assertEquals(hashes.size(), 65 + 64 * 65 / 2);
+		String text = "<Root Id=\"1\"/>";
+		assertNotEquals(X2JContentHash.of(text), X2JContentHash.of(text.getBytes(StandardCharsets.UTF_16LE)));
+		assertNotEquals(X2JContentHash.of(""), X2JContentHash.of(new byte[0]));
+	}
+
+}
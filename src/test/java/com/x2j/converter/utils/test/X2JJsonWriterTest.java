@@ -0,0 +1,131 @@
+package com.x2j.converter.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.x2j.converter.utils.X2JJsonWriter;
+import com.x2j.converter.utils.X2JTextView;
+import com.x2j.converter.utils.X2JUtils;
+
+public class X2JJsonWriterTest {
+
+	private static final String PATH = "src/test/java/com/x2j/converter/common/test/";
+
+	@Test
+	public void testTreeOutputMatchesToString() throws Exception {
+		File[] files = new File(PATH).listFiles((dir, name) -> name.endsWith(".json") && !name.startsWith("utils_test"));
+		assertTrue(files.length > 0);
+		for (File file : files) {
+			JSONObject json = X2JUtils.getJsonFromFile(file);
+			for (int indentFactor : new int[] { 0, 2, 4 }) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				X2JUtils.writeJson(json, out, indentFactor);
+				assertEquals(file.getName(), json.toString(indentFactor),
+						new String(out.toByteArray(), StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	@Test
+	public void testWriteJsonToFile() throws Exception {
+		JSONObject json = new JSONObject("{\"a\": [1, {\"b\": \"é\\\"\"}, []], \"c\": {}}");
+		File file = File.createTempFile("x2j_writer_test", ".json");
+		try {
+			X2JUtils.writeJsonToFile(json, file);
+			assertEquals(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), json.toString(4));
+			X2JUtils.writeJsonToFile(json, file, 0);
+			assertEquals(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), json.toString());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testPrettyEvents() throws Exception {
+		StringWriter out = new StringWriter();
+		X2JJsonWriter writer = new X2JJsonWriter(out, 2);
+		writer.beginObject().name("empty").beginArray().endArray().name("items").beginArray();
+		writer.value(new JSONObject("{\"x\": 1, \"y\": [true, null]}")).value("text").endArray();
+		writer.name("one").value(new JSONArray("[1]")).endObject();
+		String expected = "{\n  \"empty\": [],\n  \"items\": [\n    {\n      \"x\": 1,\n      \"y\": [\n        true,\n"
+				+ "        null\n      ]\n    },\n    \"text\"\n  ],\n  \"one\": [1]\n}";
+		assertEquals(out.toString(), expected);
+		assertTrue(new JSONObject(out.toString()).similar(new JSONObject(expected)));
+	}
+
+	@Test
+	public void testCompactEventsAndNdjson() throws Exception {
+		StringWriter out = new StringWriter();
+		X2JJsonWriter writer = new X2JJsonWriter(out);
+		writer.beginObject().name("a").beginArray().value(1).value(new JSONObject("{\"b\": 2}")).endArray().endObject();
+		writer.value(new JSONObject("{\"c\": 3}"));
+		assertEquals(out.toString(), "{\"a\":[1,{\"b\":2}]}\n{\"c\":3}");
+	}
+
+	@Test
+	public void testPrimitiveValues() throws Exception {
+		int[] ints = { 0, 7, -7, 10, 100, -2001, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1 };
+		double[] doubles = { 0.0, -0.0, 1.0, -1.5, 100.0, 0.001, 1.0E-5, 1.25E10, 1.0E21, 123456789.125,
+				Double.MIN_VALUE, Double.MAX_VALUE };
+		StringWriter out = new StringWriter();
+		X2JJsonWriter writer = new X2JJsonWriter(out);
+		JSONArray expected = new JSONArray();
+		writer.beginArray();
+		for (int value : ints) {
+			writer.value(value);
+			expected.put(Integer.valueOf(value));
+		}
+		for (double value : doubles) {
+			writer.value(value);
+			expected.put(Double.valueOf(value));
+		}
+		writer.value(true).value(false).endArray();
+		expected.put(Boolean.TRUE).put(Boolean.FALSE);
+		assertEquals(out.toString(), expected.toString());
+		assertThrows(JSONException.class, () -> writer.value(Double.NaN));
+		assertThrows(JSONException.class, () -> writer.value(Double.NEGATIVE_INFINITY));
+	}
+
+	@Test
+	public void testEncodedValue() throws Exception {
+		StringBuilder allChars = new StringBuilder();
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			allChars.append((char) c);
+		}
+		String[] texts = { null, "", " \t\n ", "plain", "  a<b> & \"c\" 'd' \\ </e>  ", allChars.toString() };
+		for (String text : texts) {
+			String expected = JSONObject.quote(X2JUtils.encodeText(text));
+			StringWriter out = new StringWriter();
+			new X2JJsonWriter(out).encodedValue(text);
+			assertEquals(out.toString(), expected);
+			out = new StringWriter();
+			new X2JJsonWriter(out).encodedValue(text == null ? null : X2JTextView.of(text));
+			assertEquals(out.toString(), expected);
+			if (!X2JUtils.isVoid(text)) {
+				out = new StringWriter();
+				try (Writer value = new X2JJsonWriter(out).openEncodedValue()) {
+					value.write(text.toCharArray(), 0, text.length() / 2);
+					value.write(text.substring(text.length() / 2));
+				}
+				assertEquals(out.toString(), expected);
+			}
+		}
+		StringWriter out = new StringWriter();
+		new X2JJsonWriter(out).beginObject().name("a").encodedValue(X2JTextView.trimmed(" <b> ")).endObject();
+		assertEquals(out.toString(), "{\"a\":\"&lt;b&gt;\"}");
+	}
+
+}
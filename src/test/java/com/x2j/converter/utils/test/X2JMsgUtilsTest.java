@@ -17,7 +17,7 @@ public class X2JMsgUtilsTest {
 	@Test
 	public void testErrorMessageCount() {
 		Properties msgs = utils.getMsgs();
-		assertEquals(msgs.size(), 12);
+		assertEquals(msgs.size(), 21);
 	}
 
 	@Test
@@ -91,4 +91,58 @@ public class X2JMsgUtilsTest {
 		String message = utils.getMessage(X2JErrorCodes.X2J_ERR_011.name());
 		assertTrue(message.equals("Error during string operation."));
 	}
+
+	@Test
+	public void testMessage012() {
+		String message = utils.getMessage(X2JErrorCodes.X2J_ERR_012.name());
+		assertTrue(message.equals("The JSON schema cannot be used for streaming conversion."));
+	}
+
+	@Test
+	public void testMessage013() {
+		String message = utils.getMessage(X2JErrorCodes.X2J_ERR_013.name());
+		assertTrue(message.equals("Error while streaming XML to JSON."));
+	}
+
+	@Test
+	public void testMessage014() {
+		String message = utils.getMessage(X2JErrorCodes.X2J_ERR_014.name());
+		assertTrue(message.equals("Error during batch conversion."));
+	}
+
+	@Test
+	public void testMessage015() {
+		String message = utils.getMessage(X2JErrorCodes.X2J_ERR_015.name());
+		assertTrue(message.equals("Error while listing the input XML files."));
+	}
+
+	@Test
+	public void testMessage016() {
+		String message = utils.getMessage(X2JErrorCodes.X2J_ERR_016.name());
+		assertTrue(message.equals("Error while writing the profile report."));
+	}
+
+	@Test
+	public void testMessage017() {
+		String message = utils.getMessage(X2JErrorCodes.X2J_ERR_017.name());
+		assertTrue(message.equals("Error while parsing a keyword of the JSON schema."));
+	}
+
+	@Test
+	public void testMessage018() {
+		String message = utils.getMessage(X2JErrorCodes.X2J_ERR_018.name());
+		assertTrue(message.equals("Error while reading XML from stream."));
+	}
+
+	@Test
+	public void testMessage019() {
+		String message = utils.getMessage(X2JErrorCodes.X2J_ERR_019.name());
+		assertTrue(message.equals("Error while loading a JSON schema into the registry."));
+	}
+
+	@Test
+	public void testMessage020() {
+		String message = utils.getMessage(X2JErrorCodes.X2J_ERR_020.name());
+		assertTrue(message.equals("JSON schema not found in the registry."));
+	}
 }
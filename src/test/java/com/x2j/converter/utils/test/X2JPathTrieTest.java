@@ -0,0 +1,120 @@
+package com.x2j.converter.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JPathTrie;
+import com.x2j.converter.utils.X2JResolvedPaths;
+import com.x2j.converter.utils.X2JUtils;
+
+public class X2JPathTrieTest {
+
+	private static final List<String> PATHS = Arrays.asList("/MyShipments/Shipment/@Number",
+			"/MyShipments/Shipment/Lines/Line", "/MyShipments/Shipment/Lines/Line/Item/@Id",
+			"/MyShipments/Shipment/Lines/Line/Item/@Unknown", "/MyShipments/Shipment/Lines/Line/Order/@Type",
+			" /MyShipments/Shipment/Lines/Line/Order/@Type", "/MyShipments/Shipment/Organization",
+			"/MyShipments/Shipment/Taxes/GST", "/MyShipments/Shipment/Unknown", "/Unknown/Shipment",
+			"/A/D/E", "/A/D/E/@k", "/A/B/@x", "/A/C/D", "/A/@x", "/A/F", "self::node()/Item/@Id",
+			"/MyShipments/Shipment/Lines/Line[2]/Item/@Id", "//Line");
+
+	private static final String NAMESPACE_XML = "<A xmlns:p=\"urn:p\" x=\"1\"><B x=\"4\"/><C xmlns=\"urn:d\"><D/></C>"
+			+ "<D><E/><E k=\"b\">text</E></D><D><E k=\"c\"/></D></A>";
+
+	@Test
+	public void testBuild() {
+		X2JPathTrie trie = X2JPathTrie.build(PATHS);
+		assertNotNull(trie);
+		assertEquals(trie.getXPaths().size(), 16);
+		assertFalse(trie.getXPaths().contains("//Line"));
+		assertFalse(trie.getXPaths().contains("self::node()/Item/@Id"));
+		assertNull(X2JPathTrie.build(Arrays.asList("/A/B", "//C", "self::node()/D")));
+	}
+
+	@Test
+	public void testSameResultAsJaxp() throws Exception {
+		Document doc = X2JUtils
+				.getXmlFromFile(new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml"));
+		assertSameResults(doc.getDocumentElement());
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		doc = factory.newDocumentBuilder()
+				.parse(new ByteArrayInputStream(NAMESPACE_XML.getBytes(StandardCharsets.UTF_8)));
+		assertSameResults(doc.getDocumentElement());
+		doc = X2JUtils.getXmlFromString(NAMESPACE_XML);
+		assertSameResults(doc.getDocumentElement());
+		assertSameResults((Element) doc.getDocumentElement().getFirstChild());
+	}
+
+	@Test
+	public void testGiveUp() throws Exception {
+		X2JPathTrie trie = X2JPathTrie.build(PATHS);
+		Document doc = X2JUtils.getXmlFromString("<A xmlns:p=\"urn:p\"><p:B x=\"1\"/><B x=\"2\"/></A>");
+		assertFalse(trie.resolve(doc.getDocumentElement(), new X2JResolvedPaths(false)));
+		doc = X2JUtils.getXmlFromString("<A p:x=\"1\" xmlns:p=\"urn:p\"/>");
+		assertFalse(trie.resolve(doc.getDocumentElement(), new X2JResolvedPaths(false)));
+		assertFalse(trie.resolve((Element) doc.getDocumentElement().cloneNode(true), new X2JResolvedPaths(false)));
+	}
+
+	@Test
+	public void testCompiledSchemaWithManyFields() throws Exception {
+		JSONObject schemaJson = new JSONObject();
+		for (String path : PATHS) {
+			int index = schemaJson.length();
+			if (path.contains("@")) {
+				schemaJson.put("X" + index, "XPATH(" + path + ")");
+			}
+			schemaJson.put("V" + index, "VALUE(" + path + ")");
+			schemaJson.put("C" + index, "CONCAT(" + path.trim() + ", -)");
+		}
+		CompiledSchema schema = CompiledSchema.compile(schemaJson);
+		Document doc = X2JUtils
+				.getXmlFromFile(new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml"));
+		JSONObject json = schema.evaluate(doc.getDocumentElement());
+		X2JResolvedPaths perField = new X2JResolvedPaths();
+		perField.activate();
+		try {
+			assertTrue(json.similar(schema.evaluate(doc.getDocumentElement())));
+		} finally {
+			perField.deactivate();
+		}
+		assertNull(X2JResolvedPaths.getActive());
+		assertEquals(json.get("X0"), "528630");
+	}
+
+	private void assertSameResults(Element context) throws Exception {
+		X2JPathTrie trie = X2JPathTrie.build(PATHS);
+		X2JResolvedPaths resolved = new X2JResolvedPaths(false);
+		assertTrue(trie.resolve(context, resolved));
+		for (String path : trie.getXPaths()) {
+			assertTrue(path, resolved.isRegistered(path));
+			if (path.contains("@")) {
+				assertEquals(path, X2JUtils.getXpathAttribute(context, path),
+						resolved.lookup(path, XPathConstants.STRING));
+			} else {
+				assertSame(path, X2JUtils.getXpathElement(context, path), resolved.lookup(path, XPathConstants.NODE));
+			}
+		}
+		assertSame(resolved.lookup("/MyShipments/Shipment/Lines/Line/Item", XPathConstants.NODE),
+				X2JResolvedPaths.NOT_RESOLVED);
+	}
+
+}
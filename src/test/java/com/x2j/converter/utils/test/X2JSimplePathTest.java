@@ -0,0 +1,133 @@
+package com.x2j.converter.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.x2j.converter.utils.X2JSimplePath;
+import com.x2j.converter.utils.X2JUtils;
+
+public class X2JSimplePathTest {
+
+	private static final String[] PATHS = { "/MyShipments", "/MyShipments/Shipment", "/MyShipments/Shipment/@Number",
+			"/MyShipments/Shipment/Lines/Line", "/MyShipments/Shipment/Lines/Line/Item/@Id",
+			"/MyShipments/Shipment/Lines/Line/Order/@Type", "/MyShipments/Shipment/Organization",
+			"/MyShipments/Shipment/Address", "/MyShipments/Shipment/Taxes/GST", "/MyShipments/Shipment/@Unknown",
+			"/MyShipments/Unknown/Lines", "/Unknown", " /MyShipments/Shipment/Lines ", "/A", "/A/B", "/A/B/@x",
+			"/A/B/@y", "/A/C", "/A/C/D", "/A/@x", "/A/D/E", "/A/D/E/@k", "/A/F" };
+
+	private static final String[] RELATIVE_PATHS = { "self::node()/Item/@Id", "self::node()/Order",
+			"self::node()/@Line_Key", "self::node()/Item", "self::node()/Unknown", "self::node()/D/E",
+			"self::node()/B/@x" };
+
+	private static final String NAMESPACE_XML = "<A xmlns:p=\"urn:p\" x=\"1\" p:y=\"2\"><p:B x=\"3\"/><B x=\"4\" p:x=\"5\"/>"
+			+ "<C xmlns=\"urn:d\"><D/></C><D><E k=\"a\"/><E k=\"b\">text</E></D><D><E/></D></A>";
+
+	@Test
+	public void testCompile() {
+		assertNotNull(X2JSimplePath.compile("/Shipment/Lines/Line/@ItemID"));
+		assertNotNull(X2JSimplePath.compile("/Order/Header/Status"));
+		assertNotNull(X2JSimplePath.compile(" /Order/Header_1/Status-Code.2 "));
+		assertNotNull(X2JSimplePath.compile("self::node()/Item/@Id"));
+		assertNotNull(X2JSimplePath.compile("self::node()/@Id"));
+		assertNull(X2JSimplePath.compile(null));
+		assertNull(X2JSimplePath.compile(""));
+		assertNull(X2JSimplePath.compile("/"));
+		assertNull(X2JSimplePath.compile("/@Id"));
+		assertNull(X2JSimplePath.compile("Order/Header"));
+		assertNull(X2JSimplePath.compile("//Line"));
+		assertNull(X2JSimplePath.compile("/Order//Line"));
+		assertNull(X2JSimplePath.compile("/Order/Header/"));
+		assertNull(X2JSimplePath.compile("/Order/Line[1]"));
+		assertNull(X2JSimplePath.compile("/Order/*"));
+		assertNull(X2JSimplePath.compile("/Order/text()"));
+		assertNull(X2JSimplePath.compile("/Order/.."));
+		assertNull(X2JSimplePath.compile("/Order/@Id/Line"));
+		assertNull(X2JSimplePath.compile("/Order/@xmlns"));
+		assertNull(X2JSimplePath.compile("/Order/p:Line"));
+		assertNull(X2JSimplePath.compile("/Order / Line"));
+		assertNull(X2JSimplePath.compile("self::node()[1]/Item"));
+	}
+
+	@Test
+	public void testSameResultAsJaxp() throws Exception {
+		Document doc = X2JUtils
+				.getXmlFromFile(new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml"));
+		assertSameResults(doc.getDocumentElement(), PATHS, true);
+		NodeList lines = X2JUtils.getNodesFromXPath(doc.getDocumentElement(), "/MyShipments/Shipment/Lines/Line");
+		for (int i = 0; i < lines.getLength(); i++) {
+			Element line = (Element) lines.item(i);
+			assertSameResults(line, PATHS, true);
+			assertSameResults(line, RELATIVE_PATHS, true);
+			assertSameResults((Element) line.cloneNode(true), RELATIVE_PATHS, true);
+		}
+	}
+
+	@Test
+	public void testSameResultAsJaxpWithNamespaces() throws Exception {
+		for (boolean namespaceAware : new boolean[] { false, true }) {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(namespaceAware);
+			Document doc = factory.newDocumentBuilder()
+					.parse(new ByteArrayInputStream(NAMESPACE_XML.getBytes(StandardCharsets.UTF_8)));
+			Element root = doc.getDocumentElement();
+			assertSameResults(root, PATHS, false);
+			assertSameResults(root, RELATIVE_PATHS, false);
+			assertSameResults((Element) root.cloneNode(true), PATHS, false);
+			assertSameResults((Element) root.getElementsByTagName("D").item(0), PATHS, false);
+		}
+	}
+
+	@Test
+	public void testFallbackToJaxp() throws Exception {
+		Document doc = X2JUtils.getXmlFromString(NAMESPACE_XML);
+		Element root = doc.getDocumentElement();
+		assertSame(X2JSimplePath.compile("/A/B").evaluate(root, XPathConstants.NODE), X2JSimplePath.NOT_SIMPLE);
+		assertSame(X2JSimplePath.compile("/A/@y").evaluate(root, XPathConstants.STRING), X2JSimplePath.NOT_SIMPLE);
+		assertSame(X2JSimplePath.compile("/A/D").evaluate((Element) root.cloneNode(true), XPathConstants.NODE),
+				X2JSimplePath.NOT_SIMPLE);
+		assertSame(X2JSimplePath.compile("/A/D").evaluate(root, XPathConstants.STRING), X2JSimplePath.NOT_SIMPLE);
+		assertEquals(X2JUtils.getXpathAttribute(root, "/A/B/@x", X2JSimplePath.compile("/A/B/@x")), "3");
+		assertEquals(X2JUtils.getXpathAttribute(root, "/A/@x", X2JSimplePath.compile("/A/@x")), "1");
+	}
+
+	private void assertSameResults(Element context, String[] paths, boolean simple) throws Exception {
+		for (String path : paths) {
+			X2JSimplePath simplePath = X2JSimplePath.compile(path);
+			assertNotNull(path, simplePath);
+			if (simple) {
+				assertTrue(path, simplePath.evaluate(context, XPathConstants.NODESET) != X2JSimplePath.NOT_SIMPLE);
+			}
+			NodeList expected = X2JUtils.getNodesFromXPath(context, path);
+			NodeList actual = X2JUtils.getNodesFromXPath(context, path, simplePath);
+			assertEquals(path, expected.getLength(), actual.getLength());
+			for (int i = 0; i < expected.getLength(); i++) {
+				assertSame(path, expected.item(i), actual.item(i));
+			}
+			if (path.contains("@")) {
+				assertEquals(path, X2JUtils.getXpathAttribute(context, path),
+						X2JUtils.getXpathAttribute(context, path, simplePath));
+			} else {
+				assertSame(path, X2JUtils.getXpathElement(context, path),
+						X2JUtils.getXpathElement(context, path, simplePath));
+				assertEquals(path, X2JUtils.getXpathText(context, path),
+						X2JUtils.getXpathText(context, path, simplePath));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.x2j.converter.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+import com.x2j.converter.utils.X2JTextView;
+
+public class X2JTextViewTest {
+
+	@Test
+	public void testTrim() {
+		for (String text : new String[] { "", "a", " a ", "\t\n a b \r", "   " }) {
+			X2JTextView view = X2JTextView.trimmed(text);
+			assertEquals(view.toString(), text.trim());
+			assertEquals(view.length(), text.trim().length());
+		}
+		X2JTextView view = X2JTextView.of("abc");
+		assertSame(view.trim(), view);
+		assertSame(X2JTextView.trimmed(null), X2JTextView.EMPTY);
+		assertSame(X2JTextView.trimmed("  "), X2JTextView.EMPTY);
+	}
+
+	@Test
+	public void testCharSequence() {
+		X2JTextView view = X2JTextView.trimmed("  hello world  ");
+		assertEquals(view.charAt(0), 'h');
+		assertEquals(view.charAt(10), 'd');
+		assertEquals(view.subSequence(6, 11).toString(), "world");
+		assertEquals(view.subSequence(6, 11).trim().length(), 5);
+		assertEquals(new StringBuilder().append(view).toString(), "hello world");
+		assertThrows(IndexOutOfBoundsException.class, () -> view.charAt(11));
+		assertThrows(IndexOutOfBoundsException.class, () -> view.charAt(-1));
+		assertThrows(IndexOutOfBoundsException.class, () -> view.subSequence(3, 12));
+	}
+
+}
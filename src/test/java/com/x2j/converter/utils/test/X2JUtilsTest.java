@@ -2,6 +2,7 @@ package com.x2j.converter.utils.test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
@@ -10,6 +11,16 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -172,6 +183,76 @@ public class X2JUtilsTest {
 		assertEquals(expected.getErrorMessage(), "Error while reading JSON from file/string.");
 	}
 
+	@Test
+	public void testReadJSONFromFileCharsets() throws Exception {
+		String json = "{\"name\": \"Cr\u00e8me \u20ac\"}";
+		byte[][] encodings = { json.getBytes(StandardCharsets.UTF_8),
+				concat(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF }, json.getBytes(StandardCharsets.UTF_8)),
+				json.getBytes(StandardCharsets.UTF_16), json.getBytes(StandardCharsets.UTF_16LE),
+				json.getBytes(StandardCharsets.UTF_16BE), json.getBytes(Charset.forName("UTF-32LE")),
+				concat(new byte[] { 0, 0, (byte) 0xFE, (byte) 0xFF }, json.getBytes(Charset.forName("UTF-32BE"))) };
+		Path file = Files.createTempFile("x2j-charset", ".json");
+		try {
+			for (byte[] bytes : encodings) {
+				Files.write(file, bytes);
+				assertEquals(X2JUtils.getJsonFromFile(file.toFile()).get("name"), "Cr\u00e8me \u20ac");
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testReadXMLFromStream() throws X2JException {
+		boolean[] closed = new boolean[1];
+		String xml = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a b=\"\u00e9\"/>";
+		InputStream in = new ByteArrayInputStream(xml.getBytes(StandardCharsets.ISO_8859_1)) {
+
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+
+		};
+		Document d = X2JUtils.getXmlFromStream(in);
+		assertEquals(d.getDocumentElement().getAttribute("b"), "\u00e9");
+		assertFalse(closed[0]);
+		d = X2JUtils.getXmlFromChannel(
+				Channels.newChannel(new ByteArrayInputStream("<a><b/></a>".getBytes(StandardCharsets.UTF_8))));
+		assertEquals(d.getDocumentElement().getFirstChild().getNodeName(), "b");
+		X2JException expected = assertThrows(X2JException.class,
+				() -> X2JUtils.getXmlFromStream(new ByteArrayInputStream("<a>".getBytes(StandardCharsets.UTF_8))));
+		assertEquals(expected.getErrorMessage(), "Error while reading XML from stream.");
+	}
+
+	@Test
+	public void testReadLargeXMLFromFile() throws Exception {
+		Path file = Files.createTempFile("x2j-large", ".xml");
+		try {
+			try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_16)) {
+				writer.write("<?xml version=\"1.0\" encoding=\"UTF-16\"?><Lines>");
+				for (int i = 0; i < 100000; i++) {
+					writer.write("<Line No=\"" + i + "\">\u00e9l\u00e9ment</Line>");
+				}
+				writer.write("</Lines>");
+			}
+			assertTrue(Files.size(file) >= X2JUtils.DEFAULT_MMAP_THRESHOLD);
+			Document d = X2JUtils.getXmlFromFile(file.toFile());
+			NodeList lines = d.getDocumentElement().getElementsByTagName("Line");
+			assertEquals(lines.getLength(), 100000);
+			assertEquals(((Element) lines.item(99999)).getAttribute("No"), "99999");
+			assertEquals(lines.item(99999).getTextContent(), "\u00e9l\u00e9ment");
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static byte[] concat(byte[] first, byte[] second) {
+		byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, bytes, first.length, second.length);
+		return bytes;
+	}
+
 	@Test
 	public void testReadJSONFromString() throws X2JException {
 		JSONObject json = X2JUtils.getJsonFromString(
@@ -349,6 +430,41 @@ public class X2JUtilsTest {
 		assertEquals(X2JUtils.encodeText(""), "");
 	}
 
+	@Test
+	public void testEncodeText() throws IOException {
+		String plain = "no special characters";
+		assertSame(X2JUtils.encodeText(plain), plain);
+		assertEquals(X2JUtils.encodeText("<a b=\"c\">'&'</a>"),
+				"&lt;a b=&quot;c&quot;&gt;&apos;&amp;&apos;&lt;/a&gt;");
+		assertEquals(X2JUtils.encodeText(" \t\n"), "");
+		assertEquals(X2JUtils.encodeText(null), "");
+		StringBuilder builder = new StringBuilder("x=");
+		assertSame(X2JUtils.encodeText("1 < 2", builder), builder);
+		X2JUtils.encodeText("  ", builder);
+		assertEquals(builder.toString(), "x=1 &lt; 2");
+		StringWriter writer = new StringWriter();
+		X2JUtils.encodeText(new StringBuilder("&&"), writer).append('|');
+		assertEquals(writer.toString(), "&amp;&amp;|");
+	}
+
+	@Test
+	public void testEncodeTextMatchesReplaceChain() {
+		Random random = new Random(12);
+		char[] alphabet = "ab <>&\"'\u00e9\n".toCharArray();
+		for (int n = 0; n < 2000; n++) {
+			char[] chars = new char[random.nextInt(12)];
+			for (int i = 0; i < chars.length; i++) {
+				chars[i] = alphabet[random.nextInt(alphabet.length)];
+			}
+			String text = new String(chars);
+			String expected = text.trim().isEmpty() ? ""
+					: text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;")
+							.replace("'", "&apos;");
+			assertEquals(X2JUtils.encodeText(text), expected);
+			assertEquals(X2JUtils.encodeText(text, new StringBuilder()).toString(), expected);
+		}
+	}
+
 	@Test
 	public void testXPathValidation() {
 		String xpath = "abcd";
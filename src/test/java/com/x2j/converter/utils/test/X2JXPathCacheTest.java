@@ -0,0 +1,208 @@
+package com.x2j.converter.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.x2j.converter.mgr.schema.CompiledSchema;
+import com.x2j.converter.utils.X2JUtils;
+import com.x2j.converter.utils.X2JXPathCache;
+
+public class X2JXPathCacheTest {
+
+	private X2JXPathCache cache = X2JXPathCache.getInstance();
+
+	@Before
+	public void init() {
+		cache.setMaxSize(X2JXPathCache.DEFAULT_MAX_SIZE);
+		cache.resetStats();
+	}
+
+	@After
+	public void cleanup() {
+		cache.setShared(false);
+		cache.setMaxSize(X2JXPathCache.DEFAULT_MAX_SIZE);
+	}
+
+	@Test
+	public void testHitsAndMisses() throws XPathExpressionException {
+		XPathExpression first = cache.getExpression("/cache/test/@one");
+		XPathExpression second = cache.getExpression("/cache/test/@one");
+		assertSame(first, second);
+		assertEquals(cache.getMisses(), 1);
+		assertEquals(cache.getHits(), 1);
+		assertEquals(cache.size(), 1);
+	}
+
+	@Test
+	public void testLRUEviction() throws XPathExpressionException {
+		cache.setMaxSize(2);
+		XPathExpression one = cache.getExpression("/cache/one");
+		cache.getExpression("/cache/two");
+		cache.getExpression("/cache/one");
+		cache.getExpression("/cache/three");
+		assertEquals(cache.size(), 2);
+		assertSame(one, cache.getExpression("/cache/one"));
+		cache.getExpression("/cache/two");
+		assertEquals(cache.getMisses(), 4);
+		assertEquals(cache.getHits(), 2);
+	}
+
+	@Test
+	public void testCacheDisabled() throws XPathExpressionException {
+		cache.setMaxSize(0);
+		cache.getExpression("/cache/one");
+		cache.getExpression("/cache/one");
+		assertEquals(cache.size(), 0);
+		assertEquals(cache.getMisses(), 2);
+	}
+
+	@Test
+	public void testInvalidExpression() {
+		assertThrows(XPathExpressionException.class, () -> cache.getExpression("/cache/@"));
+		assertEquals(cache.size(), 0);
+		assertFalse(X2JUtils.isValidXPath("/cache/@"));
+	}
+
+	@Test
+	public void testValidationIsReusedByEvaluation() throws Exception {
+		Document doc = X2JUtils
+				.getXmlFromFile(new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml"));
+		assertTrue(X2JUtils.isValidXPath("/MyShipments/Shipment/@Number"));
+		assertEquals(X2JUtils.getXpathAttribute(doc.getDocumentElement(), "/MyShipments/Shipment/@Number"), "528630");
+		assertEquals(cache.getMisses(), 1);
+		assertEquals(cache.getHits(), 1);
+	}
+
+	@Test
+	public void testConcurrentEvaluation() throws Exception {
+		Document doc = X2JUtils
+				.getXmlFromFile(new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml"));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 64; i++) {
+				final int index = (i % 3) + 1;
+				results.add(executor.submit(() -> {
+					for (int j = 0; j < 50; j++) {
+						String id = X2JUtils.getXpathAttribute(doc.getDocumentElement(),
+								"/MyShipments/Shipment/Lines/Line[" + index + "]/Item/@Id");
+						if (!id.equals("I" + index)) {
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(cache.getHits() + cache.getMisses(), 64 * 50);
+		assertTrue(cache.getMisses() <= 8 * 3);
+	}
+
+	@Test
+	public void testSharedPool() throws Exception {
+		Document doc = X2JUtils
+				.getXmlFromFile(new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml"));
+		cache.setShared(true);
+		String xpath = "/MyShipments/Shipment/@Number";
+		assertEquals(cache.evaluate(xpath, doc.getDocumentElement(), XPathConstants.STRING), "528630");
+		assertEquals(cache.evaluate(xpath, doc.getDocumentElement(), XPathConstants.STRING), "528630");
+		assertEquals(cache.getMisses(), 1);
+		assertEquals(cache.getHits(), 1);
+		assertEquals(cache.size(), 1);
+		assertEquals(cache.getIdle(xpath), 1);
+		XPathExpression borrowed = cache.getExpression(xpath);
+		assertEquals(cache.getIdle(xpath), 0);
+		assertNotSame(borrowed, cache.getExpression(xpath));
+		cache.clear();
+		assertEquals(cache.size(), 0);
+	}
+
+	@Test
+	public void testValidationInSharedMode() throws Exception {
+		cache.setShared(true);
+		String xpath = "//Line[Item/@Id = 'I2']/@Number";
+		for (int i = 0; i < 5; i++) {
+			CompiledSchema.compile("{\"Number\": \"CONCAT(" + xpath + ", -)\"}");
+		}
+		assertEquals(cache.getMisses(), 1);
+		assertEquals(cache.getHits(), 4);
+		assertEquals(cache.getIdle(xpath), 1);
+		assertFalse(X2JUtils.isValidXPath("/cache/@"));
+		assertEquals(cache.getIdle("/cache/@"), 0);
+	}
+
+	@Test
+	public void testSharedPoolIsBounded() throws Exception {
+		Document doc = X2JUtils
+				.getXmlFromFile(new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml"));
+		cache.setShared(true);
+		cache.setMaxSize(2);
+		for (int i = 1; i <= 3; i++) {
+			cache.evaluate("/MyShipments/Shipment/Lines/Line[" + i + "]/Item/@Id", doc.getDocumentElement(),
+					XPathConstants.STRING);
+		}
+		assertEquals(cache.size(), 2);
+		assertEquals(cache.getIdle("/MyShipments/Shipment/Lines/Line[3]/Item/@Id"), 0);
+	}
+
+	@Test
+	public void testConcurrentEvaluationInSharedMode() throws Exception {
+		cache.setShared(true);
+		List<FutureTask<Boolean>> results = new ArrayList<FutureTask<Boolean>>();
+		for (int i = 0; i < 64; i++) {
+			final int index = (i % 3) + 1;
+			FutureTask<Boolean> result = new FutureTask<Boolean>(() -> {
+				// the DOM is not thread-safe, only the expressions are shared
+				Document doc = X2JUtils.getXmlFromFile(
+						new File("src/test/java/com/x2j/converter/common/test/conv_mgr_test_input.xml"));
+				for (int j = 0; j < 50; j++) {
+					String id = X2JUtils.getXpathAttribute(doc.getDocumentElement(),
+							"/MyShipments/Shipment/Lines/Line[" + index + "]/Item/@Id");
+					if (!id.equals("I" + index)) {
+						return false;
+					}
+				}
+				return true;
+			});
+			// a new thread per task, as with virtual threads
+			new Thread(result).start();
+			results.add(result);
+		}
+		for (FutureTask<Boolean> result : results) {
+			assertTrue(result.get());
+		}
+		assertEquals(cache.getHits() + cache.getMisses(), 64 * 50);
+		assertEquals(cache.size(), 3);
+		for (int i = 1; i <= 3; i++) {
+			assertTrue(cache.getIdle("/MyShipments/Shipment/Lines/Line[" + i + "]/Item/@Id")
+					<= X2JXPathCache.MAX_IDLE_PER_XPATH);
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.x2j.converter.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.x2j.converter.excp.X2JException;
+import com.x2j.converter.utils.X2JUtils;
+import com.x2j.converter.utils.X2JXmlPool;
+
+public class X2JXmlPoolTest {
+
+	private X2JXmlPool pool = X2JXmlPool.getInstance();
+
+	@Before
+	public void init() {
+		pool.setMaxSize(X2JXmlPool.DEFAULT_MAX_SIZE);
+		pool.resetStats();
+	}
+
+	@After
+	public void cleanup() {
+		pool.setMaxSize(X2JXmlPool.DEFAULT_MAX_SIZE);
+	}
+
+	@Test
+	public void testBuildersAreReused() throws Exception {
+		pool.setMaxSize(0);
+		pool.setMaxSize(1);
+		DocumentBuilder first = pool.borrowBuilder();
+		pool.releaseBuilder(first);
+		assertSame(first, pool.borrowBuilder());
+		assertEquals(pool.getCreated(), 1);
+		assertEquals(pool.getReused(), 1);
+		DocumentBuilder second = pool.borrowBuilder();
+		assertNotSame(first, second);
+		pool.releaseBuilder(first);
+		pool.releaseBuilder(second);
+		assertEquals(pool.getIdleBuilders(), 1);
+		assertEquals(pool.getDiscarded(), 1);
+	}
+
+	@Test
+	public void testTransformersAreReset() throws Exception {
+		pool.setMaxSize(0);
+		pool.setMaxSize(1);
+		Transformer transformer = pool.borrowTransformer();
+		transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+		pool.releaseTransformer(transformer);
+		assertSame(transformer, pool.borrowTransformer());
+		assertEquals(transformer.getOutputProperty(OutputKeys.INDENT), "no");
+		pool.releaseTransformer(transformer);
+		String xml = "<a x=\"1\"><b>text</b></a>";
+		assertEquals(X2JUtils.getString(X2JUtils.getXmlFromString(xml)), xml);
+		assertEquals(X2JUtils.getString(X2JUtils.getXmlFromString(xml)), xml);
+		assertEquals(pool.getIdleTransformers(), 1);
+	}
+
+	@Test
+	public void testPoolingDisabled() throws Exception {
+		pool.setMaxSize(0);
+		X2JUtils.getXmlFromString("<a/>");
+		X2JUtils.getXmlFromString("<a/>");
+		assertEquals(pool.getIdleBuilders(), 0);
+		assertEquals(pool.getReused(), 0);
+		assertEquals(pool.getCreated(), 2);
+		assertEquals(pool.getDiscarded(), 2);
+	}
+
+	@Test
+	public void testBuilderIsReleasedOnParseError() throws Exception {
+		pool.setMaxSize(0);
+		pool.setMaxSize(1);
+		assertThrows(X2JException.class, () -> X2JUtils.getXmlFromString("<a>"));
+		assertEquals(pool.getIdleBuilders(), 1);
+		Document document = X2JUtils.getXmlFromString("<a>ok</a>");
+		assertEquals(document.getDocumentElement().getTextContent(), "ok");
+		assertEquals(pool.getReused(), 1);
+	}
+
+	@Test
+	public void testConcurrentUse() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 64; i++) {
+				final int id = i;
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < 20; j++) {
+						String xml = "<r id=\"" + id + "\"><v>" + j + "</v></r>";
+						if (!X2JUtils.getString(X2JUtils.getXmlFromString(xml)).equals(xml)) {
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue(pool.getCreated() <= 2 * 8 + pool.getDiscarded());
+		assertTrue(pool.getReused() > 0);
+		assertTrue(pool.getIdleBuilders() <= pool.getMaxSize());
+	}
+
+}